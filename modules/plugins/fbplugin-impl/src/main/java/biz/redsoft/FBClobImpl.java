@@ -18,12 +18,14 @@ import java.sql.SQLException;
 public class FBClobImpl implements IFBClob {
     DatabaseParameterBuffer buffer;
     FirebirdBlob detached = null;
+    long length = 0;
 
     @Override
     public void detach(Clob clob) throws SQLException {
         FBClob fbClob = (FBClob) clob;
         detached = fbClob.getWrappedBlob().detach();
         buffer = ((FBBlob) detached).getGdsHelper().getDatabaseParameterBuffer();
+        length = detached.length();
     }
 
     @Override
@@ -35,4 +37,9 @@ public class FBClobImpl implements IFBClob {
         }
         return detached.getBinaryStream();
     }
+
+    @Override
+    public long length() {
+        return length;
+    }
 }
@@ -62,6 +62,30 @@ public final class UserPreferencesManager {
                 Constants.USER_PROPERTIES_KEY, "editor.results.tabs.single");
     }
     
+    public static boolean isResultSetPaged() {
+
+        return SystemProperties.getBooleanProperty(
+                Constants.USER_PROPERTIES_KEY, "editor.results.paged");
+    }
+
+    public static int getResultSetFetchSize() {
+
+        return SystemProperties.getIntProperty(
+                Constants.USER_PROPERTIES_KEY, "editor.results.fetch.size");
+    }
+
+    public static boolean isResultSetLobLazy() {
+
+        return SystemProperties.getBooleanProperty(
+                Constants.USER_PROPERTIES_KEY, "results.table.lob.lazy");
+    }
+
+    public static int getResultSetLobCacheSize() {
+
+        return SystemProperties.getIntProperty(
+                Constants.USER_PROPERTIES_KEY, "results.table.lob.cache.size");
+    }
+
     public static boolean doubleClickOpenItemView() {
 
         return SystemProperties.getBooleanProperty(
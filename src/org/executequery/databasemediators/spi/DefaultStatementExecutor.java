@@ -1519,6 +1519,12 @@ public class DefaultStatementExecutor implements StatementExecutor {
 
     }
 
+    @Override
+    public void detachCurrentStatement() {
+
+        stmnt = null;
+    }
+
     @Override
     public void setDatabaseConnection(DatabaseConnection _databaseConnection) {
         if (databaseConnection != _databaseConnection) {
@@ -108,6 +108,13 @@ public interface StatementExecutor {
     /** Releases database resources held by this class. */
     void releaseResources();
 
+    /**
+     * Releases the current statement from this executor so that it is
+     * not closed on <code>releaseResources()</code>. The caller becomes
+     * responsible for closing the statement.
+     */
+    void detachCurrentStatement();
+
     void setDatabaseConnection(DatabaseConnection _databaseConnection);
 
     DatabaseConnection getDatabaseConnection();
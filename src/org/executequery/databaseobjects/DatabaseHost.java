@@ -28,6 +28,7 @@ import java.util.Map;
 
 import org.executequery.databasemediators.DatabaseConnection;
 import org.executequery.databaseobjects.impl.ColumnInformation;
+import org.executequery.databaseobjects.impl.SchemaSnapshot;
 import org.underworldlabs.jdbc.DataSourceException;
 
 /**
@@ -279,5 +280,16 @@ public interface DatabaseHost extends NamedObject {
 
     Connection getTemporaryConnection();
 
+    /**
+     * Returns the bulk loaded relations of this host or null
+     * where not available for the connected database.
+     */
+    SchemaSnapshot getSchemaSnapshot();
+
+    /**
+     * Marks the schema snapshot to be checked for changes on next access.
+     */
+    void resetSchemaSnapshot();
+
 }
 
@@ -20,9 +20,6 @@
 
 package org.executequery.databaseobjects.impl;
 
-import java.net.MalformedURLException;
-import java.net.URL;
-import java.net.URLClassLoader;
 import java.sql.DatabaseMetaData;
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -33,8 +30,8 @@ import org.executequery.databaseobjects.DatabaseExecutable;
 import org.executequery.databaseobjects.DatabaseMetaTag;
 import org.executequery.databaseobjects.NamedObject;
 import org.executequery.databaseobjects.ProcedureParameter;
+import org.executequery.datasource.FBPluginRegistry;
 import org.underworldlabs.jdbc.DataSourceException;
-import org.underworldlabs.util.MiscUtils;
 
 /**
  *
@@ -281,26 +278,11 @@ public class DefaultDatabaseExecutable extends AbstractDatabaseObject
             DatabaseMetaData dmd = getMetaTagParent().getHost().getDatabaseMetaData();
             if (this.getHost().getDatabaseConnection().getJDBCDriver().getClassName().contains("FBDriver")) {
 
-                URL[] urls = new URL[0];
-                Class clazzdb = null;
-                Object odb = null;
                 try {
-                    urls = MiscUtils.loadURLs("./lib/fbplugin-impl.jar");
-                    ClassLoader cl = new URLClassLoader(urls, dmd.getClass().getClassLoader());
-                    clazzdb = cl.loadClass("biz.redsoft.FBDatabaseMetadataImpl");
-                    odb = clazzdb.newInstance();
-                    IFBDatabaseMetadata db = (IFBDatabaseMetadata)odb;
+                    IFBDatabaseMetadata db = FBPluginRegistry.createDatabaseMetadata(dmd);
 
                     procedureSourceCode = db.getProcedureSourceCode(dmd, getName());
 
-                } catch (IllegalAccessException e) {
-                    e.printStackTrace();
-                } catch (InstantiationException e) {
-                    e.printStackTrace();
-                } catch (MalformedURLException e) {
-                    e.printStackTrace();
-                } catch (ClassNotFoundException e) {
-                    e.printStackTrace();
                 } catch (SQLException e) {
                     e.printStackTrace();
                 }
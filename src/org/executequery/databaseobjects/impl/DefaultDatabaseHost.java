@@ -70,6 +70,15 @@ public class DefaultDatabaseHost extends AbstractNamedObject
     /** the schemas of this host */
     private List<DatabaseSchema> schemas;
 
+    /** the relations of this host as loaded in bulk */
+    private transient SchemaSnapshot schemaSnapshot;
+
+    /** whether the schema snapshot is to be checked for changes */
+    private transient boolean schemaSnapshotStale;
+
+    /** whether the schema snapshot is not available for this host */
+    private transient boolean schemaSnapshotUnavailable;
+
     /**
      * Creates a new instance of DefaultDatabaseHost with the
      * specifiec database connection wrapper.
@@ -109,10 +118,84 @@ public class DefaultDatabaseHost extends AbstractNamedObject
             catalogs = null;
             databaseMetaData = null;
             connection = null;
+            schemaSnapshot = null;
+            resetSchemaSnapshot();
         }
 
     }
 
+    /**
+     * Returns the schema snapshot of this host, loading it on first
+     * access. Only Firebird connections have a snapshot - null is
+     * returned for any other or where it fails to load.
+     * <p/>
+     * The snapshot starts from that cached by the last connection and
+     * is saved again whenever a section of it is found changed.
+     *
+     * @return the schema snapshot or null
+     */
+    public synchronized SchemaSnapshot getSchemaSnapshot() {
+
+        if ((schemaSnapshot != null && !schemaSnapshotStale)
+                || schemaSnapshotUnavailable || !isConnected()) {
+
+            return schemaSnapshot;
+        }
+
+        try {
+
+            Connection connection = getDatabaseMetaData().getConnection();
+            if (SchemaSnapshot.isSupported(connection)) {
+
+                SchemaSnapshotCache cache = new SchemaSnapshotCache(getDatabaseConnection());
+                SchemaSnapshot previous = schemaSnapshot != null ? schemaSnapshot : cache.read();
+
+                long start = System.currentTimeMillis();
+                schemaSnapshot = SchemaSnapshot.load(connection, previous);
+                schemaSnapshotStale = false;
+
+                if (schemaSnapshot.isChanged()) {
+
+                    cache.write(schemaSnapshot);
+                }
+
+                if (Log.isDebugEnabled()) {
+
+                    Log.debug("Schema snapshot loaded for connection " + getDatabaseConnection()
+                            + " in " + (System.currentTimeMillis() - start) + "ms");
+                }
+
+            } else {
+
+                schemaSnapshotUnavailable = true;
+            }
+
+        } catch (SQLException e) {
+
+            schemaSnapshot = null;
+            schemaSnapshotUnavailable = true;
+            Log.error("Schema snapshot not available - driver returned: " + e.getMessage());
+
+        } catch (DataSourceException e) {
+
+            schemaSnapshot = null;
+            schemaSnapshotUnavailable = true;
+            Log.error("Schema snapshot not available - " + e.getMessage());
+        }
+
+        return schemaSnapshot;
+    }
+
+    /**
+     * Marks the schema snapshot of this host to be checked for changes
+     * on next access - reloading only the sections changed.
+     */
+    public synchronized void resetSchemaSnapshot() {
+
+        schemaSnapshotStale = true;
+        schemaSnapshotUnavailable = false;
+    }
+
     /**
      * Closes the connection associated with this host.
      */
@@ -278,7 +361,13 @@ public class DefaultDatabaseHost extends AbstractNamedObject
 
     @SuppressWarnings("resource")
     public boolean hasTablesForType(String catalog, String schema, String type) {
-        
+
+        SchemaSnapshot snapshot = getSchemaSnapshot();
+        if (snapshot != null && SchemaSnapshot.isRelationType(type)) {
+
+            return snapshot.hasRelations(type);
+        }
+
         ResultSet rs = null;
         try {
             String _catalog = getCatalogNameForQueries(catalog);
@@ -326,6 +415,12 @@ public class DefaultDatabaseHost extends AbstractNamedObject
     public List<NamedObject> getTables(String catalog, String schema, String type)
         throws DataSourceException {
 
+        SchemaSnapshot snapshot = getSchemaSnapshot();
+        if (snapshot != null && SchemaSnapshot.isRelationType(type)) {
+
+            return tablesFromSnapshot(snapshot, catalog, schema, type);
+        }
+
         ResultSet rs = null;
         try {
             String _catalog = getCatalogNameForQueries(catalog);
@@ -387,6 +482,24 @@ public class DefaultDatabaseHost extends AbstractNamedObject
 
     }
 
+    private List<NamedObject> tablesFromSnapshot(SchemaSnapshot snapshot,
+            String catalog, String schema, String type) {
+
+        List<String> names = snapshot.getRelationNames(type);
+        List<NamedObject> tables = new ArrayList<NamedObject>(names.size());
+        for (String name : names) {
+
+            DefaultDatabaseObject object = new DefaultDatabaseObject(this, type);
+            object.setCatalogName(catalog);
+            object.setSchemaName(schema);
+            object.setName(name);
+            object.setRemarks(snapshot.getRemarks(name));
+            tables.add(object);
+        }
+
+        return tables;
+    }
+
     private DatabaseSchema getSchema(String name) throws DataSourceException {
 
         if (name != null) {
@@ -673,6 +786,12 @@ public class DefaultDatabaseHost extends AbstractNamedObject
     public List<DatabaseColumn> getColumns(String catalog, String schema, String table)
         throws DataSourceException {
 
+        SchemaSnapshot snapshot = getSchemaSnapshot();
+        if (snapshot != null && snapshot.containsRelation(table)) {
+
+            return snapshot.getColumns(catalog, schema, table);
+        }
+
         ResultSet rs = null;
 
         List<DatabaseColumn> columns = new ArrayList<DatabaseColumn>();
@@ -1295,6 +1414,14 @@ public class DefaultDatabaseHost extends AbstractNamedObject
         return null;
     }
 
+    /**
+     * Override to have the schema snapshot checked for changes.
+     */
+    public void reset() {
+        super.reset();
+        resetSchemaSnapshot();
+    }
+
     private ConnectionMediator connectionMediator() {
         return ConnectionMediator.getInstance();
     }
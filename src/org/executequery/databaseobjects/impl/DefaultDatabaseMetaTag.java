@@ -582,6 +582,12 @@ public class DefaultDatabaseMetaTag extends AbstractNamedObject
 
     private boolean hasIndices() {
 
+        SchemaSnapshot snapshot = getHost().getSchemaSnapshot();
+        if (snapshot != null) {
+
+            return !snapshot.getUserIndices().isEmpty();
+        }
+
         ResultSet rs = null;
         try {
 
@@ -876,6 +882,25 @@ public class DefaultDatabaseMetaTag extends AbstractNamedObject
      */
     private List<NamedObject> getIndices() throws DataSourceException {
 
+        SchemaSnapshot snapshot = getHost().getSchemaSnapshot();
+        if (snapshot != null) {
+
+            List<NamedObject> list = new ArrayList<NamedObject>();
+            for (SchemaSnapshot.Index i : snapshot.getUserIndices()) {
+
+                DefaultDatabaseIndex index = new DefaultDatabaseIndex(i.getName());
+                index.setTableName(i.getRelationName());
+                index.setIndexType(i.getIndexType());
+                index.setActive(!i.isInactive());
+                index.setUnique(i.isUnique());
+                index.setRemarks(i.getRemarks());
+                index.setHost(this.getHost());
+                list.add(index);
+            }
+
+            return list;
+        }
+
         ResultSet rs = null;
         try {
 
@@ -1689,6 +1714,16 @@ public class DefaultDatabaseMetaTag extends AbstractNamedObject
         return metaDataKey;
     }
 
+    /**
+     * Override to have the schema snapshot of the host checked for changes.
+     */
+    public void reset() {
+        super.reset();
+        if (host != null) {
+            host.resetSchemaSnapshot();
+        }
+    }
+
     /**
      * Does nothing.
      */
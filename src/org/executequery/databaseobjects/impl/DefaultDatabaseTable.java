@@ -258,6 +258,13 @@ public class DefaultDatabaseTable extends DefaultDatabaseObject implements Datab
                         columns.add(new DatabaseTableColumn(this, i));
                     }
 
+                    SchemaSnapshot snapshot = host.getSchemaSnapshot();
+                    if (snapshot != null && snapshot.containsRelation(getName())) {
+
+                        addKeyConstraints(snapshot);
+                        return columns;
+                    }
+
                     // reload and define the constraints
                     String _catalog = host.getCatalogNameForQueries(getCatalogName());
                     String _schema = host.getSchemaNameForQueries(getSchemaName());
@@ -347,6 +354,42 @@ public class DefaultDatabaseTable extends DefaultDatabaseObject implements Datab
         return columns;
     }
 
+    private void addKeyConstraints(SchemaSnapshot snapshot) {
+
+        for (SchemaSnapshot.KeyColumn key : snapshot.getKeyColumns(getName())) {
+
+            for (DatabaseColumn i : columns) {
+
+                if (i.getName().equalsIgnoreCase(key.getFieldName())) {
+
+                    DatabaseTableColumn column = (DatabaseTableColumn) i;
+
+                    TableColumnConstraint constraint;
+                    if (key.isPrimaryKey()) {
+
+                        constraint = new TableColumnConstraint(column, ColumnConstraint.PRIMARY_KEY);
+
+                    } else {
+
+                        constraint = new TableColumnConstraint(column, ColumnConstraint.FOREIGN_KEY);
+                        constraint.setReferencedTable(key.getReferencedRelationName());
+                        constraint.setReferencedColumn(key.getReferencedFieldName());
+                        constraint.setUpdateRule(key.getUpdateRule());
+                        constraint.setDeleteRule(key.getDeleteRule());
+                        constraint.setDeferrability(key.getDeferrability());
+                    }
+
+                    constraint.setName(key.getName());
+                    constraint.setMetaData(key.getMetaData());
+                    column.addConstraint(constraint);
+                    break;
+
+                }
+            }
+        }
+
+    }
+
     private List<DatabaseColumn> databaseColumnListWithSize(int size) {
 
         return Collections.synchronizedList(new ArrayList<DatabaseColumn>(size));
@@ -387,6 +430,19 @@ public class DefaultDatabaseTable extends DefaultDatabaseObject implements Datab
                 }
 
             }
+            SchemaSnapshot snapshot = getHost().getSchemaSnapshot();
+            if (snapshot != null && snapshot.containsRelation(getName())) {
+
+                for (SchemaSnapshot.CheckConstraint check : snapshot.getCheckConstraints(getName())) {
+
+                    ColumnConstraint constraint = new TableColumnConstraint(check.getSource());
+                    constraint.setName(check.getName());
+                    constraints.add(constraint);
+                }
+
+                return constraints;
+            }
+
             DefaultStatementExecutor executor=new DefaultStatementExecutor(getHost().getDatabaseConnection(),true);
             SqlStatementResult result=null;
             try {
@@ -431,6 +487,28 @@ public class DefaultDatabaseTable extends DefaultDatabaseObject implements Datab
             return indexes;
         }
 
+        SchemaSnapshot snapshot = getHost().getSchemaSnapshot();
+        if (snapshot != null && snapshot.containsRelation(getName())) {
+
+            indexes = databaseIndexListWithSize(10);
+            for (SchemaSnapshot.Index i : snapshot.getIndices(getName())) {
+
+                for (String fieldName : i.getFieldNames()) {
+
+                    TableColumnIndex index = new TableColumnIndex(i.getName());
+
+                    index.setNonUnique(!i.isUnique());
+                    index.setIndexedColumn(fieldName);
+                    index.setMetaData(i.getMetaData(fieldName));
+
+                    indexes.add(index);
+                }
+            }
+
+            setMarkedForReload(false);
+            return indexes;
+        }
+
         ResultSet rs = null;
         try {
 
@@ -513,12 +591,20 @@ public class DefaultDatabaseTable extends DefaultDatabaseObject implements Datab
      */
     public void reset() {
         super.reset();
+        resetSchemaSnapshot();
         modifiedSQLText = null;
         clearColumns();
         clearIndexes();
         clearDataChanges();
     }
 
+    private void resetSchemaSnapshot() {
+        DatabaseHost host = getHost();
+        if (host != null) {
+            host.resetSchemaSnapshot();
+        }
+    }
+
     private void clearDataChanges() {
         if (tableDataChanges != null) {
             tableDataChanges.clear();
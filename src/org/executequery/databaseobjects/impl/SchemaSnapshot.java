@@ -0,0 +1,1167 @@
+/*
+ * SchemaSnapshot.java
+ *
+ * Copyright (C) 2002-2017 Takis Diakoumis
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.executequery.databaseobjects.impl;
+
+import java.io.Serializable;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.executequery.databaseobjects.DatabaseColumn;
+import org.executequery.log.Log;
+
+/**
+ * The relations of a Firebird database with their fields, keys, check
+ * constraints, indices and dependencies.
+ * <p/>
+ * The snapshot is loaded with one set-based query on the RDB$ system
+ * tables for each of these - in place of the DatabaseMetaData calls made
+ * per table - and is held indexed by relation name. Once loaded it is not
+ * modified and may be read from any thread.
+ * <p/>
+ * Each of these sections carries a signature - the row count and a sum
+ * of hashes of its system table rows, source and description blobs
+ * hashed by their content - all read with a single query. A
+ * snapshot loaded with a previous one, as cached from an earlier
+ * connection, takes over each section whose signature is unchanged and
+ * queries only those that changed.
+ */
+public final class SchemaSnapshot implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final String TABLE = "TABLE";
+
+    public static final String VIEW = "VIEW";
+
+    public static final String SYSTEM_TABLE = "SYSTEM TABLE";
+
+    public static final String GLOBAL_TEMPORARY = "GLOBAL TEMPORARY";
+
+    private static final String RELATIONS =
+            "select r.rdb$relation_name, " +
+            "case when r.rdb$relation_type = 0 or r.rdb$relation_type is null and r.rdb$view_blr is null " +
+            "then case when r.rdb$system_flag = 1 then '" + SYSTEM_TABLE + "' else '" + TABLE + "' end " +
+            "when r.rdb$relation_type = 1 or r.rdb$relation_type is null and r.rdb$view_blr is not null " +
+            "then '" + VIEW + "' " +
+            "when r.rdb$relation_type = 2 then '" + TABLE + "' " +
+            "when r.rdb$relation_type = 3 then '" + SYSTEM_TABLE + "' " +
+            "when r.rdb$relation_type in (4, 5) then '" + GLOBAL_TEMPORARY + "' end, " +
+            "r.rdb$description " +
+            "from rdb$relations r " +
+            "order by r.rdb$relation_name";
+
+    private static final String FIELDS =
+            "select rf.rdb$relation_name, rf.rdb$field_name, rf.rdb$field_source, " +
+            "f.rdb$field_type, f.rdb$field_sub_type, f.rdb$field_precision, f.rdb$field_scale, " +
+            "f.rdb$field_length, f.rdb$character_length, f.rdb$character_set_id, " +
+            "rf.rdb$description, rf.rdb$default_source, f.rdb$default_source, " +
+            "rf.rdb$null_flag, f.rdb$null_flag, " +
+            "case when f.rdb$computed_blr is null then 0 else 1 end, f.rdb$computed_source " +
+            "from rdb$relation_fields rf " +
+            "join rdb$fields f on f.rdb$field_name = rf.rdb$field_source " +
+            "order by rf.rdb$relation_name, rf.rdb$field_position";
+
+    private static final String KEYS =
+            "select rc.rdb$relation_name, rc.rdb$constraint_name, rc.rdb$constraint_type, " +
+            "s.rdb$field_name, s.rdb$field_position, " +
+            "uq.rdb$constraint_name, uq.rdb$relation_name, us.rdb$field_name, " +
+            "ref.rdb$update_rule, ref.rdb$delete_rule " +
+            "from rdb$relation_constraints rc " +
+            "join rdb$index_segments s on s.rdb$index_name = rc.rdb$index_name " +
+            "left join rdb$ref_constraints ref on ref.rdb$constraint_name = rc.rdb$constraint_name " +
+            "left join rdb$relation_constraints uq on uq.rdb$constraint_name = ref.rdb$const_name_uq " +
+            "left join rdb$index_segments us on us.rdb$index_name = uq.rdb$index_name " +
+            "and us.rdb$field_position = s.rdb$field_position " +
+            "where rc.rdb$constraint_type in ('PRIMARY KEY', 'FOREIGN KEY') " +
+            "order by rc.rdb$relation_name, rc.rdb$constraint_type desc, " +
+            "rc.rdb$constraint_name, s.rdb$field_position";
+
+    private static final String CHECKS =
+            "select distinct t.rdb$relation_name, c.rdb$constraint_name, t.rdb$trigger_source " +
+            "from rdb$check_constraints c " +
+            "join rdb$triggers t on t.rdb$trigger_name = c.rdb$trigger_name";
+
+    private static final String INDICES =
+            "select i.rdb$index_name, i.rdb$relation_name, i.rdb$system_flag, i.rdb$index_type, " +
+            "i.rdb$unique_flag, i.rdb$index_inactive, i.rdb$description, i.rdb$expression_source, " +
+            "s.rdb$field_name " +
+            "from rdb$indices i " +
+            "left join rdb$index_segments s on s.rdb$index_name = i.rdb$index_name " +
+            "order by i.rdb$index_name, s.rdb$field_position";
+
+    private static final String DEPENDENCIES =
+            "select distinct d.rdb$dependent_name, d.rdb$depended_on_name " +
+            "from rdb$dependencies d";
+
+    private enum Section {
+
+        RELATIONS(SchemaSnapshot.RELATIONS,
+                "rdb$relations r",
+                "r.rdb$relation_name || '|' || coalesce(r.rdb$relation_type, -1) || '|' || " +
+                "coalesce(r.rdb$system_flag, 0) || '|' || coalesce(hash(r.rdb$description), -1)"),
+
+        FIELDS(SchemaSnapshot.FIELDS,
+                "rdb$relation_fields rf join rdb$fields f on f.rdb$field_name = rf.rdb$field_source",
+                "rf.rdb$relation_name || '|' || rf.rdb$field_name || '|' || rf.rdb$field_source || '|' || " +
+                "coalesce(rf.rdb$field_position, -1) || '|' || coalesce(rf.rdb$null_flag, 0) || '|' || " +
+                "coalesce(hash(rf.rdb$default_source), -1) || '|' || " +
+                "coalesce(hash(rf.rdb$description), -1) || '|' || " +
+                "f.rdb$field_type || '|' || coalesce(f.rdb$field_sub_type, 0) || '|' || " +
+                "coalesce(f.rdb$field_precision, 0) || '|' || coalesce(f.rdb$field_scale, 0) || '|' || " +
+                "coalesce(f.rdb$field_length, 0) || '|' || coalesce(f.rdb$character_length, -1) || '|' || " +
+                "coalesce(f.rdb$character_set_id, -1) || '|' || coalesce(f.rdb$null_flag, 0) || '|' || " +
+                "coalesce(hash(f.rdb$default_source), -1) || '|' || " +
+                "coalesce(hash(f.rdb$computed_source), -1)"),
+
+        KEYS(SchemaSnapshot.KEYS,
+                "rdb$relation_constraints rc " +
+                "join rdb$index_segments s on s.rdb$index_name = rc.rdb$index_name " +
+                "left join rdb$ref_constraints ref on ref.rdb$constraint_name = rc.rdb$constraint_name",
+                "rc.rdb$relation_name || '|' || rc.rdb$constraint_name || '|' || rc.rdb$constraint_type || '|' || " +
+                "s.rdb$field_name || '|' || coalesce(s.rdb$field_position, -1) || '|' || " +
+                "coalesce(ref.rdb$const_name_uq, '') || '|' || coalesce(ref.rdb$update_rule, '') || '|' || " +
+                "coalesce(ref.rdb$delete_rule, '')"),
+
+        CHECKS(SchemaSnapshot.CHECKS,
+                "rdb$check_constraints c",
+                "c.rdb$constraint_name || '|' || coalesce(c.rdb$trigger_name, '')"),
+
+        INDICES(SchemaSnapshot.INDICES,
+                "rdb$indices i left join rdb$index_segments s on s.rdb$index_name = i.rdb$index_name",
+                "i.rdb$index_name || '|' || i.rdb$relation_name || '|' || coalesce(i.rdb$system_flag, -1) || '|' || " +
+                "coalesce(i.rdb$index_type, 0) || '|' || coalesce(i.rdb$unique_flag, 0) || '|' || " +
+                "coalesce(i.rdb$index_inactive, 0) || '|' || coalesce(hash(i.rdb$description), -1) || '|' || " +
+                "coalesce(hash(i.rdb$expression_source), -1) || '|' || " +
+                "coalesce(s.rdb$field_name, '') || '|' || coalesce(s.rdb$field_position, -1)"),
+
+        DEPENDENCIES(SchemaSnapshot.DEPENDENCIES,
+                "rdb$dependencies d",
+                "d.rdb$dependent_name || '|' || d.rdb$depended_on_name || '|' || " +
+                "coalesce(d.rdb$field_name, '') || '|' || d.rdb$dependent_type");
+
+        private final String query;
+
+        private final String signature;
+
+        private Section(String query, String from, String row) {
+
+            this.query = query;
+            this.signature = "(select count(*) || ':' || " +
+                    "coalesce(sum(mod(hash(" + row + "), 2147483647)), 0) from " + from + ")";
+        }
+
+    }
+
+    private static final String PRIMARY_KEY = "PRIMARY KEY";
+
+    private static final String DEFAULT = "DEFAULT";
+
+    private static final int OCTETS = 1;
+
+    private final Map<Section, String> signatures = new EnumMap<Section, String>(Section.class);
+
+    private Map<String, Relation> relations = new LinkedHashMap<String, Relation>();
+
+    private Map<String, List<Field>> fields = new HashMap<String, List<Field>>();
+
+    private Map<String, List<KeyColumn>> keys = new HashMap<String, List<KeyColumn>>();
+
+    private Map<String, List<CheckConstraint>> checks = new HashMap<String, List<CheckConstraint>>();
+
+    private Map<String, Index> indices = new LinkedHashMap<String, Index>();
+
+    private Map<String, List<Index>> relationIndices = new HashMap<String, List<Index>>();
+
+    private Map<String, List<String>> dependencies = new HashMap<String, List<String>>();
+
+    private Map<String, List<String>> dependents = new HashMap<String, List<String>>();
+
+    /** whether any section was queried rather than taken over */
+    private transient boolean changed;
+
+    private SchemaSnapshot() {}
+
+    /**
+     * Returns whether a snapshot may be loaded using the specified
+     * connection - that is whether it is a Firebird connection.
+     */
+    public static boolean isSupported(Connection connection) {
+
+        return connection != null
+                && connection.getClass().getName().contains("FBConnection");
+    }
+
+    /**
+     * Returns whether the specified table type is one the snapshot
+     * holds relations of.
+     */
+    public static boolean isRelationType(String type) {
+
+        return TABLE.equalsIgnoreCase(type)
+                || VIEW.equalsIgnoreCase(type)
+                || SYSTEM_TABLE.equalsIgnoreCase(type)
+                || GLOBAL_TEMPORARY.equalsIgnoreCase(type);
+    }
+
+    /**
+     * Loads the snapshot of the database of the specified connection,
+     * taking over the unchanged sections of a previous snapshot.
+     *
+     * @param connection an open Firebird connection
+     * @param previous a previous snapshot of the database or null
+     * @return the loaded snapshot
+     */
+    public static SchemaSnapshot load(Connection connection, SchemaSnapshot previous)
+        throws SQLException {
+
+        SchemaSnapshot snapshot = new SchemaSnapshot();
+
+        Statement statement = connection.createStatement();
+        try {
+
+            snapshot.loadSignatures(statement);
+            for (Section section : Section.values()) {
+
+                if (previous != null
+                        && previous.isCurrent(section, snapshot.signatures.get(section))) {
+
+                    snapshot.takeOver(section, previous);
+                    continue;
+                }
+
+                ResultSet rs = statement.executeQuery(section.query);
+                try {
+
+                    snapshot.load(section, rs);
+
+                } finally {
+
+                    rs.close();
+                }
+
+                snapshot.changed = true;
+                if (previous != null) {
+
+                    Log.debug("Schema snapshot section " + section + " has changed");
+                }
+
+            }
+
+        } finally {
+
+            statement.close();
+        }
+
+        return snapshot;
+    }
+
+    /**
+     * Returns whether any section of this snapshot was queried when
+     * loaded rather than taken over from the previous snapshot.
+     */
+    public boolean isChanged() {
+
+        return changed;
+    }
+
+    private boolean isCurrent(Section section, String signature) {
+
+        return signature != null && signature.equals(signatures.get(section));
+    }
+
+    private void loadSignatures(Statement statement) {
+
+        StringBuilder sb = new StringBuilder("select ");
+        for (Section section : Section.values()) {
+
+            if (section.ordinal() > 0) {
+
+                sb.append(", ");
+            }
+            sb.append(section.signature);
+        }
+        sb.append(" from rdb$database");
+
+        try {
+
+            ResultSet rs = statement.executeQuery(sb.toString());
+            try {
+
+                if (rs.next()) {
+
+                    for (Section section : Section.values()) {
+
+                        signatures.put(section, rs.getString(section.ordinal() + 1));
+                    }
+
+                }
+
+            } finally {
+
+                rs.close();
+            }
+
+        } catch (SQLException e) {
+
+            // without signatures every section is queried
+            Log.debug("Schema snapshot signatures not available - driver returned: " + e.getMessage());
+        }
+
+    }
+
+    private void takeOver(Section section, SchemaSnapshot previous) {
+
+        switch (section) {
+
+            case RELATIONS:
+                relations = previous.relations;
+                break;
+            case FIELDS:
+                fields = previous.fields;
+                break;
+            case KEYS:
+                keys = previous.keys;
+                break;
+            case CHECKS:
+                checks = previous.checks;
+                break;
+            case INDICES:
+                indices = previous.indices;
+                relationIndices = previous.relationIndices;
+                break;
+            case DEPENDENCIES:
+                dependencies = previous.dependencies;
+                dependents = previous.dependents;
+                break;
+        }
+
+    }
+
+    private void load(Section section, ResultSet rs) throws SQLException {
+
+        switch (section) {
+
+            case RELATIONS:
+                loadRelations(rs);
+                break;
+            case FIELDS:
+                loadFields(rs);
+                break;
+            case KEYS:
+                loadKeys(rs);
+                break;
+            case CHECKS:
+                loadChecks(rs);
+                break;
+            case INDICES:
+                loadIndices(rs);
+                break;
+            case DEPENDENCIES:
+                loadDependencies(rs);
+                break;
+        }
+
+    }
+
+    /**
+     * Returns whether the snapshot holds the specified relation.
+     */
+    public boolean containsRelation(String name) {
+
+        return name != null && relations.containsKey(name);
+    }
+
+    /**
+     * Returns whether the snapshot holds any relation of the specified type.
+     */
+    public boolean hasRelations(String type) {
+
+        for (Relation relation : relations.values()) {
+
+            if (type.equalsIgnoreCase(relation.type)) {
+
+                return true;
+            }
+
+        }
+
+        return false;
+    }
+
+    /**
+     * Returns the names of the relations of the specified type, in name order.
+     */
+    public List<String> getRelationNames(String type) {
+
+        List<String> names = new ArrayList<String>();
+        for (Relation relation : relations.values()) {
+
+            if (type.equalsIgnoreCase(relation.type)) {
+
+                names.add(relation.name);
+            }
+
+        }
+
+        return names;
+    }
+
+    /**
+     * Returns the description of the specified relation.
+     */
+    public String getRemarks(String relationName) {
+
+        Relation relation = relations.get(relationName);
+        return relation != null ? relation.remarks : null;
+    }
+
+    /**
+     * Returns the columns of the specified relation as would be built from
+     * <code>DatabaseMetaData.getColumns</code> with the primary and foreign
+     * key flags set. New column objects are returned on each call.
+     *
+     * @param catalog the catalog name set on the columns
+     * @param schema the schema name set on the columns
+     * @param relationName the relation name
+     * @return the columns - empty if the relation is not held
+     */
+    public List<DatabaseColumn> getColumns(String catalog, String schema, String relationName) {
+
+        List<Field> relationFields = listFor(fields, relationName);
+        List<KeyColumn> relationKeys = listFor(keys, relationName);
+
+        List<DatabaseColumn> columns = new ArrayList<DatabaseColumn>(relationFields.size());
+        for (Field field : relationFields) {
+
+            DefaultDatabaseColumn column = field.toColumn();
+            column.setCatalogName(catalog);
+            column.setSchemaName(schema);
+
+            for (KeyColumn key : relationKeys) {
+
+                if (key.fieldName.equals(field.name)) {
+
+                    if (key.isPrimaryKey()) {
+
+                        column.setPrimaryKey(true);
+
+                    } else {
+
+                        column.setForeignKey(true);
+                    }
+
+                }
+
+            }
+
+            columns.add(column);
+        }
+
+        return columns;
+    }
+
+    /**
+     * Returns the primary and foreign key columns of the specified relation.
+     */
+    List<KeyColumn> getKeyColumns(String relationName) {
+
+        return listFor(keys, relationName);
+    }
+
+    /**
+     * Returns the check constraints of the specified relation.
+     */
+    List<CheckConstraint> getCheckConstraints(String relationName) {
+
+        return listFor(checks, relationName);
+    }
+
+    /**
+     * Returns the indices of the specified relation - unique indices
+     * first, each in name order - as reported by
+     * <code>DatabaseMetaData.getIndexInfo</code>.
+     */
+    List<Index> getIndices(String relationName) {
+
+        List<Index> indexes = listFor(relationIndices, relationName);
+
+        List<Index> list = new ArrayList<Index>(indexes.size());
+        for (Index index : indexes) {
+
+            if (index.isUnique()) {
+
+                list.add(index);
+            }
+
+        }
+
+        for (Index index : indexes) {
+
+            if (!index.isUnique()) {
+
+                list.add(index);
+            }
+
+        }
+
+        return list;
+    }
+
+    /**
+     * Returns the indices not defined by the system, in name order.
+     */
+    List<Index> getUserIndices() {
+
+        List<Index> list = new ArrayList<Index>();
+        for (Index index : indices.values()) {
+
+            if (!index.isSystem()) {
+
+                list.add(index);
+            }
+
+        }
+
+        return list;
+    }
+
+    /**
+     * Returns the names of the objects the specified object depends on.
+     */
+    public List<String> getDependencies(String name) {
+
+        return listFor(dependencies, name);
+    }
+
+    /**
+     * Returns the names of the objects that depend on the specified object.
+     */
+    public List<String> getDependents(String name) {
+
+        return listFor(dependents, name);
+    }
+
+    private static <T> List<T> listFor(Map<String, List<T>> map, String name) {
+
+        List<T> list = map.get(name);
+        if (list == null) {
+
+            return Collections.emptyList();
+        }
+
+        return Collections.unmodifiableList(list);
+    }
+
+    private static <T> void addTo(Map<String, List<T>> map, String name, T value) {
+
+        List<T> list = map.get(name);
+        if (list == null) {
+
+            list = new ArrayList<T>();
+            map.put(name, list);
+        }
+
+        list.add(value);
+    }
+
+    private void loadRelations(ResultSet rs) throws SQLException {
+
+        while (rs.next()) {
+
+            Relation relation = new Relation();
+            relation.name = trimmed(rs, 1);
+            relation.type = trimmed(rs, 2);
+            relation.remarks = rs.getString(3);
+
+            relations.put(relation.name, relation);
+        }
+
+    }
+
+    private void loadFields(ResultSet rs) throws SQLException {
+
+        while (rs.next()) {
+
+            Field field = new Field();
+            field.name = trimmed(rs, 2);
+            field.source = trimmed(rs, 3);
+            field.fieldType = rs.getInt(4);
+            field.subType = rs.getInt(5);
+            field.precision = rs.getInt(6);
+            field.scale = rs.getInt(7);
+            field.length = rs.getInt(8);
+            field.characterLength = rs.getInt(9);
+            if (rs.wasNull()) {
+
+                field.characterLength = -1;
+            }
+            field.characterSet = rs.getInt(10);
+            field.remarks = rs.getString(11);
+            field.defaultValue = defaultValue(rs.getString(12), rs.getString(13));
+            field.required = rs.getInt(14) == 1 || rs.getInt(15) == 1;
+            field.computed = rs.getInt(16) == 1;
+            field.computedSource = rs.getString(17);
+
+            addTo(fields, trimmed(rs, 1), field);
+        }
+
+    }
+
+    private void loadKeys(ResultSet rs) throws SQLException {
+
+        while (rs.next()) {
+
+            KeyColumn key = new KeyColumn();
+            key.relationName = trimmed(rs, 1);
+            key.name = trimmed(rs, 2);
+            key.type = trimmed(rs, 3);
+            key.fieldName = trimmed(rs, 4);
+            key.position = rs.getInt(5) + 1;
+            key.referencedKeyName = trimmed(rs, 6);
+            key.referencedRelationName = trimmed(rs, 7);
+            key.referencedFieldName = trimmed(rs, 8);
+            key.updateRule = rule(trimmed(rs, 9));
+            key.deleteRule = rule(trimmed(rs, 10));
+
+            addTo(keys, key.relationName, key);
+        }
+
+    }
+
+    private void loadChecks(ResultSet rs) throws SQLException {
+
+        while (rs.next()) {
+
+            CheckConstraint check = new CheckConstraint();
+            check.name = trimmed(rs, 2);
+            check.source = rs.getString(3);
+
+            addTo(checks, trimmed(rs, 1), check);
+        }
+
+    }
+
+    private void loadIndices(ResultSet rs) throws SQLException {
+
+        while (rs.next()) {
+
+            String name = trimmed(rs, 1);
+
+            Index index = indices.get(name);
+            if (index == null) {
+
+                index = new Index();
+                index.name = name;
+                index.relationName = trimmed(rs, 2);
+                index.system = rs.getInt(3) != 0 || rs.wasNull();
+                index.indexType = rs.getInt(4);
+                index.unique = rs.getInt(5) == 1;
+                index.inactive = rs.getInt(6) == 1;
+                index.remarks = rs.getString(7);
+                index.expression = rs.getString(8);
+
+                indices.put(name, index);
+                addTo(relationIndices, index.relationName, index);
+            }
+
+            String fieldName = trimmed(rs, 9);
+            if (fieldName != null) {
+
+                index.fieldNames.add(fieldName);
+            }
+
+        }
+
+    }
+
+    private void loadDependencies(ResultSet rs) throws SQLException {
+
+        while (rs.next()) {
+
+            String dependent = trimmed(rs, 1);
+            String dependedOn = trimmed(rs, 2);
+
+            addTo(dependencies, dependent, dependedOn);
+            addTo(dependents, dependedOn, dependent);
+        }
+
+    }
+
+    private static String trimmed(ResultSet rs, int index) throws SQLException {
+
+        String value = rs.getString(index);
+        return value != null ? value.trim() : null;
+    }
+
+    private static String defaultValue(String fieldDefault, String domainDefault) {
+
+        String value = fieldDefault != null ? fieldDefault : domainDefault;
+        if (value == null) {
+
+            return null;
+        }
+
+        value = value.trim();
+        if (value.toUpperCase().startsWith(DEFAULT)) {
+
+            value = value.substring(DEFAULT.length()).trim();
+        }
+
+        return value;
+    }
+
+    private static short rule(String rule) {
+
+        if ("CASCADE".equals(rule)) {
+
+            return DatabaseMetaData.importedKeyCascade;
+
+        } else if ("SET NULL".equals(rule)) {
+
+            return DatabaseMetaData.importedKeySetNull;
+
+        } else if ("SET DEFAULT".equals(rule)) {
+
+            return DatabaseMetaData.importedKeySetDefault;
+        }
+
+        return DatabaseMetaData.importedKeyNoAction;
+    }
+
+    private static final class Relation implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private String name;
+        private String type;
+        private String remarks;
+    }
+
+    private static final class Field implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private String name;
+        private String source;
+        private int fieldType;
+        private int subType;
+        private int precision;
+        private int scale;
+        private int length;
+        private int characterLength;
+        private int characterSet;
+        private String remarks;
+        private String defaultValue;
+        private boolean required;
+        private boolean computed;
+        private String computedSource;
+
+        DefaultDatabaseColumn toColumn() {
+
+            int sqlType = sqlType();
+
+            DefaultDatabaseColumn column = new DefaultDatabaseColumn();
+            column.setName(name);
+            column.setTypeInt(sqlType);
+            column.setTypeName(typeName());
+            column.setColumnSize(columnSize(sqlType));
+            column.setColumnScale(isNumeric(sqlType) ? -scale : 0);
+            column.setRequired(required);
+            column.setRemarks(remarks);
+            column.setDefaultValue(defaultValue);
+
+            // a field of a domain takes the domain name
+            if (source != null && !source.regionMatches(true, 0, "rdb", 0, 3)) {
+
+                column.setComputedSource(source);
+            }
+
+            if (computed) {
+
+                column.setGenerated(true);
+                if (isCharacter(sqlType) && length != 0) {
+
+                    column.setColumnSize(length);
+                }
+                if (computedSource != null && !computedSource.isEmpty()) {
+
+                    column.setComputedSource(computedSource);
+                }
+
+            }
+
+            return column;
+        }
+
+        private boolean isNumeric(int sqlType) {
+
+            return sqlType == Types.NUMERIC || sqlType == Types.DECIMAL;
+        }
+
+        private boolean isCharacter(int sqlType) {
+
+            return sqlType == Types.CHAR || sqlType == Types.VARCHAR
+                    || sqlType == Types.BINARY || sqlType == Types.VARBINARY;
+        }
+
+        private int exactNumericType(int integerType) {
+
+            if (subType == 1 || (subType == 0 && scale < 0)) {
+
+                return Types.NUMERIC;
+
+            } else if (subType == 2) {
+
+                return Types.DECIMAL;
+            }
+
+            return integerType;
+        }
+
+        private int sqlType() {
+
+            switch (fieldType) {
+
+                case 7:
+                    return exactNumericType(Types.SMALLINT);
+                case 8:
+                    return exactNumericType(Types.INTEGER);
+                case 16:
+                    return exactNumericType(Types.BIGINT);
+                case 27:
+                    return exactNumericType(Types.DOUBLE);
+                case 10:
+                    return Types.FLOAT;
+                case 12:
+                    return Types.DATE;
+                case 13:
+                    return Types.TIME;
+                case 35:
+                    return Types.TIMESTAMP;
+                case 14:
+                    return characterSet == OCTETS ? Types.BINARY : Types.CHAR;
+                case 37:
+                    return characterSet == OCTETS ? Types.VARBINARY : Types.VARCHAR;
+                case 261:
+                    if (subType < 0) {
+
+                        return Types.BLOB;
+                    }
+                    return subType == 1 ? Types.LONGVARCHAR : Types.LONGVARBINARY;
+                case 23:
+                    return Types.BOOLEAN;
+                case 9:
+                    return Types.ARRAY;
+                default:
+                    return Types.OTHER;
+            }
+
+        }
+
+        private String typeName() {
+
+            switch (sqlType()) {
+
+                case Types.NUMERIC:
+                    return "NUMERIC";
+                case Types.DECIMAL:
+                    return "DECIMAL";
+                case Types.SMALLINT:
+                    return "SMALLINT";
+                case Types.INTEGER:
+                    return "INTEGER";
+                case Types.BIGINT:
+                    return "BIGINT";
+                case Types.DOUBLE:
+                    return "DOUBLE PRECISION";
+                case Types.FLOAT:
+                    return "FLOAT";
+                case Types.DATE:
+                    return "DATE";
+                case Types.TIME:
+                    return "TIME";
+                case Types.TIMESTAMP:
+                    return "TIMESTAMP";
+                case Types.CHAR:
+                case Types.BINARY:
+                    return "CHAR";
+                case Types.VARCHAR:
+                case Types.VARBINARY:
+                    return "VARCHAR";
+                case Types.BLOB:
+                    return "BLOB SUB_TYPE <0";
+                case Types.LONGVARCHAR:
+                case Types.LONGVARBINARY:
+                    return "BLOB SUB_TYPE " + subType;
+                case Types.BOOLEAN:
+                    return "BOOLEAN";
+                case Types.ARRAY:
+                    return "ARRAY";
+                default:
+                    return "NULL";
+            }
+
+        }
+
+        private int columnSize(int sqlType) {
+
+            switch (sqlType) {
+
+                case Types.NUMERIC:
+                case Types.DECIMAL:
+                    return precision;
+                case Types.CHAR:
+                case Types.VARCHAR:
+                case Types.BINARY:
+                case Types.VARBINARY:
+                    return characterLength != -1 ? characterLength : length;
+                case Types.FLOAT:
+                    return 7;
+                case Types.DOUBLE:
+                    return 15;
+                case Types.BIGINT:
+                    return 19;
+                case Types.INTEGER:
+                    return 10;
+                case Types.SMALLINT:
+                    return 5;
+                case Types.DATE:
+                    return 10;
+                case Types.TIME:
+                    return 8;
+                case Types.TIMESTAMP:
+                    return 19;
+                case Types.BOOLEAN:
+                    return 1;
+                default:
+                    return 0;
+            }
+
+        }
+
+    }
+
+    /**
+     * A column of a primary or foreign key.
+     */
+    static final class KeyColumn implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private String relationName;
+        private String name;
+        private String type;
+        private String fieldName;
+        private int position;
+        private String referencedKeyName;
+        private String referencedRelationName;
+        private String referencedFieldName;
+        private short updateRule;
+        private short deleteRule;
+
+        public String getName() {
+            return name;
+        }
+
+        public String getFieldName() {
+            return fieldName;
+        }
+
+        public boolean isPrimaryKey() {
+            return PRIMARY_KEY.equals(type);
+        }
+
+        public String getReferencedRelationName() {
+            return referencedRelationName;
+        }
+
+        public String getReferencedFieldName() {
+            return referencedFieldName;
+        }
+
+        public short getUpdateRule() {
+            return updateRule;
+        }
+
+        public short getDeleteRule() {
+            return deleteRule;
+        }
+
+        public short getDeferrability() {
+            return DatabaseMetaData.importedKeyNotDeferrable;
+        }
+
+        /**
+         * Returns the key column as the row of <code>getPrimaryKeys</code>
+         * or <code>getImportedKeys</code> that reports it.
+         */
+        public Map<String, String> getMetaData() {
+
+            Map<String, String> metaData = new HashMap<String, String>();
+            if (isPrimaryKey()) {
+
+                metaData.put("TABLE_CAT", null);
+                metaData.put("TABLE_SCHEM", null);
+                metaData.put("TABLE_NAME", relationName);
+                metaData.put("COLUMN_NAME", fieldName);
+                metaData.put("KEY_SEQ", String.valueOf(position));
+                metaData.put("PK_NAME", name);
+
+            } else {
+
+                metaData.put("PKTABLE_CAT", null);
+                metaData.put("PKTABLE_SCHEM", null);
+                metaData.put("PKTABLE_NAME", referencedRelationName);
+                metaData.put("PKCOLUMN_NAME", referencedFieldName);
+                metaData.put("FKTABLE_CAT", null);
+                metaData.put("FKTABLE_SCHEM", null);
+                metaData.put("FKTABLE_NAME", relationName);
+                metaData.put("FKCOLUMN_NAME", fieldName);
+                metaData.put("KEY_SEQ", String.valueOf(position));
+                metaData.put("UPDATE_RULE", String.valueOf(updateRule));
+                metaData.put("DELETE_RULE", String.valueOf(deleteRule));
+                metaData.put("FK_NAME", name);
+                metaData.put("PK_NAME", referencedKeyName);
+                metaData.put("DEFERRABILITY", String.valueOf(getDeferrability()));
+            }
+
+            return metaData;
+        }
+
+    }
+
+    /**
+     * A check constraint with the source of its trigger.
+     */
+    static final class CheckConstraint implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private String name;
+        private String source;
+
+        public String getName() {
+            return name;
+        }
+
+        public String getSource() {
+            return source;
+        }
+
+    }
+
+    /**
+     * An index with the names of its segment fields in position order.
+     */
+    static final class Index implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private String name;
+        private String relationName;
+        private boolean system;
+        private int indexType;
+        private boolean unique;
+        private boolean inactive;
+        private String remarks;
+        private String expression;
+
+        private final List<String> fieldNames = new ArrayList<String>();
+
+        public String getName() {
+            return name;
+        }
+
+        public String getRelationName() {
+            return relationName;
+        }
+
+        public boolean isSystem() {
+            return system;
+        }
+
+        public int getIndexType() {
+            return indexType;
+        }
+
+        public boolean isUnique() {
+            return unique;
+        }
+
+        public boolean isInactive() {
+            return inactive;
+        }
+
+        public String getRemarks() {
+            return remarks;
+        }
+
+        /**
+         * Returns the segment fields - a single null entry for an
+         * expression index.
+         */
+        public List<String> getFieldNames() {
+
+            if (fieldNames.isEmpty()) {
+
+                return Collections.singletonList(null);
+            }
+
+            return Collections.unmodifiableList(fieldNames);
+        }
+
+        /**
+         * Returns the index segment as the row of <code>getIndexInfo</code>
+         * that reports it.
+         */
+        public Map<String, String> getMetaData(String fieldName) {
+
+            Map<String, String> metaData = new HashMap<String, String>();
+            metaData.put("TABLE_CAT", null);
+            metaData.put("TABLE_SCHEM", null);
+            metaData.put("TABLE_NAME", relationName);
+            metaData.put("NON_UNIQUE", String.valueOf(!unique));
+            metaData.put("INDEX_QUALIFIER", null);
+            metaData.put("INDEX_NAME", name);
+            metaData.put("TYPE", String.valueOf(DatabaseMetaData.tableIndexOther));
+            metaData.put("ORDINAL_POSITION", String.valueOf(fieldNames.indexOf(fieldName) + 1));
+            metaData.put("COLUMN_NAME", fieldName);
+            metaData.put("ASC_OR_DESC", indexType == 1 ? "D" : "A");
+            metaData.put("FILTER_CONDITION", expression);
+
+            return metaData;
+        }
+
+    }
+
+}
+
@@ -0,0 +1,154 @@
+/*
+ * SchemaSnapshotCache.java
+ *
+ * Copyright (C) 2002-2017 Takis Diakoumis
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.executequery.databaseobjects.impl;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.executequery.databasemediators.DatabaseConnection;
+import org.executequery.log.Log;
+import org.executequery.util.UserSettingsProperties;
+
+/**
+ * The schema snapshot of a connection saved to the user settings
+ * directory so the next connection starts from it.
+ * <p/>
+ * The cached snapshot is never used as is - it is passed as the previous
+ * snapshot when loading so only its sections found changed are queried.
+ */
+final class SchemaSnapshotCache {
+
+    /** the directory of the cache files within the user settings */
+    private static final String DIRECTORY = "schema-cache";
+
+    /** the extension of the cache file */
+    private static final String EXTENSION = ".snapshot";
+
+    private final File file;
+
+    /**
+     * Creates the cache of the specified connection.
+     */
+    SchemaSnapshotCache(DatabaseConnection databaseConnection) {
+
+        File directory = new File(new UserSettingsProperties().getUserSettingsDirectory(), DIRECTORY);
+        this.file = new File(directory, databaseConnection.getId() + EXTENSION);
+    }
+
+    /**
+     * Returns the cached snapshot or null if there is none or it
+     * can not be read.
+     */
+    SchemaSnapshot read() {
+
+        if (!file.isFile()) {
+
+            return null;
+        }
+
+        try {
+
+            ObjectInputStream in = new ObjectInputStream(
+                    new GZIPInputStream(new BufferedInputStream(new FileInputStream(file))));
+            try {
+
+                return (SchemaSnapshot) in.readObject();
+
+            } finally {
+
+                in.close();
+            }
+
+        } catch (IOException e) {
+
+            Log.warning("Ignoring schema cache " + file.getName() + ": " + e.getMessage());
+
+        } catch (ClassNotFoundException e) {
+
+            Log.warning("Ignoring schema cache " + file.getName() + ": " + e.getMessage());
+
+        } catch (RuntimeException e) {
+
+            Log.warning("Invalid schema cache " + file.getName());
+        }
+
+        return null;
+    }
+
+    /**
+     * Saves the specified snapshot replacing any cached.
+     */
+    void write(SchemaSnapshot snapshot) {
+
+        File directory = file.getParentFile();
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+
+            Log.warning("Unable to create schema cache directory " + directory);
+            return;
+        }
+
+        // written aside and moved over the last so a failure
+        // part way through never leaves a truncated cache
+        File temp = new File(file.getPath() + ".tmp");
+        try {
+
+            ObjectOutputStream out = new ObjectOutputStream(
+                    new GZIPOutputStream(new BufferedOutputStream(new FileOutputStream(temp))));
+            try {
+
+                out.writeObject(snapshot);
+
+            } finally {
+
+                out.close();
+            }
+
+            try {
+
+                Files.move(temp.toPath(), file.toPath(),
+                        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            } catch (AtomicMoveNotSupportedException e) {
+
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+
+        } catch (IOException e) {
+
+            Log.warning("Error writing schema cache " + file.getName() + ": " + e.getMessage());
+            temp.delete();
+        }
+
+    }
+
+}
+
@@ -28,6 +28,7 @@ import org.underworldlabs.jdbc.DataSourceException;
 import javax.sql.DataSource;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.Collections;
 import java.util.List;
 import java.util.Properties;
 import java.util.Vector;
@@ -61,6 +62,8 @@ public class C3poConnectionPool extends AbstractConnectionPool {
     private DataSource dataSource;
     
     private PoolBackedDataSource pooledDataSource;
+
+    private final ConnectionPoolInstrumentation instrumentation = new ConnectionPoolInstrumentation();
     
     public C3poConnectionPool(DatabaseConnection databaseConnection) {
 
@@ -97,8 +100,15 @@ public class C3poConnectionPool extends AbstractConnectionPool {
         pooledDataSource.close();
     }
 
+    public Connection getDedicatedConnection() {
+
+        // pool connections are never shared
+        return getConnection();
+    }
+
     public Connection getConnection() {
 
+        long start = System.nanoTime();
         Connection connection = null;
         
         try {
@@ -122,6 +132,7 @@ public class C3poConnectionPool extends AbstractConnectionPool {
             }
 
             activeConnections.add(connection);
+            instrumentation.connectionAcquired(System.nanoTime() - start);
             
         } catch (SQLException e) {
 
@@ -163,6 +174,14 @@ public class C3poConnectionPool extends AbstractConnectionPool {
         return activeConnections.size();
     }
 
+    public ConnectionPoolMetrics getMetrics() {
+
+        // open connections are managed by c3p0 - only acquisitions are recorded here
+        int activeCount = getPoolActiveSize();
+        return instrumentation.snapshot(activeCount, Math.max(getSize() - activeCount, 0),
+                getMaximumUseCount(), Collections.<PooledConnection>emptyList());
+    }
+
     public int getSize() {
 
         int size = 0;
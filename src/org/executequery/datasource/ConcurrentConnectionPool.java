@@ -0,0 +1,884 @@
+/*
+ * ConcurrentConnectionPool.java
+ *
+ * Copyright (C) 2002-2017 Takis Diakoumis
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.executequery.datasource;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.executequery.databasemediators.DatabaseConnection;
+import org.executequery.log.Log;
+import org.underworldlabs.jdbc.DataSourceException;
+import org.underworldlabs.util.SystemProperties;
+
+/**
+ * Connection pool handing out connections without holding a pool wide lock.
+ * <p/>
+ * Idle connections are kept in a concurrent deque - returned connections
+ * are pushed to the head and retrieved from the head so the most recently
+ * used connections are reused first, while those at the tail age and are
+ * closed by the background maintenance task once idle beyond the configured
+ * timeout. The number of open connections is reserved with a compare and
+ * set before a connection is opened, so the maximum is never exceeded and no
+ * lock is held while waiting on the server. Where the pool is exhausted the
+ * caller waits up to the configured timeout for a connection to be returned.
+ */
+public class ConcurrentConnectionPool extends AbstractConnectionPool implements PooledConnectionListener {
+
+    private static final int VALIDATION_TIMEOUT_SECONDS = 5;
+
+    private static final ScheduledExecutorService MAINTENANCE_EXECUTOR =
+            Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+
+                public Thread newThread(Runnable runnable) {
+
+                    Thread thread = new Thread(runnable, "ConnectionPoolMaintenance");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+
+    private volatile int maximumConnections = MAX_POOL_SIZE;
+
+    private volatile int minimumConnections = MIN_POOL_SIZE;
+
+    private int initialConnections = INITIAL_POOL_SIZE;
+
+    private volatile int maximumUseCount;
+
+    private final ConcurrentLinkedDeque<PooledConnection> idleConnections =
+            new ConcurrentLinkedDeque<PooledConnection>();
+
+    private final Set<PooledConnection> activeConnections =
+            Collections.newSetFromMap(new ConcurrentHashMap<PooledConnection, Boolean>());
+
+    /** connections held apart from the shared connection where pooling is disabled */
+    private final Set<PooledConnection> dedicatedConnections =
+            Collections.newSetFromMap(new ConcurrentHashMap<PooledConnection, Boolean>());
+
+    /** open connections including those being opened */
+    private final AtomicInteger openCount = new AtomicInteger();
+
+    private final AtomicInteger waitingCount = new AtomicInteger();
+
+    private final Object waitMonitor = new Object();
+
+    private final Object setupLock = new Object();
+
+    private final ConnectionPoolInstrumentation instrumentation = new ConnectionPoolInstrumentation();
+
+    private final DatabaseConnection databaseConnection;
+
+    private final long waitTimeoutNanos;
+
+    private final long idleTimeoutMillis;
+
+    private volatile DataSource dataSource;
+
+    private volatile SshTunnel sshTunnel;
+
+    private volatile boolean closed;
+
+    private volatile int defaultTxIsolation = -1;
+
+    private volatile boolean supportsTransactions;
+
+    private final ScheduledFuture<?> maintenanceTask;
+
+    public ConcurrentConnectionPool(DatabaseConnection databaseConnection) {
+
+        this.databaseConnection = databaseConnection;
+
+        waitTimeoutNanos = TimeUnit.SECONDS.toNanos(
+                SystemProperties.getIntProperty("user", "connection.pool.wait.timeout"));
+        idleTimeoutMillis = TimeUnit.SECONDS.toMillis(
+                SystemProperties.getIntProperty("user", "connection.pool.idle.timeout"));
+
+        long validationInterval = Math.max(
+                SystemProperties.getIntProperty("user", "connection.pool.validation.interval"), 1);
+        maintenanceTask = MAINTENANCE_EXECUTOR.scheduleWithFixedDelay(new Runnable() {
+
+            public void run() {
+
+                maintain();
+            }
+
+        }, validationInterval, validationInterval, TimeUnit.SECONDS);
+
+        if (Log.isDebugEnabled()) {
+
+            Log.debug("Creating new pool for connection " + databaseConnection.getName());
+        }
+
+    }
+
+    public DatabaseConnection getDatabaseConnection() {
+
+        return databaseConnection;
+    }
+
+    public Connection getConnection() {
+
+        checkOpen();
+        ensureSshTunnel();
+
+        if (openCount.get() < minimumConnections) {
+
+            ensureCapacity(minimumConnections);
+        }
+
+        if (!isPoolingEnabled()) {
+
+            return sharedConnection();
+        }
+
+        return acquire();
+    }
+
+    public Connection getDedicatedConnection() {
+
+        checkOpen();
+        ensureSshTunnel();
+
+        if (isPoolingEnabled()) {
+
+            return acquire();
+        }
+
+        long start = System.nanoTime();
+        long deadline = start + waitTimeoutNanos;
+
+        // a new physical connection - an idle one may be the shared one
+        while (!reserve()) {
+
+            awaitReturn(deadline);
+            checkOpen();
+        }
+
+        PooledConnection connection = createReservedConnection();
+        connection.setInUse(true);
+        dedicatedConnections.add(connection);
+
+        instrumentation.connectionAcquired(System.nanoTime() - start);
+
+        return connection;
+    }
+
+    private void ensureSshTunnel() {
+
+        if (databaseConnection.isSshTunnel() && sshTunnel == null) {
+
+            synchronized (setupLock) {
+
+                if (sshTunnel == null) {
+
+                    createSshTunnel();
+                }
+            }
+        }
+
+    }
+
+    /**
+     * Returns the one connection shared by all callers where
+     * pooling is disabled, opening it if required.
+     */
+    private Connection sharedConnection() {
+
+        PooledConnection connection = firstActive();
+        if (connection != null) {
+
+            return connection;
+        }
+
+        synchronized (setupLock) {
+
+            connection = firstActive();
+            if (connection != null) {
+
+                return connection;
+            }
+
+            return acquire();
+        }
+
+    }
+
+    private PooledConnection firstActive() {
+
+        Iterator<PooledConnection> i = activeConnections.iterator();
+        return i.hasNext() ? i.next() : null;
+    }
+
+    private PooledConnection acquire() {
+
+        long start = System.nanoTime();
+        long deadline = start + waitTimeoutNanos;
+
+        while (true) {
+
+            checkOpen();
+
+            PooledConnection connection = idleConnections.pollFirst();
+            if (connection != null) {
+
+                if (!isReusable(connection)) {
+
+                    destroy(connection);
+                    continue;
+                }
+
+                return checkOut(connection, start);
+            }
+
+            if (reserve()) {
+
+                return checkOut(createReservedConnection(), start);
+            }
+
+            awaitReturn(deadline);
+        }
+
+    }
+
+    private PooledConnection checkOut(PooledConnection connection, long start) {
+
+        connection.setInUse(true);
+        activeConnections.add(connection);
+
+        instrumentation.connectionAcquired(System.nanoTime() - start);
+
+        if (Log.isTraceEnabled()) {
+
+            Log.trace("Retrieving connection " + connection.getId() + " with pool size [ "
+                    + openCount.get() + " ] from maximum pool capacity [ " + maximumConnections + " ]");
+        }
+
+        return connection;
+    }
+
+    private void awaitReturn(long deadline) {
+
+        long remaining = deadline - System.nanoTime();
+        if (remaining <= 0) {
+
+            throw new DataSourceException("Maximum open connection count exceeded - no connection "
+                    + "was returned to the pool within the wait timeout");
+        }
+
+        waitingCount.incrementAndGet();
+        try {
+
+            synchronized (waitMonitor) {
+
+                // re-checked under the monitor so a return is never missed
+                if (idleConnections.isEmpty() && openCount.get() >= maximumConnections && !closed) {
+
+                    TimeUnit.NANOSECONDS.timedWait(waitMonitor, remaining);
+                }
+            }
+
+        } catch (InterruptedException e) {
+
+            Thread.currentThread().interrupt();
+            throw new DataSourceException(e);
+
+        } finally {
+
+            waitingCount.decrementAndGet();
+        }
+
+    }
+
+    private void signalWaiters() {
+
+        if (waitingCount.get() > 0) {
+
+            synchronized (waitMonitor) {
+
+                waitMonitor.notifyAll();
+            }
+        }
+
+    }
+
+    private boolean reserve() {
+
+        while (true) {
+
+            int count = openCount.get();
+            if (count >= maximumConnections) {
+
+                return false;
+            }
+
+            if (openCount.compareAndSet(count, count + 1)) {
+
+                return true;
+            }
+        }
+
+    }
+
+    private boolean isPoolingEnabled() {
+
+        return SystemProperties.getBooleanProperty("user", "connection.usepool");
+    }
+
+    private boolean isOpen(PooledConnection connection) {
+
+        try {
+
+            return !connection.isClosed();
+
+        } catch (SQLException e) {
+
+            return false;
+        }
+
+    }
+
+    private boolean isReusable(PooledConnection connection) {
+
+        if (!isOpen(connection)) {
+
+            return false;
+        }
+
+        return maximumUseCount <= 0 || connection.getUseCount() < maximumUseCount;
+    }
+
+    public void connectionClosed(PooledConnection pooledConnection) {
+
+        if (dedicatedConnections.remove(pooledConnection)) {
+
+            destroy(pooledConnection);
+            return;
+        }
+
+        // shared connections may be closed by each holder
+        if (!activeConnections.remove(pooledConnection)) {
+
+            return;
+        }
+
+        if (closed || !isReusable(pooledConnection)) {
+
+            destroy(pooledConnection);
+
+        } else {
+
+            idleConnections.offerFirst(pooledConnection);
+            signalWaiters();
+        }
+
+    }
+
+    public void close(Connection connection) {
+
+        if (connection instanceof PooledConnection) {
+
+            PooledConnection pooledConnection = (PooledConnection) connection;
+
+            if (dedicatedConnections.remove(pooledConnection)) {
+
+                destroy(pooledConnection);
+                return;
+            }
+
+            // the one connection shared by all callers where pooling is
+            // disabled stays open for the others unless it is broken
+            if (!isPoolingEnabled() && isOpen(pooledConnection)) {
+
+                return;
+            }
+
+            boolean removed = activeConnections.remove(pooledConnection);
+            removed |= idleConnections.remove(pooledConnection);
+            if (removed) {
+
+                destroy(pooledConnection);
+            }
+        }
+
+        if (!closed) {
+
+            ensureCapacity(minimumConnections);
+        }
+    }
+
+    public void close() {
+
+        if (Log.isDebugEnabled()) {
+
+            Log.debug("Closing connection pool for connection " + databaseConnection.getName());
+        }
+
+        closed = true;
+        maintenanceTask.cancel(false);
+
+        PooledConnection connection;
+        while ((connection = idleConnections.pollFirst()) != null) {
+
+            destroy(connection);
+        }
+
+        for (PooledConnection activeConnection : new ArrayList<PooledConnection>(activeConnections)) {
+
+            if (activeConnections.remove(activeConnection)) {
+
+                destroy(activeConnection);
+            }
+        }
+
+        for (PooledConnection dedicatedConnection : new ArrayList<PooledConnection>(dedicatedConnections)) {
+
+            if (dedicatedConnections.remove(dedicatedConnection)) {
+
+                destroy(dedicatedConnection);
+            }
+        }
+
+        destroySshTunnel();
+        signalWaiters();
+    }
+
+    private void destroy(PooledConnection connection) {
+
+        connection.destroy();
+        openCount.decrementAndGet();
+        instrumentation.connectionDestroyed(connection);
+
+        signalWaiters();
+    }
+
+    private void checkOpen() {
+
+        if (closed) {
+
+            throw new DataSourceException("Connection pool for " + databaseConnection.getName() + " is closed");
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+
+        long start = System.nanoTime();
+        try {
+
+            while (openCount.get() < capacity && reserve()) {
+
+                if (Log.isDebugEnabled()) {
+
+                    Log.debug("Ensuring pool capacity " + capacity);
+                }
+
+                idleConnections.offerLast(createReservedConnection());
+                signalWaiters();
+            }
+
+        } finally {
+
+            instrumentation.capacityEnsured(System.nanoTime() - start);
+        }
+
+    }
+
+    /**
+     * Closes connections idle beyond the idle timeout down to the minimum
+     * pool size and validates the remainder, replacing any that fail.
+     */
+    private void maintain() {
+
+        if (closed) {
+
+            return;
+        }
+
+        try {
+
+            long now = System.currentTimeMillis();
+
+            // oldest returned connections are at the tail
+            Iterator<PooledConnection> i = idleConnections.descendingIterator();
+            while (i.hasNext() && !closed) {
+
+                PooledConnection connection = i.next();
+
+                // taken by a caller since the iteration began
+                if (!idleConnections.removeLastOccurrence(connection)) {
+
+                    continue;
+                }
+
+                boolean expired = idleTimeoutMillis > 0
+                        && now - connection.getLastReleasedTime() > idleTimeoutMillis
+                        && openCount.get() > minimumConnections;
+
+                if (expired) {
+
+                    if (Log.isDebugEnabled()) {
+
+                        Log.debug("Closing idle connection " + connection.getId());
+                    }
+
+                    destroy(connection);
+
+                } else if (!isValid(connection)) {
+
+                    Log.warning("Pooled connection " + connection.getId() + " failed validation and will be replaced");
+                    instrumentation.validationFailed();
+                    destroy(connection);
+
+                } else {
+
+                    idleConnections.offerLast(connection);
+                    signalWaiters();
+                }
+
+            }
+
+            if (!closed) {
+
+                ensureCapacity(minimumConnections);
+            }
+
+        } catch (RuntimeException e) {
+
+            Log.warning("Error during connection pool maintenance: " + e.getMessage());
+        }
+
+    }
+
+    private boolean isValid(PooledConnection connection) {
+
+        Connection realConnection = connection.getRealConnection();
+        if (realConnection == null) {
+
+            return false;
+        }
+
+        try {
+
+            return realConnection.isValid(VALIDATION_TIMEOUT_SECONDS);
+
+        } catch (SQLException e) {
+
+            return false;
+
+        } catch (AbstractMethodError e) {
+
+            // pre JDBC 4 driver
+            return isReusable(connection);
+        }
+
+    }
+
+    public ConnectionPoolMetrics getMetrics() {
+
+        List<PooledConnection> connections = new ArrayList<PooledConnection>(idleConnections);
+        connections.addAll(activeConnections);
+        connections.addAll(dedicatedConnections);
+
+        return instrumentation.snapshot(activeConnections.size() + dedicatedConnections.size(),
+                idleConnections.size(), maximumUseCount, connections);
+    }
+
+    private void destroySshTunnel() {
+
+        synchronized (setupLock) {
+
+            if (sshTunnel != null) {
+
+                sshTunnel.disconnect(databaseConnection);
+                sshTunnel = null;
+            }
+        }
+
+    }
+
+    private void createSshTunnel() {
+
+        SshTunnel tunnel = new JschSshTunnel();
+        tunnel.connect(databaseConnection);
+        sshTunnel = tunnel;
+    }
+
+    /**
+     * Opens a new connection against a slot already
+     * reserved in the open connection count.
+     */
+    private PooledConnection createReservedConnection() {
+
+        try {
+
+            return createConnection();
+
+        } catch (RuntimeException e) {
+
+            openCount.decrementAndGet();
+            signalWaiters();
+            throw e;
+        }
+
+    }
+
+    private PooledConnection createConnection() {
+
+        PooledConnection connection = null;
+
+        try {
+
+            Connection realConnection = dataSource().getConnection();
+            if (realConnection == null) {
+
+                destroySshTunnel();
+                throw new DataSourceException(
+                        "A connection to the database could not be " +
+                        "established.\nPlease ensure that the details " +
+                        "are correct and the supplied host is available.");
+            }
+
+            if (defaultTxIsolation == -1) {
+
+                configureTransactionIsolationLevel(realConnection);
+            }
+
+            int transactionIsolation = databaseConnection.getTransactionIsolation();
+            if (transactionIsolation != -1) {
+
+                try {
+
+                    realConnection.setTransactionIsolation(transactionIsolation);
+
+                } catch (SQLException e) {
+
+                    Log.warning("Error setting transaction isolation level: " + e.getMessage());
+                }
+            }
+
+            connection = new PooledConnection(realConnection);
+            connection.addPooledConnectionListener(this);
+            instrumentation.connectionCreated();
+
+            if (Log.isDebugEnabled()) {
+
+                Log.debug("Added new connection to the pool - " + connection.getId());
+            }
+
+        } catch (SQLException e) {
+
+            if (openCount.get() <= 1) {
+
+                destroySshTunnel();
+            }
+            rethrowAsDataSourceException(e);
+        }
+
+        return connection;
+    }
+
+    private DataSource dataSource() {
+
+        if (dataSource == null) {
+
+            synchronized (setupLock) {
+
+                if (dataSource == null) {
+
+                    DatabaseConnection _databaseConnection = databaseConnection;
+                    if (databaseConnection.isSshTunnel()) {
+
+                        if (sshTunnel == null) {
+
+                            createSshTunnel();
+                        }
+
+                        _databaseConnection = databaseConnection.copy();
+                        _databaseConnection.setHost("localhost");
+                        _databaseConnection.setPort(String.valueOf(sshTunnel.getTunnelPort()));
+                    }
+
+                    dataSource = new SimpleDataSource(_databaseConnection);
+                }
+            }
+        }
+
+        return dataSource;
+    }
+
+    private void configureTransactionIsolationLevel(Connection connection) {
+
+        try {
+
+            supportsTransactions = connection.getMetaData().supportsTransactions();
+            defaultTxIsolation = connection.getTransactionIsolation();
+
+        } catch (SQLException e) {
+
+            rethrowAsDataSourceException(e);
+        }
+
+    }
+
+    public DataSource getDataSource() {
+
+        return dataSource;
+    }
+
+    public void setDataSource(DataSource dataSource) {
+
+        this.dataSource = dataSource;
+    }
+
+    public int getMaximumConnections() {
+
+        return maximumConnections;
+    }
+
+    public void setMaximumConnections(int maximumConnections) {
+
+        if (maximumConnections < 1) {
+
+            throw new IllegalArgumentException("Maximum connection count must be at least 1");
+        }
+
+        this.maximumConnections = maximumConnections;
+    }
+
+    public int getMinimumConnections() {
+
+        return minimumConnections;
+    }
+
+    public void setMinimumConnections(int minimumConnections) {
+
+        if (minimumConnections < 1) {
+
+            throw new IllegalArgumentException("Minimum connection count must be at least 1");
+        }
+
+        this.minimumConnections = minimumConnections;
+        ensureCapacity(minimumConnections);
+    }
+
+    public int getMaximumUseCount() {
+
+        return maximumUseCount;
+    }
+
+    public void setMaximumUseCount(int maximumUseCount) {
+
+        this.maximumUseCount = maximumUseCount;
+    }
+
+    public int getInitialConnections() {
+
+        return initialConnections;
+    }
+
+    public void setInitialConnections(int initialConnections) {
+
+        if (initialConnections < 1) {
+
+            throw new IllegalArgumentException("Initial connection count must be at least 1");
+        }
+
+        this.initialConnections = initialConnections;
+    }
+
+    public int getPoolActiveSize() {
+
+        return activeConnections.size();
+    }
+
+    public int getSize() {
+
+        return openCount.get();
+    }
+
+    public boolean isTransactionSupported() {
+
+        if (defaultTxIsolation == -1) {
+
+            Connection connection = getConnection();
+            try {
+
+                configureTransactionIsolationLevel(connection);
+
+            } finally {
+
+                close(connection);
+            }
+
+        }
+
+        return supportsTransactions;
+    }
+
+    public void setTransactionIsolationLevel(int isolationLevel) {
+
+        if (!isTransactionSupported()) {
+
+            return;
+        }
+
+        int isolationLevelToApply = isolationLevel;
+        if (isolationLevelToApply == -1) {
+
+            isolationLevelToApply = defaultTxIsolation;
+        }
+
+        List<PooledConnection> connections = new ArrayList<PooledConnection>(idleConnections);
+        connections.addAll(activeConnections);
+
+        try {
+
+            for (Connection connection : connections) {
+
+                if (!connection.isClosed()) {
+
+                    connection.setTransactionIsolation(isolationLevelToApply);
+                }
+
+            }
+
+        } catch (SQLException e) {
+
+            throw new DataSourceException(e);
+        }
+
+    }
+
+}
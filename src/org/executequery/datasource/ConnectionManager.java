@@ -49,6 +49,8 @@ public final class ConnectionManager {
 
     private static Map<DatabaseConnection, ConnectionPool> connectionPools = Collections.synchronizedMap(new HashMap<DatabaseConnection, ConnectionPool>());
 
+    private static Map<DatabaseConnection, ConnectionStatisticsCollector> statisticsCollectors = Collections.synchronizedMap(new HashMap<DatabaseConnection, ConnectionStatisticsCollector>());
+
     /**
      * Creates a stored data source for the specified database
      * connection properties object.
@@ -80,7 +82,8 @@ public final class ConnectionManager {
 //        ConnectionPool pool = new DefaultConnectionPool(dataSource);
 
 //        ConnectionPool pool = new C3poConnectionPool(databaseConnection);
-        ConnectionPool pool = new ConnectionPoolImpl(databaseConnection);
+//        ConnectionPool pool = new ConnectionPoolImpl(databaseConnection);
+        ConnectionPool pool = new ConcurrentConnectionPool(databaseConnection);
 
         //pool.setPoolScheme(SystemProperties.getIntProperty("connection.scheme"));
 
@@ -90,6 +93,7 @@ public final class ConnectionManager {
 //        pool.ensureCapacity();
 
         connectionPools.put(databaseConnection, pool);
+        statisticsCollectors.put(databaseConnection, new ConnectionStatisticsCollector(databaseConnection));
         databaseConnection.setConnected(true);
 
         Log.info("Data source " + databaseConnection.getName() +" initialised.");
@@ -108,19 +112,76 @@ public final class ConnectionManager {
             return null;
         }
 
-        synchronized (databaseConnection) {
+        return poolFor(databaseConnection).getConnection();
+    }
+
+    /**
+     * Returns a connection of the specified type not shared with any
+     * other caller, even where pooling is disabled. The connection is
+     * released by closing it.
+     *
+     * @param the stored database connection properties object
+     * @return the connection itself
+     */
+    public static Connection getDedicatedConnection(DatabaseConnection databaseConnection) {
+
+        if (databaseConnection == null) {
+
+            return null;
+        }
+
+        return poolFor(databaseConnection).getDedicatedConnection();
+    }
+
+    private static ConnectionPool poolFor(DatabaseConnection databaseConnection) {
+
+        ConnectionPool pool = connectionPools.get(databaseConnection);
+        if (pool == null) {
+
+            // only pool creation is serialised - the pool itself is thread safe
+            synchronized (databaseConnection) {
+
+                if (!connectionPools.containsKey(databaseConnection)) {
 
-            if (connectionPools == null || !connectionPools.containsKey(databaseConnection)) {
+                    createDataSource(databaseConnection);
+                }
 
-                createDataSource(databaseConnection);
+                pool = connectionPools.get(databaseConnection);
             }
 
-            ConnectionPool pool = connectionPools.get(databaseConnection);
-            Connection connection = pool.getConnection();
+        }
+
+        return pool;
+    }
+
+    /**
+     * Returns the current metrics of the pool for the specified
+     * connection, or null if not connected.
+     *
+     * @param the stored database connection properties object
+     * @return the pool metrics
+     */
+    public static ConnectionPoolMetrics getPoolMetrics(DatabaseConnection databaseConnection) {
 
-            return connection;
+        ConnectionPool pool = connectionPools.get(databaseConnection);
+        if (pool != null) {
+
+            return pool.getMetrics();
         }
 
+        return null;
+    }
+
+    /**
+     * Returns the statement statistics collector for the specified
+     * connection, or null if not connected.
+     *
+     * @param the stored database connection properties object
+     * @return the statistics collector
+     */
+    public static ConnectionStatisticsCollector getStatisticsCollector(DatabaseConnection databaseConnection) {
+
+        return statisticsCollectors.get(databaseConnection);
     }
 
     /**
@@ -140,6 +201,7 @@ public final class ConnectionManager {
                 pool.close();
 
                 connectionPools.remove(databaseConnection);
+                statisticsCollectors.remove(databaseConnection);
                 databaseConnection.setConnected(false);
             }
 
@@ -166,6 +228,7 @@ public final class ConnectionManager {
             pool.close();
         }
         connectionPools.clear();
+        statisticsCollectors.clear();
     }
 
     /**
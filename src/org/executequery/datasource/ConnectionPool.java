@@ -57,6 +57,13 @@ interface ConnectionPool {
 
     Connection getConnection();
 
+    /**
+     * Returns a connection held by the caller alone - where pooling
+     * is disabled this is a new physical connection apart from the
+     * one shared by all other callers, closed on its release.
+     */
+    Connection getDedicatedConnection();
+
     void close();
     
     void close(Connection connection);
@@ -69,6 +76,12 @@ interface ConnectionPool {
     
     void setInitialConnections(int initialConnections);
 
+    /**
+     * Returns a snapshot of the pool state and the instrumentation
+     * recorded since the pool was created.
+     */
+    ConnectionPoolMetrics getMetrics();
+
 }
 
 
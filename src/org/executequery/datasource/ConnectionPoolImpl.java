@@ -62,6 +62,8 @@ public class ConnectionPoolImpl extends AbstractConnectionPool implements Pooled
     private DataSource dataSource;
     
     private SshTunnel sshTunnel;
+
+    private final ConnectionPoolInstrumentation instrumentation = new ConnectionPoolInstrumentation();
     
     public ConnectionPoolImpl(DatabaseConnection databaseConnection) {
 
@@ -100,7 +102,10 @@ public class ConnectionPoolImpl extends AbstractConnectionPool implements Pooled
             PooledConnection pooledConnection = (PooledConnection) connection;
             pooledConnection.destroy();
             
-            openConnections.remove(pooledConnection);
+            if (openConnections.remove(pooledConnection)) {
+
+                instrumentation.connectionDestroyed(pooledConnection);
+            }
         }
 
         ensureCapacity(minimumConnections);
@@ -117,6 +122,7 @@ public class ConnectionPoolImpl extends AbstractConnectionPool implements Pooled
             
             PooledConnection pooledConnection = (PooledConnection) connection;
             pooledConnection.destroy();
+            instrumentation.connectionDestroyed(pooledConnection);
         }
 
         destroySshTunnel();
@@ -124,7 +130,26 @@ public class ConnectionPoolImpl extends AbstractConnectionPool implements Pooled
         openConnections.clear();
     }
 
-    public synchronized Connection getConnection() {
+    public Connection getDedicatedConnection() {
+
+        if (!SystemProperties.getBooleanProperty("user", "connection.usepool")) {
+
+            throw new DataSourceException("Dedicated connections require connection pooling");
+        }
+
+        return getConnection();
+    }
+
+    public Connection getConnection() {
+
+        long start = System.nanoTime();
+        Connection connection = retrieveConnection();
+        instrumentation.connectionAcquired(System.nanoTime() - start);
+
+        return connection;
+    }
+
+    private synchronized Connection retrieveConnection() {
 
         int size = openConnections.size();
         if (Log.isTraceEnabled()) {
@@ -151,7 +176,7 @@ public class ConnectionPoolImpl extends AbstractConnectionPool implements Pooled
                 if (connection.isClosed()) {
 
                     close(connection);
-                    return getConnection();
+                    return retrieveConnection();
                 }
             } catch (SQLException e) {}
 
@@ -165,11 +190,11 @@ public class ConnectionPoolImpl extends AbstractConnectionPool implements Pooled
                     return activeConnections.get(0);
                 else {
                     createConnection();
-                    return getConnection();
+                    return retrieveConnection();
                 }
             } else {
                 createConnection();
-                return getConnection();
+                return retrieveConnection();
             }
 
         } else {
@@ -207,9 +232,17 @@ public class ConnectionPoolImpl extends AbstractConnectionPool implements Pooled
             Log.debug("Ensuring pool capacity " + capacity); 
         }
         
-        while (openConnections.size() < capacity) {
+        long start = System.nanoTime();
+        try {
+
+            while (openConnections.size() < capacity) {
+
+                createConnection();
+            }
+
+        } finally {
 
-            createConnection();
+            instrumentation.capacityEnsured(System.nanoTime() - start);
         }
         
     }
@@ -293,6 +326,7 @@ public class ConnectionPoolImpl extends AbstractConnectionPool implements Pooled
             connection.addPooledConnectionListener(this);
 
             openConnections.add(connection);
+            instrumentation.connectionCreated();
             
             if (Log.isDebugEnabled()) {
 
@@ -366,6 +400,19 @@ public class ConnectionPoolImpl extends AbstractConnectionPool implements Pooled
         return openConnections.size();
     }
 
+    public ConnectionPoolMetrics getMetrics() {
+
+        List<PooledConnection> connections;
+        synchronized (openConnections) {
+
+            connections = new ArrayList<PooledConnection>(openConnections);
+        }
+
+        int activeCount = activeConnections.size();
+        return instrumentation.snapshot(activeCount,
+                Math.max(connections.size() - activeCount, 0), getMaximumUseCount(), connections);
+    }
+
     public boolean isTransactionSupported() {
 
         if (defaultTxIsolation == -1) {
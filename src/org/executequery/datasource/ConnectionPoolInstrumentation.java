@@ -0,0 +1,128 @@
+/*
+ * ConnectionPoolInstrumentation.java
+ *
+ * Copyright (C) 2002-2017 Takis Diakoumis
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.executequery.datasource;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters recorded by a connection pool implementation
+ * from which its metrics snapshots are built.
+ */
+final class ConnectionPoolInstrumentation {
+
+    private final LatencyHistogram acquisitionHistogram = new LatencyHistogram();
+
+    private final AtomicLong createdCount = new AtomicLong();
+
+    private final AtomicLong destroyedCount = new AtomicLong();
+
+    private final AtomicLong acquiredCount = new AtomicLong();
+
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+
+    private final AtomicLong maximumWaitNanos = new AtomicLong();
+
+    private final AtomicLong validationFailures = new AtomicLong();
+
+    private final AtomicLong ensureCapacityNanos = new AtomicLong();
+
+    private final AtomicLong totalLifetimeMillis = new AtomicLong();
+
+    void connectionCreated() {
+
+        createdCount.incrementAndGet();
+    }
+
+    void connectionDestroyed(PooledConnection connection) {
+
+        destroyedCount.incrementAndGet();
+        totalLifetimeMillis.addAndGet(System.currentTimeMillis() - connection.getCreatedTime());
+    }
+
+    void connectionAcquired(long waitNanos) {
+
+        acquiredCount.incrementAndGet();
+        totalWaitNanos.addAndGet(waitNanos);
+        acquisitionHistogram.record(waitNanos);
+
+        long maximum;
+        while (waitNanos > (maximum = maximumWaitNanos.get())) {
+
+            if (maximumWaitNanos.compareAndSet(maximum, waitNanos)) {
+
+                break;
+            }
+        }
+
+    }
+
+    void validationFailed() {
+
+        validationFailures.incrementAndGet();
+    }
+
+    void capacityEnsured(long nanos) {
+
+        ensureCapacityNanos.addAndGet(nanos);
+    }
+
+    /**
+     * Builds the metrics snapshot with the current pool state.
+     *
+     * @param activeCount connections currently checked out
+     * @param idleCount connections open and available
+     * @param maximumUseCount the configured use count limit
+     * @param openConnections the open connections for lifetime and use counts
+     */
+    ConnectionPoolMetrics snapshot(int activeCount, int idleCount,
+            int maximumUseCount, Collection<PooledConnection> openConnections) {
+
+        long now = System.currentTimeMillis();
+        long oldestCreated = now;
+        int highestUseCount = 0;
+        for (PooledConnection connection : openConnections) {
+
+            oldestCreated = Math.min(oldestCreated, connection.getCreatedTime());
+            highestUseCount = Math.max(highestUseCount, connection.getUseCount());
+        }
+
+        long destroyed = destroyedCount.get();
+
+        return new ConnectionPoolMetrics(
+                activeCount,
+                idleCount,
+                createdCount.get(),
+                destroyed,
+                acquiredCount.get(),
+                TimeUnit.NANOSECONDS.toMillis(totalWaitNanos.get()),
+                TimeUnit.NANOSECONDS.toMillis(maximumWaitNanos.get()),
+                acquisitionHistogram.getCounts(),
+                validationFailures.get(),
+                TimeUnit.NANOSECONDS.toMillis(ensureCapacityNanos.get()),
+                destroyed > 0 ? totalLifetimeMillis.get() / destroyed : 0,
+                now - oldestCreated,
+                maximumUseCount,
+                highestUseCount);
+    }
+
+}
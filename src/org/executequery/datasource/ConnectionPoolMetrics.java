@@ -0,0 +1,172 @@
+/*
+ * ConnectionPoolMetrics.java
+ *
+ * Copyright (C) 2002-2017 Takis Diakoumis
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.executequery.datasource;
+
+/**
+ * Point in time snapshot of the state and counters of a connection pool.
+ */
+public final class ConnectionPoolMetrics {
+
+    private final int activeCount;
+
+    private final int idleCount;
+
+    private final long createdCount;
+
+    private final long destroyedCount;
+
+    private final long acquiredCount;
+
+    private final long totalWaitMillis;
+
+    private final long maximumWaitMillis;
+
+    private final long[] acquisitionHistogram;
+
+    private final long validationFailures;
+
+    private final long ensureCapacityMillis;
+
+    private final long averageLifetimeMillis;
+
+    private final long oldestConnectionAgeMillis;
+
+    private final int maximumUseCount;
+
+    private final int highestUseCount;
+
+    ConnectionPoolMetrics(int activeCount, int idleCount,
+            long createdCount, long destroyedCount, long acquiredCount,
+            long totalWaitMillis, long maximumWaitMillis, long[] acquisitionHistogram,
+            long validationFailures, long ensureCapacityMillis,
+            long averageLifetimeMillis, long oldestConnectionAgeMillis,
+            int maximumUseCount, int highestUseCount) {
+
+        this.activeCount = activeCount;
+        this.idleCount = idleCount;
+        this.createdCount = createdCount;
+        this.destroyedCount = destroyedCount;
+        this.acquiredCount = acquiredCount;
+        this.totalWaitMillis = totalWaitMillis;
+        this.maximumWaitMillis = maximumWaitMillis;
+        this.acquisitionHistogram = acquisitionHistogram;
+        this.validationFailures = validationFailures;
+        this.ensureCapacityMillis = ensureCapacityMillis;
+        this.averageLifetimeMillis = averageLifetimeMillis;
+        this.oldestConnectionAgeMillis = oldestConnectionAgeMillis;
+        this.maximumUseCount = maximumUseCount;
+        this.highestUseCount = highestUseCount;
+    }
+
+    /** the number of connections currently checked out */
+    public int getActiveCount() {
+        return activeCount;
+    }
+
+    /** the number of open connections available for use */
+    public int getIdleCount() {
+        return idleCount;
+    }
+
+    /** the number of connections opened since the pool was created */
+    public long getCreatedCount() {
+        return createdCount;
+    }
+
+    /** the number of connections closed since the pool was created */
+    public long getDestroyedCount() {
+        return destroyedCount;
+    }
+
+    /** the number of connections handed out by the pool */
+    public long getAcquiredCount() {
+        return acquiredCount;
+    }
+
+    public long getTotalWaitMillis() {
+        return totalWaitMillis;
+    }
+
+    public long getMaximumWaitMillis() {
+        return maximumWaitMillis;
+    }
+
+    public long getAverageWaitMillis() {
+        return acquiredCount > 0 ? totalWaitMillis / acquiredCount : 0;
+    }
+
+    /**
+     * Returns the connection acquisition counts for each
+     * bucket of the {@link LatencyHistogram}.
+     */
+    public long[] getAcquisitionHistogram() {
+        return acquisitionHistogram.clone();
+    }
+
+    /**
+     * Returns the upper bound in milliseconds of the acquisition latency
+     * bucket holding the specified percentile, or -1 where unknown.
+     */
+    public long getAcquisitionPercentileMillis(double percentile) {
+        return LatencyHistogram.percentile(acquisitionHistogram, percentile);
+    }
+
+    /** the number of idle connections that failed validation */
+    public long getValidationFailures() {
+        return validationFailures;
+    }
+
+    /** the total time spent opening connections up to the minimum pool size */
+    public long getEnsureCapacityMillis() {
+        return ensureCapacityMillis;
+    }
+
+    /** the average lifetime of connections closed by the pool */
+    public long getAverageLifetimeMillis() {
+        return averageLifetimeMillis;
+    }
+
+    public long getOldestConnectionAgeMillis() {
+        return oldestConnectionAgeMillis;
+    }
+
+    /** the maximum use count of a connection, 0 where unlimited */
+    public int getMaximumUseCount() {
+        return maximumUseCount;
+    }
+
+    /** the highest use count across the open connections */
+    public int getHighestUseCount() {
+        return highestUseCount;
+    }
+
+    @Override
+    public String toString() {
+
+        return "Active: " + activeCount
+                + "  Idle: " + idleCount
+                + "  Created: " + createdCount
+                + "  Destroyed: " + destroyedCount
+                + "  Avg wait: " + getAverageWaitMillis() + "ms"
+                + "  Max wait: " + maximumWaitMillis + "ms";
+    }
+
+}
@@ -0,0 +1,274 @@
+/*
+ * ConnectionStatisticsCollector.java
+ *
+ * Copyright (C) 2002-2017 Takis Diakoumis
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.executequery.datasource;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Deque;
+import java.util.List;
+
+import biz.redsoft.IFBDatabasePerformance;
+import biz.redsoft.IFBPerformanceInfo;
+import org.executequery.databasemediators.DatabaseConnection;
+import org.executequery.databasemediators.DatabaseDriver;
+import org.executequery.log.Log;
+
+/**
+ * Collects the database performance counters of statements executed
+ * on a connection along with a rolling history of recent statements.
+ * <p/>
+ * One collector is created when the data source of a connection is
+ * opened. Counters are only available from Firebird 3 servers or later
+ * through the Jaybird driver - for any other connection begin() returns
+ * null and nothing is recorded.
+ */
+public class ConnectionStatisticsCollector {
+
+    /** the number of statements retained in the history */
+    private static final int HISTORY_SIZE = 1000;
+
+    private static final String CSV_HEADER =
+            "timestamp,duration_ms,reads,writes,fetches,marks,delta_memory,current_memory,max_memory,statement";
+
+    private final boolean supported;
+
+    private final Deque<StatementStatistics> history = new ArrayDeque<StatementStatistics>();
+
+    private IFBDatabasePerformance databasePerformance;
+
+    public ConnectionStatisticsCollector(DatabaseConnection databaseConnection) {
+
+        DatabaseDriver driver = databaseConnection.getJDBCDriver();
+        supported = driver != null && driver.getClassName() != null
+                && driver.getClassName().contains("FBDriver");
+    }
+
+    /**
+     * Returns whether performance counters may be collected for this connection.
+     */
+    public boolean isSupported() {
+
+        return supported;
+    }
+
+    /**
+     * Captures the counters of the specified connection
+     * before a statement is executed.
+     *
+     * @param connection the connection executing the statement
+     * @return the counters or null if not available
+     */
+    public IFBPerformanceInfo begin(Connection connection) {
+
+        if (!supported || connection == null) {
+
+            return null;
+        }
+
+        try {
+
+            return performanceInfo(connection.unwrap(Connection.class));
+
+        } catch (SQLException e) {
+
+            debug("Error retrieving performance info", e);
+            return null;
+        }
+
+    }
+
+    /**
+     * Captures the counters of the specified connection following
+     * execution of the statement and records the difference in the
+     * history.
+     *
+     * @param before the counters as returned by begin()
+     * @param connection the connection executing the statement
+     * @param statement the executed statement
+     * @param durationMillis the execution time of the statement
+     * @return the counter differences or null if not available
+     */
+    public IFBPerformanceInfo end(IFBPerformanceInfo before,
+            Connection connection, String statement, long durationMillis) {
+
+        if (before == null || connection == null) {
+
+            return null;
+        }
+
+        try {
+
+            IFBPerformanceInfo after = performanceInfo(connection.unwrap(Connection.class));
+            if (after == null) {
+
+                return null;
+            }
+
+            IFBPerformanceInfo delta = after.processInfo(before, after);
+            record(new StatementStatistics(
+                    System.currentTimeMillis(), statement, durationMillis, delta));
+
+            return delta;
+
+        } catch (SQLException e) {
+
+            debug("Error retrieving performance info", e);
+            return null;
+        }
+
+    }
+
+    /**
+     * Returns the execution plan of the statement that produced the
+     * specified result set, or null if not available.
+     */
+    public String executionPlan(ResultSet resultSet) {
+
+        if (!supported || resultSet == null) {
+
+            return null;
+        }
+
+        try {
+
+            ResultSet unwrapped = resultSet.unwrap(ResultSet.class);
+            IFBDatabasePerformance performance = databasePerformance(unwrapped);
+            if (performance != null) {
+
+                return performance.getLastExecutedPlan(unwrapped);
+            }
+
+        } catch (SQLException e) {
+
+            debug("Error retrieving execution plan", e);
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns the recorded statement history, oldest first.
+     */
+    public synchronized List<StatementStatistics> getHistory() {
+
+        return new ArrayList<StatementStatistics>(history);
+    }
+
+    public synchronized void clearHistory() {
+
+        history.clear();
+    }
+
+    /**
+     * Writes the recorded statement history as comma separated values.
+     *
+     * @param writer the destination - not closed by this method
+     */
+    public void exportHistory(Writer writer) throws IOException {
+
+        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS");
+
+        writer.write(CSV_HEADER);
+        writer.write("\r\n");
+
+        for (StatementStatistics statistics : getHistory()) {
+
+            writer.write(dateFormat.format(new Date(statistics.getTimestamp())));
+            writeValue(writer, statistics.getDurationMillis());
+            writeValue(writer, statistics.getReads());
+            writeValue(writer, statistics.getWrites());
+            writeValue(writer, statistics.getFetches());
+            writeValue(writer, statistics.getMarks());
+            writeValue(writer, statistics.getDeltaMemory());
+            writeValue(writer, statistics.getCurrentMemory());
+            writeValue(writer, statistics.getMaxMemory());
+            writer.write(',');
+            writer.write(quote(statistics.getStatement()));
+            writer.write("\r\n");
+        }
+
+        writer.flush();
+    }
+
+    private void writeValue(Writer writer, long value) throws IOException {
+
+        writer.write(',');
+        writer.write(Long.toString(value));
+    }
+
+    private String quote(String value) {
+
+        if (value == null) {
+
+            return "";
+        }
+
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+
+    private synchronized void record(StatementStatistics statistics) {
+
+        if (history.size() == HISTORY_SIZE) {
+
+            history.removeFirst();
+        }
+        history.addLast(statistics);
+    }
+
+    private synchronized IFBPerformanceInfo performanceInfo(Connection connection) throws SQLException {
+
+        IFBDatabasePerformance performance = databasePerformance(connection);
+        if (performance == null) {
+
+            return null;
+        }
+
+        performance.setConnection(connection);
+        return performance.getPerformanceInfo();
+    }
+
+    private synchronized IFBDatabasePerformance databasePerformance(Object driverObject) {
+
+        if (databasePerformance == null) {
+
+            databasePerformance = FBPluginRegistry.createDatabasePerformance(driverObject);
+        }
+
+        return databasePerformance;
+    }
+
+    private void debug(String message, Throwable e) {
+
+        if (Log.isDebugEnabled()) {
+
+            Log.debug(message, e);
+        }
+
+    }
+
+}
@@ -75,6 +75,8 @@ public class DefaultConnectionPool implements ConnectionPool {
     private int poolScheme;
 
     private int initialConnections;
+
+    private final ConnectionPoolInstrumentation instrumentation = new ConnectionPoolInstrumentation();
     
     public DefaultConnectionPool() {
         this(null);
@@ -183,7 +185,22 @@ public class DefaultConnectionPool implements ConnectionPool {
         this.initialConnections = initialConnections;
     }
     
-    public synchronized Connection getConnection() throws DataSourceException {
+    public Connection getDedicatedConnection() throws DataSourceException {
+
+        // pool connections are never shared
+        return getConnection();
+    }
+
+    public Connection getConnection() throws DataSourceException {
+
+        long start = System.nanoTime();
+        Connection connection = retrieveConnection();
+        instrumentation.connectionAcquired(System.nanoTime() - start);
+
+        return connection;
+    }
+
+    private synchronized Connection retrieveConnection() throws DataSourceException {
 
         /*
         if (Log.isDebugEnabled()) {
@@ -215,7 +232,7 @@ public class DefaultConnectionPool implements ConnectionPool {
 
                         Log.debug("Closing retrieved connection and retrying.");
                         close(c);
-                        return getConnection();
+                        return retrieveConnection();
                     }
 
                     //Log.debug("pool size after first loop: " + pool.size());
@@ -235,6 +252,7 @@ public class DefaultConnectionPool implements ConnectionPool {
                 PooledConnection c = new PooledConnection(dataSource.getConnection());
                 c.setInUse(true);
                 pool.add(c);
+                instrumentation.connectionCreated();
                 //Log.debug("pool size after single add: " + pool.size());
                 return c;
             }
@@ -275,6 +293,7 @@ public class DefaultConnectionPool implements ConnectionPool {
             throw new DataSourceException("Data source not initialised");
         }
 
+        long start = System.nanoTime();
         try {
             
             while (pool.size() < minimumConnections) {
@@ -290,6 +309,7 @@ public class DefaultConnectionPool implements ConnectionPool {
                 }
                 
                 pool.add(new PooledConnection(connection));
+                instrumentation.connectionCreated();
             }
 
             // initialise the default tx level if not done yet
@@ -321,6 +341,9 @@ public class DefaultConnectionPool implements ConnectionPool {
         catch (Exception e) {
             throw new DataSourceException(e);
         }
+        finally {
+            instrumentation.capacityEnsured(System.nanoTime() - start);
+        }
     }
     
     public void close(Connection connection) {
@@ -332,7 +355,9 @@ public class DefaultConnectionPool implements ConnectionPool {
             // and if it exists in the pool
             if (connection instanceof PooledConnection) {
                 
-                pool.remove(connection);
+                if (pool.remove(connection)) {
+                    instrumentation.connectionDestroyed((PooledConnection) connection);
+                }
                 realConnection = ((PooledConnection) connection).getRealConnection();
             }
 
@@ -354,6 +379,7 @@ public class DefaultConnectionPool implements ConnectionPool {
                 if (realConnection != null) {
                     realConnection.close();
                 }
+                instrumentation.connectionDestroyed(c);
             }
             pool.clear();
             pool = null;
@@ -368,6 +394,12 @@ public class DefaultConnectionPool implements ConnectionPool {
         return pool.size();
     }
     
+    public ConnectionPoolMetrics getMetrics() {
+        int activeCount = getPoolActiveSize();
+        return instrumentation.snapshot(activeCount, pool.size() - activeCount,
+                Math.max(maximumUseCount, 0), new ArrayList<PooledConnection>(pool));
+    }
+
     public int getPoolActiveSize() {
         int size = 0;
         for (int i = 0, k = pool.size(); i < k; i++) {
@@ -0,0 +1,188 @@
+/*
+ * FBPluginRegistry.java
+ *
+ * Copyright (C) 2002-2017 Takis Diakoumis
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.executequery.datasource;
+
+import java.lang.ref.SoftReference;
+import java.lang.reflect.Constructor;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.sql.Connection;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import biz.redsoft.IFBBlob;
+import biz.redsoft.IFBClob;
+import biz.redsoft.IFBCreateDatabase;
+import biz.redsoft.IFBDatabaseConnection;
+import biz.redsoft.IFBDatabaseMetadata;
+import biz.redsoft.IFBDatabasePerformance;
+import biz.redsoft.IFBUser;
+import biz.redsoft.IFBUserManager;
+import org.executequery.log.Log;
+import org.underworldlabs.util.MiscUtils;
+
+/**
+ * Provides instances of the Jaybird dependent fbplugin-impl classes.
+ * <p/>
+ * The plugin jar is loaded once for each driver class loader and the
+ * loader retained for all subsequent requests - the plugin classes
+ * must be loaded as children of the driver that created the
+ * connection, blob or metadata object they operate on.
+ * <p/>
+ * All factory methods take an object created by the driver (a
+ * connection, result set, blob etc) from which the driver class
+ * loader is determined. Where the plugin class cannot be loaded
+ * the error is logged and null returned.
+ */
+public final class FBPluginRegistry {
+
+    public static final String FBPLUGIN_IMPL_JAR = "./lib/fbplugin-impl.jar";
+
+    private static final String BLOB_IMPL = "biz.redsoft.FBBlobImpl";
+    private static final String CLOB_IMPL = "biz.redsoft.FBClobImpl";
+    private static final String CREATE_DATABASE_IMPL = "biz.redsoft.FBCreateDatabaseImpl";
+    private static final String DATABASE_CONNECTION_IMPL = "biz.redsoft.FBDatabaseConnectionImpl";
+    private static final String DATABASE_METADATA_IMPL = "biz.redsoft.FBDatabaseMetadataImpl";
+    private static final String DATABASE_PERFORMANCE_IMPL = "biz.redsoft.FBDatabasePerformanceImpl";
+    private static final String USER_IMPL = "biz.redsoft.FBUserImpl";
+    private static final String USER_MANAGER_IMPL = "biz.redsoft.FBUserManagerImpl";
+    private static final String FB3_USER_MANAGER_IMPL = "biz.redsoft.FB3UserManagerImpl";
+
+    /**
+     * plugin class loaders keyed by the driver class loader - soft values
+     * so that loaders of discarded drivers may still be collected
+     */
+    private static final Map<ClassLoader, SoftReference<ClassLoader>> PLUGIN_LOADERS =
+            new WeakHashMap<ClassLoader, SoftReference<ClassLoader>>();
+
+    private FBPluginRegistry() {}
+
+    public static IFBBlob createBlob(Object driverObject) {
+
+        return newInstance(IFBBlob.class, BLOB_IMPL, driverObject);
+    }
+
+    public static IFBClob createClob(Object driverObject) {
+
+        return newInstance(IFBClob.class, CLOB_IMPL, driverObject);
+    }
+
+    public static IFBCreateDatabase createCreateDatabase(Object driverObject) {
+
+        return newInstance(IFBCreateDatabase.class, CREATE_DATABASE_IMPL, driverObject);
+    }
+
+    public static IFBDatabaseConnection createDatabaseConnection(Object driverObject) {
+
+        return newInstance(IFBDatabaseConnection.class, DATABASE_CONNECTION_IMPL, driverObject);
+    }
+
+    public static IFBDatabaseMetadata createDatabaseMetadata(Object driverObject) {
+
+        return newInstance(IFBDatabaseMetadata.class, DATABASE_METADATA_IMPL, driverObject);
+    }
+
+    public static IFBDatabasePerformance createDatabasePerformance(Object driverObject) {
+
+        return newInstance(IFBDatabasePerformance.class, DATABASE_PERFORMANCE_IMPL, driverObject);
+    }
+
+    public static IFBUser createUser(Object driverObject) {
+
+        return newInstance(IFBUser.class, USER_IMPL, driverObject);
+    }
+
+    public static IFBUserManager createUserManager(Object driverObject) {
+
+        return newInstance(IFBUserManager.class, USER_MANAGER_IMPL, driverObject);
+    }
+
+    /**
+     * Creates the Firebird 3 user manager operating over
+     * the specified connection.
+     */
+    public static IFBUserManager createFB3UserManager(Object driverObject, Connection connection) {
+
+        try {
+
+            Class<?> clazz = loadClass(FB3_USER_MANAGER_IMPL, driverObject);
+            Constructor<?> constructor = clazz.getConstructor(Connection.class);
+
+            return IFBUserManager.class.cast(constructor.newInstance(connection));
+
+        } catch (Exception e) {
+
+            handleException(FB3_USER_MANAGER_IMPL, e);
+            return null;
+        }
+
+    }
+
+    private static <T> T newInstance(Class<T> type, String className, Object driverObject) {
+
+        try {
+
+            return type.cast(loadClass(className, driverObject).newInstance());
+
+        } catch (Exception e) {
+
+            handleException(className, e);
+            return null;
+        }
+
+    }
+
+    private static Class<?> loadClass(String className, Object driverObject)
+        throws ClassNotFoundException, MalformedURLException {
+
+        ClassLoader driverClassLoader = driverObject.getClass().getClassLoader();
+        return pluginClassLoader(driverClassLoader).loadClass(className);
+    }
+
+    /**
+     * Returns the plugin class loader for the specified driver class
+     * loader, creating and retaining it on first request.
+     */
+    public static ClassLoader pluginClassLoader(ClassLoader driverClassLoader) throws MalformedURLException {
+
+        synchronized (PLUGIN_LOADERS) {
+
+            SoftReference<ClassLoader> reference = PLUGIN_LOADERS.get(driverClassLoader);
+            ClassLoader classLoader = (reference != null) ? reference.get() : null;
+            if (classLoader == null) {
+
+                URL[] urls = MiscUtils.loadURLs(FBPLUGIN_IMPL_JAR);
+                classLoader = new URLClassLoader(urls, driverClassLoader);
+                PLUGIN_LOADERS.put(driverClassLoader, new SoftReference<ClassLoader>(classLoader));
+            }
+
+            return classLoader;
+        }
+
+    }
+
+    private static void handleException(String className, Throwable e) {
+
+        Log.error("Error creating plugin class " + className + " - " + e.getMessage(), e);
+    }
+
+}
@@ -0,0 +1,116 @@
+/*
+ * LatencyHistogram.java
+ *
+ * Copyright (C) 2002-2017 Takis Diakoumis
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.executequery.datasource;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed bucket latency histogram safe for concurrent recording.
+ * <p/>
+ * Each bucket counts the values up to and including its upper bound
+ * in milliseconds, with a final bucket for all longer values.
+ */
+public final class LatencyHistogram {
+
+    /** upper bounds of each bucket in milliseconds - the last is unbounded */
+    public static final long[] BUCKET_BOUNDS_MILLIS = {
+        1, 2, 5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000
+    };
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_BOUNDS_MILLIS.length + 1);
+
+    public void record(long nanos) {
+
+        long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+
+        int bucket = 0;
+        while (bucket < BUCKET_BOUNDS_MILLIS.length && millis > BUCKET_BOUNDS_MILLIS[bucket]) {
+
+            bucket++;
+        }
+
+        counts.incrementAndGet(bucket);
+    }
+
+    /**
+     * Returns a copy of the current bucket counts.
+     */
+    public long[] getCounts() {
+
+        long[] values = new long[counts.length()];
+        for (int i = 0; i < values.length; i++) {
+
+            values[i] = counts.get(i);
+        }
+
+        return values;
+    }
+
+    /**
+     * Returns the bucket upper bound in milliseconds containing the specified
+     * percentile of the counts, -1 if none recorded or falling in the
+     * unbounded bucket.
+     *
+     * @param counts the bucket counts as returned by getCounts()
+     * @param percentile the percentile between 0 and 100
+     */
+    public static long percentile(long[] counts, double percentile) {
+
+        long total = 0;
+        for (long count : counts) {
+
+            total += count;
+        }
+
+        if (total == 0) {
+
+            return -1;
+        }
+
+        long threshold = (long) Math.ceil(total * percentile / 100d);
+        long cumulative = 0;
+        for (int i = 0; i < counts.length; i++) {
+
+            cumulative += counts[i];
+            if (cumulative >= threshold) {
+
+                return i < BUCKET_BOUNDS_MILLIS.length ? BUCKET_BOUNDS_MILLIS[i] : -1;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Returns a display label for the bucket at the specified index.
+     */
+    public static String bucketLabel(int index) {
+
+        if (index < BUCKET_BOUNDS_MILLIS.length) {
+
+            return "<= " + BUCKET_BOUNDS_MILLIS[index] + "ms";
+        }
+
+        return "> " + BUCKET_BOUNDS_MILLIS[BUCKET_BOUNDS_MILLIS.length - 1] + "ms";
+    }
+
+}
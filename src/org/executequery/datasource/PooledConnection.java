@@ -54,6 +54,12 @@ public class PooledConnection implements Connection {
 
     private List<PooledConnectionListener> listeners;
 
+    /** the time this connection was created */
+    private final long createdTime = System.currentTimeMillis();
+
+    /** the time this connection was last returned to the pool */
+    private volatile long lastReleasedTime = createdTime;
+
     /**
      * Creates a new PooledConnection object with the
      * specified connection as the source.
@@ -168,6 +174,7 @@ public class PooledConnection implements Connection {
     public void close() throws SQLException {
 
         inUse = false;
+        lastReleasedTime = System.currentTimeMillis();
 
         if (realConnection != null) {
 
@@ -422,6 +429,14 @@ public class PooledConnection implements Connection {
         return useCount;
     }
 
+    public long getCreatedTime() {
+        return createdTime;
+    }
+
+    public long getLastReleasedTime() {
+        return lastReleasedTime;
+    }
+
     public void setTypeMap(Map<String, Class<?>> map) throws SQLException {
         checkOpen(); try { realConnection.setTypeMap(map); } catch (SQLException e) { handleException(e); }
     }
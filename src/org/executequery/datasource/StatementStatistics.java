@@ -0,0 +1,111 @@
+/*
+ * StatementStatistics.java
+ *
+ * Copyright (C) 2002-2017 Takis Diakoumis
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.executequery.datasource;
+
+import biz.redsoft.IFBPerformanceInfo;
+
+/**
+ * The database performance counters recorded for a single executed statement.
+ */
+public final class StatementStatistics {
+
+    private final long timestamp;
+
+    private final String statement;
+
+    private final long durationMillis;
+
+    private final long reads;
+
+    private final long writes;
+
+    private final long fetches;
+
+    private final long marks;
+
+    private final long deltaMemory;
+
+    private final long currentMemory;
+
+    private final long maxMemory;
+
+    StatementStatistics(long timestamp, String statement,
+            long durationMillis, IFBPerformanceInfo delta) {
+
+        this.timestamp = timestamp;
+        this.statement = statement;
+        this.durationMillis = durationMillis;
+        this.reads = delta.getPerfReads();
+        this.writes = delta.getPerfWrites();
+        this.fetches = delta.getPerfFetches();
+        this.marks = delta.getPerfMarks();
+        this.deltaMemory = delta.getPerfDeltaMemory();
+        this.currentMemory = delta.getPerfCurrentMemory();
+        this.maxMemory = delta.getPerfMaxMemory();
+    }
+
+    /** the time the statement completed */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public String getStatement() {
+        return statement;
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    /** page reads from disk */
+    public long getReads() {
+        return reads;
+    }
+
+    /** page writes to disk */
+    public long getWrites() {
+        return writes;
+    }
+
+    /** page fetches from the page cache */
+    public long getFetches() {
+        return fetches;
+    }
+
+    /** pages marked as modified in the page cache */
+    public long getMarks() {
+        return marks;
+    }
+
+    /** the change in server memory in use by the statement */
+    public long getDeltaMemory() {
+        return deltaMemory;
+    }
+
+    public long getCurrentMemory() {
+        return currentMemory;
+    }
+
+    public long getMaxMemory() {
+        return maxMemory;
+    }
+
+}
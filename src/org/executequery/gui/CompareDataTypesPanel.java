@@ -368,7 +368,6 @@ public class CompareDataTypesPanel extends DefaultTabViewActionPanel
                 columnNames = columns;
             }
 
-            String underscore = "_";
             while (rs.next()) {
                 addRow = true;
                 row = new ArrayList<String>(columns.length);
@@ -383,7 +382,7 @@ public class CompareDataTypesPanel extends DefaultTabViewActionPanel
                     // evaluate the column name for invalids
                     else {
                         String name = rs.getString(NAME_COLUMN);
-                        if (name.startsWith(underscore)) {
+                        if (!DataTypeMapping.isListed(name)) {
                             addRow = false;
                             break;
                         }
@@ -614,7 +613,7 @@ public class CompareDataTypesPanel extends DefaultTabViewActionPanel
             typeString = row.get(TYPE_COLUMN - 1).toString();
 
             int _typeValue = Integer.parseInt(typeString);
-            if (_typeValue == typeValue) {
+            if (DataTypeMapping.isMapped(typeValue, _typeValue)) {
                 mappedListV.add(row.get(NAME_COLUMN - 1).toString());
                 // add the row to the table display
                 tableData.add(row);
@@ -0,0 +1,176 @@
+/*
+ * DataTypeMapping.java
+ *
+ * Copyright (C) 2002-2017 Takis Diakoumis
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.executequery.gui;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.executequery.databaseobjects.DatabaseHost;
+import org.executequery.gui.browser.ColumnData;
+import org.underworldlabs.jdbc.DataSourceException;
+
+/**
+ * The data types of a database mapped from those of another.
+ * <p/>
+ * As compared within the CompareDataTypesPanel, a data type maps to
+ * those of another database reporting the same JDBC type. The types
+ * of each JDBC type are held in the order reported by the driver -
+ * that is the closest match first.
+ */
+public final class DataTypeMapping {
+
+    private static final String UNDERSCORE = "_";
+
+    private static final int TYPE_NAME = 1;
+
+    private static final int DATA_TYPE = 2;
+
+    private static final int CREATE_PARAMS = 6;
+
+    private final Map<Integer, List<String>> typeNames = new HashMap<Integer, List<String>>();
+
+    private final Map<String, String> createParams = new HashMap<String, String>();
+
+    /**
+     * Creates the mapping to the data types of the specified host.
+     *
+     * @param host the database mapped to
+     */
+    public DataTypeMapping(DatabaseHost host) throws DataSourceException {
+
+        ResultSet rs = host.getDataTypeInfo();
+        try {
+
+            while (rs.next()) {
+
+                String name = rs.getString(TYPE_NAME);
+                if (!isListed(name)) {
+
+                    continue;
+                }
+
+                Integer sqlType = Integer.valueOf(rs.getInt(DATA_TYPE));
+                List<String> names = typeNames.get(sqlType);
+                if (names == null) {
+
+                    names = new ArrayList<String>();
+                    typeNames.put(sqlType, names);
+                }
+
+                names.add(name);
+                createParams.put(name.toUpperCase(), rs.getString(CREATE_PARAMS));
+            }
+
+        } catch (SQLException e) {
+
+            throw new DataSourceException(e);
+
+        } finally {
+
+            try {
+                rs.close();
+            } catch (SQLException e) {}
+        }
+
+    }
+
+    /**
+     * Returns whether the specified type is listed - excluding the
+     * array types some databases report with a leading underscore.
+     */
+    static boolean isListed(String typeName) {
+
+        return typeName != null && !typeName.startsWith(UNDERSCORE);
+    }
+
+    /**
+     * Returns whether a data type of the specified JDBC type maps
+     * to one of the mapped JDBC type.
+     */
+    static boolean isMapped(int sqlType, int mappedSqlType) {
+
+        return sqlType == mappedSqlType;
+    }
+
+    /**
+     * Returns the names of the data types the specified JDBC type
+     * maps to, closest first.
+     */
+    public List<String> getMappedTypeNames(int sqlType) {
+
+        List<String> names = typeNames.get(Integer.valueOf(sqlType));
+        if (names == null) {
+
+            return Collections.emptyList();
+        }
+
+        return Collections.unmodifiableList(names);
+    }
+
+    /**
+     * Returns the definition of the data type the specified column
+     * maps to as used in a CREATE TABLE statement, including its size
+     * and scale where the type takes them.
+     *
+     * @param column the column of the other database
+     * @return the type definition or null if no data type maps
+     */
+    public String getTypeDefinition(ColumnData column) {
+
+        List<String> names = getMappedTypeNames(column.getSQLType());
+        if (names.isEmpty()) {
+
+            return null;
+        }
+
+        // the same name where the type is shared, else the closest
+        String name = names.get(0);
+        for (String mappedName : names) {
+
+            if (mappedName.equalsIgnoreCase(column.getColumnType())) {
+
+                name = mappedName;
+                break;
+            }
+
+        }
+
+        String params = createParams.get(name.toUpperCase());
+        if (params == null || params.trim().length() == 0 || column.getColumnSize() <= 0) {
+
+            return name;
+        }
+
+        if (params.indexOf(',') != -1) {
+
+            return name + "(" + column.getColumnSize() + "," + column.getColumnScale() + ")";
+        }
+
+        return name + "(" + column.getColumnSize() + ")";
+    }
+
+}
+
@@ -25,7 +25,7 @@ import java.util.Vector;
 import javax.swing.JList;
 import javax.swing.ListModel;
 
-public class DefaultList extends JList {
+public class DefaultList<E> extends JList<E> {
 
     private static final int DEFAULT_ROW_HEIGHT = 20;
     
@@ -35,19 +35,19 @@ public class DefaultList extends JList {
         init();
     }
 
-    public DefaultList(ListModel dataModel) {
+    public DefaultList(ListModel<E> dataModel) {
 
         super(dataModel);
         init();
     }
 
-    public DefaultList(Object[] listData) {
+    public DefaultList(E[] listData) {
 
         super(listData);
         init();
     }
 
-    public DefaultList(Vector<?> listData) {
+    public DefaultList(Vector<? extends E> listData) {
 
         super(listData);
         init();
@@ -59,6 +59,7 @@ import org.executequery.util.ThreadUtils;
 import org.executequery.util.ThreadWorker;
 import org.underworldlabs.swing.AbstractStatusBarPanel;
 import org.underworldlabs.swing.GUIUtils;
+import org.underworldlabs.swing.NumberTextField;
 import org.underworldlabs.swing.ProgressBar;
 import org.underworldlabs.swing.ProgressBarFactory;
 import org.underworldlabs.swing.util.SwingWorker;
@@ -93,6 +94,10 @@ public class ExecuteSqlScriptPanel extends DefaultTabViewActionPanel
     private JComboBox actionOnErrorCombo;
     
     private JCheckBox logOutputCheckBox;
+
+    private NumberTextField batchSizeField;
+
+    private NumberTextField commitIntervalField;
     
     private JButton startButton;
 
@@ -143,6 +148,14 @@ public class ExecuteSqlScriptPanel extends DefaultTabViewActionPanel
         button.addActionListener(this);
         button.setMnemonic('r');
 
+        batchSizeField = WidgetFactory.createNumberTextField();
+        batchSizeField.setValue(1);
+        batchSizeField.setToolTipText("Consecutive INSERT, UPDATE and DELETE statements sent as one batch");
+
+        commitIntervalField = WidgetFactory.createNumberTextField();
+        commitIntervalField.setValue(0);
+        commitIntervalField.setToolTipText("Commit after this many statements - 0 to commit manually");
+
         logOutputCheckBox = new JCheckBox("<html>&nbsp;&nbsp;<i>Note:</i> This can slow down the process significantly </html>");
         
         JPanel mainPanel = new JPanel(new GridBagLayout());
@@ -180,6 +193,28 @@ public class ExecuteSqlScriptPanel extends DefaultTabViewActionPanel
         gbc.weightx = 0;
         gbc.gridwidth = 1;
         gbc.insets.top = 5;
+        mainPanel.add(new JLabel("Batch Size:"), gbc);
+        gbc.gridx = 1;
+        gbc.weightx = 1.0;
+        gbc.gridwidth = GridBagConstraints.REMAINDER;
+        gbc.insets.top = 0;
+        mainPanel.add(batchSizeField, gbc);
+        gbc.gridy++;
+        gbc.gridx = 0;
+        gbc.weightx = 0;
+        gbc.gridwidth = 1;
+        gbc.insets.top = 5;
+        mainPanel.add(new JLabel("Commit Every:"), gbc);
+        gbc.gridx = 1;
+        gbc.weightx = 1.0;
+        gbc.gridwidth = GridBagConstraints.REMAINDER;
+        gbc.insets.top = 0;
+        mainPanel.add(commitIntervalField, gbc);
+        gbc.gridy++;
+        gbc.gridx = 0;
+        gbc.weightx = 0;
+        gbc.gridwidth = 1;
+        gbc.insets.top = 5;
         mainPanel.add(new JLabel("Input File:"), gbc);
         gbc.gridx = 1;
         gbc.weightx = 1.0;
@@ -475,6 +510,9 @@ public class ExecuteSqlScriptPanel extends DefaultTabViewActionPanel
             statusBar.setStatusText("Executing...");
             statusBar.startProgressBar();
 
+            sqlScriptRunner.setBatchSize(batchSizeField.getValue());
+            sqlScriptRunner.setCommitInterval(commitIntervalField.getValue());
+
             sqlStatementResult = sqlScriptRunner.execute(
                         combosGroup.getSelectedHost().getDatabaseConnection(),
                         fileNameField.getText(),
@@ -56,6 +56,7 @@ import org.executequery.databasemediators.DatabaseConnection;
 import org.executequery.databasemediators.DatabaseDriver;
 import org.executequery.databaseobjects.DatabaseHost;
 import org.executequery.datasource.ConnectionManager;
+import org.executequery.datasource.ConnectionPoolMetrics;
 import org.executequery.datasource.DefaultDriverLoader;
 import org.executequery.datasource.DriverLoader;
 import org.executequery.event.ApplicationEvent;
@@ -232,6 +233,8 @@ public class ConnectionPanel extends AbstractConnectionPanel
     private BrowserController controller;
 
     private SSHTunnelConnectionPanel sshTunnelConnectionPanel;
+
+    private ConnectionPoolMetricsPanel poolMetricsPanel;
     
     /** Creates a new instance of ConnectionPanel */
     public ConnectionPanel(BrowserController controller) {
@@ -670,11 +673,13 @@ public class ConnectionPanel extends AbstractConnectionPanel
         scrollPane.setBorder(null);
 
         sshTunnelConnectionPanel = new SSHTunnelConnectionPanel();
+        poolMetricsPanel = new ConnectionPoolMetricsPanel();
         
         tabPane = new JTabbedPane(JTabbedPane.BOTTOM);
         tabPane.addTab(bundleString("Basic"), scrollPane);
         tabPane.addTab(bundleString("Advanced"), advancedPanel);
         tabPane.addTab(bundleString("SSHTunnel"), sshTunnelConnectionPanel);
+        tabPane.addTab(bundleString("PoolStatistics"), poolMetricsPanel);
 
         tabPane.addChangeListener(this);
         
@@ -714,7 +719,22 @@ public class ConnectionPanel extends AbstractConnectionPanel
             populateConnectionObject();
             sshTunnelConnectionPanel.setValues(databaseConnection);
         }
-        
+
+        updatePoolMetrics();
+    }
+
+    private void updatePoolMetrics() {
+
+        if (tabPane.getSelectedComponent() == poolMetricsPanel
+                && databaseConnection != null && databaseConnection.isConnected()) {
+
+            poolMetricsPanel.start(databaseConnection);
+
+        } else {
+
+            poolMetricsPanel.stop();
+        }
+
     }
     
     private NumberTextField createNumberTextField() {
@@ -1231,11 +1251,17 @@ public class ConnectionPanel extends AbstractConnectionPanel
             statusLabel.setText(bundleString("status.Connected") + count +
                     (count > 1 ? bundleString("status.Connected.connections") : bundleString("status.Connected.connection")) );
 
+            ConnectionPoolMetrics metrics = ConnectionManager.getPoolMetrics(databaseConnection);
+            statusLabel.setToolTipText(metrics != null ? metrics.toString() : null);
+
         } else {
 
             statusLabel.setText(bundleString("status.NotConnected"));
+            statusLabel.setToolTipText(null);
         }
 
+        updatePoolMetrics();
+
         paintStatusLabel();
         setEncryptPassword();
     }
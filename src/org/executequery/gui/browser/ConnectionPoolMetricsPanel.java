@@ -0,0 +1,379 @@
+/*
+ * ConnectionPoolMetricsPanel.java
+ *
+ * Copyright (C) 2002-2017 Takis Diakoumis
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.executequery.gui.browser;
+
+import java.awt.BorderLayout;
+import java.awt.FlowLayout;
+import java.awt.GridBagConstraints;
+import java.awt.GridBagLayout;
+import java.awt.Insets;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.event.HierarchyEvent;
+import java.awt.event.HierarchyListener;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+import javax.swing.BorderFactory;
+import javax.swing.JButton;
+import javax.swing.JFileChooser;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.Timer;
+import javax.swing.table.AbstractTableModel;
+
+import org.executequery.GUIUtilities;
+import org.executequery.components.FileChooserDialog;
+import org.executequery.databasemediators.DatabaseConnection;
+import org.executequery.datasource.ConnectionManager;
+import org.executequery.datasource.ConnectionPoolMetrics;
+import org.executequery.datasource.ConnectionStatisticsCollector;
+import org.executequery.datasource.LatencyHistogram;
+import org.executequery.gui.DefaultTable;
+import org.executequery.gui.WidgetFactory;
+import org.executequery.localization.Bundles;
+import org.executequery.log.Log;
+import org.underworldlabs.swing.DefaultFieldLabel;
+
+/**
+ * Live view of the connection pool metrics of an open connection.
+ * <p/>
+ * The values are refreshed every second while the panel is showing.
+ * The statement statistics history of the connection may also be
+ * exported from here as comma separated values.
+ */
+public class ConnectionPoolMetricsPanel extends JPanel
+                                        implements ActionListener,
+                                                   HierarchyListener {
+
+    private static final int REFRESH_INTERVAL = 1000;
+
+    private static final String[] VALUE_KEYS = {
+        "active", "idle", "created", "destroyed", "acquired",
+        "averageWait", "maximumWait", "p50", "p95", "p99",
+        "validationFailures", "ensureCapacity", "averageLifetime",
+        "oldestConnection", "useCount"
+    };
+
+    private final JLabel[] valueLabels = new JLabel[VALUE_KEYS.length];
+
+    private final HistogramTableModel histogramModel = new HistogramTableModel();
+
+    private final Timer timer;
+
+    private DatabaseConnection databaseConnection;
+
+    public ConnectionPoolMetricsPanel() {
+
+        super(new BorderLayout());
+
+        timer = new Timer(REFRESH_INTERVAL, this);
+        timer.setInitialDelay(0);
+
+        init();
+        addHierarchyListener(this);
+    }
+
+    private void init() {
+
+        JPanel valuesPanel = new JPanel(new GridBagLayout());
+        GridBagConstraints gbc = new GridBagConstraints();
+        gbc.anchor = GridBagConstraints.NORTHWEST;
+        gbc.fill = GridBagConstraints.HORIZONTAL;
+        gbc.insets = new Insets(3, 5, 3, 10);
+
+        for (int i = 0; i < VALUE_KEYS.length; i++) {
+
+            valueLabels[i] = new DefaultFieldLabel();
+
+            gbc.gridy = i;
+            gbc.gridx = 0;
+            gbc.weightx = 0;
+            valuesPanel.add(new DefaultFieldLabel(bundleString(VALUE_KEYS[i])), gbc);
+
+            gbc.gridx = 1;
+            gbc.weightx = 1.0;
+            valuesPanel.add(valueLabels[i], gbc);
+        }
+
+        DefaultTable histogramTable = new DefaultTable(histogramModel);
+        histogramTable.getTableHeader().setReorderingAllowed(false);
+
+        JScrollPane scrollPane = new JScrollPane(histogramTable);
+        scrollPane.setBorder(BorderFactory.createTitledBorder(bundleString("histogram")));
+
+        JButton exportButton = WidgetFactory.createButton(bundleString("exportHistory"));
+        exportButton.setToolTipText(bundleString("exportHistory.tool-tip"));
+        exportButton.addActionListener(new ActionListener() {
+            public void actionPerformed(ActionEvent e) {
+                exportHistory();
+            }
+        });
+
+        JButton clearButton = WidgetFactory.createButton(bundleString("clearHistory"));
+        clearButton.addActionListener(new ActionListener() {
+            public void actionPerformed(ActionEvent e) {
+                clearHistory();
+            }
+        });
+
+        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT, 5, 0));
+        buttonPanel.add(exportButton);
+        buttonPanel.add(clearButton);
+
+        JPanel panel = new JPanel(new BorderLayout(5, 5));
+        panel.setBorder(BorderFactory.createEmptyBorder(5, 5, 5, 5));
+        panel.add(valuesPanel, BorderLayout.NORTH);
+        panel.add(scrollPane, BorderLayout.CENTER);
+        panel.add(buttonPanel, BorderLayout.SOUTH);
+
+        add(panel, BorderLayout.CENTER);
+    }
+
+    /**
+     * Starts refreshing the metrics of the specified connection.
+     */
+    public void start(DatabaseConnection databaseConnection) {
+
+        this.databaseConnection = databaseConnection;
+        timer.restart();
+    }
+
+    /**
+     * Stops refreshing the metrics.
+     */
+    public void stop() {
+
+        timer.stop();
+    }
+
+    public void hierarchyChanged(HierarchyEvent e) {
+
+        if ((e.getChangeFlags() & HierarchyEvent.SHOWING_CHANGED) != 0) {
+
+            if (isShowing()) {
+
+                if (databaseConnection != null) {
+
+                    timer.restart();
+                }
+
+            } else {
+
+                stop();
+            }
+
+        }
+
+    }
+
+    public void actionPerformed(ActionEvent e) {
+
+        ConnectionPoolMetrics metrics = null;
+        if (databaseConnection != null && databaseConnection.isConnected()) {
+
+            metrics = ConnectionManager.getPoolMetrics(databaseConnection);
+        }
+
+        if (metrics == null) {
+
+            stop();
+            clear();
+            return;
+        }
+
+        int index = 0;
+        setValue(index++, String.valueOf(metrics.getActiveCount()));
+        setValue(index++, String.valueOf(metrics.getIdleCount()));
+        setValue(index++, String.valueOf(metrics.getCreatedCount()));
+        setValue(index++, String.valueOf(metrics.getDestroyedCount()));
+        setValue(index++, String.valueOf(metrics.getAcquiredCount()));
+        setValue(index++, millis(metrics.getAverageWaitMillis()));
+        setValue(index++, millis(metrics.getMaximumWaitMillis()));
+        setValue(index++, percentile(metrics, 50));
+        setValue(index++, percentile(metrics, 95));
+        setValue(index++, percentile(metrics, 99));
+        setValue(index++, String.valueOf(metrics.getValidationFailures()));
+        setValue(index++, millis(metrics.getEnsureCapacityMillis()));
+        setValue(index++, millis(metrics.getAverageLifetimeMillis()));
+        setValue(index++, millis(metrics.getOldestConnectionAgeMillis()));
+
+        int maximumUseCount = metrics.getMaximumUseCount();
+        setValue(index, metrics.getHighestUseCount() + " / "
+                + (maximumUseCount > 0 ? String.valueOf(maximumUseCount) : bundleString("unlimited")));
+
+        histogramModel.setCounts(metrics.getAcquisitionHistogram());
+    }
+
+    private ConnectionStatisticsCollector statisticsCollector() {
+
+        ConnectionStatisticsCollector collector = null;
+        if (databaseConnection != null) {
+
+            collector = ConnectionManager.getStatisticsCollector(databaseConnection);
+        }
+
+        if (collector == null) {
+
+            GUIUtilities.displayWarningMessage(bundleString("notConnected"));
+        }
+
+        return collector;
+    }
+
+    private void clearHistory() {
+
+        ConnectionStatisticsCollector collector = statisticsCollector();
+        if (collector != null) {
+
+            collector.clearHistory();
+        }
+
+    }
+
+    private void exportHistory() {
+
+        ConnectionStatisticsCollector collector = statisticsCollector();
+        if (collector == null) {
+
+            return;
+        }
+
+        FileChooserDialog fileChooser = new FileChooserDialog();
+        fileChooser.setFileSelectionMode(JFileChooser.FILES_ONLY);
+
+        int result = fileChooser.showSaveDialog(this);
+        if (result != JFileChooser.APPROVE_OPTION || fileChooser.getSelectedFile() == null) {
+
+            return;
+        }
+
+        Writer writer = null;
+        try {
+
+            GUIUtilities.showWaitCursor();
+
+            writer = new OutputStreamWriter(
+                    new FileOutputStream(fileChooser.getSelectedFile()), "UTF-8");
+            collector.exportHistory(writer);
+
+        } catch (IOException e) {
+
+            if (Log.isDebugEnabled()) {
+
+                Log.debug("Error writing statement statistics to file", e);
+            }
+
+            GUIUtilities.displayErrorMessage(bundleString("exportError", e.getMessage()));
+
+        } finally {
+
+            if (writer != null) {
+
+                try {
+                    writer.close();
+                } catch (IOException e) {}
+            }
+
+            GUIUtilities.showNormalCursor();
+        }
+
+    }
+
+    private void clear() {
+
+        for (JLabel label : valueLabels) {
+
+            label.setText("");
+        }
+
+        histogramModel.setCounts(null);
+    }
+
+    private void setValue(int index, String value) {
+
+        valueLabels[index].setText(value);
+    }
+
+    private String percentile(ConnectionPoolMetrics metrics, double percentile) {
+
+        long value = metrics.getAcquisitionPercentileMillis(percentile);
+        if (value < 0) {
+
+            return metrics.getAcquiredCount() > 0 ? LatencyHistogram.bucketLabel(
+                    LatencyHistogram.BUCKET_BOUNDS_MILLIS.length) : "-";
+        }
+
+        return "<= " + millis(value);
+    }
+
+    private String millis(long value) {
+
+        return value + " ms";
+    }
+
+    private String bundleString(String key) {
+
+        return Bundles.get(getClass(), key);
+    }
+
+    private String bundleString(String key, Object... args) {
+
+        return Bundles.get(getClass(), key, args);
+    }
+
+    private class HistogramTableModel extends AbstractTableModel {
+
+        private long[] counts;
+
+        void setCounts(long[] counts) {
+
+            this.counts = counts;
+            fireTableDataChanged();
+        }
+
+        public int getRowCount() {
+
+            return counts != null ? counts.length : 0;
+        }
+
+        public int getColumnCount() {
+
+            return 2;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+
+            return column == 0 ? bundleString("bucket") : bundleString("count");
+        }
+
+        public Object getValueAt(int row, int column) {
+
+            return column == 0 ? LatencyHistogram.bucketLabel(row) : Long.valueOf(counts[row]);
+        }
+
+    }
+
+}
@@ -12,6 +12,7 @@ import org.executequery.databasemediators.DatabaseDriver;
 import org.executequery.databasemediators.spi.DatabaseConnectionFactoryImpl;
 import org.executequery.databaseobjects.DatabaseHost;
 import org.executequery.datasource.ConnectionManager;
+import org.executequery.datasource.FBPluginRegistry;
 import org.executequery.event.*;
 import org.executequery.gui.DefaultTable;
 import org.executequery.gui.FormPanelButton;
@@ -730,8 +731,6 @@ public class CreateDatabasePanel extends ActionPanel
 
         URL[] urlDriver = new URL[0];
         Class clazzDriver = null;
-        URL[] urls = new URL[0];
-        Class clazzdb = null;
         Object odb = null;
         try {
             urlDriver = MiscUtils.loadURLs(databaseDriver.getPath());
@@ -750,10 +749,7 @@ public class CreateDatabasePanel extends ActionPanel
                 return;
             }
 
-            urls = MiscUtils.loadURLs("./lib/fbplugin-impl.jar");
-            ClassLoader cl = new URLClassLoader(urls, o.getClass().getClassLoader());
-            clazzdb = cl.loadClass("biz.redsoft.FBCreateDatabaseImpl");
-            odb = clazzdb.newInstance();
+            odb = FBPluginRegistry.createCreateDatabase(o);
         } catch (ClassNotFoundException e) {
             e.printStackTrace();
         } catch (IllegalAccessException e) {
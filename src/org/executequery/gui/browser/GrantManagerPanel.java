@@ -16,18 +16,15 @@ import org.executequery.databasemediators.QueryTypes;
 import org.executequery.databasemediators.spi.DefaultStatementExecutor;
 import org.executequery.databasemediators.spi.StatementExecutor;
 import org.executequery.datasource.ConnectionManager;
+import org.executequery.datasource.FBPluginRegistry;
 import org.executequery.gui.browser.managment.ThreadOfGrantManager;
 import org.executequery.localization.Bundles;
 import org.executequery.log.Log;
 import org.executequery.repository.DatabaseConnectionRepository;
 import org.executequery.repository.RepositoryCache;
-import org.underworldlabs.util.MiscUtils;
 
 import javax.swing.*;
 import java.awt.*;
-import java.net.MalformedURLException;
-import java.net.URL;
-import java.net.URLClassLoader;
 import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -738,24 +735,7 @@ public class GrantManagerPanel extends JPanel {
             e.printStackTrace();
         }
 
-        URL[] urls = new URL[0];
-        Class clazzdb = null;
-        Object odb = null;
-        try {
-            urls = MiscUtils.loadURLs("./lib/fbplugin-impl.jar");
-            ClassLoader cl = new URLClassLoader(urls, connection.getClass().getClassLoader());
-            clazzdb = cl.loadClass("biz.redsoft.FBUserManagerImpl");
-            odb = clazzdb.newInstance();
-        } catch (ClassNotFoundException e) {
-            e.printStackTrace();
-        } catch (IllegalAccessException e) {
-            e.printStackTrace();
-        } catch (InstantiationException e) {
-            e.printStackTrace();
-        } catch (MalformedURLException e) {
-            e.printStackTrace();
-        }
-        IFBUserManager userManager = (IFBUserManager) odb;
+        IFBUserManager userManager = FBPluginRegistry.createUserManager(connection);
         userManager = getUserManager(userManager, listConnections.get(databaseBox.getSelectedIndex()));
         Map<String, IFBUser> users;
         try {
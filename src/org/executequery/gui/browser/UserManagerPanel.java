@@ -16,6 +16,7 @@ import org.executequery.databasemediators.DatabaseDriver;
 import org.executequery.databaseobjects.DatabaseHost;
 import org.executequery.databaseobjects.impl.DefaultDatabaseHost;
 import org.executequery.datasource.ConnectionManager;
+import org.executequery.datasource.FBPluginRegistry;
 import org.executequery.gui.BaseDialog;
 import org.executequery.gui.browser.BrowserConstants;
 import org.executequery.gui.browser.BrowserController;
@@ -33,7 +34,6 @@ import org.underworldlabs.util.MiscUtils;
 import javax.swing.*;
 import java.awt.*;
 import java.io.IOException;
-import java.lang.reflect.InvocationTargetException;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLClassLoader;
@@ -451,10 +451,7 @@ public class UserManagerPanel extends JPanel {
             }
             URL[] urlDriver = new URL[0];
             Class clazzDriver = null;
-            URL[] urls = new URL[0];
-            Class clazzdb = null;
             Object o = null;
-            Object odb = null;
             try {
                 urlDriver = MiscUtils.loadURLs(dd.getPath());
                 ClassLoader clD = new URLClassLoader(urlDriver);
@@ -472,43 +469,11 @@ public class UserManagerPanel extends JPanel {
             } catch (MalformedURLException e) {
                 e.printStackTrace();
             }
-            try {
-
-                urls = MiscUtils.loadURLs("./lib/fbplugin-impl.jar");
-                ClassLoader cl = new URLClassLoader(urls, o.getClass().getClassLoader());
-                clazzdb = cl.loadClass("biz.redsoft.FBUserImpl");
-                odb = clazzdb.newInstance();
-            } catch (ClassNotFoundException e) {
-                e.printStackTrace();
-            } catch (IllegalAccessException e) {
-                e.printStackTrace();
-            } catch (InstantiationException e) {
-                e.printStackTrace();
-            } catch (MalformedURLException e) {
-                e.printStackTrace();
-            }
 
-            userAdd = (IFBUser) odb;
+            userAdd = FBPluginRegistry.createUser(o);
 
             // todo Make sure object is created
-            urls = new URL[0];
-            clazzdb = null;
-            odb = null;
-            try {
-                urls = MiscUtils.loadURLs("./lib/fbplugin-impl.jar");
-                ClassLoader cl = new URLClassLoader(urls, o.getClass().getClassLoader());
-                clazzdb = cl.loadClass("biz.redsoft.FBUserManagerImpl");
-                odb = clazzdb.newInstance();
-            } catch (ClassNotFoundException e) {
-                e.printStackTrace();
-            } catch (IllegalAccessException e) {
-                e.printStackTrace();
-            } catch (InstantiationException e) {
-                e.printStackTrace();
-            } catch (MalformedURLException e) {
-                e.printStackTrace();
-            }
-            this.userManager = (IFBUserManager) odb;
+            this.userManager = FBPluginRegistry.createUserManager(o);
         } else {
             Connection connection = null;
             try {
@@ -517,9 +482,6 @@ public class UserManagerPanel extends JPanel {
                 e.printStackTrace();
             }
 
-            URL[] urls = new URL[0];
-            Class clazzdb = null;
-            Object odb = null;
             DatabaseHost host = new DefaultDatabaseHost(dbc);
             String vers = host.getDatabaseProductVersion();
             version = 2;
@@ -536,52 +498,12 @@ public class UserManagerPanel extends JPanel {
 
             }
 
-            try {
-                urls = MiscUtils.loadURLs("./lib/fbplugin-impl.jar");
-                ClassLoader cl = new URLClassLoader(urls, connection.getClass().getClassLoader());
-                clazzdb = cl.loadClass("biz.redsoft.FBUserImpl");
-                odb = clazzdb.newInstance();
-            } catch (ClassNotFoundException e) {
-                e.printStackTrace();
-            } catch (IllegalAccessException e) {
-                e.printStackTrace();
-            } catch (InstantiationException e) {
-                e.printStackTrace();
-            } catch (MalformedURLException e) {
-                e.printStackTrace();
-            }
-
-            userAdd = (IFBUser) odb;
+            userAdd = FBPluginRegistry.createUser(connection);
 
             // todo Make sure object is created
-            urls = new URL[0];
-            clazzdb = null;
-            odb = null;
-            String loadedClass;
             if (version == 3)
-                loadedClass = "biz.redsoft.FB3UserManagerImpl";
-            else loadedClass = "biz.redsoft.FBUserManagerImpl";
-            try {
-                urls = MiscUtils.loadURLs("./lib/fbplugin-impl.jar");
-                ClassLoader cl = new URLClassLoader(urls, connection.getClass().getClassLoader());
-                clazzdb = cl.loadClass(loadedClass);
-                if (version == 3)
-                    odb = clazzdb.getConstructor(Connection.class).newInstance(con);
-                else odb = clazzdb.newInstance();
-            } catch (ClassNotFoundException e) {
-                e.printStackTrace();
-            } catch (IllegalAccessException e) {
-                e.printStackTrace();
-            } catch (InstantiationException e) {
-                e.printStackTrace();
-            } catch (MalformedURLException e) {
-                e.printStackTrace();
-            } catch (NoSuchMethodException e) {
-                e.printStackTrace();
-            } catch (InvocationTargetException e) {
-                e.printStackTrace();
-            }
-            this.userManager = (IFBUserManager) odb;
+                this.userManager = FBPluginRegistry.createFB3UserManager(connection, con);
+            else this.userManager = FBPluginRegistry.createUserManager(connection);
         }
     }
 
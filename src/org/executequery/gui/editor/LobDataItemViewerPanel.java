@@ -64,6 +64,8 @@ public class LobDataItemViewerPanel extends DefaultActionButtonsPanel
     
     private final LobRecordDataItem recordDataItem;
 
+    private byte[] data;
+
     private final ActionContainer parent;
 
     public LobDataItemViewerPanel(ActionContainer parent, LobRecordDataItem recordDataItem) {
@@ -169,7 +171,13 @@ public class LobDataItemViewerPanel extends DefaultActionButtonsPanel
     
     private byte[] recordDataItemByteArray() {
 
-        return recordDataItem.getData();
+        // held for the life of the viewer - the item may not retain it
+        if (data == null) {
+
+            data = recordDataItem.getData();
+        }
+
+        return data;
     }
     
     private void loadTextData() {
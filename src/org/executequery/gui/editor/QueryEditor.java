@@ -716,6 +716,18 @@ public class QueryEditor extends DefaultTabView
         resultsPanel.setResultSet(rset, true, getMaxRecords(), query);
     }
 
+    /**
+     * Sets the result set object reading only its first page of rows.
+     *
+     * @param the executed result set
+     * @param the executed query of the result set
+     * @return whether rows remain to be fetched
+     */
+    public boolean setPagedResultSet(ResultSet rset, String query) {
+
+        return resultsPanel.setPagedResultSet(rset, getMaxRecords(), query);
+    }
+
     public void destroyTable() {
 
         resultsPanel.destroyTable();
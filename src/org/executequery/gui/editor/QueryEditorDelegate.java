@@ -209,6 +209,11 @@ public class QueryEditorDelegate implements QueryDelegate {
         queryEditor.setResultSet(rs, query);
     }
 
+    public boolean setPagedResultSet(ResultSet rs, String query) throws SQLException {
+
+        return queryEditor.setPagedResultSet(rs, query);
+    }
+
     public void setStatusMessage(String text) {
 
         queryEditor.setLeftStatusText(text);
@@ -30,10 +30,8 @@ import java.awt.event.ActionEvent;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.io.OutputStream;
-import java.io.PrintWriter;
 import java.sql.Types;
 import java.util.ArrayList;
 import java.util.List;
@@ -61,9 +59,11 @@ import org.executequery.gui.browser.DefaultInlineFieldButton;
 import org.executequery.gui.importexport.DefaultExcelWorkbookBuilder;
 import org.executequery.gui.importexport.ExcelWorkbookBuilder;
 import org.executequery.gui.importexport.ImportExportDataProcess;
+import org.executequery.gui.importexport.StreamingExcelWorkbookBuilder;
 import org.executequery.gui.resultset.RecordDataItem;
 import org.executequery.gui.resultset.ResultSetTableModel;
 import org.executequery.gui.resultset.ResultSetTableModelToXMLWriter;
+import org.executequery.io.ExportTextWriter;
 import org.executequery.localization.Bundles;
 import org.underworldlabs.swing.AbstractBaseDialog;
 import org.underworldlabs.swing.CharLimitedTextField;
@@ -301,7 +301,7 @@ public class QueryEditorResultsExporter extends AbstractBaseDialog {
         int exportFormatType = getExportFormatType();
         if (exportFormatType == ImportExportDataProcess.EXCEL) {
             
-            suffix = ".xls";
+            suffix = path.toLowerCase().endsWith(".xls") ? null : ".xlsx";
 
         } else if (exportFormatType == ImportExportDataProcess.XML) {
         
@@ -416,12 +416,13 @@ public class QueryEditorResultsExporter extends AbstractBaseDialog {
 
         OutputStream outputStream = null;
         ResultsProgressDialog progressDialog = null;
+        ExcelWorkbookBuilder builder = null;
 
         try {
 
             outputStream = createOutputStream();
 
-            ExcelWorkbookBuilder builder = createExcelWorkbookBuilder();
+            builder = createExcelWorkbookBuilder(fileNameField.getText());
 
             builder.createSheet("Result Set Export");
             
@@ -477,6 +478,11 @@ public class QueryEditorResultsExporter extends AbstractBaseDialog {
                 } catch (IOException e) {}
             }
 
+            if (builder != null) {
+
+                builder.discard();
+            }
+
         }
 
     }
@@ -499,9 +505,15 @@ public class QueryEditorResultsExporter extends AbstractBaseDialog {
         return new FileOutputStream(fileNameField.getText(), false);
     }
     
-    private ExcelWorkbookBuilder createExcelWorkbookBuilder() {
-        
-        return new DefaultExcelWorkbookBuilder();
+    private ExcelWorkbookBuilder createExcelWorkbookBuilder(String path) {
+
+        // the streaming builder for all but the older .xls format
+        if (path.toLowerCase().endsWith(".xls")) {
+
+            return new DefaultExcelWorkbookBuilder();
+        }
+
+        return new StreamingExcelWorkbookBuilder();
     }
     
     private Object exportDelimited() {
@@ -527,14 +539,13 @@ public class QueryEditorResultsExporter extends AbstractBaseDialog {
         }
         
         ResultsProgressDialog progressDialog = null;
-        PrintWriter writer = null;
+        ExportTextWriter writer = null;
         File exportFile = null;
         
         try {
             exportFile = new File(fileNameField.getText());
             
-            StringBuilder rowLines = new StringBuilder(5000);
-            writer = new PrintWriter(new FileWriter(exportFile, false), true);
+            writer = new ExportTextWriter(exportFile).setDelimiter(String.valueOf(delim));
             
             int rowCount = model.getRowCount();
             int columnCount = model.getColumnCount();
@@ -543,13 +554,9 @@ public class QueryEditorResultsExporter extends AbstractBaseDialog {
 
             if (columnHeadersCheck.isSelected()) {
                 for (int i = 0; i < columnCount; i++) {
-                    rowLines.append(model.getColumnName(i));
-                    if (i != columnCount - 1) {
-                        rowLines.append(delim);
-                    }
+                    writer.value(model.getColumnName(i));
                 }
-                writer.println(rowLines.toString());
-                rowLines.setLength(0);
+                writer.endRow();
             }
             
             boolean applyQuotes = applyQuotesCheck.isSelected();
@@ -558,26 +565,15 @@ public class QueryEditorResultsExporter extends AbstractBaseDialog {
                 for (int j = 0; j < columnCount; j++) {
 
                     Object value = model.getValueAt(i, j);
-                    if (applyQuotes && isCDATA((RecordDataItem) value)) {
-                    
-                        rowLines.append("\""+valueAsString(value)+"\"");
-                    
-                    } else {
-                        
-                        rowLines.append(valueAsString(value));
-                    }
-                    
-                    if (j != columnCount - 1) {
-
-                        rowLines.append(delim);
-                    }
-                    
+                    writer.value(valueAsString(value),
+                            applyQuotes && isCDATA((RecordDataItem) value));
                 }
 
-                writer.println(rowLines.toString());
-                rowLines.setLength(0);
+                writer.endRow();
                 progressDialog.increment(i+1);
             }
+
+            writer.close();
             
             return "done";
 
@@ -591,7 +587,9 @@ public class QueryEditorResultsExporter extends AbstractBaseDialog {
                 progressDialog = null;
             }
             if (writer != null) {
-                writer.close();
+                try {
+                    writer.close();
+                } catch (IOException e) {}
             }
         }
         
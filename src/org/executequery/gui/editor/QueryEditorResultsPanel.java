@@ -43,6 +43,7 @@ import org.executequery.gui.resultset.RecordDataItem;
 import org.executequery.gui.resultset.ResultSetTable;
 import org.executequery.gui.resultset.ResultSetTableModel;
 import org.executequery.sql.SqlMessages;
+import org.executequery.util.ThreadUtils;
 import org.underworldlabs.swing.GUIUtils;
 import org.underworldlabs.swing.SimpleCloseTabbedPane;
 import org.underworldlabs.swing.plaf.TabRollOverListener;
@@ -357,12 +358,46 @@ public class QueryEditorResultsPanel extends SimpleCloseTabbedPane
      */
     public int setResultSet(ResultSet rset, boolean showRowNumber, int maxRecords, String query) {
 
-        ResultSetTableModel model = new ResultSetTableModel(rset, maxRecords, query);
+        return createResultSetModel(rset, showRowNumber, maxRecords, query, 0).getRowCount();
+    }
+
+    /**
+     * Sets the result set object reading only its first page of rows
+     * where results are paged, the remainder fetched on request.
+     *
+     * @param rset - the executed result set
+     * @param maxRecords - the maximum records to return
+     * @param query - the executed query of the result set
+     * @return whether rows remain to be fetched - the results then
+     *         own the result set and its statement
+     */
+    public boolean setPagedResultSet(ResultSet rset, int maxRecords, String query) {
+
+        return createResultSetModel(rset, true, maxRecords, query, resultSetPageSize()).hasMoreRows();
+    }
+
+    private ResultSetTableModel createResultSetModel(ResultSet rset,
+            final boolean showRowNumber, int maxRecords, final String query, int pageSize) {
+
+        // rows are read on the calling thread - only the
+        // display of the populated model is passed to the EDT
+        final ResultSetTableModel model = new ResultSetTableModel(rset, maxRecords, query, pageSize);
+
+        ThreadUtils.invokeLater(new Runnable() {
+            public void run() {
+                displayResultSet(model, showRowNumber, query);
+            }
+        });
+
+        return model;
+    }
+
+    private void displayResultSet(ResultSetTableModel model, boolean showRowNumber, String query) {
 
         int rowCount = getResultSetRowCount(model, showRowNumber);
         if (rowCount == 0) {
 
-            return rowCount;
+            return;
         }
 
         if (rowCount == 1 && transposeSingleRowResultSets()) {
@@ -387,7 +422,6 @@ public class QueryEditorResultsPanel extends SimpleCloseTabbedPane
             addResultSetPanel(query, rowCount, panel);
         }
 
-        return rowCount;
     }
 
     private ResultSetPanel createResultSetPanel() {
@@ -451,6 +485,7 @@ public class QueryEditorResultsPanel extends SimpleCloseTabbedPane
 
             if (component instanceof ResultSetPanel) {
 
+                ((ResultSetPanel) component).closeResultSet();
                 remove(component);
             }
 
@@ -463,6 +498,16 @@ public class QueryEditorResultsPanel extends SimpleCloseTabbedPane
         return UserPreferencesManager.isResultSetTabSingle();
     }
 
+    private int resultSetPageSize() {
+
+        if (UserPreferencesManager.isResultSetPaged()) {
+
+            return Math.max(UserPreferencesManager.getResultSetFetchSize(), 1);
+        }
+
+        return 0;
+    }
+
     private boolean transposeSingleRowResultSets() {
 
         return UserPreferencesManager.isTransposingSingleRowResultSets();
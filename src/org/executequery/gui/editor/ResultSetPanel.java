@@ -22,9 +22,12 @@ package org.executequery.gui.editor;
 
 import java.awt.BorderLayout;
 import java.awt.Color;
+import java.awt.event.AdjustmentEvent;
+import java.awt.event.AdjustmentListener;
 import java.util.ArrayList;
 import java.util.List;
 
+import javax.swing.BoundedRangeModel;
 import javax.swing.JPanel;
 import javax.swing.JScrollPane;
 import javax.swing.JTable;
@@ -100,9 +103,37 @@ public class ResultSetPanel extends JPanel {
         add(scroller, BorderLayout.CENTER);
 //        setTableProperties();
 
+        scroller.getVerticalScrollBar().addAdjustmentListener(new AdjustmentListener() {
+
+            public void adjustmentValueChanged(AdjustmentEvent e) {
+
+                fetchMoreRowsIfRequired();
+            }
+
+        });
+
         table.addMouseListener(new ResultSetTablePopupMenu(table, resultSetTableContainer));
     }
 
+    /**
+     * Requests the next page of rows from a paged model once
+     * the view is scrolled to within a screen of the last row.
+     */
+    private void fetchMoreRowsIfRequired() {
+
+        if (model == null || !model.hasMoreRows()) {
+
+            return;
+        }
+
+        BoundedRangeModel rangeModel = scroller.getVerticalScrollBar().getModel();
+        int extent = rangeModel.getExtent();
+        if (rangeModel.getValue() + (extent * 2) >= rangeModel.getMaximum()) {
+
+            model.fetchMoreRows();
+        }
+    }
+
     /**
      * Sets the results background to that specified.
      *
@@ -117,6 +148,7 @@ public class ResultSetPanel extends JPanel {
     }
 
     public void destroyTable() {
+        closeResultSet();
         table = null;
         if (popupMenu != null) {
             popupMenu.removeAll();
@@ -124,6 +156,15 @@ public class ResultSetPanel extends JPanel {
         popupMenu = null;
     }
 
+    /**
+     * Closes any open result set still being paged by the model.
+     */
+    public void closeResultSet() {
+        if (model != null) {
+            model.closeResultSet();
+        }
+    }
+
     public void interrupt() {
         if (model != null) {
             model.interrupt();
@@ -135,15 +176,9 @@ public class ResultSetPanel extends JPanel {
         List<List<RecordDataItem>> filteredRows = new ArrayList<List<RecordDataItem>>();
         for (int i = 0, n = model.getRowCount(); i < n; i++) {
 
-            List<RecordDataItem> row = model.getRowDataForRow(i);
-            for (RecordDataItem recordDataItem : row) {
-                
-                if (recordDataItem.valueContains(pattern)) {
+            if (model.rowContains(i, pattern)) {
 
-                    filteredRows.add(row);
-                    break;
-                }
-                
+                filteredRows.add(model.getRowViewForRow(i));
             }
 
         }
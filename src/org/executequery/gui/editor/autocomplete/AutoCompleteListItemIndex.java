@@ -0,0 +1,360 @@
+/*
+ * AutoCompleteListItemIndex.java
+ *
+ * Copyright (C) 2002-2017 Takis Diakoumis
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.executequery.gui.editor.autocomplete;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.executequery.sql.QueryTable;
+
+/**
+ * The proposals of the auto-complete popup indexed for prefix lookups.
+ * <p/>
+ * Items are held in arrays sorted by their upper case insertion value,
+ * one per item type, and by the table they belong to, so the items
+ * starting with a prefix are found by binary search rather than by
+ * testing every item. Items are also indexed by the initials of the
+ * words of their name - CUSTOMER_ORDERS or customerOrders by CO - for
+ * camel hump matching.
+ * <p/>
+ * The items selected match those of <code>AutoCompleteListItem.isForPrefix</code>.
+ */
+final class AutoCompleteListItemIndex {
+
+    private final Map<AutoCompleteListItemType, Partition> byType =
+            new EnumMap<AutoCompleteListItemType, Partition>(AutoCompleteListItemType.class);
+
+    private final Map<AutoCompleteListItemType, Partition> byTypeInitials =
+            new EnumMap<AutoCompleteListItemType, Partition>(AutoCompleteListItemType.class);
+
+    private final TreeMap<String, Partition> byParent = new TreeMap<String, Partition>();
+
+    private final TreeMap<String, Partition> byParentInitials = new TreeMap<String, Partition>();
+
+    private int size;
+
+    /**
+     * Adds the specified items to the index.
+     */
+    synchronized void addAll(List<AutoCompleteListItem> items) {
+
+        for (int i = 0, n = items.size(); i < n; i++) {
+
+            AutoCompleteListItem item = items.get(i);
+
+            String key = item.getInsertionValue().toUpperCase();
+            String initials = initials(item.getInsertionValue());
+
+            partitionFor(byType, item.getType()).add(key, item);
+            partitionFor(byTypeInitials, item.getType()).add(initials, item);
+
+            String parentName = item.getParentName();
+            if (parentName != null) {
+
+                String parentKey = parentName.toUpperCase();
+                partitionFor(byParent, parentKey).add(key, item);
+                partitionFor(byParentInitials, parentKey).add(initials, item);
+            }
+
+        }
+
+        size += items.size();
+    }
+
+    /**
+     * Sorts the items added into the index ahead of the next lookup.
+     */
+    synchronized void mergeAdded() {
+
+        mergeAdded(byType.values());
+        mergeAdded(byTypeInitials.values());
+        mergeAdded(byParent.values());
+        mergeAdded(byParentInitials.values());
+    }
+
+    private void mergeAdded(Collection<Partition> partitions) {
+
+        for (Partition partition : partitions) {
+
+            partition.mergeAdded();
+        }
+
+    }
+
+    synchronized void clear() {
+
+        byType.clear();
+        byTypeInitials.clear();
+        byParent.clear();
+        byParentInitials.clear();
+        size = 0;
+    }
+
+    synchronized boolean isEmpty() {
+
+        return size == 0;
+    }
+
+    /**
+     * Returns the items whose name starts with the specified upper
+     * case prefix - the columns of the specified query tables where
+     * there are any, in no particular order.
+     */
+    synchronized List<AutoCompleteListItem> itemsStartingWith(
+            List<QueryTable> tables, String prefix, boolean prefixHadAlias) {
+
+        return select(byType, byParent, tables, prefix, prefixHadAlias);
+    }
+
+    /**
+     * Returns the items the initials of whose words start with the
+     * specified upper case prefix, as selected by itemsStartingWith.
+     */
+    synchronized List<AutoCompleteListItem> itemsWithInitials(
+            List<QueryTable> tables, String prefix, boolean prefixHadAlias) {
+
+        return select(byTypeInitials, byParentInitials, tables, prefix, prefixHadAlias);
+    }
+
+    private List<AutoCompleteListItem> select(
+            Map<AutoCompleteListItemType, Partition> types, TreeMap<String, Partition> parents,
+            List<QueryTable> tables, String prefix, boolean prefixHadAlias) {
+
+        List<AutoCompleteListItem> items = new ArrayList<AutoCompleteListItem>();
+
+        boolean hasTables = !(tables == null || tables.isEmpty());
+        for (Map.Entry<AutoCompleteListItemType, Partition> entry : types.entrySet()) {
+
+            AutoCompleteListItemType type = entry.getKey();
+            if (type.isKeyword() || type.isTable()) {
+
+                if (prefixHadAlias) {
+
+                    continue;
+                }
+
+                if (!hasTables || !type.isTable()) {
+
+                    entry.getValue().addStartingWith(prefix, items);
+                }
+
+            } else if (!hasTables) {
+
+                entry.getValue().addStartingWith(prefix, items);
+            }
+
+        }
+
+        if (hasTables) {
+
+            // the items of each table once - a table name matches
+            // any parent name it starts
+            Set<Partition> partitions = new LinkedHashSet<Partition>();
+            for (QueryTable table : tables) {
+
+                String name = table.getCompareName().toUpperCase();
+                partitions.addAll(parents.subMap(name, true, name + Character.MAX_VALUE, true).values());
+            }
+
+            for (Partition partition : partitions) {
+
+                partition.addStartingWith(prefix, items);
+            }
+
+        }
+
+        return items;
+    }
+
+    private static <K> Partition partitionFor(Map<K, Partition> partitions, K key) {
+
+        Partition partition = partitions.get(key);
+        if (partition == null) {
+
+            partition = new Partition();
+            partitions.put(key, partition);
+        }
+
+        return partition;
+    }
+
+    /**
+     * Returns the upper case initials of the words of the specified
+     * name - words being separated by any character other than a
+     * letter or digit or starting with an upper case letter following
+     * a lower case one.
+     */
+    static String initials(String name) {
+
+        StringBuilder sb = new StringBuilder();
+
+        char previous = 0;
+        boolean wordStart = true;
+        for (int i = 0, n = name.length(); i < n; i++) {
+
+            char c = name.charAt(i);
+            if (!Character.isLetterOrDigit(c)) {
+
+                wordStart = true;
+                continue;
+            }
+
+            if (wordStart || (Character.isUpperCase(c) && Character.isLowerCase(previous))) {
+
+                sb.append(Character.toUpperCase(c));
+            }
+
+            wordStart = false;
+            previous = c;
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * Items sorted by key. Items added are held aside and merged into
+     * the sorted items on the next lookup, so loading many batches
+     * does not sort the whole partition each time.
+     */
+    private static final class Partition {
+
+        private static final Entry[] EMPTY = new Entry[0];
+
+        private Entry[] entries = EMPTY;
+
+        private final List<Entry> added = new ArrayList<Entry>();
+
+        void add(String key, AutoCompleteListItem item) {
+
+            added.add(new Entry(key, item));
+        }
+
+        void addStartingWith(String prefix, List<AutoCompleteListItem> items) {
+
+            mergeAdded();
+
+            for (int i = firstNotBefore(prefix); i < entries.length; i++) {
+
+                Entry entry = entries[i];
+                if (!entry.key.startsWith(prefix)) {
+
+                    break;
+                }
+
+                items.add(entry.item);
+            }
+
+        }
+
+        private int firstNotBefore(String key) {
+
+            int low = 0;
+            int high = entries.length;
+            while (low < high) {
+
+                int middle = (low + high) >>> 1;
+                if (entries[middle].key.compareTo(key) < 0) {
+
+                    low = middle + 1;
+
+                } else {
+
+                    high = middle;
+                }
+
+            }
+
+            return low;
+        }
+
+        void mergeAdded() {
+
+            if (added.isEmpty()) {
+
+                return;
+            }
+
+            Collections.sort(added, ENTRY_COMPARATOR);
+
+            Entry[] merged = new Entry[entries.length + added.size()];
+            int i = 0, j = 0, k = 0;
+            while (i < entries.length && j < added.size()) {
+
+                if (ENTRY_COMPARATOR.compare(entries[i], added.get(j)) <= 0) {
+
+                    merged[k++] = entries[i++];
+
+                } else {
+
+                    merged[k++] = added.get(j++);
+                }
+
+            }
+
+            while (i < entries.length) {
+
+                merged[k++] = entries[i++];
+            }
+
+            while (j < added.size()) {
+
+                merged[k++] = added.get(j++);
+            }
+
+            entries = merged;
+            added.clear();
+        }
+
+    }
+
+    private static final class Entry {
+
+        final String key;
+
+        final AutoCompleteListItem item;
+
+        Entry(String key, AutoCompleteListItem item) {
+
+            this.key = key;
+            this.item = item;
+        }
+
+    }
+
+    private static final Comparator<Entry> ENTRY_COMPARATOR = new Comparator<Entry>() {
+
+        public int compare(Entry o1, Entry o2) {
+
+            return o1.key.compareTo(o2.key);
+        }
+
+    };
+
+}
+
@@ -20,26 +20,26 @@
 
 package org.executequery.gui.editor.autocomplete;
 
-import java.net.MalformedURLException;
-import java.net.URL;
-import java.net.URLClassLoader;
 import java.sql.*;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 import biz.redsoft.IFBDatabaseConnection;
 import org.apache.commons.lang.StringUtils;
 import org.executequery.databasemediators.DatabaseConnection;
 import org.executequery.databasemediators.DatabaseDriver;
+import org.executequery.databaseobjects.DatabaseColumn;
 import org.executequery.databaseobjects.DatabaseHost;
 import org.executequery.databaseobjects.DatabaseSource;
 import org.executequery.databaseobjects.impl.ColumnInformation;
 import org.executequery.databaseobjects.impl.ColumnInformationFactory;
+import org.executequery.databaseobjects.impl.SchemaSnapshot;
 import org.executequery.datasource.DefaultDriverLoader;
+import org.executequery.datasource.FBPluginRegistry;
 import org.executequery.gui.editor.QueryEditor;
 import org.executequery.log.Log;
 import org.executequery.repository.KeywordRepository;
 import org.executequery.repository.RepositoryCache;
-import org.underworldlabs.util.MiscUtils;
 
 public class AutoCompleteSelectionsFactory {
 
@@ -58,6 +58,10 @@ public class AutoCompleteSelectionsFactory {
     private QueryEditorAutoCompletePopupProvider provider;
     
     private List<AutoCompleteListItem> tables;
+
+    /** the column items of each table keyed by upper case table name */
+    private final Map<String, List<AutoCompleteListItem>> tableColumns =
+            new ConcurrentHashMap<String, List<AutoCompleteListItem>>();
     
     public AutoCompleteSelectionsFactory(QueryEditorAutoCompletePopupProvider provider) {
         super();
@@ -68,6 +72,7 @@ public class AutoCompleteSelectionsFactory {
                       QueryEditor queryEditor) {
 
         tables = new ArrayList<AutoCompleteListItem>();
+        tableColumns.clear();
         
         List<AutoCompleteListItem> listSelections = new ArrayList<AutoCompleteListItem>();
         if (autoCompleteKeywords) {
@@ -100,25 +105,7 @@ public class AutoCompleteSelectionsFactory {
                         e.printStackTrace();
                     }
 
-                    URL[] urls = new URL[0];
-                    Class clazzdb = null;
-                    Object odb = null;
-                    try {
-                        urls = MiscUtils.loadURLs("./lib/fbplugin-impl.jar");
-                        ClassLoader cl = new URLClassLoader(urls, connection.getClass().getClassLoader());
-                        clazzdb = cl.loadClass("biz.redsoft.FBDatabaseConnectionImpl");
-                        odb = clazzdb.newInstance();
-                    } catch (ClassNotFoundException e) {
-                        e.printStackTrace();
-                    } catch (IllegalAccessException e) {
-                        e.printStackTrace();
-                    } catch (InstantiationException e) {
-                        e.printStackTrace();
-                    } catch (MalformedURLException e) {
-                        e.printStackTrace();
-                    }
-
-                    IFBDatabaseConnection db = (IFBDatabaseConnection)odb;
+                    IFBDatabaseConnection db = FBPluginRegistry.createDatabaseConnection(connection);
                     try {
 
                         db.setConnection(connection);
@@ -137,8 +124,8 @@ public class AutoCompleteSelectionsFactory {
             if (autoCompleteSchema) {
 
                 databaseTablesForHost(databaseHost);
-//                databaseColumnsForTables(databaseHost, tables);
                 databaseFunctionsAndProceduresForHost(databaseHost);
+                databaseColumnsForHost(databaseHost);
             }
 
         }
@@ -241,6 +228,16 @@ public class AutoCompleteSelectionsFactory {
             String databaseObjectDescription, AutoCompleteListItemType autocompleteType) {
         
         trace("Building autocomplete object list using [ " + databaseHost.getName() + " ] for type - " + type);
+
+        SchemaSnapshot snapshot = databaseHost.getSchemaSnapshot();
+        if (snapshot != null && SchemaSnapshot.isRelationType(type)) {
+
+            addTablesToProvider(databaseObjectDescription, autocompleteType,
+                    snapshot.getRelationNames(type), new ArrayList<AutoCompleteListItem>());
+
+            trace("Finished autocomplete object list using [ " + databaseHost.getName() + " ] for type - " + type);
+            return;
+        }
 		
 		ResultSet rs = null;
 		DatabaseMetaData databaseMetaData = databaseHost.getDatabaseMetaData();
@@ -408,81 +405,132 @@ public class AutoCompleteSelectionsFactory {
     }
 
     private ColumnInformationFactory columnInformationFactory = new ColumnInformationFactory();
-    
-    private void databaseColumnsForTables(DatabaseHost databaseHost, List<AutoCompleteListItem> tables) {
 
-        trace("Retrieving column names for tables for host [ " + databaseHost.getName() + " ]");
+    private static final int COLUMN_INCREMENT = 500;
+
+    private void databaseColumnsForHost(DatabaseHost databaseHost) {
+
+        trace("Retrieving column names for host [ " + databaseHost.getName() + " ]");
+
+        SchemaSnapshot snapshot = databaseHost.getSchemaSnapshot();
+        if (snapshot != null) {
+
+            databaseColumnsFromSnapshot(snapshot);
+            trace("Finished retrieving column names for host [ " + databaseHost.getName() + " ]");
+            return;
+        }
 
         ResultSet rs = null;
-        List<ColumnInformation> columns = new ArrayList<ColumnInformation>();
         List<AutoCompleteListItem> list = new ArrayList<AutoCompleteListItem>();
 
         String catalog = databaseHost.getCatalogNameForQueries(defaultCatalogForHost(databaseHost));
         String schema = databaseHost.getSchemaNameForQueries(defaultSchemaForHost(databaseHost));
         DatabaseMetaData dmd = databaseHost.getDatabaseMetaData();
 
-        for (int i = 0, n = tables.size(); i < n; i++) {
+        try {
 
-            try {
-                if (Thread.interrupted() || dmd.getConnection().isClosed()) {
-                    
-                    return;
-                }
-            } catch (SQLException e) {}
-            
-            AutoCompleteListItem table = tables.get(i);            
-            if (table == null) {
-                
-                continue;
-            }
-            
-            trace("Retrieving column names for table [ " + table.getValue() + " ]");
-        
-            try {
-            
-                rs = dmd.getColumns(catalog, schema, table.getValue(), null);
-                while (rs.next()) {
+            // the columns of all tables in one pass - ordered by table
+            rs = dmd.getColumns(catalog, schema, null, null);
+
+            String tableName = null;
+            List<AutoCompleteListItem> columns = new ArrayList<AutoCompleteListItem>();
+            while (rs.next()) {
+
+                try {
+                    if (Thread.interrupted() || dmd.getConnection().isClosed()) {
 
-                    String name = rs.getString(4);
-                    columns.add(columnInformationFactory.build(
-                            table.getValue(), 
-                            name, 
-                            rs.getString(6),
-                            rs.getInt(5),
-                            rs.getInt(7),
-                            rs.getInt(9),
-                            rs.getInt(11) == DatabaseMetaData.columnNoNulls));
+                        return;
+                    }
+                } catch (SQLException e) {}
+
+                String table = rs.getString(3);
+                if (!table.equals(tableName)) {
+
+                    addTableColumns(tableName, columns);
+                    tableName = table;
+                    columns = new ArrayList<AutoCompleteListItem>();
                 }
-            
-                for (ColumnInformation column : columns) {
-                    
-                    list.add(new AutoCompleteListItem(
-                            column.getName(), 
-                            table.getValue(),
-                            column.getDescription(),
-                            DATABASE_COLUMN_DESCRIPTION, 
-                            AutoCompleteListItemType.DATABASE_TABLE_COLUMN)); 
+
+                AutoCompleteListItem item = columnListItem(table, columnInformationFactory.build(
+                        table,
+                        rs.getString(4),
+                        rs.getString(6),
+                        rs.getInt(5),
+                        rs.getInt(7),
+                        rs.getInt(9),
+                        rs.getInt(11) == DatabaseMetaData.columnNoNulls));
+
+                columns.add(item);
+                list.add(item);
+
+                if (list.size() >= COLUMN_INCREMENT) {
+
+                    provider.addListItems(list);
+                    list.clear();
                 }
-                
+
+            }
+
+            addTableColumns(tableName, columns);
+            provider.addListItems(list);
+
+        } catch (Throwable e) {
+
+            // don't want to break the editor here so just log and bail...
+
+            error("Error retrieving column data for host " + databaseHost.getName() + " - driver returned: " + e.getMessage());
+
+        } finally {
+
+            releaseResources(rs);
+            trace("Finished retrieving column names for host [ " + databaseHost.getName() + " ]");
+        }
+
+    }
+
+    private void databaseColumnsFromSnapshot(SchemaSnapshot snapshot) {
+
+        List<AutoCompleteListItem> list = new ArrayList<AutoCompleteListItem>();
+        for (int i = 0, n = tables.size(); i < n; i++) {
+
+            if (Thread.interrupted()) {
+
+                return;
+            }
+
+            String table = tables.get(i).getValue();
+
+            List<AutoCompleteListItem> columns = columnsFromSnapshot(snapshot, table);
+            addTableColumns(table, columns);
+            list.addAll(columns);
+
+            if (list.size() >= COLUMN_INCREMENT) {
+
                 provider.addListItems(list);
-                releaseResources(rs);
-                columns.clear();
                 list.clear();
-            
-            } catch (Throwable e) {
+            }
 
-                // don't want to break the editor here so just log and bail...
-                
-                error("Error retrieving column data for table " + table.getDisplayValue() + " - driver returned: " + e.getMessage());
-                
-            } finally {
+        }
 
-                releaseResources(rs);
-            }
+        provider.addListItems(list);
+    }
+
+    private void addTableColumns(String table, List<AutoCompleteListItem> columns) {
 
+        if (table != null) {
+
+            tableColumns.put(table.toUpperCase(), columns);
         }
-        
-        trace("Finished retrieving column names for tables for host [ " + databaseHost.getName() + " ]");
+    }
+
+    private AutoCompleteListItem columnListItem(String table, ColumnInformation column) {
+
+        return new AutoCompleteListItem(
+                column.getName(),
+                table,
+                column.getDescription(),
+                DATABASE_COLUMN_DESCRIPTION,
+                AutoCompleteListItemType.DATABASE_TABLE_COLUMN);
     }
 
     private String defaultSchemaForHost(DatabaseHost databaseHost) {
@@ -571,7 +619,42 @@ public class AutoCompleteSelectionsFactory {
         return (KeywordRepository)RepositoryCache.load(KeywordRepository.REPOSITORY_ID);
     }
 
+    private List<AutoCompleteListItem> columnsFromSnapshot(SchemaSnapshot snapshot, String table) {
+
+        List<DatabaseColumn> columns = snapshot.getColumns(null, null, table);
+        List<AutoCompleteListItem> list = new ArrayList<AutoCompleteListItem>(columns.size());
+
+        for (DatabaseColumn column : columns) {
+
+            ColumnInformation columnInformation = columnInformationFactory.build(
+                    table,
+                    column.getName(),
+                    column.getTypeName(),
+                    column.getTypeInt(),
+                    column.getColumnSize(),
+                    column.getColumnScale(),
+                    column.isRequired());
+
+            list.add(columnListItem(table, columnInformation));
+        }
+
+        return list;
+    }
+
     public List<AutoCompleteListItem> buildItemsForTable(DatabaseHost databaseHost, String tableString) {
+
+        List<AutoCompleteListItem> indexed = tableColumns.get(tableString.toUpperCase());
+        if (indexed != null) {
+
+            return new ArrayList<AutoCompleteListItem>(indexed);
+        }
+
+        SchemaSnapshot snapshot = databaseHost.getSchemaSnapshot();
+        if (snapshot != null && snapshot.containsRelation(tableString)) {
+
+            return columnsFromSnapshot(snapshot, tableString);
+        }
+
         ResultSet rs = null;
         List<ColumnInformation> columns = new ArrayList<ColumnInformation>();
         List<AutoCompleteListItem> list = new ArrayList<AutoCompleteListItem>();
@@ -598,13 +681,11 @@ public class AutoCompleteSelectionsFactory {
 
             for (ColumnInformation column : columns) {
 
-                list.add(new AutoCompleteListItem(
-                        column.getName(),
-                        tableString,
-                        column.getDescription(),
-                        DATABASE_COLUMN_DESCRIPTION,
-                        AutoCompleteListItemType.DATABASE_TABLE_COLUMN));
+                list.add(columnListItem(tableString, column));
             }
+
+            addTableColumns(tableString, new ArrayList<AutoCompleteListItem>(list));
+
         } catch (Throwable e) {
 
             // don't want to break the editor here so just log and bail...
@@ -624,7 +705,7 @@ public class AutoCompleteSelectionsFactory {
 
         public int compare(AutoCompleteListItem o1, AutoCompleteListItem o2) {
 
-            return o1.getValue().toUpperCase().compareTo(o2.getValue().toUpperCase());
+            return o1.getUpperCaseValue().compareTo(o2.getUpperCaseValue());
         }
         
     }
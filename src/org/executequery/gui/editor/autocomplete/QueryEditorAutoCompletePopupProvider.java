@@ -99,12 +99,14 @@ public class QueryEditorAutoCompletePopupProvider implements AutoCompletePopupPr
 
     private DatabaseHost databaseHost;
 
-    private List<AutoCompleteListItem> autoCompleteListItems;
+    private AutoCompleteListItemIndex autoCompleteListItems;
 
     private boolean autoCompleteKeywords;
 
     private boolean autoCompleteSchema;
 
+    private boolean autoCompleteCamelHump;
+
     public QueryEditorAutoCompletePopupProvider(QueryEditor queryEditor) {
 
         super();
@@ -114,13 +116,12 @@ public class QueryEditorAutoCompletePopupProvider implements AutoCompletePopupPr
         databaseObjectFactory = new DatabaseObjectFactoryImpl();
 
         setAutoCompleteOptionFlags();
-        autoCompleteListItems = new ArrayList<AutoCompleteListItem>();
+        autoCompleteListItems = new AutoCompleteListItemIndex();
 
         queryEditor.addConnectionChangeListener(this);
         queryEditorTextComponent().addFocusListener(this);
         
         autoCompletePopupAction = new AutoCompletePopupAction(this);
-        autoCompleteListItems = new ArrayList<AutoCompleteListItem>();
     }
 
     public void setAutoCompleteOptionFlags() {
@@ -128,6 +129,7 @@ public class QueryEditorAutoCompletePopupProvider implements AutoCompletePopupPr
         UserProperties userProperties = UserProperties.getInstance();
         autoCompleteKeywords = userProperties.getBooleanProperty("editor.autocomplete.keywords.on");
         autoCompleteSchema = userProperties.getBooleanProperty("editor.autocomplete.schema.on");
+        autoCompleteCamelHump = userProperties.getBooleanProperty("editor.autocomplete.camelhump.on");
     }
 
     public void reset() {
@@ -345,7 +347,6 @@ public class QueryEditorAutoCompletePopupProvider implements AutoCompletePopupPr
 
         trace("Building list of items starting with [ " + prefix + " ] from table list with size " + tables.size());
 
-        List<AutoCompleteListItem> searchList = autoCompleteListItems;
         String wordPrefix = prefix.trim().toUpperCase();
         String tableString = "";
 
@@ -412,12 +413,12 @@ public class QueryEditorAutoCompletePopupProvider implements AutoCompletePopupPr
         }
 
         List<AutoCompleteListItem> itemsStartingWith =
-            buildItemsStartingWithForList(searchList, tables, wordPrefix, hasDotIndex);
+            buildIndexedItemsStartingWith(tables, wordPrefix, hasDotIndex);
 
         if (itemsStartingWith.isEmpty()) {
 
             // do it one more time without the tables...
-            itemsStartingWith = buildItemsStartingWithForList(searchList, null, wordPrefix, hasDotIndex);
+            itemsStartingWith = buildIndexedItemsStartingWith(null, wordPrefix, hasDotIndex);
 
             if (itemsStartingWith.isEmpty()) { // now bail...
 
@@ -429,8 +430,8 @@ public class QueryEditorAutoCompletePopupProvider implements AutoCompletePopupPr
         /* ----- might be a little sluggish right now ...
         else { // add other entities starting with at the end of the list (??)
 
-            itemsStartingWith.addAll(buildItemsStartingWithForList(
-                    autoCompleteListItems, null, wordPrefix, hasDotIndex));
+            itemsStartingWith.addAll(buildIndexedItemsStartingWith(
+                    null, wordPrefix, hasDotIndex));
         }
         */
 
@@ -447,16 +448,43 @@ public class QueryEditorAutoCompletePopupProvider implements AutoCompletePopupPr
         return (tables != null && !tables.isEmpty());
     }
 
-    private List<AutoCompleteListItem> buildItemsStartingWithForList(
-            List<AutoCompleteListItem> items, List<QueryTable> tables, String prefix,
-            boolean prefixHadAlias) {
+    private static final int MINIMUM_CHARS_FOR_CAMEL_HUMP = 2;
+
+    private List<AutoCompleteListItem> buildIndexedItemsStartingWith(
+            List<QueryTable> tables, String prefix, boolean prefixHadAlias) {
+
+        String searchPattern = searchPatternForPrefix(prefix);
+
+        List<AutoCompleteListItem> itemsStartingWith =
+                autoCompleteListItems.itemsStartingWith(tables, searchPattern, prefixHadAlias);
+
+        if (itemsStartingWith.isEmpty() && autoCompleteCamelHump
+                && searchPattern.length() >= MINIMUM_CHARS_FOR_CAMEL_HUMP) {
+
+            itemsStartingWith = autoCompleteListItems.itemsWithInitials(tables, searchPattern, prefixHadAlias);
+        }
+
+        // runs of the index are already in order so this is near linear
+        Collections.sort(itemsStartingWith, autoCompleteListItemComparator);
+        return itemsStartingWith;
+    }
+
+    private String searchPatternForPrefix(String prefix) {
 
-        String searchPattern = prefix;
         if (prefix.startsWith("(")) {
 
-            searchPattern = prefix.substring(1);
+            return prefix.substring(1);
         }
 
+        return prefix;
+    }
+
+    private List<AutoCompleteListItem> buildItemsStartingWithForList(
+            List<AutoCompleteListItem> items, List<QueryTable> tables, String prefix,
+            boolean prefixHadAlias) {
+
+        String searchPattern = searchPatternForPrefix(prefix);
+
         List<AutoCompleteListItem> itemsStartingWith = new ArrayList<AutoCompleteListItem>();
 
         if (items != null) {
@@ -718,10 +746,7 @@ public class QueryEditorAutoCompletePopupProvider implements AutoCompletePopupPr
             worker.interrupt();
         }
         
-    	if (autoCompleteListItems != null) {
-    		
-    		autoCompleteListItems.clear();
-    	}
+    	autoCompleteListItems.clear();
     	
         if (databaseHost != null) {
 
@@ -764,13 +789,7 @@ public class QueryEditorAutoCompletePopupProvider implements AutoCompletePopupPr
 
     public void addListItems(List<AutoCompleteListItem> items) {
         
-        if (autoCompleteListItems == null) {
-            
-            autoCompleteListItems = new ArrayList<AutoCompleteListItem>();
-        }
-        
         autoCompleteListItems.addAll(items);
-//        Collections.sort(autoCompleteListItems, autoCompleteListItemComparatorByValue);
         reapplyIfVisible();
     }
 
@@ -811,6 +830,7 @@ public class QueryEditorAutoCompletePopupProvider implements AutoCompletePopupPr
             		
 	                rebuildingList = true;
 	                rebuildListSelectionsItems();
+	                autoCompleteListItems.mergeAdded();
 	                
 	                return "done";
 	                
@@ -849,7 +869,7 @@ public class QueryEditorAutoCompletePopupProvider implements AutoCompletePopupPr
 
         public int compare(AutoCompleteListItem o1, AutoCompleteListItem o2) {
 
-            return o1.getValue().toUpperCase().compareTo(o2.getValue().toUpperCase());
+            return o1.getUpperCaseValue().compareTo(o2.getUpperCaseValue());
         }
         
     }
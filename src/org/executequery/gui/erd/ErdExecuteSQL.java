@@ -254,6 +254,7 @@ public class ErdExecuteSQL extends ErdPrintableDialog
     public void executeQuery(String query) {}
     public void executeQuery(String query, boolean executeAsBlock) {}
     public void setResultSet(ResultSet rs, String query) throws SQLException {}
+    public boolean setPagedResultSet(ResultSet rs, String query) throws SQLException {return false;}
     public boolean isLogEnabled() {return false;}
     
     // -------------------------------------------
@@ -24,18 +24,17 @@ import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
-import java.math.BigDecimal;
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
-import java.sql.Types;
 import java.text.DateFormat;
 import java.text.DecimalFormat;
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.List;
 import java.util.Vector;
 
 import javax.swing.JOptionPane;
@@ -51,7 +50,6 @@ import org.executequery.log.Log;
 import org.executequery.repository.LogRepository;
 import org.executequery.repository.RepositoryCache;
 import org.executequery.sql.spi.LiquibaseDatabaseFactory;
-import org.executequery.util.Base64;
 import org.underworldlabs.jdbc.DataSourceException;
 import org.underworldlabs.swing.GUIUtils;
 import org.underworldlabs.util.MiscUtils;
@@ -116,6 +114,9 @@ public abstract class AbstractImportExportWorker implements ImportExportWorker {
     /** the process result */
     private String result;
 
+    /** whether saving an import checkpoint has failed */
+    private boolean checkpointFailed;
+
     /** temp output logging buffer */
     protected StringBuilder outputBuffer;
 
@@ -150,20 +151,13 @@ public abstract class AbstractImportExportWorker implements ImportExportWorker {
         ResultSet rs = null;
         try {
 
-            StringBuilder query = new StringBuilder("SELECT COUNT(*) FROM ");
-
-            String schema = parent.getSchemaName();
-            if (!MiscUtils.isNull(schema)) {
-                query.append(schema).append('.');
-            }
-
-            query.append(formatTableName(tableName));
+            String query = countStatement(tableName);
 
             appendProgressText("Retrieving row count for table [ " + tableName + " ] ...");
             
             conn = getConnection();
             stmnt = conn.createStatement();
-            rs = stmnt.executeQuery(query.toString());
+            rs = stmnt.executeQuery(query);
             if (rs.next()) {
 
                 return rs.getInt(1);
@@ -181,6 +175,36 @@ public abstract class AbstractImportExportWorker implements ImportExportWorker {
         }
     }
 
+    /**
+     * Returns the statement selecting the record count of the specified table.
+     *
+     * @param tableName - the database table name
+     */
+    protected String countStatement(String tableName) {
+
+        return "SELECT COUNT(*) FROM " + tableNameForStatement(tableName);
+    }
+
+    /**
+     * Returns the specified table name qualified with the
+     * schema and quoted as required for use in a statement.
+     *
+     * @param tableName - the database table name
+     */
+    protected String tableNameForStatement(String tableName) {
+
+        StringBuilder name = new StringBuilder();
+
+        String schema = parent.getSchemaName();
+        if (!MiscUtils.isNull(schema)) {
+            name.append(schema).append('.');
+        }
+
+        name.append(formatTableName(tableName));
+
+        return name.toString();
+    }
+
     /**
      * Returns a data result set for the specified table.
      *
@@ -206,17 +230,7 @@ public abstract class AbstractImportExportWorker implements ImportExportWorker {
             columns = getColumns(table);
         }
 
-        // build the SQL statement
-        StringBuilder query = new StringBuilder("SELECT ");
-        query.append(columnNamesAsCommaSeparatedString(table, columns));
-        query.append(" FROM ");
-
-        String schema = parent.getSchemaName();
-        if (!MiscUtils.isNull(schema)) {
-            query.append(schema).append('.');
-        }
-        
-        query.append(formatTableName(table));
+        String query = selectStatement(table, columns);
 
         if (stmnt != null) {
             try {
@@ -232,28 +246,35 @@ public abstract class AbstractImportExportWorker implements ImportExportWorker {
         
         Log.info("Executing query for export: [ " + query + " ]");
 
-        return stmnt.executeQuery(query.toString());
+        return stmnt.executeQuery(query);
+    }
+
+    /**
+     * Returns the statement selecting the specified columns
+     * of the specified table.
+     *
+     * @param table - the database table name
+     * @param columns - the columns to select from the table
+     */
+    protected String selectStatement(String table, Vector<?> columns) throws DataSourceException, SQLException {
+
+        StringBuilder query = new StringBuilder("SELECT ");
+        query.append(columnNamesAsCommaSeparatedString(table, columns));
+        query.append(" FROM ");
+        query.append(tableNameForStatement(table));
+
+        return query.toString();
     }
 
     private String columnNamesAsCommaSeparatedString(String table, Vector<?> columns) throws DataSourceException, SQLException {
         
         StringBuilder sb = new StringBuilder();
-        Database database = new LiquibaseDatabaseFactory().createDatabase(getConnection().getMetaData().getDatabaseProductName());
+        Database database = liquibaseDatabase();
         
         int columnCount = columns.size();
         for (int i = 0, n = columnCount - 1; i < columnCount; i++) {
             
-            String columnName = columns.get(i).toString();
-            if (columnName.contains(" ")) {
-
-                columnName = "\"" + columnName + "\"";
-
-            } else {
-                
-                columnName = database.escapeColumnName(null, parent.getSchemaName(), table, columnName);                
-            }
-
-            sb.append(columnName);
+            sb.append(escapeColumnName(database, table, columns.get(i).toString()));
             if (i != n) {
                 sb.append(',');
             }
@@ -261,6 +282,33 @@ public abstract class AbstractImportExportWorker implements ImportExportWorker {
 
         return sb.toString();
     }
+
+    /**
+     * Returns the specified column name quoted as required
+     * for use in a statement.
+     *
+     * @param table - the database table name
+     * @param columnName - the column name
+     */
+    protected String escapeColumnName(String table, String columnName) throws DataSourceException, SQLException {
+
+        return escapeColumnName(liquibaseDatabase(), table, columnName);
+    }
+
+    private String escapeColumnName(Database database, String table, String columnName) {
+
+        if (columnName.contains(" ")) {
+
+            return "\"" + columnName + "\"";
+        }
+
+        return database.escapeColumnName(null, parent.getSchemaName(), table, columnName);
+    }
+
+    private Database liquibaseDatabase() throws DataSourceException, SQLException {
+
+        return new LiquibaseDatabaseFactory().createDatabase(getConnection().getMetaData().getDatabaseProductName());
+    }
     
     private Object formatTableName(String table) {
         try {
@@ -327,7 +375,7 @@ public abstract class AbstractImportExportWorker implements ImportExportWorker {
         prepStmnt.setFetchSize(fetchSizeForDatabaseProduct(conn.getMetaData()));
     }
 
-    private int fetchSizeForDatabaseProduct(DatabaseMetaData metaData) throws SQLException {
+    protected int fetchSizeForDatabaseProduct(DatabaseMetaData metaData) throws SQLException {
 
         // we only care about mysql right now which needs Integer.MIN_VALUE
         // to provide row-by-row return on the result set cursor
@@ -384,142 +432,6 @@ public abstract class AbstractImportExportWorker implements ImportExportWorker {
         return conn;
     }
 
-    /**
-     * Sets the specified value in the specified position for the
-     * specified java.sql.Type within the prepared statement.
-     *
-     * @param value - the value
-     * @param index - the position within the statement
-     * @param sqlType - the SQL type
-     * @param trim - whether to trim the whitespace from the value
-     * @param df - the DataFormat object for date values
-     */
-    protected void setValue(String value, int index,
-                            int sqlType, boolean trim, DateFormat df)
-        throws Exception {
-
-        if (value == null) {
-
-            prepStmnt.setNull(index, sqlType);
-
-        } else {
-
-            switch (sqlType) {
-
-                case Types.TINYINT:
-                    byte _byte = Byte.valueOf(value).byteValue();
-                    prepStmnt.setShort(index, _byte);
-                    break;
-
-                case Types.BIGINT:
-                    long _long = Long.valueOf(value).longValue();
-                    prepStmnt.setLong(index, _long);
-                    break;
-
-                case Types.SMALLINT:
-                    short _short = Short.valueOf(value).shortValue();
-                    prepStmnt.setShort(index, _short);
-                    break;
-
-                case Types.LONGVARCHAR:
-                case Types.CHAR:
-                case Types.VARCHAR:
-                    if (trim) {
-                        value = value.trim();
-                    }
-                    prepStmnt.setString(index, value);
-                    break;
-
-                case Types.BIT:
-                case Types.BOOLEAN:
-                    
-                    String booleanValue = value;
-                    if ("t".equalsIgnoreCase(value)) {
-                        
-                        booleanValue = "true";
-                        
-                    } else if ("f".equalsIgnoreCase(value)) {
-                        
-                        booleanValue = "false";
-                    }
-                    
-                    boolean _boolean = Boolean.valueOf(booleanValue).booleanValue();
-                    prepStmnt.setBoolean(index, _boolean);
-                    break;
-
-                case Types.NUMERIC:
-                case Types.DECIMAL:
-                    prepStmnt.setBigDecimal(index, new BigDecimal(value));
-                    break;
-
-                case Types.REAL:
-                    float _float = Float.valueOf(value).floatValue();
-                    prepStmnt.setFloat(index, _float);
-                    break;
-                    
-                case Types.FLOAT:
-                case Types.DOUBLE:
-                    prepStmnt.setDouble(index, Double.parseDouble(value));
-                    break;
-
-                case Types.INTEGER:
-                    prepStmnt.setInt(index, Integer.parseInt(value));
-                    break;
-
-                case Types.DATE:
-                case Types.TIME:
-                case Types.TIMESTAMP:
-                    // if the date format is null, insert as a char value
-                    if (df != null) {
-                        java.util.Date j_datetime = df.parse(value);
-                        prepStmnt.setDate(index,
-                              new java.sql.Date(j_datetime.getTime()));
-                    }
-                    else {
-                        try {
-                            prepStmnt.setObject(index,value,sqlType);
-                            /*
-                            if (sqlType == Types.TIMESTAMP) {
-                                prepStmnt.setTimestamp(index,
-                                        java.sql.Timestamp.valueOf(value));
-                            }
-                            else if (sqlType == Types.TIME) {
-                                prepStmnt.setTime(index,
-                                        java.sql.Time.valueOf(value));
-                            }
-                            else {
-                                prepStmnt.setDate(index,
-                                        java.sql.Date.valueOf(value));
-                            }
-                             */
-                        }
-                        // want a more useful message here than what will likely
-                        // be returned due to internal driver code on formatting
-                        // a SQL date value from string
-                        // (ie. could be parsing error, number format etc...)
-                        catch (Exception e) {
-                            throw new IllegalArgumentException(
-                                    "[ " + MiscUtils.getExceptionName(e) + " ] " +
-                                    Bundles.get("AbstractImportExportWorker.dateConversionError"));
-                        }
-
-                    }
-                    break;
-
-                case Types.LONGVARBINARY:
-                case Types.BINARY:
-                case Types.BLOB:
-                case Types.CLOB:
-                    prepStmnt.setBytes(index, Base64.decode(value));
-                    break;
-
-                default:
-                    prepStmnt.setObject(index, value);
-                    break;
-            }
-        }
-    }
-
     /**
      * Displays an error dialog with the specified message.
      */
@@ -567,6 +479,68 @@ public abstract class AbstractImportExportWorker implements ImportExportWorker {
         return format;
     }
 
+    /**
+     * Asks whether to resume the interrupted import of the specified file.
+     *
+     * @param file - the import file
+     * @param checkpoint - the checkpoint of the interrupted import
+     */
+    protected boolean confirmResume(File file, ImportCheckpoint checkpoint) {
+
+        int yesNo = GUIUtilities.displayYesNoDialog(
+                        "The import of " + file.getName() + " into " +
+                        checkpoint.getTableName() + " was interrupted after " +
+                        checkpoint.getRows() + " rows.\n" +
+                        "Do you wish to resume the import from the last commit?",
+                        "Resume Import");
+
+        return (yesNo == JOptionPane.YES_OPTION);
+    }
+
+    /**
+     * Saves the checkpoint of the committed rows, warning once if it
+     * may not be saved - the import itself is continued regardless.
+     */
+    protected void saveCheckpoint(ImportCheckpoint checkpoint, String tableName,
+                                  long offset, int lineNumber, int rows) {
+
+        if (checkpointFailed) {
+
+            return;
+        }
+
+        try {
+
+            checkpoint.save(tableName, offset, lineNumber, rows);
+
+        } catch (IOException e) {
+
+            if (Log.isDebugEnabled()) {
+
+                Log.debug("Error saving import checkpoint.", e);
+            }
+            checkpointFailed = true;
+
+            outputBuffer.append("Unable to save the import checkpoint - ");
+            outputBuffer.append("the import may not be resumed: ");
+            outputBuffer.append(e.getMessage());
+            appendProgressWarningText(outputBuffer);
+        }
+
+    }
+
+    /**
+     * Deletes the checkpoints of the completed import.
+     */
+    protected void deleteCheckpoints(List<ImportCheckpoint> checkpoints) {
+
+        for (ImportCheckpoint checkpoint : checkpoints) {
+
+            checkpoint.delete();
+        }
+
+    }
+
     /**
      * Appends the specified text to the output pane as normal
      * fixed width text.
@@ -938,7 +912,7 @@ public abstract class AbstractImportExportWorker implements ImportExportWorker {
 
         if (StringUtils.isNotBlank(pattern)) {
 
-            return new SimpleDateFormat(getDateFormatPattern());
+            return new SimpleDateFormat(pattern);
         }
 
         return new SimpleDateFormat();
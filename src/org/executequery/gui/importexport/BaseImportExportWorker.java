@@ -147,6 +147,14 @@ public abstract class BaseImportExportWorker {
         monitor.setProgressStatus(status);
     }
 
+    /**
+     * Shows and returns the per-table progress display
+     * used during a parallel export.
+     */
+    protected TableProgressPanel showTableProgress() {
+        return monitor.showTableProgress();
+    }
+
     /**
      * Releases all held database resources.
      */
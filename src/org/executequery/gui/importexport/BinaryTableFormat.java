@@ -0,0 +1,197 @@
+/*
+ * BinaryTableFormat.java
+ *
+ * Copyright (C) 2002-2017 Takis Diakoumis
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.executequery.gui.importexport;
+
+import java.io.File;
+import java.sql.Types;
+
+/**
+ * The layout of the binary table data file written by
+ * {@link BinaryTableWriter} and read by {@link BinaryTableReader}.
+ * <p/>
+ * A file holds one or more segments - parts of a table exported
+ * concurrently are concatenated as further segments - each being:
+ * <pre>
+ *   header  MAGIC, version (byte), flags (byte), column count (int)
+ *           and for each column its name, SQL type (int), type name,
+ *           size (int), scale (int) and value kind (byte)
+ *   blocks  row count (int), data length (int), stored length (int)
+ *           and the stored bytes - deflated where FLAG_COMPRESSED
+ *   end     a row count of 0
+ * </pre>
+ * Each row of a block is a bitmap of the null values of the row
+ * followed by the non-null values in their binary form by kind.
+ * Strings are length prefixed UTF-8 and all numbers big endian.
+ */
+final class BinaryTableFormat {
+
+    /** the extension of binary table data files */
+    static final String EXTENSION = ".bin";
+
+    /** the user property for compressing binary exports */
+    static final String COMPRESS_KEY = "export.binary.compress";
+
+    /** the bytes starting each segment */
+    static final byte[] MAGIC = {'E', 'Q', 'T', 'B'};
+
+    static final byte VERSION = 1;
+
+    /** the blocks of the segment are deflated */
+    static final byte FLAG_COMPRESSED = 1;
+
+    /** the data length after which a block is written */
+    static final int BLOCK_SIZE = 256 * 1024;
+
+    // the binary form of values
+
+    static final byte BOOLEAN = 1;
+
+    static final byte INTEGER = 2;
+
+    static final byte LONG = 3;
+
+    static final byte DOUBLE = 4;
+
+    static final byte DECIMAL = 5;
+
+    static final byte DATE = 6;
+
+    static final byte TIME = 7;
+
+    static final byte TIMESTAMP = 8;
+
+    static final byte STRING = 9;
+
+    static final byte BYTES = 10;
+
+    private BinaryTableFormat() {}
+
+    /**
+     * Returns whether the specified file is a binary table data file.
+     */
+    static boolean isBinary(File file) {
+
+        return file.getName().toLowerCase().endsWith(EXTENSION);
+    }
+
+    /**
+     * Returns the kind of value written for the specified SQL type.
+     */
+    static byte kindOf(int sqlType) {
+
+        switch (sqlType) {
+
+            case Types.BIT:
+            case Types.BOOLEAN:
+                return BOOLEAN;
+
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+                return INTEGER;
+
+            case Types.BIGINT:
+                return LONG;
+
+            case Types.REAL:
+            case Types.FLOAT:
+            case Types.DOUBLE:
+                return DOUBLE;
+
+            case Types.NUMERIC:
+            case Types.DECIMAL:
+                return DECIMAL;
+
+            case Types.DATE:
+                return DATE;
+
+            case Types.TIME:
+                return TIME;
+
+            case Types.TIMESTAMP:
+                return TIMESTAMP;
+
+            case Types.BINARY:
+            case Types.VARBINARY:
+            case Types.LONGVARBINARY:
+            case Types.BLOB:
+                return BYTES;
+
+            default:
+                return STRING;
+        }
+
+    }
+
+    /**
+     * A column described in the header of a segment.
+     */
+    static final class Column {
+
+        private final String name;
+
+        private final int sqlType;
+
+        private final String typeName;
+
+        private final int size;
+
+        private final int scale;
+
+        private final byte kind;
+
+        Column(String name, int sqlType, String typeName, int size, int scale, byte kind) {
+
+            this.name = name;
+            this.sqlType = sqlType;
+            this.typeName = typeName;
+            this.size = size;
+            this.scale = scale;
+            this.kind = kind;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        int getSQLType() {
+            return sqlType;
+        }
+
+        String getTypeName() {
+            return typeName;
+        }
+
+        int getSize() {
+            return size;
+        }
+
+        int getScale() {
+            return scale;
+        }
+
+        byte getKind() {
+            return kind;
+        }
+
+    }
+
+}
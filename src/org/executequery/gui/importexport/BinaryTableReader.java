@@ -0,0 +1,538 @@
+/*
+ * BinaryTableReader.java
+ *
+ * Copyright (C) 2002-2017 Takis Diakoumis
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.executequery.gui.importexport;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import org.executequery.gui.importexport.DelimitedImportPipeline.ParsedChunk;
+import org.executequery.gui.importexport.DelimitedRowParser.ParsedRow;
+
+/**
+ * Reads the rows of a binary table data file for import.
+ * <p/>
+ * Each block is read from the file channel whole and its rows decoded
+ * to the values bound to the insert statement - java.sql date/time
+ * values, boxed numbers, strings and byte arrays - with no text parsed.
+ * The values of columns not imported are skipped. Rows are numbered
+ * from 1 in place of the line numbers of a delimited file.
+ *
+ * @see BinaryTableFormat
+ */
+final class BinaryTableReader implements ImportRowSource {
+
+    private static final int BLOCK_HEADER_LENGTH = 12;
+
+    private final FileChannel channel;
+
+    private ByteBuffer in = ByteBuffer.allocate(BinaryTableFormat.BLOCK_SIZE + 8192);
+
+    private final Inflater inflater = new Inflater();
+
+    private byte[] inflated = new byte[0];
+
+    private List<BinaryTableFormat.Column> columns;
+
+    private byte[] kinds;
+
+    private boolean compressed;
+
+    /** the position of the value of each file column, -1 if not imported */
+    private int[] targets;
+
+    private int valueCount;
+
+    private int rowNumber;
+
+    private boolean endOfFile;
+
+    /** the rows remaining of a block partly skipped */
+    private ParsedChunk pending;
+
+    /**
+     * Opens the specified file and reads the header of its first segment.
+     */
+    BinaryTableReader(File file) throws IOException {
+
+        channel = new FileInputStream(file).getChannel();
+        in.limit(0);
+
+        try {
+
+            readHeader();
+
+        } catch (IOException e) {
+
+            channel.close();
+            throw e;
+        }
+
+        setImportedColumns(null);
+    }
+
+    /**
+     * Returns the columns of the file.
+     */
+    List<BinaryTableFormat.Column> getColumns() {
+
+        return Collections.unmodifiableList(columns);
+    }
+
+    /**
+     * Sets the columns of the file imported.
+     *
+     * @param imported the file column indexes in the order of the
+     *        statement parameters, all columns in order if null
+     */
+    void setImportedColumns(List<Integer> imported) {
+
+        targets = new int[columns.size()];
+        if (imported == null) {
+
+            for (int i = 0; i < targets.length; i++) {
+
+                targets[i] = i;
+            }
+            valueCount = targets.length;
+            return;
+        }
+
+        Arrays.fill(targets, -1);
+        for (int i = 0, n = imported.size(); i < n; i++) {
+
+            targets[imported.get(i).intValue()] = i;
+        }
+        valueCount = imported.size();
+    }
+
+    /**
+     * Skips the specified number of rows, whole blocks
+     * being skipped without being read.
+     */
+    void skipRows(int rows) throws IOException {
+
+        while (rows > 0 && nextBlockHeader()) {
+
+            int count = in.getInt();
+            int length = in.getInt();
+            int storedLength = in.getInt();
+
+            if (count <= rows) {
+
+                skipBytes(storedLength);
+                rowNumber += count;
+                rows -= count;
+                continue;
+            }
+
+            // the rest of a block partly skipped is returned next
+            ByteBuffer data = readBlock(length, storedLength);
+            for (int i = 0; i < rows; i++) {
+
+                readRow(data);
+            }
+            rowNumber += rows;
+
+            pending = chunk(readRows(data, count - rows), BLOCK_HEADER_LENGTH + storedLength);
+            rows = 0;
+        }
+
+    }
+
+    public ParsedChunk next() throws IOException {
+
+        if (pending != null) {
+
+            ParsedChunk chunk = pending;
+            pending = null;
+            return chunk;
+        }
+
+        if (!nextBlockHeader()) {
+
+            return null;
+        }
+
+        int count = in.getInt();
+        int length = in.getInt();
+        int storedLength = in.getInt();
+
+        ByteBuffer data = readBlock(length, storedLength);
+
+        return chunk(readRows(data, count), BLOCK_HEADER_LENGTH + storedLength);
+    }
+
+    private List<ParsedRow> readRows(ByteBuffer data, int count) {
+
+        List<ParsedRow> rows = new ArrayList<ParsedRow>(count);
+        for (int i = 0; i < count; i++) {
+
+            rows.add(new ParsedRow(++rowNumber, readRow(data)));
+        }
+
+        return rows;
+    }
+
+    private ParsedChunk chunk(List<ParsedRow> rows, int length) {
+
+        // rows are resumed by number rather than by offset
+        return new ParsedChunk(0, rows, length, new long[rows.size()], rowNumber + 1);
+    }
+
+    public void close() {
+
+        inflater.end();
+        try {
+
+            channel.close();
+
+        } catch (IOException e) {
+
+            // nothing to release
+        }
+
+    }
+
+    /**
+     * Positions the buffer at the header of the next block returning
+     * false at the end of the file. Further segments are continued
+     * where their columns are those of the first.
+     */
+    private boolean nextBlockHeader() throws IOException {
+
+        while (!endOfFile) {
+
+            fill(4);
+            if (in.getInt(in.position()) > 0) {
+
+                fill(BLOCK_HEADER_LENGTH);
+                return true;
+            }
+
+            // the end of a segment
+            in.getInt();
+            if (!fill(1, false)) {
+
+                endOfFile = true;
+                break;
+            }
+
+            List<BinaryTableFormat.Column> first = columns;
+            readHeader();
+            if (!sameColumns(first, columns)) {
+
+                throw new IOException("The columns of the segment at row "
+                        + (rowNumber + 1) + " differ from those of the file");
+            }
+            columns = first;
+        }
+
+        return false;
+    }
+
+    private boolean sameColumns(List<BinaryTableFormat.Column> first,
+                                List<BinaryTableFormat.Column> second) {
+
+        if (first.size() != second.size()) {
+
+            return false;
+        }
+
+        for (int i = 0, n = first.size(); i < n; i++) {
+
+            if (!first.get(i).getName().equals(second.get(i).getName())
+                    || first.get(i).getKind() != second.get(i).getKind()) {
+
+                return false;
+            }
+
+        }
+
+        return true;
+    }
+
+    private void readHeader() throws IOException {
+
+        fill(BinaryTableFormat.MAGIC.length + 6);
+
+        byte[] magic = new byte[BinaryTableFormat.MAGIC.length];
+        in.get(magic);
+        if (!Arrays.equals(magic, BinaryTableFormat.MAGIC)) {
+
+            throw new IOException("The file is not a binary table data file");
+        }
+
+        byte version = in.get();
+        if (version > BinaryTableFormat.VERSION) {
+
+            throw new IOException("Unsupported binary table data version " + version);
+        }
+
+        compressed = (in.get() & BinaryTableFormat.FLAG_COMPRESSED) != 0;
+
+        int columnCount = in.getInt();
+        columns = new ArrayList<BinaryTableFormat.Column>(columnCount);
+        kinds = new byte[columnCount];
+
+        for (int i = 0; i < columnCount; i++) {
+
+            String name = readHeaderString();
+            fill(4);
+            int sqlType = in.getInt();
+            String typeName = readHeaderString();
+            fill(9);
+            int size = in.getInt();
+            int scale = in.getInt();
+            kinds[i] = in.get();
+
+            columns.add(new BinaryTableFormat.Column(name, sqlType, typeName, size, scale, kinds[i]));
+        }
+
+    }
+
+    private String readHeaderString() throws IOException {
+
+        fill(4);
+        int length = in.getInt();
+        fill(length);
+
+        String value = new String(in.array(), in.position(), length, StandardCharsets.UTF_8);
+        in.position(in.position() + length);
+
+        return value;
+    }
+
+    /**
+     * Reads the data of the block whose header has been read.
+     */
+    private ByteBuffer readBlock(int length, int storedLength) throws IOException {
+
+        fill(storedLength);
+
+        ByteBuffer data;
+        if (compressed) {
+
+            if (inflated.length < length) {
+
+                inflated = new byte[length];
+            }
+
+            inflater.reset();
+            inflater.setInput(in.array(), in.position(), storedLength);
+            try {
+
+                int read = 0;
+                while (read < length && !inflater.finished()) {
+
+                    int count = inflater.inflate(inflated, read, length - read);
+                    if (count == 0 && inflater.needsInput()) {
+
+                        break;
+                    }
+                    read += count;
+                }
+
+                if (read != length) {
+
+                    throw new IOException("Corrupt block at row " + (rowNumber + 1));
+                }
+
+            } catch (DataFormatException e) {
+
+                throw new IOException("Corrupt block at row " + (rowNumber + 1), e);
+            }
+
+            data = ByteBuffer.wrap(inflated, 0, length);
+
+        } else {
+
+            // the rows are read before the buffer is next filled
+            data = ByteBuffer.wrap(in.array(), in.position(), storedLength).slice();
+        }
+
+        in.position(in.position() + storedLength);
+        return data;
+    }
+
+    private Object[] readRow(ByteBuffer data) {
+
+        int bitmap = data.position();
+        data.position(bitmap + (kinds.length + 7) / 8);
+
+        Object[] values = new Object[valueCount];
+        for (int i = 0; i < kinds.length; i++) {
+
+            if ((data.get(bitmap + (i >> 3)) & (1 << (i & 7))) != 0) {
+
+                continue;
+            }
+
+            Object value = readValue(data, kinds[i]);
+            if (targets[i] >= 0) {
+
+                values[targets[i]] = value;
+            }
+
+        }
+
+        return values;
+    }
+
+    private Object readValue(ByteBuffer data, byte kind) {
+
+        switch (kind) {
+
+            case BinaryTableFormat.BOOLEAN:
+                return Boolean.valueOf(data.get() != 0);
+
+            case BinaryTableFormat.INTEGER:
+                return Integer.valueOf(data.getInt());
+
+            case BinaryTableFormat.LONG:
+                return Long.valueOf(data.getLong());
+
+            case BinaryTableFormat.DOUBLE:
+                return Double.valueOf(data.getDouble());
+
+            case BinaryTableFormat.DECIMAL: {
+                int scale = data.getInt();
+                byte[] unscaled = new byte[data.getInt()];
+                data.get(unscaled);
+                return new BigDecimal(new BigInteger(unscaled), scale);
+            }
+
+            case BinaryTableFormat.DATE:
+                return Date.valueOf(LocalDate.ofEpochDay(data.getLong()));
+
+            case BinaryTableFormat.TIME: {
+                LocalTime time = LocalTime.ofNanoOfDay(data.getLong());
+                Time value = Time.valueOf(time.withNano(0));
+                value.setTime(value.getTime() + time.getNano() / 1000000);
+                return value;
+            }
+
+            case BinaryTableFormat.TIMESTAMP: {
+                long seconds = data.getLong();
+                int nanos = data.getInt();
+                return Timestamp.valueOf(LocalDateTime.ofEpochSecond(seconds, nanos, ZoneOffset.UTC));
+            }
+
+            case BinaryTableFormat.BYTES: {
+                byte[] value = new byte[data.getInt()];
+                data.get(value);
+                return value;
+            }
+
+            default: {
+                int length = data.getInt();
+                String value = new String(data.array(), data.arrayOffset() + data.position(),
+                        length, StandardCharsets.UTF_8);
+                data.position(data.position() + length);
+                return value;
+            }
+
+        }
+
+    }
+
+    private void fill(int length) throws IOException {
+
+        fill(length, true);
+    }
+
+    /**
+     * Reads from the file until the buffer holds the specified number
+     * of bytes, returning false or throwing at the end of the file.
+     */
+    private boolean fill(int length, boolean required) throws IOException {
+
+        if (in.remaining() >= length) {
+
+            return true;
+        }
+
+        if (in.capacity() < length) {
+
+            ByteBuffer larger = ByteBuffer.allocate(length + 8192);
+            larger.put(in);
+            larger.flip();
+            in = larger;
+        }
+
+        in.compact();
+        try {
+
+            while (in.position() < length) {
+
+                if (channel.read(in) < 0) {
+
+                    if (required) {
+
+                        throw new EOFException("Unexpected end of the binary table data file");
+                    }
+
+                    return in.position() >= length;
+                }
+
+            }
+
+        } finally {
+
+            in.flip();
+        }
+
+        return true;
+    }
+
+    private void skipBytes(int length) throws IOException {
+
+        if (in.remaining() >= length) {
+
+            in.position(in.position() + length);
+            return;
+        }
+
+        long skip = length - in.remaining();
+        in.position(in.limit());
+        channel.position(channel.position() + skip);
+    }
+
+}
@@ -0,0 +1,391 @@
+/*
+ * BinaryTableWriter.java
+ *
+ * Copyright (C) 2002-2017 Takis Diakoumis
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.executequery.gui.importexport;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.zip.Deflater;
+
+import org.executequery.gui.browser.ColumnData;
+
+/**
+ * Writes the rows of a result set to a binary table data file.
+ * <p/>
+ * Each value is read from the result set with the getter of its
+ * type and written in its binary form - no value is formatted as
+ * text. Rows are collected into blocks which are written to the
+ * file channel whole, deflated where compressed.
+ *
+ * @see BinaryTableFormat
+ */
+final class BinaryTableWriter implements Closeable {
+
+    private final FileChannel channel;
+
+    private final byte[] kinds;
+
+    private final int bitmapLength;
+
+    private final Deflater deflater;
+
+    private ByteBuffer block = ByteBuffer.allocate(BinaryTableFormat.BLOCK_SIZE + 8192);
+
+    private ByteBuffer stored;
+
+    private int blockRows;
+
+    private boolean closed;
+
+    /**
+     * Creates a new writer replacing the specified file.
+     *
+     * @param file the file written
+     * @param columns the columns of the rows written in result set order
+     * @param compressed whether the blocks are deflated
+     */
+    BinaryTableWriter(File file, List<ColumnData> columns, boolean compressed) throws IOException {
+
+        channel = new FileOutputStream(file, false).getChannel();
+
+        kinds = new byte[columns.size()];
+        bitmapLength = (kinds.length + 7) / 8;
+        deflater = compressed ? new Deflater(Deflater.BEST_SPEED) : null;
+
+        try {
+
+            writeHeader(columns);
+
+        } catch (IOException e) {
+
+            channel.close();
+            throw e;
+        }
+
+    }
+
+    private void writeHeader(List<ColumnData> columns) throws IOException {
+
+        block.put(BinaryTableFormat.MAGIC);
+        block.put(BinaryTableFormat.VERSION);
+        block.put(deflater != null ? BinaryTableFormat.FLAG_COMPRESSED : 0);
+        block.putInt(kinds.length);
+
+        for (int i = 0; i < kinds.length; i++) {
+
+            ColumnData column = columns.get(i);
+            kinds[i] = BinaryTableFormat.kindOf(column.getSQLType());
+
+            putString(column.getColumnName());
+            block.putInt(column.getSQLType());
+            putString(column.getColumnType() != null ? column.getColumnType() : "");
+            block.putInt(column.getColumnSize());
+            block.putInt(column.getColumnScale());
+            block.put(kinds[i]);
+        }
+
+        block.flip();
+        writeFully(block);
+        block.clear();
+    }
+
+    /**
+     * Writes the current row of the specified result set.
+     */
+    void writeRow(ResultSet rs) throws SQLException, IOException {
+
+        ensure(bitmapLength);
+
+        int bitmap = block.position();
+        for (int i = 0; i < bitmapLength; i++) {
+
+            block.put((byte) 0);
+        }
+
+        for (int i = 0; i < kinds.length; i++) {
+
+            if (!writeValue(rs, i + 1, kinds[i])) {
+
+                block.put(bitmap + (i >> 3), (byte) (block.get(bitmap + (i >> 3)) | (1 << (i & 7))));
+            }
+
+        }
+
+        blockRows++;
+        if (block.position() >= BinaryTableFormat.BLOCK_SIZE) {
+
+            writeBlock();
+        }
+
+    }
+
+    /**
+     * Writes the value of the specified column, returning false if it is null.
+     */
+    private boolean writeValue(ResultSet rs, int index, byte kind) throws SQLException {
+
+        switch (kind) {
+
+            case BinaryTableFormat.BOOLEAN: {
+                boolean value = rs.getBoolean(index);
+                if (rs.wasNull()) {
+                    return false;
+                }
+                ensure(1);
+                block.put(value ? (byte) 1 : 0);
+                return true;
+            }
+
+            case BinaryTableFormat.INTEGER: {
+                int value = rs.getInt(index);
+                if (rs.wasNull()) {
+                    return false;
+                }
+                ensure(4);
+                block.putInt(value);
+                return true;
+            }
+
+            case BinaryTableFormat.LONG: {
+                long value = rs.getLong(index);
+                if (rs.wasNull()) {
+                    return false;
+                }
+                ensure(8);
+                block.putLong(value);
+                return true;
+            }
+
+            case BinaryTableFormat.DOUBLE: {
+                double value = rs.getDouble(index);
+                if (rs.wasNull()) {
+                    return false;
+                }
+                ensure(8);
+                block.putDouble(value);
+                return true;
+            }
+
+            case BinaryTableFormat.DECIMAL: {
+                BigDecimal value = rs.getBigDecimal(index);
+                if (value == null) {
+                    return false;
+                }
+                byte[] unscaled = value.unscaledValue().toByteArray();
+                ensure(8 + unscaled.length);
+                block.putInt(value.scale());
+                block.putInt(unscaled.length);
+                block.put(unscaled);
+                return true;
+            }
+
+            case BinaryTableFormat.DATE: {
+                Date value = rs.getDate(index);
+                if (value == null) {
+                    return false;
+                }
+                ensure(8);
+                block.putLong(value.toLocalDate().toEpochDay());
+                return true;
+            }
+
+            case BinaryTableFormat.TIME: {
+                Time value = rs.getTime(index);
+                if (value == null) {
+                    return false;
+                }
+                // java.sql.Time drops the fraction of a second converting
+                long millis = value.getTime() % 1000;
+                if (millis < 0) {
+                    millis += 1000;
+                }
+                ensure(8);
+                block.putLong(value.toLocalTime().toNanoOfDay() + millis * 1000000L);
+                return true;
+            }
+
+            case BinaryTableFormat.TIMESTAMP: {
+                Timestamp value = rs.getTimestamp(index);
+                if (value == null) {
+                    return false;
+                }
+                LocalDateTime dateTime = value.toLocalDateTime();
+                ensure(12);
+                block.putLong(dateTime.toEpochSecond(ZoneOffset.UTC));
+                block.putInt(dateTime.getNano());
+                return true;
+            }
+
+            case BinaryTableFormat.BYTES: {
+                byte[] value = rs.getBytes(index);
+                if (value == null) {
+                    return false;
+                }
+                ensure(4 + value.length);
+                block.putInt(value.length);
+                block.put(value);
+                return true;
+            }
+
+            default: {
+                String value = rs.getString(index);
+                if (value == null) {
+                    return false;
+                }
+                putString(value);
+                return true;
+            }
+
+        }
+
+    }
+
+    /**
+     * Writes any remaining rows and the end of the segment and closes the file.
+     */
+    public void close() throws IOException {
+
+        if (closed) {
+
+            return;
+        }
+        closed = true;
+
+        try {
+
+            if (blockRows > 0) {
+
+                writeBlock();
+            }
+
+            block.clear();
+            block.putInt(0);
+            block.flip();
+            writeFully(block);
+
+        } finally {
+
+            if (deflater != null) {
+
+                deflater.end();
+            }
+            channel.close();
+        }
+
+    }
+
+    private void writeBlock() throws IOException {
+
+        block.flip();
+        int length = block.remaining();
+
+        ByteBuffer data = block;
+        if (deflater != null) {
+
+            if (stored == null || stored.capacity() < length + 64) {
+
+                stored = ByteBuffer.allocate(length + length / 8 + 64);
+            }
+
+            deflater.reset();
+            deflater.setInput(block.array(), 0, length);
+            deflater.finish();
+
+            int storedLength = 0;
+            while (!deflater.finished()) {
+
+                if (storedLength == stored.capacity()) {
+
+                    ByteBuffer larger = ByteBuffer.allocate(stored.capacity() * 2);
+                    larger.put(stored.array(), 0, storedLength);
+                    stored = larger;
+                }
+
+                storedLength += deflater.deflate(
+                        stored.array(), storedLength, stored.capacity() - storedLength);
+            }
+
+            stored.clear();
+            stored.limit(storedLength);
+            data = stored;
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(12);
+        header.putInt(blockRows);
+        header.putInt(length);
+        header.putInt(data.remaining());
+        header.flip();
+
+        writeFully(header);
+        writeFully(data);
+
+        block.clear();
+        blockRows = 0;
+    }
+
+    private void putString(String value) {
+
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        ensure(4 + bytes.length);
+        block.putInt(bytes.length);
+        block.put(bytes);
+    }
+
+    /**
+     * Ensures the block has room for the specified number of bytes,
+     * growing it for values larger than a block.
+     */
+    private void ensure(int length) {
+
+        if (block.remaining() < length) {
+
+            ByteBuffer larger = ByteBuffer.allocate(
+                    Math.max(block.capacity() * 2, block.position() + length + 8192));
+            block.flip();
+            larger.put(block);
+            block = larger;
+        }
+
+    }
+
+    private void writeFully(ByteBuffer buffer) throws IOException {
+
+        while (buffer.hasRemaining()) {
+
+            channel.write(buffer);
+        }
+
+    }
+
+}
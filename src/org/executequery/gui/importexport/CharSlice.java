@@ -0,0 +1,116 @@
+/*
+ * CharSlice.java
+ *
+ * Copyright (C) 2002-2017 Takis Diakoumis
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.executequery.gui.importexport;
+
+import java.math.BigDecimal;
+
+/**
+ * Mutable character sequence over a range of a shared char array.
+ * <p/>
+ * Slices are reused by their owner and only valid until it is next
+ * updated - call toString() to retain the value.
+ */
+final class CharSlice implements CharSequence {
+
+    private char[] chars;
+
+    private int offset;
+
+    private int length;
+
+    CharSlice set(char[] chars, int offset, int length) {
+
+        this.chars = chars;
+        this.offset = offset;
+        this.length = length;
+
+        return this;
+    }
+
+    public int length() {
+
+        return length;
+    }
+
+    public char charAt(int index) {
+
+        if (index < 0 || index >= length) {
+
+            throw new IndexOutOfBoundsException(String.valueOf(index));
+        }
+
+        return chars[offset + index];
+    }
+
+    public CharSequence subSequence(int start, int end) {
+
+        if (start < 0 || end > length || start > end) {
+
+            throw new IndexOutOfBoundsException(start + "," + end);
+        }
+
+        return new CharSlice().set(chars, offset + start, end - start);
+    }
+
+    /**
+     * Returns whether this slice is empty or white space only.
+     */
+    boolean isBlank() {
+
+        for (int i = offset, n = offset + length; i < n; i++) {
+
+            if (chars[i] > ' ') {
+
+                return false;
+            }
+
+        }
+
+        return true;
+    }
+
+    /**
+     * Returns this slice as a BigDecimal without an intermediate String.
+     *
+     * @throws NumberFormatException if not a valid decimal
+     */
+    BigDecimal toBigDecimal() {
+
+        if (length == 0) {
+
+            throw numberFormatException();
+        }
+
+        return new BigDecimal(chars, offset, length);
+    }
+
+    @Override
+    public String toString() {
+
+        return new String(chars, offset, length);
+    }
+
+    private NumberFormatException numberFormatException() {
+
+        return new NumberFormatException("For input string: \"" + toString() + "\"");
+    }
+
+}
@@ -0,0 +1,709 @@
+/*
+ * ColumnConverter.java
+ *
+ * Copyright (C) 2002-2017 Takis Diakoumis
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.executequery.gui.importexport;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.text.DateFormat;
+import java.text.ParsePosition;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+
+import org.apache.commons.lang.StringUtils;
+import org.executequery.gui.browser.ColumnData;
+import org.executequery.localization.Bundles;
+import org.executequery.util.Base64;
+import org.underworldlabs.util.MiscUtils;
+
+/**
+ * Converts the text of an imported value to the object bound to
+ * the statement parameter of its column, and binds it.
+ * <p/>
+ * A converter specialised to the type of each column is compiled once
+ * per import with compile(...) so no type switch is evaluated per value.
+ * Values that cannot be converted return INVALID rather than throwing.
+ * Converters hold no state between values and may be shared across
+ * threads.
+ */
+abstract class ColumnConverter {
+
+    /** returned for a value that cannot be converted */
+    static final Object INVALID = new Object();
+
+    private final String columnName;
+
+    private final int sqlType;
+
+    private ColumnConverter(ColumnData column) {
+
+        columnName = column.getColumnName();
+        sqlType = column.getSQLType();
+    }
+
+    /**
+     * Compiles the converters of the specified columns.
+     *
+     * @param columns the statement columns in parameter order
+     * @param trim whether to trim character values
+     * @param datePattern the pattern of date/time values or null to pass
+     *        them to the driver as is
+     * @throws IllegalArgumentException if the date pattern is invalid
+     */
+    static ColumnConverter[] compile(List<ColumnData> columns, boolean trim, String datePattern) {
+
+        DateParser dateParser = null;
+        if (StringUtils.isNotBlank(datePattern)) {
+
+            dateParser = createDateParser(datePattern);
+        }
+
+        ColumnConverter[] converters = new ColumnConverter[columns.size()];
+        for (int i = 0; i < converters.length; i++) {
+
+            converters[i] = create(columns.get(i), trim, dateParser);
+        }
+
+        return converters;
+    }
+
+    /**
+     * Compiles the converters binding the typed values read from a
+     * binary table data file to the specified columns.
+     *
+     * @param columns the statement columns in parameter order
+     */
+    static ColumnConverter[] compileTyped(List<ColumnData> columns) {
+
+        ColumnConverter[] converters = new ColumnConverter[columns.size()];
+        for (int i = 0; i < converters.length; i++) {
+
+            converters[i] = new TypedValueConverter(columns.get(i));
+        }
+
+        return converters;
+    }
+
+    private static ColumnConverter create(ColumnData column, boolean trim, DateParser dateParser) {
+
+        switch (column.getSQLType()) {
+
+            case Types.TINYINT:
+                return new IntegerConverter(column, Byte.MIN_VALUE, Byte.MAX_VALUE);
+
+            case Types.SMALLINT:
+                return new IntegerConverter(column, Short.MIN_VALUE, Short.MAX_VALUE);
+
+            case Types.INTEGER:
+                return new IntegerConverter(column, Integer.MIN_VALUE, Integer.MAX_VALUE);
+
+            case Types.BIGINT:
+                return new IntegerConverter(column, Long.MIN_VALUE, Long.MAX_VALUE);
+
+            case Types.LONGVARCHAR:
+            case Types.CHAR:
+            case Types.VARCHAR:
+                return new StringConverter(column, trim);
+
+            case Types.BIT:
+            case Types.BOOLEAN:
+                return new BooleanConverter(column);
+
+            case Types.NUMERIC:
+            case Types.DECIMAL:
+                return new DecimalConverter(column);
+
+            case Types.REAL:
+            case Types.FLOAT:
+            case Types.DOUBLE:
+                return new FloatingPointConverter(column);
+
+            case Types.DATE:
+            case Types.TIME:
+            case Types.TIMESTAMP:
+                // without a date format the value is converted by the driver
+                if (dateParser != null) {
+                    return new DateConverter(column, dateParser);
+                }
+                return new DriverDateConverter(column);
+
+            case Types.LONGVARBINARY:
+            case Types.BINARY:
+            case Types.BLOB:
+            case Types.CLOB:
+                return new BinaryConverter(column);
+
+            default:
+                return new ObjectConverter(column);
+        }
+
+    }
+
+    /**
+     * Converts the specified value, which is not blank.
+     *
+     * @return the converted value or INVALID
+     */
+    abstract Object convert(CharSequence value);
+
+    /**
+     * Binds the specified value as returned from convert(...) to the
+     * specified parameter of the statement, null values as NULL.
+     */
+    final void bind(PreparedStatement statement, int index, Object value)
+        throws SQLException {
+
+        if (value == null) {
+
+            statement.setNull(index, sqlType);
+
+        } else {
+
+            set(statement, index, value);
+        }
+
+    }
+
+    /**
+     * Sets the specified non-null value as the specified parameter.
+     */
+    abstract void set(PreparedStatement statement, int index, Object value)
+        throws SQLException;
+
+    /**
+     * Returns the SQL type of the column.
+     */
+    final int getSQLType() {
+
+        return sqlType;
+    }
+
+    /**
+     * Returns a description of the specified value that could not be converted.
+     */
+    final String invalidValueMessage(CharSequence value) {
+
+        String type = (this instanceof DateConverter) ? "date" : "value";
+        return "Error parsing " + type + " - " + value + " - for column " + columnName;
+    }
+
+    /**
+     * Returns whether the specified value is a decimal number - an optional
+     * sign, digits with an optional decimal point and an optional exponent.
+     */
+    static boolean isDecimal(CharSequence value) {
+
+        int length = value.length();
+        int i = 0;
+
+        if (i < length && (value.charAt(i) == '-' || value.charAt(i) == '+')) {
+
+            i++;
+        }
+
+        int digits = 0;
+        boolean point = false;
+        for (; i < length; i++) {
+
+            char c = value.charAt(i);
+            if (c >= '0' && c <= '9') {
+
+                digits++;
+
+            } else if (c == '.' && !point) {
+
+                point = true;
+
+            } else {
+
+                break;
+            }
+
+        }
+
+        if (digits == 0) {
+
+            return false;
+        }
+
+        if (i < length && (value.charAt(i) == 'e' || value.charAt(i) == 'E')) {
+
+            i++;
+            if (i < length && (value.charAt(i) == '-' || value.charAt(i) == '+')) {
+
+                i++;
+            }
+
+            int exponentDigits = 0;
+            for (; i < length && value.charAt(i) >= '0' && value.charAt(i) <= '9'; i++) {
+
+                exponentDigits++;
+            }
+
+            // within the range of the BigDecimal scale
+            if (exponentDigits == 0 || exponentDigits > 9) {
+
+                return false;
+            }
+
+        }
+
+        return i == length;
+    }
+
+    private static DateParser createDateParser(final String pattern) {
+
+        // throws where the pattern is invalid
+        new SimpleDateFormat(pattern);
+
+        // variable width fields as the pattern is written - 1.2.2020 as
+        // dd.MM.yyyy - but non-lenient so out of range fields are invalid
+        final ThreadLocal<DateFormat> dateFormats = new ThreadLocal<DateFormat>() {
+            protected DateFormat initialValue() {
+                DateFormat dateFormat = new SimpleDateFormat(pattern);
+                dateFormat.setLenient(false);
+                return dateFormat;
+            }
+        };
+
+        return new DateParser() {
+
+            public Object parse(String value, int sqlType) {
+
+                ParsePosition position = new ParsePosition(0);
+                Date date = dateFormats.get().parse(value, position);
+                if (date == null || position.getIndex() != value.length()) {
+
+                    return INVALID;
+                }
+
+                switch (sqlType) {
+
+                    case Types.DATE:
+                        return new java.sql.Date(date.getTime());
+
+                    case Types.TIME:
+                        return new java.sql.Time(date.getTime());
+
+                    default:
+                        return new Timestamp(date.getTime());
+                }
+
+            }
+
+        };
+
+    }
+
+    /**
+     * Parses date/time values to the java.sql type of a column.
+     */
+    private interface DateParser {
+
+        /**
+         * Returns the parsed value or INVALID.
+         */
+        Object parse(String value, int sqlType);
+
+    }
+
+    private static final class IntegerConverter extends ColumnConverter {
+
+        private final long minimum;
+
+        private final long maximum;
+
+        IntegerConverter(ColumnData column, long minimum, long maximum) {
+
+            super(column);
+            this.minimum = minimum;
+            this.maximum = maximum;
+        }
+
+        Object convert(CharSequence value) {
+
+            int length = value.length();
+            int i = 0;
+
+            boolean negative = false;
+            char first = value.charAt(0);
+            if (first == '-' || first == '+') {
+
+                negative = (first == '-');
+                if (++i == length) {
+
+                    return INVALID;
+                }
+
+            }
+
+            // accumulate negatively as Long.MIN_VALUE has no positive equivalent
+            long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+            long multiplicationLimit = limit / 10;
+            long result = 0;
+            for (; i < length; i++) {
+
+                int digit = Character.digit(value.charAt(i), 10);
+                if (digit < 0 || result < multiplicationLimit) {
+
+                    return INVALID;
+                }
+
+                result *= 10;
+                if (result < limit + digit) {
+
+                    return INVALID;
+                }
+                result -= digit;
+            }
+
+            long number = negative ? result : -result;
+            if (number < minimum || number > maximum) {
+
+                return INVALID;
+            }
+
+            switch (getSQLType()) {
+
+                case Types.INTEGER:
+                    return Integer.valueOf((int) number);
+
+                case Types.BIGINT:
+                    return Long.valueOf(number);
+
+                default:
+                    return Short.valueOf((short) number);
+            }
+
+        }
+
+        void set(PreparedStatement statement, int index, Object value) throws SQLException {
+
+            if (value instanceof Integer) {
+
+                statement.setInt(index, ((Integer) value).intValue());
+
+            } else if (value instanceof Long) {
+
+                statement.setLong(index, ((Long) value).longValue());
+
+            } else {
+
+                statement.setShort(index, ((Short) value).shortValue());
+            }
+
+        }
+
+    }
+
+    private static final class DecimalConverter extends ColumnConverter {
+
+        DecimalConverter(ColumnData column) {
+
+            super(column);
+        }
+
+        Object convert(CharSequence value) {
+
+            if (!isDecimal(value)) {
+
+                return INVALID;
+            }
+
+            if (value instanceof CharSlice) {
+
+                return ((CharSlice) value).toBigDecimal();
+            }
+
+            return new BigDecimal(value.toString());
+        }
+
+        void set(PreparedStatement statement, int index, Object value) throws SQLException {
+
+            statement.setBigDecimal(index, (BigDecimal) value);
+        }
+
+    }
+
+    private static final class FloatingPointConverter extends ColumnConverter {
+
+        FloatingPointConverter(ColumnData column) {
+
+            super(column);
+        }
+
+        Object convert(CharSequence value) {
+
+            if (!isDecimal(value)) {
+
+                return INVALID;
+            }
+
+            double number = Double.parseDouble(value.toString());
+            if (getSQLType() == Types.REAL) {
+
+                return Float.valueOf((float) number);
+            }
+
+            return Double.valueOf(number);
+        }
+
+        void set(PreparedStatement statement, int index, Object value) throws SQLException {
+
+            if (value instanceof Float) {
+
+                statement.setFloat(index, ((Float) value).floatValue());
+
+            } else {
+
+                statement.setDouble(index, ((Double) value).doubleValue());
+            }
+
+        }
+
+    }
+
+    private static final class BooleanConverter extends ColumnConverter {
+
+        BooleanConverter(ColumnData column) {
+
+            super(column);
+        }
+
+        Object convert(CharSequence value) {
+
+            // as Boolean.valueOf(...) with t as an abbreviation of true
+            boolean isTrue = value.length() == 1 ?
+                    Character.toLowerCase(value.charAt(0)) == 't' :
+                    StringUtils.equalsIgnoreCase(value.toString(), "true");
+
+            return Boolean.valueOf(isTrue);
+        }
+
+        void set(PreparedStatement statement, int index, Object value) throws SQLException {
+
+            statement.setBoolean(index, ((Boolean) value).booleanValue());
+        }
+
+    }
+
+    private static final class StringConverter extends ColumnConverter {
+
+        private final boolean trim;
+
+        StringConverter(ColumnData column, boolean trim) {
+
+            super(column);
+            this.trim = trim;
+        }
+
+        Object convert(CharSequence value) {
+
+            String string = value.toString();
+            return trim ? string.trim() : string;
+        }
+
+        void set(PreparedStatement statement, int index, Object value) throws SQLException {
+
+            statement.setString(index, (String) value);
+        }
+
+    }
+
+    private static final class ObjectConverter extends ColumnConverter {
+
+        ObjectConverter(ColumnData column) {
+
+            super(column);
+        }
+
+        Object convert(CharSequence value) {
+
+            return value.toString();
+        }
+
+        void set(PreparedStatement statement, int index, Object value) throws SQLException {
+
+            statement.setObject(index, value);
+        }
+
+    }
+
+    /**
+     * Binds values already of a java type with the setter of that type,
+     * the driver converting where it differs from the column type.
+     */
+    private static final class TypedValueConverter extends ColumnConverter {
+
+        TypedValueConverter(ColumnData column) {
+
+            super(column);
+        }
+
+        Object convert(CharSequence value) {
+
+            return value.toString();
+        }
+
+        void set(PreparedStatement statement, int index, Object value) throws SQLException {
+
+            if (value instanceof String) {
+
+                statement.setString(index, (String) value);
+
+            } else if (value instanceof Integer) {
+
+                statement.setInt(index, ((Integer) value).intValue());
+
+            } else if (value instanceof Long) {
+
+                statement.setLong(index, ((Long) value).longValue());
+
+            } else if (value instanceof BigDecimal) {
+
+                statement.setBigDecimal(index, (BigDecimal) value);
+
+            } else if (value instanceof Double) {
+
+                statement.setDouble(index, ((Double) value).doubleValue());
+
+            } else if (value instanceof Timestamp) {
+
+                statement.setTimestamp(index, (Timestamp) value);
+
+            } else if (value instanceof java.sql.Date) {
+
+                statement.setDate(index, (java.sql.Date) value);
+
+            } else if (value instanceof java.sql.Time) {
+
+                statement.setTime(index, (java.sql.Time) value);
+
+            } else if (value instanceof byte[]) {
+
+                statement.setBytes(index, (byte[]) value);
+
+            } else if (value instanceof Boolean) {
+
+                statement.setBoolean(index, ((Boolean) value).booleanValue());
+
+            } else {
+
+                statement.setObject(index, value);
+            }
+
+        }
+
+    }
+
+    private static final class BinaryConverter extends ColumnConverter {
+
+        BinaryConverter(ColumnData column) {
+
+            super(column);
+        }
+
+        Object convert(CharSequence value) {
+
+            return Base64.decode(value.toString());
+        }
+
+        void set(PreparedStatement statement, int index, Object value) throws SQLException {
+
+            statement.setBytes(index, (byte[]) value);
+        }
+
+    }
+
+    private static final class DateConverter extends ColumnConverter {
+
+        private final DateParser dateParser;
+
+        DateConverter(ColumnData column, DateParser dateParser) {
+
+            super(column);
+            this.dateParser = dateParser;
+        }
+
+        Object convert(CharSequence value) {
+
+            return dateParser.parse(value.toString(), getSQLType());
+        }
+
+        void set(PreparedStatement statement, int index, Object value) throws SQLException {
+
+            if (value instanceof java.sql.Date) {
+
+                statement.setDate(index, (java.sql.Date) value);
+
+            } else if (value instanceof java.sql.Time) {
+
+                statement.setTime(index, (java.sql.Time) value);
+
+            } else {
+
+                statement.setTimestamp(index, (Timestamp) value);
+            }
+
+        }
+
+    }
+
+    /**
+     * Passes date/time values to the driver as is where no date format is set.
+     */
+    private static final class DriverDateConverter extends ColumnConverter {
+
+        DriverDateConverter(ColumnData column) {
+
+            super(column);
+        }
+
+        Object convert(CharSequence value) {
+
+            return value.toString();
+        }
+
+        void set(PreparedStatement statement, int index, Object value) throws SQLException {
+
+            try {
+
+                statement.setObject(index, value, getSQLType());
+
+            } catch (Exception e) {
+
+                // want a more useful message here than what will likely
+                // be returned due to internal driver code on formatting
+                // a SQL date value from string
+                // (ie. could be parsing error, number format etc...)
+                throw new IllegalArgumentException(
+                        "[ " + MiscUtils.getExceptionName(e) + " ] " +
+                        Bundles.get("AbstractImportExportWorker.dateConversionError"));
+            }
+
+        }
+
+    }
+
+}
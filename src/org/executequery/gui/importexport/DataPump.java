@@ -0,0 +1,794 @@
+/*
+ * DataPump.java
+ *
+ * Copyright (C) 2002-2017 Takis Diakoumis
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.executequery.gui.importexport;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import org.executequery.databasemediators.DatabaseConnection;
+import org.executequery.datasource.ConnectionManager;
+import org.executequery.gui.DataTypeMapping;
+import org.executequery.gui.browser.ColumnData;
+import org.executequery.log.Log;
+import org.underworldlabs.jdbc.DataSourceException;
+
+/**
+ * Copies the data of tables from one database connection to another
+ * without an intermediate file.
+ * <p/>
+ * The tables are copied concurrently as the tables of a parallel
+ * export, each read from its own snapshot of the source. The rows of
+ * a table are read on the export thread into a fixed ring of blocks
+ * and inserted into the target in batches by a writer thread of the
+ * table, the reader waiting for a free block whenever the writer
+ * falls behind. Source columns are matched to those of the target
+ * table by name, a target table not found being created from the
+ * source columns with the data types mapped to the target database.
+ * <p/>
+ * Each table is written through a target connection of its own so
+ * the commits and rollbacks of one table never touch the rows of
+ * another. Where the rows of the target are replaced, the delete and
+ * the inserts are committed once at the end so a failed copy leaves
+ * the target table as it was; otherwise the inserts are committed
+ * every few blocks and a failure reports the records already
+ * committed.
+ */
+final class DataPump {
+
+    /** the rows of a block - inserted as a single batch */
+    static final int BLOCK_ROWS = 1000;
+
+    /** the blocks held between the reader and writer of a table */
+    static final int BUFFER_BLOCKS = 8;
+
+    /** the blocks inserted between commits of the target where rows are not replaced */
+    static final int COMMIT_BLOCKS = 10;
+
+    private final DatabaseConnection source;
+
+    private final DatabaseConnection target;
+
+    private final String sourceSchema;
+
+    private final String targetSchema;
+
+    private final DataTypeMapping typeMapping;
+
+    private final boolean replaceRows;
+
+    private volatile ParallelTableExport export;
+
+    /**
+     * Creates a new pump.
+     *
+     * @param source the connection copied from
+     * @param sourceSchema the schema of the source tables or null
+     * @param target the connection copied to
+     * @param targetSchema the schema of the target tables or null
+     * @param typeMapping the mapping of the source data types to the
+     *        target database, or null not to create missing tables
+     * @param replaceRows whether to delete the rows of each target
+     *        table before copying
+     */
+    DataPump(DatabaseConnection source, String sourceSchema,
+            DatabaseConnection target, String targetSchema,
+            DataTypeMapping typeMapping, boolean replaceRows) {
+
+        this.source = source;
+        this.sourceSchema = sourceSchema;
+        this.target = target;
+        this.targetSchema = targetSchema;
+        this.typeMapping = typeMapping;
+        this.replaceRows = replaceRows;
+    }
+
+    /**
+     * Copies the specified tables returning when all are complete.
+     *
+     * @param tableNames the source tables in the order started
+     * @param streams the maximum number of tables copied concurrently
+     * @param progress the per-table progress display
+     * @param listener notified as each table completes
+     * @throws InterruptedException if the copy was cancelled
+     * @throws DataSourceException if a source connection could not be opened
+     */
+    void run(List<String> tableNames, int streams,
+            TableProgressPanel progress, ParallelTableExport.Listener listener)
+            throws InterruptedException {
+
+        List<TablePump> pumps = new ArrayList<TablePump>(tableNames.size());
+        for (String tableName : tableNames) {
+
+            pumps.add(new TablePump(tableName));
+        }
+
+        export = new ParallelTableExport(source, streams, progress, listener, true);
+        export.run(pumps);
+    }
+
+    /**
+     * Stops copying all tables.
+     */
+    void cancel() {
+
+        ParallelTableExport export = this.export;
+        if (export != null) {
+
+            export.cancel();
+        }
+
+    }
+
+    private static String qualifiedName(DatabaseMetaData metaData,
+            String schema, String name) throws SQLException {
+
+        String quote = metaData.getIdentifierQuoteString();
+        if (quote == null || quote.trim().length() == 0) {
+
+            quote = "";
+        }
+
+        StringBuilder sb = new StringBuilder();
+        if (schema != null) {
+
+            sb.append(quote).append(schema).append(quote).append('.');
+        }
+        sb.append(quote).append(name).append(quote);
+
+        return sb.toString();
+    }
+
+    private static String columnList(DatabaseMetaData metaData,
+            List<ColumnData> columns) throws SQLException {
+
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0, n = columns.size(); i < n; i++) {
+
+            if (i > 0) {
+
+                sb.append(',');
+            }
+            sb.append(qualifiedName(metaData, null, columns.get(i).getColumnName()));
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * Returns the columns of the specified table, trying the name as
+     * given then in the case the database stores unquoted names.
+     */
+    private static List<ColumnData> columns(DatabaseConnection databaseConnection,
+            DatabaseMetaData metaData, String schema, String tableName) throws SQLException {
+
+        List<ColumnData> columns = readColumns(databaseConnection, metaData, schema, tableName);
+        if (columns.isEmpty() && metaData.storesUpperCaseIdentifiers()) {
+
+            columns = readColumns(databaseConnection, metaData, schema, tableName.toUpperCase());
+
+        } else if (columns.isEmpty() && metaData.storesLowerCaseIdentifiers()) {
+
+            columns = readColumns(databaseConnection, metaData, schema, tableName.toLowerCase());
+        }
+
+        return columns;
+    }
+
+    private static List<ColumnData> readColumns(DatabaseConnection databaseConnection,
+            DatabaseMetaData metaData, String schema, String pattern) throws SQLException {
+
+        List<ColumnData> columns = new ArrayList<ColumnData>();
+
+        ResultSet rs = metaData.getColumns(null, schema, pattern, null);
+        try {
+
+            while (rs.next()) {
+
+                ColumnData column = new ColumnData(databaseConnection);
+                column.setTableName(rs.getString(3));
+                column.setColumnName(rs.getString(4));
+                column.setSQLType(rs.getInt(5));
+                column.setColumnType(rs.getString(6));
+                column.setColumnSize(rs.getInt(7));
+                column.setColumnScale(rs.getInt(9));
+                column.setColumnRequired(rs.getInt(11));
+                columns.add(column);
+            }
+
+        } finally {
+
+            rs.close();
+        }
+
+        return columns;
+    }
+
+    private static Object readValue(ResultSet rs, int index, byte kind) throws SQLException {
+
+        switch (kind) {
+
+            case BinaryTableFormat.BOOLEAN: {
+                boolean value = rs.getBoolean(index);
+                return rs.wasNull() ? null : Boolean.valueOf(value);
+            }
+
+            case BinaryTableFormat.INTEGER: {
+                int value = rs.getInt(index);
+                return rs.wasNull() ? null : Integer.valueOf(value);
+            }
+
+            case BinaryTableFormat.LONG: {
+                long value = rs.getLong(index);
+                return rs.wasNull() ? null : Long.valueOf(value);
+            }
+
+            case BinaryTableFormat.DOUBLE: {
+                double value = rs.getDouble(index);
+                return rs.wasNull() ? null : Double.valueOf(value);
+            }
+
+            case BinaryTableFormat.DECIMAL:
+                return rs.getBigDecimal(index);
+
+            case BinaryTableFormat.DATE:
+                return rs.getDate(index);
+
+            case BinaryTableFormat.TIME:
+                return rs.getTime(index);
+
+            case BinaryTableFormat.TIMESTAMP:
+                return rs.getTimestamp(index);
+
+            case BinaryTableFormat.BYTES:
+                return rs.getBytes(index);
+
+            default:
+                return rs.getString(index);
+        }
+
+    }
+
+    /**
+     * The copy of a single table.
+     */
+    private final class TablePump implements ParallelTableExport.TableExport {
+
+        private final String tableName;
+
+        TablePump(String tableName) {
+
+            this.tableName = tableName;
+        }
+
+        public String getTableName() {
+
+            return tableName;
+        }
+
+        public int export(ParallelTableExport.ExportContext context) throws Exception {
+
+            Statement statement = context.createStatement();
+            Connection connection = ConnectionManager.getDedicatedConnection(target);
+            boolean autoCommit = connection.getAutoCommit();
+            try {
+
+                connection.setAutoCommit(false);
+                return copy(context, statement, connection);
+
+            } finally {
+
+                context.closeStatement(statement);
+
+                try {
+
+                    connection.rollback();
+                    connection.setAutoCommit(autoCommit);
+
+                } catch (SQLException e) {
+
+                    Log.debug("Error restoring target connection", e);
+                }
+
+                connection.close();
+            }
+
+        }
+
+        private int copy(ParallelTableExport.ExportContext context,
+                Statement statement, Connection connection) throws Exception {
+
+            DatabaseMetaData sourceMetaData = statement.getConnection().getMetaData();
+            DatabaseMetaData targetMetaData = connection.getMetaData();
+
+            List<ColumnData> sourceColumns = columns(source, sourceMetaData, sourceSchema, tableName);
+            if (sourceColumns.isEmpty()) {
+
+                throw new DataSourceException("Table " + tableName + " not found in the source database");
+            }
+
+            List<ColumnData> targetColumns = columns(target, targetMetaData, targetSchema, tableName);
+            if (targetColumns.isEmpty() && typeMapping != null) {
+
+                createTable(connection, sourceColumns);
+                targetColumns = columns(target, targetMetaData, targetSchema, tableName);
+            }
+
+            if (targetColumns.isEmpty()) {
+
+                throw new DataSourceException("Table " + tableName + " not found in the target database");
+            }
+
+            // the source columns in target column order
+            List<ColumnData> selectedColumns = new ArrayList<ColumnData>(targetColumns.size());
+            List<ColumnData> insertedColumns = new ArrayList<ColumnData>(targetColumns.size());
+            for (ColumnData targetColumn : targetColumns) {
+
+                for (ColumnData sourceColumn : sourceColumns) {
+
+                    if (sourceColumn.getColumnName().equalsIgnoreCase(targetColumn.getColumnName())) {
+
+                        selectedColumns.add(sourceColumn);
+                        insertedColumns.add(targetColumn);
+                        break;
+                    }
+
+                }
+
+            }
+
+            if (selectedColumns.isEmpty()) {
+
+                throw new DataSourceException(
+                        "No columns of table " + tableName + " match those of the target table");
+            }
+
+            String sourceTable = qualifiedName(sourceMetaData, sourceSchema,
+                    sourceColumns.get(0).getTableName());
+            String targetTable = qualifiedName(targetMetaData, targetSchema,
+                    targetColumns.get(0).getTableName());
+
+            ResultSet rs = statement.executeQuery("SELECT COUNT(*) FROM " + sourceTable);
+            try {
+
+                context.started(rs.next() ? rs.getInt(1) : 0);
+
+            } finally {
+
+                rs.close();
+            }
+
+            if (replaceRows) {
+
+                Statement delete = connection.createStatement();
+                try {
+
+                    delete.executeUpdate("DELETE FROM " + targetTable);
+
+                } finally {
+
+                    delete.close();
+                }
+
+            }
+
+            StringBuilder insert = new StringBuilder("INSERT INTO ");
+            insert.append(targetTable).append(" (");
+            insert.append(columnList(targetMetaData, insertedColumns));
+            insert.append(") VALUES (");
+            for (int i = 0, n = insertedColumns.size(); i < n; i++) {
+
+                insert.append(i > 0 ? ",?" : "?");
+            }
+            insert.append(')');
+
+            String select = "SELECT " + columnList(sourceMetaData, selectedColumns)
+                    + " FROM " + sourceTable;
+
+            Log.info("Executing query for copy: [ " + select + " ]");
+
+            BlockWriter writer = new BlockWriter(context, connection.prepareStatement(insert.toString()),
+                    ColumnConverter.compileTyped(insertedColumns), selectedColumns.size(),
+                    replaceRows ? 0 : COMMIT_BLOCKS);
+            Thread writerThread = new Thread(writer, Thread.currentThread().getName() + "-writer");
+            writerThread.setDaemon(true);
+            writerThread.start();
+
+            try {
+
+                statement.setFetchSize(fetchSize(sourceMetaData));
+                rs = statement.executeQuery(select);
+
+                byte[] kinds = new byte[selectedColumns.size()];
+                for (int i = 0; i < kinds.length; i++) {
+
+                    kinds[i] = BinaryTableFormat.kindOf(selectedColumns.get(i).getSQLType());
+                }
+
+                read(rs, kinds, writer);
+
+                writerThread.join();
+                writer.checkFailure();
+
+                return writer.getRecordCount();
+
+            } catch (InterruptedException e) {
+
+                if (writer.getCommittedCount() > 0) {
+
+                    Log.warning("Copy of table " + tableName + " cancelled with "
+                            + writer.getCommittedCount() + " records committed to " + targetTable);
+                }
+
+                throw e;
+
+            } catch (Exception e) {
+
+                if (writer.getCommittedCount() > 0) {
+
+                    throw new DataSourceException(e.getMessage() + "\nThe first "
+                            + writer.getCommittedCount() + " records were committed to "
+                            + targetTable + " before the failure", e);
+                }
+
+                throw e;
+
+            } finally {
+
+                if (writerThread.isAlive()) {
+
+                    writerThread.interrupt();
+                    writer.cancel();
+                    writerThread.join();
+                }
+
+                if (rs != null) {
+                    try {
+                        rs.close();
+                    } catch (SQLException e) {}
+                }
+
+            }
+
+        }
+
+        /**
+         * Reads the rows of the result set into blocks of the writer
+         * ending with an empty block.
+         */
+        private void read(ResultSet rs, byte[] kinds, BlockWriter writer) throws Exception {
+
+            boolean more = true;
+            while (more) {
+
+                Block block = writer.free.take();
+                block.count = 0;
+
+                while (block.count < BLOCK_ROWS && (more = rs.next())) {
+
+                    Object[] row = block.rows[block.count];
+                    for (int i = 0; i < kinds.length; i++) {
+
+                        row[i] = readValue(rs, i + 1, kinds[i]);
+                    }
+                    block.count++;
+                }
+
+                if (Thread.interrupted()) {
+
+                    throw new InterruptedException();
+                }
+
+                if (writer.failure != null) {
+
+                    // stop reading - the failure is thrown once the writer ends
+                    block.count = 0;
+                    more = false;
+                }
+
+                writer.filled.put(block);
+
+                if (block.count > 0 && !more) {
+
+                    // the remaining rows filled the block, so end with an empty one
+                    block = writer.free.take();
+                    block.count = 0;
+                    writer.filled.put(block);
+                }
+
+            }
+
+        }
+
+        private void createTable(Connection connection, List<ColumnData> columns) throws SQLException {
+
+            DatabaseMetaData metaData = connection.getMetaData();
+
+            StringBuilder sb = new StringBuilder("CREATE TABLE ");
+            sb.append(qualifiedName(metaData, targetSchema, tableName)).append(" (");
+            for (int i = 0, n = columns.size(); i < n; i++) {
+
+                ColumnData column = columns.get(i);
+                String type = typeMapping.getTypeDefinition(column);
+                if (type == null) {
+
+                    throw new DataSourceException("No data type of the target database maps to "
+                            + column.getColumnType() + " of column " + column.getColumnName());
+                }
+
+                if (i > 0) {
+
+                    sb.append(", ");
+                }
+                sb.append(qualifiedName(metaData, null, column.getColumnName()));
+                sb.append(' ').append(type);
+                if (column.isRequired()) {
+
+                    sb.append(" NOT NULL");
+                }
+
+            }
+            sb.append(')');
+
+            Log.info("Creating target table: [ " + sb + " ]");
+
+            Statement statement = connection.createStatement();
+            try {
+
+                statement.executeUpdate(sb.toString());
+                connection.commit();
+
+            } finally {
+
+                statement.close();
+            }
+
+        }
+
+        private int fetchSize(DatabaseMetaData metaData) throws SQLException {
+
+            // as for exports - mysql only streams rows with a fetch size of Integer.MIN_VALUE
+            if (metaData.getDatabaseProductName().toUpperCase().contains("MYSQL")) {
+
+                return Integer.MIN_VALUE;
+            }
+
+            return 10000;
+        }
+
+    }
+
+    /**
+     * Inserts the blocks read into the target table in batches,
+     * returning each to the reader once inserted.
+     */
+    private static final class BlockWriter implements Runnable {
+
+        final BlockingQueue<Block> free = new ArrayBlockingQueue<Block>(BUFFER_BLOCKS);
+
+        final BlockingQueue<Block> filled = new ArrayBlockingQueue<Block>(BUFFER_BLOCKS);
+
+        private final ParallelTableExport.ExportContext context;
+
+        private final PreparedStatement statement;
+
+        private final ColumnConverter[] converters;
+
+        /** the blocks inserted between commits or 0 to commit only at the end */
+        private final int commitBlocks;
+
+        private volatile int recordCount;
+
+        private volatile int committedCount;
+
+        volatile Exception failure;
+
+        BlockWriter(ParallelTableExport.ExportContext context, PreparedStatement statement,
+                ColumnConverter[] converters, int columnCount, int commitBlocks) {
+
+            this.context = context;
+            this.statement = statement;
+            this.converters = converters;
+            this.commitBlocks = commitBlocks;
+
+            for (int i = 0; i < BUFFER_BLOCKS; i++) {
+
+                free.add(new Block(columnCount));
+            }
+
+        }
+
+        public void run() {
+
+            Connection connection = null;
+            boolean ended = false;
+            try {
+
+                connection = statement.getConnection();
+
+                int blocks = 0;
+                Block block;
+                while ((block = filled.take()).count > 0) {
+
+                    if (failure == null) {
+
+                        insert(block);
+
+                        if (commitBlocks > 0 && ++blocks % commitBlocks == 0) {
+
+                            connection.commit();
+                            committedCount = recordCount;
+                        }
+
+                    }
+
+                    clear(block);
+                    free.put(block);
+                }
+                ended = true;
+
+                if (failure == null) {
+
+                    connection.commit();
+                    committedCount = recordCount;
+                }
+
+            } catch (InterruptedException e) {
+
+                // cancelled by the reader
+
+            } catch (Exception e) {
+
+                failure = e;
+
+                // keep returning blocks so the reader is not left waiting -
+                // the reader sends no more once the end block is taken
+                if (!ended) {
+
+                    drain();
+                }
+
+            } finally {
+
+                try {
+
+                    statement.close();
+
+                } catch (SQLException e) {
+
+                    Log.debug("Error closing copy statement", e);
+                }
+
+            }
+
+        }
+
+        private void insert(Block block) throws SQLException {
+
+            for (int i = 0; i < block.count; i++) {
+
+                Object[] row = block.rows[i];
+                for (int j = 0; j < converters.length; j++) {
+
+                    converters[j].bind(statement, j + 1, row[j]);
+                }
+                statement.addBatch();
+            }
+
+            statement.executeBatch();
+
+            recordCount += block.count;
+            context.exported(recordCount);
+        }
+
+        private void drain() {
+
+            try {
+
+                Block block;
+                while ((block = filled.take()).count > 0) {
+
+                    free.put(block);
+                }
+
+            } catch (InterruptedException e) {
+
+                // cancelled by the reader
+            }
+
+        }
+
+        private void clear(Block block) {
+
+            for (int i = 0; i < block.count; i++) {
+
+                Object[] row = block.rows[i];
+                for (int j = 0; j < row.length; j++) {
+
+                    row[j] = null;
+                }
+
+            }
+
+        }
+
+        /**
+         * Cancels a batch executing following the failure of the reader.
+         */
+        void cancel() {
+
+            try {
+
+                statement.cancel();
+
+            } catch (SQLException e) {
+
+                Log.debug("Error cancelling copy statement", e);
+            }
+
+        }
+
+        void checkFailure() throws Exception {
+
+            if (failure != null) {
+
+                throw failure;
+            }
+
+        }
+
+        int getRecordCount() {
+
+            return recordCount;
+        }
+
+        int getCommittedCount() {
+
+            return committedCount;
+        }
+
+    }
+
+    /**
+     * A block of rows passed from the reader to the writer.
+     */
+    private static final class Block {
+
+        final Object[][] rows;
+
+        int count;
+
+        Block(int columnCount) {
+
+            rows = new Object[BLOCK_ROWS][columnCount];
+        }
+
+    }
+
+}
+
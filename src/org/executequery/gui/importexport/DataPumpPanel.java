@@ -0,0 +1,535 @@
+/*
+ * DataPumpPanel.java
+ *
+ * Copyright (C) 2002-2017 Takis Diakoumis
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.executequery.gui.importexport;
+
+import java.awt.BorderLayout;
+import java.awt.FlowLayout;
+import java.awt.GridBagConstraints;
+import java.awt.GridBagLayout;
+import java.awt.GridLayout;
+import java.awt.event.ItemEvent;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Vector;
+
+import javax.swing.BorderFactory;
+import javax.swing.JButton;
+import javax.swing.JCheckBox;
+import javax.swing.JComboBox;
+import javax.swing.JLabel;
+import javax.swing.JList;
+import javax.swing.JOptionPane;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JSplitPane;
+import javax.swing.ListSelectionModel;
+
+import org.apache.commons.lang.StringUtils;
+import org.executequery.EventMediator;
+import org.executequery.GUIUtilities;
+import org.executequery.base.DefaultTabViewActionPanel;
+import org.executequery.components.ItemSelectionListener;
+import org.executequery.components.MinimumWidthActionButton;
+import org.executequery.components.SplitPaneFactory;
+import org.executequery.components.TableSelectionCombosGroup;
+import org.executequery.databaseobjects.DatabaseHost;
+import org.executequery.databaseobjects.DatabaseSchema;
+import org.executequery.databaseobjects.DatabaseSource;
+import org.executequery.databaseobjects.NamedObject;
+import org.executequery.event.ApplicationEvent;
+import org.executequery.event.ConnectionEvent;
+import org.executequery.event.ConnectionListener;
+import org.executequery.gui.DataTypeMapping;
+import org.executequery.gui.DefaultList;
+import org.executequery.gui.LoggingOutputPanel;
+import org.executequery.gui.NamedView;
+import org.executequery.gui.WidgetFactory;
+import org.executequery.log.Log;
+import org.executequery.util.ThreadUtils;
+import org.executequery.util.ThreadWorker;
+import org.underworldlabs.jdbc.DataSourceException;
+import org.underworldlabs.swing.GUIUtils;
+import org.underworldlabs.util.MiscUtils;
+
+/**
+ * Copies the data of selected tables from one connection
+ * to another with a DataPump.
+ */
+public class DataPumpPanel extends DefaultTabViewActionPanel
+                           implements NamedView,
+                                      ConnectionListener {
+
+    public static final String TITLE = "Copy Table Data ";
+    public static final String FRAME_ICON = "ExportDelimited16.png";
+
+    private TableSelectionCombosGroup sourceGroup;
+
+    private TableSelectionCombosGroup targetGroup;
+
+    private JList<String> tablesList;
+
+    private JCheckBox replaceRowsCheckBox;
+
+    private JCheckBox createTablesCheckBox;
+
+    private TableProgressPanel progressPanel;
+
+    private LoggingOutputPanel outputPanel;
+
+    private JButton startButton;
+
+    private JButton stopButton;
+
+    private ThreadWorker worker;
+
+    private volatile DataPump pump;
+
+    private volatile boolean executing;
+
+    private volatile boolean cancelled;
+
+    public DataPumpPanel() {
+
+        super(new BorderLayout());
+
+        try  {
+
+            init();
+
+        } catch (RuntimeException e) {
+
+            Log.error("Error initialising the copy table data panel", e);
+            throw e;
+        }
+
+    }
+
+    private void init() {
+
+        sourceGroup = new TableSelectionCombosGroup(
+                WidgetFactory.createComboBox(), WidgetFactory.createComboBox());
+        targetGroup = new TableSelectionCombosGroup(
+                WidgetFactory.createComboBox(), WidgetFactory.createComboBox());
+
+        sourceGroup.addItemSelectionListener(new ItemSelectionListener() {
+            public void itemStateChanging(ItemEvent e) {}
+            public void itemStateChanged(ItemEvent e) {
+                loadTables();
+            }
+        });
+
+        tablesList = new DefaultList<String>();
+        tablesList.setSelectionMode(ListSelectionModel.MULTIPLE_INTERVAL_SELECTION);
+
+        replaceRowsCheckBox = new JCheckBox("Delete the rows of the target tables before copying");
+        createTablesCheckBox = new JCheckBox("Create target tables not found");
+
+        JPanel connectionsPanel = new JPanel(new GridLayout(1, 2, 3, 3));
+        connectionsPanel.add(createConnectionPanel("Source", sourceGroup));
+        connectionsPanel.add(createConnectionPanel("Target", targetGroup));
+
+        JPanel optionsPanel = new JPanel(new GridBagLayout());
+
+        GridBagConstraints gbc = new GridBagConstraints();
+        gbc.gridy = 0;
+        gbc.gridx = 0;
+        gbc.insets.top = 5;
+        gbc.insets.left = 5;
+        gbc.insets.right = 5;
+        gbc.weightx = 1.0;
+        gbc.anchor = GridBagConstraints.NORTHWEST;
+        gbc.fill = GridBagConstraints.HORIZONTAL;
+        optionsPanel.add(connectionsPanel, gbc);
+        gbc.gridy++;
+        optionsPanel.add(new JLabel("Tables:"), gbc);
+        gbc.gridy++;
+        gbc.weighty = 1.0;
+        gbc.insets.top = 2;
+        gbc.fill = GridBagConstraints.BOTH;
+        optionsPanel.add(new JScrollPane(tablesList), gbc);
+        gbc.gridy++;
+        gbc.weighty = 0;
+        gbc.fill = GridBagConstraints.HORIZONTAL;
+        optionsPanel.add(replaceRowsCheckBox, gbc);
+        gbc.gridy++;
+        gbc.insets.bottom = 5;
+        optionsPanel.add(createTablesCheckBox, gbc);
+
+        progressPanel = new TableProgressPanel();
+        outputPanel = new LoggingOutputPanel();
+
+        JSplitPane progressSplit = new SplitPaneFactory().createVertical();
+        progressSplit.setTopComponent(progressPanel);
+        progressSplit.setBottomComponent(outputPanel);
+        progressSplit.setResizeWeight(0.5);
+        progressSplit.setDividerSize(5);
+
+        JSplitPane verticalSplit = new SplitPaneFactory().createVertical();
+        verticalSplit.setTopComponent(optionsPanel);
+        verticalSplit.setBottomComponent(progressSplit);
+        verticalSplit.setResizeWeight(0.5);
+        verticalSplit.setDividerSize(5);
+
+        int minimumButtonWidth = 85;
+        startButton = new MinimumWidthActionButton(minimumButtonWidth, this, "Start", "start");
+        stopButton = new MinimumWidthActionButton(minimumButtonWidth, this, "Stop", "stop");
+        stopButton.setEnabled(false);
+
+        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT, 2, 5));
+        buttonPanel.add(startButton);
+        buttonPanel.add(stopButton);
+
+        add(verticalSplit, BorderLayout.CENTER);
+        add(buttonPanel, BorderLayout.SOUTH);
+        setBorder(BorderFactory.createEmptyBorder(4, 4, 4, 4));
+
+        loadTables();
+
+        EventMediator.registerListener(this);
+    }
+
+    private JPanel createConnectionPanel(String title, TableSelectionCombosGroup group) {
+
+        JPanel panel = new JPanel(new GridBagLayout());
+        panel.setBorder(BorderFactory.createTitledBorder(title));
+
+        GridBagConstraints gbc = new GridBagConstraints();
+        gbc.gridy = 0;
+        gbc.insets.top = 2;
+        gbc.insets.bottom = 2;
+        gbc.insets.left = 2;
+        gbc.anchor = GridBagConstraints.NORTHWEST;
+        addComboRow(panel, "Connection:", group.getConnectionsCombo(), gbc);
+        addComboRow(panel, "Schema:", group.getSchemasCombo(), gbc);
+
+        return panel;
+    }
+
+    private void addComboRow(JPanel panel, String label, JComboBox<?> combo, GridBagConstraints gbc) {
+
+        gbc.gridx = 0;
+        gbc.weightx = 0;
+        gbc.insets.left = 2;
+        gbc.fill = GridBagConstraints.NONE;
+        panel.add(new JLabel(label), gbc);
+        gbc.gridx = 1;
+        gbc.weightx = 1.0;
+        gbc.insets.left = 5;
+        gbc.fill = GridBagConstraints.HORIZONTAL;
+        panel.add(combo, gbc);
+        gbc.gridy++;
+    }
+
+    private void loadTables() {
+
+        final Vector<String> tableNames = new Vector<String>();
+
+        DatabaseHost host = sourceGroup.getSelectedHost();
+        if (host != null) {
+
+            try {
+
+                DatabaseSource source = sourceGroup.getSelectedSource();
+                if (source != null) {
+
+                    List<NamedObject> tables = sourceGroup.tablesForSchema(source);
+                    if (tables != null) {
+
+                        for (NamedObject table : tables) {
+
+                            tableNames.add(table.getName());
+                        }
+
+                    }
+
+                } else {
+
+                    tableNames.addAll(host.getTableNames(null, null, "TABLE"));
+                }
+
+            } catch (DataSourceException e) {
+
+                outputPanel.appendError("Error retrieving the source tables:\n" + e.getExtendedMessage());
+            }
+
+        }
+
+        GUIUtils.invokeLater(new Runnable() {
+            public void run() {
+                tablesList.setListData(tableNames);
+            }
+        });
+    }
+
+    private String schemaName(TableSelectionCombosGroup group) {
+
+        DatabaseSource source = group.getSelectedSource();
+        if (source instanceof DatabaseSchema) {
+
+            return source.getName();
+        }
+
+        return null;
+    }
+
+    private List<String> selectedTableNames() {
+
+        return new ArrayList<String>(tablesList.getSelectedValuesList());
+    }
+
+    private boolean fieldsValid(List<String> tableNames) {
+
+        DatabaseHost sourceHost = sourceGroup.getSelectedHost();
+        DatabaseHost targetHost = targetGroup.getSelectedHost();
+        if (sourceHost == null || targetHost == null) {
+
+            GUIUtilities.displayErrorMessage("Please select the source and target connections");
+            return false;
+        }
+
+        if (tableNames.isEmpty()) {
+
+            GUIUtilities.displayErrorMessage("Please select the tables to copy");
+            return false;
+        }
+
+        if (sourceHost.getDatabaseConnection() == targetHost.getDatabaseConnection()
+                && StringUtils.equals(schemaName(sourceGroup), schemaName(targetGroup))) {
+
+            GUIUtilities.displayErrorMessage("The source and target of the copy must differ");
+            return false;
+        }
+
+        if (replaceRowsCheckBox.isSelected()
+                && GUIUtilities.displayYesNoDialog(
+                        "The rows of the selected tables will be deleted from the target.\n"
+                        + "Do you wish to continue?", "Copy Table Data") != JOptionPane.YES_OPTION) {
+
+            return false;
+        }
+
+        return true;
+    }
+
+    private void enableButtons(final boolean enableStart, final boolean enableStop) {
+
+        GUIUtils.invokeLater(new Runnable() {
+            public void run() {
+                startButton.setEnabled(enableStart);
+                stopButton.setEnabled(enableStop);
+            }
+        });
+    }
+
+    public void start() {
+
+        if (executing) {
+
+            return;
+        }
+
+        final List<String> tableNames = selectedTableNames();
+        if (!fieldsValid(tableNames)) {
+
+            return;
+        }
+
+        executing = true;
+        cancelled = false;
+        enableButtons(false, true);
+
+        worker = new ThreadWorker() {
+            public Object construct() {
+
+                copy(tableNames);
+                return null;
+            }
+            public void finished() {
+
+                pump = null;
+                executing = false;
+                enableButtons(true, false);
+            }
+        };
+        worker.start();
+    }
+
+    public void stop() {
+
+        ThreadUtils.startWorker(new Runnable() {
+            public void run() {
+
+                DataPump pump = DataPumpPanel.this.pump;
+                if (executing && pump != null) {
+
+                    cancelled = true;
+                    pump.cancel();
+                }
+
+            }
+        });
+    }
+
+    private void copy(List<String> tableNames) {
+
+        outputPanel.clear();
+        long startTime = System.currentTimeMillis();
+
+        DatabaseHost targetHost = targetGroup.getSelectedHost();
+        try {
+
+            DataTypeMapping typeMapping = null;
+            if (createTablesCheckBox.isSelected()) {
+
+                typeMapping = new DataTypeMapping(targetHost);
+            }
+
+            pump = new DataPump(
+                    sourceGroup.getSelectedHost().getDatabaseConnection(), schemaName(sourceGroup),
+                    targetHost.getDatabaseConnection(), schemaName(targetGroup),
+                    typeMapping, replaceRowsCheckBox.isSelected());
+
+            ParallelTableExport.Listener listener = new ParallelTableExport.Listener() {
+
+                public void tableExported(ParallelTableExport.TableExport export, int records) {
+
+                    message("Copied table " + export.getTableName() + " - records: " + records);
+                }
+
+                public void tableFailed(ParallelTableExport.TableExport export, Throwable e) {
+
+                    errorMessage("Error copying table " + export.getTableName() + ":\n" + e.getMessage());
+                }
+
+            };
+
+            pump.run(tableNames, ParallelTableExport.configuredConnectionCount(), progressPanel, listener);
+
+        } catch (InterruptedException e) {
+
+            cancelled = true;
+
+        } catch (DataSourceException e) {
+
+            errorMessage("Error copying table data:\n" + e.getExtendedMessage());
+
+        } finally {
+
+            if (cancelled) {
+
+                warningMessage("Operation cancelled by user action");
+            }
+
+            long endTime = System.currentTimeMillis();
+            message("Total duration: " + MiscUtils.formatDuration(endTime - startTime));
+        }
+
+    }
+
+    private void message(final String message) {
+        ThreadUtils.invokeAndWait(new Runnable() {
+            public void run() {
+                outputPanel.append(message);
+            }
+        });
+    }
+
+    private void errorMessage(final String message) {
+        ThreadUtils.invokeAndWait(new Runnable() {
+            public void run() {
+                outputPanel.appendError(message);
+            }
+        });
+    }
+
+    private void warningMessage(final String message) {
+        ThreadUtils.invokeAndWait(new Runnable() {
+            public void run() {
+                outputPanel.appendWarning(message);
+            }
+        });
+    }
+
+    @Override
+    public boolean tabViewClosing() {
+
+        cleanup();
+        return true;
+    }
+
+    public void cleanup() {
+
+        DataPump pump = this.pump;
+        if (pump != null) {
+
+            pump.cancel();
+        }
+
+        sourceGroup.close();
+        targetGroup.close();
+
+        EventMediator.deregisterListener(this);
+    }
+
+    public boolean canHandleEvent(ApplicationEvent event) {
+
+        return (event instanceof ConnectionEvent);
+    }
+
+    private static int instanceCount = 1;
+    public String getDisplayName() {
+
+        return TITLE + (instanceCount++);
+    }
+
+    public String toString() {
+
+        return getDisplayName();
+    }
+
+    // ---------------------------------------------
+    // ConnectionListener implementation
+    // ---------------------------------------------
+
+    /**
+     * Indicates a connection has been established.
+     *
+     * @param the encapsulating event
+     */
+    public void connected(ConnectionEvent connectionEvent) {
+
+        sourceGroup.connectionOpened(connectionEvent.getDatabaseConnection());
+        targetGroup.connectionOpened(connectionEvent.getDatabaseConnection());
+    }
+
+    /**
+     * Indicates a connection has been closed.
+     *
+     * @param the encapsulating event
+     */
+    public void disconnected(ConnectionEvent connectionEvent) {
+
+        sourceGroup.connectionClosed(connectionEvent.getDatabaseConnection());
+        targetGroup.connectionClosed(connectionEvent.getDatabaseConnection());
+    }
+
+}
+
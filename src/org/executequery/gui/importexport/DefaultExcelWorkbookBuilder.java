@@ -22,6 +22,7 @@ package org.executequery.gui.importexport;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.List;
 
 import org.apache.poi.hssf.usermodel.HSSFCell;
@@ -40,6 +41,9 @@ import org.apache.poi.hssf.usermodel.HSSFWorkbook;
  */
 public class DefaultExcelWorkbookBuilder implements ExcelWorkbookBuilder {
 
+    /** the maximum number of rows of a worksheet */
+    static final int MAX_ROWS = 65536;
+
     private int currentRow;
     
     private HSSFWorkbook workbook;
@@ -47,6 +51,15 @@ public class DefaultExcelWorkbookBuilder implements ExcelWorkbookBuilder {
     private HSSFSheet currentSheet;
     
     private HSSFCellStyle defaultCellStyle;
+
+    /** the header style - created once as a workbook has limited styles */
+    private HSSFCellStyle headerCellStyle;
+
+    private String currentSheetName;
+
+    private int currentSheetPart;
+
+    private List<String> header;
     
     public DefaultExcelWorkbookBuilder() {
 
@@ -58,20 +71,34 @@ public class DefaultExcelWorkbookBuilder implements ExcelWorkbookBuilder {
 
         currentRow = 0;
         currentSheet = null;
+        header = null;
     }
 
     public void writeTo(OutputStream outputStream) throws IOException {
         
         workbook.write(outputStream);
     }
+
+    public void discard() {
+
+        // the workbook is held in memory only
+    }
     
     public void createSheet(String sheetName) {
         
         currentSheet = workbook.createSheet(sheetName);
+        currentSheetName = sheetName;
+        currentSheetPart = 1;
+        header = null;
     }
     
     public void addRow(List<String> values) {
 
+        if (currentRow == MAX_ROWS - 1) {
+
+            continueSheet();
+        }
+
         fillRow(values, createRow(++currentRow), defaultCellStyle);
     }
 
@@ -82,13 +109,48 @@ public class DefaultExcelWorkbookBuilder implements ExcelWorkbookBuilder {
             currentRow++;
         }
         
-        HSSFFont font = createFont();
-        font.setBoldweight(HSSFFont.BOLDWEIGHT_BOLD);
+        header = new ArrayList<String>(values);
+        fillRow(values, createRow(currentRow), headerCellStyle());
+    }
+
+    /**
+     * Continues the current sheet on a new sheet of the same
+     * name numbered with the part, repeating any header row.
+     */
+    private void continueSheet() {
+
+        currentSheetPart++;
 
-        HSSFCellStyle style = createStyle();
-        style.setFont(font);
+        // sheet names are limited to 31 characters
+        String suffix = " (" + currentSheetPart + ")";
+        String name = currentSheetName;
+        if (name.length() + suffix.length() > 31) {
+
+            name = name.substring(0, 31 - suffix.length());
+        }
+
+        currentSheet = workbook.createSheet(name + suffix);
+        currentRow = 0;
+
+        if (header != null) {
+
+            fillRow(header, createRow(currentRow), headerCellStyle());
+        }
+
+    }
+
+    private HSSFCellStyle headerCellStyle() {
+
+        if (headerCellStyle == null) {
+
+            HSSFFont font = createFont();
+            font.setBoldweight(HSSFFont.BOLDWEIGHT_BOLD);
+
+            headerCellStyle = createStyle();
+            headerCellStyle.setFont(font);
+        }
 
-        fillRow(values, createRow(currentRow), style);
+        return headerCellStyle;
     }
 
     private HSSFRow createRow(int rowNumber) {
@@ -0,0 +1,343 @@
+/*
+ * DelimitedImportPipeline.java
+ *
+ * Copyright (C) 2002-2017 Takis Diakoumis
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.executequery.gui.importexport;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.executequery.gui.importexport.DelimitedRecordReader.RecordChunk;
+import org.executequery.gui.importexport.DelimitedRowParser.ParsedRow;
+import org.executequery.log.Log;
+
+/**
+ * Reads and parses the records of a delimited file on background threads
+ * for the thread inserting the rows.
+ * <p/>
+ * A reader thread passes blocks of records to a number of parsing threads
+ * which split and convert the values of each record. Parsed blocks are
+ * returned from next() in the order of the file - blocks completed ahead
+ * of an earlier block are held until it is returned - so that the rows
+ * inserted are always those up to the last row returned. The reader
+ * takes a permit for each block read which is returned once the block
+ * has been handed out, so the reader blocks while the inserting thread
+ * falls behind rather than holding the file in memory.
+ */
+final class DelimitedImportPipeline implements ImportRowSource {
+
+    /** the maximum records passed between threads at a time */
+    private static final int CHUNK_RECORDS = 500;
+
+    /** the maximum characters passed between threads at a time */
+    private static final int CHUNK_CHARS = 256 * 1024;
+
+    /** the maximum number of parsing threads */
+    private static final int MAXIMUM_PARSERS = 8;
+
+    private static final AtomicInteger PIPELINE_COUNT = new AtomicInteger();
+
+    private static final RecordChunk END =
+            new RecordChunk(-1, new char[0], null, null, null, null, 0, 0);
+
+    private final DelimitedRecordReader reader;
+
+    private final int parserCount;
+
+    private final BlockingQueue<RecordChunk> records;
+
+    private final BlockingQueue<ParsedChunk> parsed;
+
+    /** the blocks that may be read and not yet returned from next() */
+    private final Semaphore permits;
+
+    private final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+
+    private final ExecutorService executor;
+
+    /** parsed blocks completed ahead of the next block returned */
+    private final Map<Integer, ParsedChunk> completed = new HashMap<Integer, ParsedChunk>();
+
+    private int nextSequence;
+
+    private int finishedParsers;
+
+    /**
+     * Starts reading and parsing the remaining records of the specified reader.
+     *
+     * @param reader the record reader positioned at the first data record
+     * @param parser the parser with settings for the current file
+     */
+    DelimitedImportPipeline(DelimitedRecordReader reader, DelimitedRowParser parser) {
+
+        this.reader = reader;
+
+        parserCount = Math.max(1, Math.min(MAXIMUM_PARSERS,
+                Runtime.getRuntime().availableProcessors() - 1));
+
+        records = new ArrayBlockingQueue<RecordChunk>(parserCount * 2);
+        parsed = new ArrayBlockingQueue<ParsedChunk>(parserCount * 2);
+        permits = new Semaphore(parserCount * 4);
+
+        executor = Executors.newFixedThreadPool(parserCount + 1, new PipelineThreadFactory());
+        executor.execute(new RecordReader());
+        for (int i = 0; i < parserCount; i++) {
+
+            executor.execute(new Parser(parser.copy()));
+        }
+
+    }
+
+    /**
+     * Returns the next block of parsed rows, waiting until one is
+     * available, or null once all records of the file have been returned.
+     *
+     * @throws IOException if the file could not be read
+     */
+    public ParsedChunk next() throws IOException, InterruptedException {
+
+        ParsedChunk chunk = completed.remove(nextSequence);
+        while (chunk == null && finishedParsers < parserCount) {
+
+            ParsedChunk taken = parsed.take();
+            if (taken == ParsedChunk.END) {
+
+                finishedParsers++;
+
+            } else if (taken.sequence == nextSequence) {
+
+                chunk = taken;
+
+            } else {
+
+                completed.put(taken.sequence, taken);
+            }
+
+        }
+
+        if (chunk != null) {
+
+            permits.release();
+            nextSequence++;
+            return chunk;
+        }
+
+        Throwable throwable = failure.get();
+        if (throwable instanceof IOException) {
+
+            throw (IOException) throwable;
+
+        } else if (throwable != null) {
+
+            throw new IOException(throwable);
+        }
+
+        return null;
+    }
+
+    /**
+     * Stops all pipeline threads.
+     */
+    public void close() {
+
+        executor.shutdownNow();
+    }
+
+    private void failed(Throwable e) {
+
+        if (Log.isDebugEnabled()) {
+
+            Log.debug("Error reading delimited import file.", e);
+        }
+
+        failure.compareAndSet(null, e);
+    }
+
+    private final class RecordReader implements Runnable {
+
+        public void run() {
+
+            try {
+
+                try {
+
+                    while (true) {
+
+                        permits.acquire();
+                        RecordChunk chunk = failure.get() == null
+                                ? reader.read(CHUNK_RECORDS, CHUNK_CHARS) : null;
+                        if (chunk == null) {
+
+                            break;
+                        }
+
+                        records.put(chunk);
+                    }
+
+                } catch (IOException e) {
+
+                    failed(e);
+
+                } catch (RuntimeException e) {
+
+                    failed(e);
+                }
+
+                for (int i = 0; i < parserCount; i++) {
+
+                    records.put(END);
+                }
+
+            } catch (InterruptedException e) {
+
+                // pipeline closed
+            }
+
+        }
+
+    }
+
+    private final class Parser implements Runnable {
+
+        private final DelimitedRowParser parser;
+
+        Parser(DelimitedRowParser parser) {
+
+            this.parser = parser;
+        }
+
+        public void run() {
+
+            try {
+
+                RecordChunk chunk;
+                while ((chunk = records.take()) != END) {
+
+                    try {
+
+                        char[] data = chunk.getData();
+                        List<ParsedRow> rows = new ArrayList<ParsedRow>(chunk.getCount());
+                        for (int i = 0, n = chunk.getCount(); i < n; i++) {
+
+                            rows.add(parser.parse(data, chunk.getStart(i),
+                                    chunk.getEnd(i), chunk.getLineNumber(i)));
+                        }
+
+                        parsed.put(new ParsedChunk(chunk.getSequence(), rows, chunk.getLength(),
+                                chunk.getEndOffsets(), chunk.getNextLineNumber()));
+
+                    } catch (RuntimeException e) {
+
+                        // the block is dropped - let the reader see the failure
+                        failed(e);
+                        permits.release();
+                    }
+
+                }
+
+                parsed.put(ParsedChunk.END);
+
+            } catch (InterruptedException e) {
+
+                // pipeline closed
+            }
+
+        }
+
+    }
+
+    /**
+     * A block of parsed rows.
+     */
+    static final class ParsedChunk {
+
+        static final ParsedChunk END =
+                new ParsedChunk(-1, Collections.<ParsedRow>emptyList(), 0, null, 0);
+
+        private final int sequence;
+
+        private final List<ParsedRow> rows;
+
+        private final int length;
+
+        private final long[] offsets;
+
+        private final int nextLineNumber;
+
+        ParsedChunk(int sequence, List<ParsedRow> rows, int length,
+                long[] offsets, int nextLineNumber) {
+
+            this.sequence = sequence;
+            this.rows = rows;
+            this.length = length;
+            this.offsets = offsets;
+            this.nextLineNumber = nextLineNumber;
+        }
+
+        List<ParsedRow> getRows() {
+            return rows;
+        }
+
+        /** the byte offset in the file following the specified row */
+        long getEndOffset(int row) {
+            return offsets[row];
+        }
+
+        /** the line number following the specified row */
+        int getNextLineNumber(int row) {
+            return row + 1 < rows.size() ? rows.get(row + 1).getLineNumber() : nextLineNumber;
+        }
+
+        /** the number of characters read for these rows */
+        int getLength() {
+            return length;
+        }
+
+    }
+
+    private static final class PipelineThreadFactory implements ThreadFactory {
+
+        private final int pipeline = PIPELINE_COUNT.incrementAndGet();
+
+        private final AtomicInteger threadCount = new AtomicInteger();
+
+        public Thread newThread(Runnable runnable) {
+
+            Thread thread = new Thread(runnable,
+                    "DelimitedImport-" + pipeline + "-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+
+            return thread;
+        }
+
+    }
+
+}
@@ -0,0 +1,533 @@
+/*
+ * DelimitedRecordReader.java
+ *
+ * Copyright (C) 2002-2017 Takis Diakoumis
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.executequery.gui.importexport;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Reads blocks of complete delimited records from a character stream.
+ * <p/>
+ * Records end at a line break outside of a quoted field so a quoted
+ * value may span several lines as per RFC 4180. Only the record
+ * boundaries are found here - the fields are split by the
+ * {@link DelimitedTokenizer} on the parsing threads.
+ * <p/>
+ * The byte offset in the file following each record is counted from
+ * the length of its characters in the file's character set so that an
+ * import may later be resumed from a record with the file positioned
+ * at its offset. The offsets are exact for well formed input.
+ */
+final class DelimitedRecordReader {
+
+    /** the longest record read before assuming an unterminated quote */
+    private static final int MAXIMUM_RECORD_LENGTH = 16 * 1024 * 1024;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Reader reader;
+
+    private final char[] delimiter;
+
+    /** the bytes of each character for fixed width character sets */
+    private final int bytesPerChar;
+
+    /** the encoder counting the bytes of other character sets */
+    private final CharsetEncoder encoder;
+
+    private ByteBuffer encoded;
+
+    private char[] buffer = new char[BUFFER_SIZE];
+
+    private int position;
+
+    private int limit;
+
+    private boolean endOfStream;
+
+    private int lineNumber;
+
+    /** the byte offset following the last record read */
+    private long byteOffset;
+
+    /** the blocks of records read */
+    private int chunkCount;
+
+    /** the position following the terminator of the last record scanned */
+    private int scanNext;
+
+    /** the lines spanned by the last record scanned */
+    private int scanLines;
+
+    /**
+     * Creates a new reader.
+     *
+     * @param reader the source positioned at the first record
+     * @param charset the character set the source is decoded with
+     * @param delimiter the field delimiter
+     * @param firstLineNumber the line number of the first record
+     * @param firstOffset the byte offset of the first record
+     */
+    DelimitedRecordReader(Reader reader, Charset charset,
+            String delimiter, int firstLineNumber, long firstOffset) {
+
+        this.reader = reader;
+        this.delimiter = delimiter.toCharArray();
+        this.lineNumber = firstLineNumber;
+        this.byteOffset = firstOffset;
+
+        String name = charset.name().toUpperCase();
+        if (charset.equals(StandardCharsets.UTF_8)) {
+
+            bytesPerChar = 0;
+            encoder = null;
+
+        } else if (name.startsWith("UTF-16")) {
+
+            bytesPerChar = 2;
+            encoder = null;
+
+        } else if (name.startsWith("UTF-32")) {
+
+            bytesPerChar = 4;
+            encoder = null;
+
+        } else if (charset.canEncode() && charset.newEncoder().maxBytesPerChar() == 1f) {
+
+            bytesPerChar = 1;
+            encoder = null;
+
+        } else {
+
+            bytesPerChar = 0;
+            encoder = charset.canEncode() ? charset.newEncoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE) : null;
+        }
+
+    }
+
+    /**
+     * Returns the next record as text without its line terminator,
+     * or null at the end of the stream.
+     */
+    String readRecord() throws IOException {
+
+        RecordChunk chunk = read(1, Integer.MAX_VALUE, -1);
+        if (chunk == null) {
+
+            return null;
+        }
+
+        return new String(chunk.getData(), chunk.getStart(0), chunk.getEnd(0) - chunk.getStart(0));
+    }
+
+    /**
+     * Returns the next block of records or null at the end of the stream.
+     *
+     * @param maximumRecords the maximum records returned
+     * @param maximumChars the characters after which no further records are added
+     */
+    RecordChunk read(int maximumRecords, int maximumChars) throws IOException {
+
+        return read(maximumRecords, maximumChars, chunkCount++);
+    }
+
+    private RecordChunk read(int maximumRecords, int maximumChars, int sequence) throws IOException {
+
+        compact();
+        fill();
+
+        int[] starts = new int[maximumRecords];
+        int[] ends = new int[maximumRecords];
+        int[] lines = new int[maximumRecords];
+        long[] offsets = new long[maximumRecords];
+
+        int count = 0;
+        while (count < maximumRecords && position < limit && position < maximumChars) {
+
+            int end = scanRecord(position);
+            if (end < 0) {
+
+                if (!endOfStream) {
+
+                    if (count > 0) {
+
+                        break;
+                    }
+
+                    // no complete record is buffered - read more and rescan
+                    growAndFill();
+                    continue;
+                }
+
+                end = limit;
+            }
+
+            starts[count] = position;
+            ends[count] = end;
+            lines[count] = lineNumber;
+
+            byteOffset += encodedLength(position, scanNext);
+            offsets[count] = byteOffset;
+            count++;
+
+            lineNumber += scanLines;
+            position = scanNext;
+        }
+
+        if (count == 0) {
+
+            return null;
+        }
+
+        // the buffer is reused so each block takes a copy of its records
+        char[] data = Arrays.copyOfRange(buffer, 0, position);
+
+        return new RecordChunk(sequence, data, starts, ends, lines, offsets, lineNumber, count);
+    }
+
+    /**
+     * Returns the length in bytes of the specified characters
+     * of the buffer in the file's character set.
+     */
+    private long encodedLength(int start, int end) throws IOException {
+
+        if (bytesPerChar > 0) {
+
+            return (long) (end - start) * bytesPerChar;
+        }
+
+        if (encoder == null) {
+
+            // UTF-8
+            long length = 0;
+            for (int i = start; i < end; i++) {
+
+                char c = buffer[i];
+                if (c < 0x80) {
+
+                    length++;
+
+                } else if (c < 0x800) {
+
+                    length += 2;
+
+                } else if (Character.isHighSurrogate(c)
+                        && i + 1 < end && Character.isLowSurrogate(buffer[i + 1])) {
+
+                    length += 4;
+                    i++;
+
+                } else {
+
+                    length += 3;
+                }
+
+            }
+
+            return length;
+        }
+
+        if (encoded == null) {
+
+            encoded = ByteBuffer.allocate(BUFFER_SIZE);
+        }
+
+        long length = 0;
+        CharBuffer chars = CharBuffer.wrap(buffer, start, end - start);
+
+        encoder.reset();
+        while (true) {
+
+            CoderResult result = encoder.encode(chars, encoded, true);
+            length += encoded.position();
+            encoded.clear();
+
+            if (result.isUnderflow()) {
+
+                break;
+            }
+
+            if (!result.isOverflow()) {
+
+                throw new IOException("Unable to count the bytes of the record at line " + lineNumber);
+            }
+
+        }
+
+        while (encoder.flush(encoded).isOverflow()) {
+
+            length += encoded.position();
+            encoded.clear();
+        }
+        length += encoded.position();
+        encoded.clear();
+
+        return length;
+    }
+
+    /**
+     * Scans the record starting at the specified position returning
+     * the position of its line terminator, or -1 if more characters
+     * are required to find it.
+     */
+    private int scanRecord(int start) {
+
+        boolean inQuotes = false;
+        boolean fieldStart = true;
+        int lines = 0;
+
+        int i = start;
+        while (i < limit) {
+
+            char c = buffer[i];
+            if (inQuotes) {
+
+                if (c == '"') {
+
+                    if (i + 1 == limit && !endOfStream) {
+
+                        return -1;
+                    }
+
+                    if (i + 1 < limit && buffer[i + 1] == '"') {
+
+                        i += 2;
+                        continue;
+                    }
+
+                    inQuotes = false;
+
+                } else if (c == '\n') {
+
+                    lines++;
+                }
+
+                i++;
+                continue;
+            }
+
+            if (c == '\n' || c == '\r') {
+
+                int end = i;
+                if (c == '\r') {
+
+                    if (i + 1 == limit && !endOfStream) {
+
+                        return -1;
+                    }
+
+                    if (i + 1 < limit && buffer[i + 1] == '\n') {
+
+                        i++;
+                    }
+
+                }
+
+                scanNext = i + 1;
+                scanLines = lines + 1;
+                return end;
+            }
+
+            if (c == '"' && fieldStart) {
+
+                inQuotes = true;
+                fieldStart = false;
+                i++;
+                continue;
+            }
+
+            int delimiterEnd = i + delimiter.length;
+            if (delimiterEnd > limit && !endOfStream && c == delimiter[0]) {
+
+                return -1;
+            }
+
+            if (matchesDelimiter(i)) {
+
+                fieldStart = true;
+                i = delimiterEnd;
+                continue;
+            }
+
+            fieldStart = false;
+            i++;
+        }
+
+        // the last record of the stream without a terminator
+        scanNext = limit;
+        scanLines = lines;
+        return -1;
+    }
+
+    private boolean matchesDelimiter(int index) {
+
+        if (index + delimiter.length > limit) {
+
+            return false;
+        }
+
+        for (int i = 0; i < delimiter.length; i++) {
+
+            if (buffer[index + i] != delimiter[i]) {
+
+                return false;
+            }
+
+        }
+
+        return true;
+    }
+
+    private void compact() {
+
+        if (position > 0) {
+
+            System.arraycopy(buffer, position, buffer, 0, limit - position);
+            limit -= position;
+            position = 0;
+        }
+
+    }
+
+    private void growAndFill() throws IOException {
+
+        if (limit == buffer.length) {
+
+            if (buffer.length >= MAXIMUM_RECORD_LENGTH) {
+
+                throw new IOException("Record at line " + lineNumber + " exceeds "
+                        + MAXIMUM_RECORD_LENGTH + " characters - check for an unterminated quoted value");
+            }
+
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        }
+
+        fill();
+    }
+
+    private void fill() throws IOException {
+
+        while (!endOfStream && limit < buffer.length) {
+
+            int read = reader.read(buffer, limit, buffer.length - limit);
+            if (read < 0) {
+
+                endOfStream = true;
+
+            } else {
+
+                limit += read;
+            }
+
+        }
+
+    }
+
+    /**
+     * A block of complete records.
+     */
+    static final class RecordChunk {
+
+        private final int sequence;
+
+        private final char[] data;
+
+        private final int[] starts;
+
+        private final int[] ends;
+
+        private final int[] lines;
+
+        private final long[] offsets;
+
+        private final int nextLineNumber;
+
+        private final int count;
+
+        RecordChunk(int sequence, char[] data, int[] starts, int[] ends,
+                int[] lines, long[] offsets, int nextLineNumber, int count) {
+
+            this.sequence = sequence;
+            this.data = data;
+            this.starts = starts;
+            this.ends = ends;
+            this.lines = lines;
+            this.offsets = offsets;
+            this.nextLineNumber = nextLineNumber;
+            this.count = count;
+        }
+
+        /** the position of this block in the file */
+        int getSequence() {
+            return sequence;
+        }
+
+        char[] getData() {
+            return data;
+        }
+
+        int getCount() {
+            return count;
+        }
+
+        /** the offset of the first character of the record */
+        int getStart(int record) {
+            return starts[record];
+        }
+
+        /** the offset following the last character of the record */
+        int getEnd(int record) {
+            return ends[record];
+        }
+
+        /** the line number the record starts on */
+        int getLineNumber(int record) {
+            return lines[record];
+        }
+
+        /** the byte offsets in the file following each record */
+        long[] getEndOffsets() {
+            return offsets;
+        }
+
+        /** the line number following the last record */
+        int getNextLineNumber() {
+            return nextLineNumber;
+        }
+
+        /** the number of characters read for these records */
+        int getLength() {
+            return data.length;
+        }
+
+    }
+
+}
@@ -0,0 +1,213 @@
+/*
+ * DelimitedRowParser.java
+ *
+ * Copyright (C) 2002-2017 Takis Diakoumis
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.executequery.gui.importexport;
+
+import java.util.List;
+
+/**
+ * Splits a delimited record into its values and converts each to the
+ * type of its target column with the compiled column converters.
+ * <p/>
+ * Instances hold a tokenizer and are not thread safe - each parsing
+ * thread uses its own copy(), sharing the converters.
+ */
+final class DelimitedRowParser {
+
+    private final String delim;
+
+    private final int filesColumnCount;
+
+    private final boolean[] ignored;
+
+    private final ColumnConverter[] converters;
+
+    private final DelimitedTokenizer tokenizer;
+
+    /**
+     * Creates a new parser.
+     *
+     * @param delim the value delimiter
+     * @param filesColumnCount the number of values on each line
+     * @param ignoredIndexes the positions of values not imported, may be null
+     * @param converters the converters of the statement columns in value order
+     */
+    DelimitedRowParser(String delim, int filesColumnCount,
+            List<Integer> ignoredIndexes, ColumnConverter[] converters) {
+
+        this.delim = delim;
+        this.filesColumnCount = filesColumnCount;
+        this.converters = converters;
+
+        ignored = new boolean[filesColumnCount];
+        if (ignoredIndexes != null) {
+
+            for (Integer index : ignoredIndexes) {
+
+                if (index.intValue() < filesColumnCount) {
+
+                    ignored[index.intValue()] = true;
+                }
+
+            }
+
+        }
+
+        tokenizer = new DelimitedTokenizer(delim);
+    }
+
+    private DelimitedRowParser(DelimitedRowParser parser) {
+
+        delim = parser.delim;
+        filesColumnCount = parser.filesColumnCount;
+        ignored = parser.ignored;
+        converters = parser.converters;
+        tokenizer = new DelimitedTokenizer(delim);
+    }
+
+    /**
+     * Returns a new parser with the same settings for use on another thread.
+     */
+    DelimitedRowParser copy() {
+
+        return new DelimitedRowParser(this);
+    }
+
+    /**
+     * Parses the record within the specified range of the array into
+     * the converted values of each statement parameter. Values not
+     * provided by the record are null.
+     *
+     * @param data the characters read
+     * @param start the offset of the first character of the record
+     * @param end the offset following the last character of the record
+     * @param lineNumber the line number the record starts on
+     * @return the parsed row
+     */
+    ParsedRow parse(char[] data, int start, int end, int lineNumber) {
+
+        if (start == end) {
+
+            return ParsedRow.failed(lineNumber, ParsedRow.BLANK, null);
+        }
+
+        int fieldCount = tokenizer.tokenize(data, start, end);
+        if (fieldCount < filesColumnCount - 1) {
+
+            return ParsedRow.failed(lineNumber, ParsedRow.INSUFFICIENT_VALUES, null);
+        }
+
+        Object[] values = new Object[converters.length];
+
+        int loopIgnoredCount = 0;
+        int lastField = Math.min(fieldCount, filesColumnCount);
+
+        for (int j = 0; j < lastField; j++) {
+
+            // check if its an ignored column
+            if (ignored[j]) {
+
+                loopIgnoredCount++;
+                continue;
+            }
+
+            int parameter = j - loopIgnoredCount;
+            if (parameter >= values.length) {
+
+                break;
+            }
+
+            CharSlice value = tokenizer.field(j);
+            if (value.isBlank()) {
+
+                continue;
+            }
+
+            ColumnConverter converter = converters[parameter];
+
+            Object converted = converter.convert(value);
+            if (converted == ColumnConverter.INVALID) {
+
+                return ParsedRow.failed(lineNumber, ParsedRow.CONVERSION_ERROR,
+                        converter.invalidValueMessage(value) + " on line "
+                        + lineNumber + " at position " + j);
+            }
+            values[parameter] = converted;
+        }
+
+        return new ParsedRow(lineNumber, values);
+    }
+
+    /**
+     * A line of the import file parsed into its statement
+     * values or the reason it could not be.
+     */
+    static final class ParsedRow {
+
+        static final int PARSED = 0;
+        static final int BLANK = 1;
+        static final int INSUFFICIENT_VALUES = 2;
+        static final int CONVERSION_ERROR = 3;
+
+        private final int lineNumber;
+
+        private final int status;
+
+        private final Object[] values;
+
+        private final String message;
+
+        ParsedRow(int lineNumber, Object[] values) {
+
+            this(lineNumber, PARSED, values, null);
+        }
+
+        private ParsedRow(int lineNumber, int status, Object[] values, String message) {
+
+            this.lineNumber = lineNumber;
+            this.status = status;
+            this.values = values;
+            this.message = message;
+        }
+
+        static ParsedRow failed(int lineNumber, int status, String message) {
+
+            return new ParsedRow(lineNumber, status, null, message);
+        }
+
+        int getLineNumber() {
+            return lineNumber;
+        }
+
+        int getStatus() {
+            return status;
+        }
+
+        Object[] getValues() {
+            return values;
+        }
+
+        String getMessage() {
+            return message;
+        }
+
+    }
+
+}
@@ -0,0 +1,210 @@
+/*
+ * DelimitedTokenizer.java
+ *
+ * Copyright (C) 2002-2017 Takis Diakoumis
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.executequery.gui.importexport;
+
+import java.util.Arrays;
+
+/**
+ * Splits a delimited record into its fields as per RFC 4180.
+ * <p/>
+ * A field starting with a quote runs to the next unescaped quote and
+ * may contain delimiters and line breaks, with a doubled quote read
+ * as a single quote. Anything between the closing quote and the next
+ * delimiter is ignored. Fields are returned as slices of the record
+ * without copying unless they contain escaped quotes.
+ * <p/>
+ * Instances reuse their buffers and are not thread safe.
+ */
+final class DelimitedTokenizer {
+
+    private final char[] delimiter;
+
+    private final CharSlice slice = new CharSlice();
+
+    private char[] data;
+
+    private int[] starts = new int[16];
+
+    private int[] ends = new int[16];
+
+    private boolean[] escaped = new boolean[16];
+
+    private int count;
+
+    private char[] unescaped = new char[256];
+
+    DelimitedTokenizer(String delimiter) {
+
+        this.delimiter = delimiter.toCharArray();
+    }
+
+    /**
+     * Splits the record within the specified range of the array.
+     *
+     * @param data the characters read
+     * @param start the offset of the first character of the record
+     * @param end the offset following the last character of the record
+     * @return the number of fields
+     */
+    int tokenize(char[] data, int start, int end) {
+
+        this.data = data;
+        count = 0;
+
+        int i = start;
+        while (true) {
+
+            ensureCapacity();
+
+            int delimiterIndex;
+            if (i < end && data[i] == '"') {
+
+                int fieldStart = i + 1;
+                boolean quotes = false;
+
+                int j = fieldStart;
+                while (j < end) {
+
+                    if (data[j] == '"') {
+
+                        if (j + 1 < end && data[j + 1] == '"') {
+
+                            quotes = true;
+                            j += 2;
+                            continue;
+                        }
+
+                        break;
+                    }
+
+                    j++;
+                }
+
+                starts[count] = fieldStart;
+                ends[count] = Math.min(j, end);
+                escaped[count] = quotes;
+
+                delimiterIndex = indexOfDelimiter(data, Math.min(j + 1, end), end);
+
+            } else {
+
+                delimiterIndex = indexOfDelimiter(data, i, end);
+
+                starts[count] = i;
+                ends[count] = delimiterIndex < 0 ? end : delimiterIndex;
+                escaped[count] = false;
+            }
+
+            count++;
+            if (delimiterIndex < 0) {
+
+                break;
+            }
+
+            i = delimiterIndex + delimiter.length;
+        }
+
+        return count;
+    }
+
+    /**
+     * Returns the number of fields of the last record tokenized.
+     */
+    int getCount() {
+
+        return count;
+    }
+
+    /**
+     * Returns the field at the specified index. The slice returned
+     * is reused and only valid until the next call to this method.
+     */
+    CharSlice field(int index) {
+
+        int start = starts[index];
+        int length = ends[index] - start;
+
+        if (!escaped[index]) {
+
+            return slice.set(data, start, length);
+        }
+
+        if (unescaped.length < length) {
+
+            unescaped = new char[Math.max(length, unescaped.length * 2)];
+        }
+
+        int unescapedLength = 0;
+        for (int i = start, n = ends[index]; i < n; i++) {
+
+            char c = data[i];
+            unescaped[unescapedLength++] = c;
+            if (c == '"') {
+
+                i++;
+            }
+
+        }
+
+        return slice.set(unescaped, 0, unescapedLength);
+    }
+
+    private int indexOfDelimiter(char[] data, int from, int end) {
+
+        char first = delimiter[0];
+        int last = end - delimiter.length;
+
+        for (int i = from; i <= last; i++) {
+
+            if (data[i] != first) {
+
+                continue;
+            }
+
+            int j = 1;
+            while (j < delimiter.length && data[i + j] == delimiter[j]) {
+
+                j++;
+            }
+
+            if (j == delimiter.length) {
+
+                return i;
+            }
+
+        }
+
+        return -1;
+    }
+
+    private void ensureCapacity() {
+
+        if (count == starts.length) {
+
+            int capacity = count * 2;
+            starts = Arrays.copyOf(starts, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+            escaped = Arrays.copyOf(escaped, capacity);
+        }
+
+    }
+
+}
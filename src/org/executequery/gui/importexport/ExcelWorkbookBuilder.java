@@ -34,14 +34,20 @@ public interface ExcelWorkbookBuilder {
 
     void reset();
     
-    void createSheet(String sheetName);
+    void createSheet(String sheetName) throws IOException;
 
-    void addRowHeader(List<String> values);
+    void addRowHeader(List<String> values) throws IOException;
 
-    void addRow(List<String> values);
+    void addRow(List<String> values) throws IOException;
 
     void writeTo(OutputStream outputStream) throws IOException;
 
+    /**
+     * Releases any resources of sheets not yet written where
+     * the export failed or was cancelled.
+     */
+    void discard();
+
 }
 
 
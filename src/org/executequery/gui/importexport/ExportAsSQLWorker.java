@@ -20,6 +20,7 @@
 
 package org.executequery.gui.importexport;
 
+import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
@@ -29,7 +30,9 @@ import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.sql.Types;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.executequery.GUIUtilities;
 import org.executequery.databaseobjects.DatabaseColumn;
@@ -99,6 +102,13 @@ public class ExportAsSQLWorker extends BaseImportExportWorker {
         // record the start time
         start();
 
+        int connectionCount = ParallelTableExport.configuredConnectionCount();
+        if (connectionCount > 1 && !model.isSingleFileMultiTableExport()
+                && model.getDatabaseTables().size() > 1) {
+
+            return doParallelWork(connectionCount);
+        }
+
         int tableCount = 0;
         int recordCount = 0;
         int errorCount = 0;
@@ -315,6 +325,99 @@ public class ExportAsSQLWorker extends BaseImportExportWorker {
         return ImportExportResult.SUCCESS;
     }
 
+    /**
+     * Exports each table to its own file on its own connection
+     * with a number of tables exported concurrently.
+     */
+    private Object doParallelWork(int connectionCount) {
+
+        ImportExportDataModel model = importExportDataModel();
+
+        final AtomicInteger tableCount = new AtomicInteger();
+        final AtomicInteger totalRecordCount = new AtomicInteger();
+        final AtomicInteger errorCount = new AtomicInteger();
+
+        boolean continueOnError = OnErrorOption.isLogAndContinue(model.getOnErrorOption());
+
+        try {
+
+            // statements and constraints are resolved up front on this thread
+            List<DatabaseTable> databaseTables = model.getDatabaseTables();
+            List<SQLTableExport> exports = new ArrayList<SQLTableExport>(databaseTables.size());
+            for (DatabaseTable table : databaseTables) {
+
+                exports.add(new SQLTableExport(model.getImportExportFileForTable(table)));
+            }
+
+            appendProgressText("Exporting " + exports.size() + " tables using "
+                    + Math.min(connectionCount, exports.size()) + " connections...");
+
+            setProgressBarMaximum(exports.size());
+            setProgressStatus(0);
+
+            ParallelTableExport.Listener listener = new ParallelTableExport.Listener() {
+
+                public synchronized void tableExported(
+                        ParallelTableExport.TableExport export, int records) {
+
+                    totalRecordCount.addAndGet(records);
+                    setProgressStatus(tableCount.incrementAndGet());
+
+                    appendProgressText("Export complete for table: "
+                            + export.getTableName() + "\nRecords exported: " + records);
+                    printExportFileSize(((SQLTableExport) export).importExportFile);
+                }
+
+                public synchronized void tableFailed(
+                        ParallelTableExport.TableExport export, Throwable e) {
+
+                    errorCount.incrementAndGet();
+                    logException(e);
+                    outputExceptionError("SQL error exporting table " + export.getTableName(), e);
+                }
+
+            };
+
+            new ParallelTableExport(model.getDatabaseHost().getDatabaseConnection(),
+                    connectionCount, showTableProgress(), listener, continueOnError).run(exports);
+
+            if (errorCount.get() > 0 && !continueOnError) {
+
+                return ImportExportResult.FAILED;
+            }
+
+        } catch (InterruptedException e) {
+
+            return ImportExportResult.CANCELLED;
+
+        } catch (DataSourceException e) {
+
+            errorCount.incrementAndGet();
+
+            logException(e);
+            outputExceptionError("Data source error exporting table data to file", e);
+            return ImportExportResult.FAILED;
+
+        } catch (OutOfMemoryError e) {
+
+            errorCount.incrementAndGet();
+
+            outputExceptionError("Error exporting table data to file", e);
+            return ImportExportResult.FAILED;
+
+        } finally {
+
+            finish();
+            releaseConnection();
+            setTableCount(tableCount.get());
+            setRecordCount(totalRecordCount.get() + errorCount.get());
+            setErrorCount(errorCount.get());
+            setRecordCountProcessed(totalRecordCount.get());
+        }
+
+        return ImportExportResult.SUCCESS;
+    }
+
     private void writeConstraints(PrintWriter writer,
             StringBuilder primaryKeys, StringBuilder foreignKeys,
             StringBuilder uniqueKeys) {
@@ -469,7 +572,14 @@ public class ExportAsSQLWorker extends BaseImportExportWorker {
 
     private String selectStatementForExport(ImportExportFile importExportFile, List<DatabaseColumn> columns) {
         
-        DatabaseTable table = importExportFile.getDatabaseTable();
+        String query = selectStatement(importExportFile, columns);
+
+        Log.info("Executing query for export: [ " + query + " ]");
+
+        return query;
+    }
+
+    private String selectStatement(ImportExportFile importExportFile, List<DatabaseColumn> columns) {
 
         StringBuilder sb = new StringBuilder("SELECT ");
         for (int i = 0, n = columns.size(); i < n; i++) {
@@ -484,16 +594,24 @@ public class ExportAsSQLWorker extends BaseImportExportWorker {
         }
 
         sb.append(" FROM ");
+        sb.append(tableNameForStatement(importExportFile.getDatabaseTable()));
+
+        return sb.toString();
+    }
+
+    private String countStatement(ImportExportFile importExportFile) {
+
+        return "SELECT COUNT(*) FROM " + tableNameForStatement(importExportFile.getDatabaseTable());
+    }
+
+    private String tableNameForStatement(DatabaseTable table) {
+
         if (table.getParentNameForStatement() != null) {
-        
-            sb.append(table.getParentNameForStatement());
-            sb.append(".");
-        }
-        sb.append(table.getNameForQuery());
 
-        Log.info("Executing query for export: [ " + sb + " ]");
+            return table.getParentNameForStatement() + "." + table.getNameForQuery();
+        }
 
-        return sb.toString();
+        return table.getNameForQuery();
     }
     
     private boolean isCreateTableStatementsIncluded() {
@@ -568,6 +686,160 @@ public class ExportAsSQLWorker extends BaseImportExportWorker {
             Log.debug("Error on SQL export.", e);
         }
     }
+
+    /**
+     * The export of a single table to its file during a parallel export.
+     */
+    private class SQLTableExport implements ParallelTableExport.TableExport {
+
+        private final ImportExportFile importExportFile;
+
+        private final String tableName;
+
+        private final String header;
+
+        private final String createTableStatement;
+
+        private final StringBuilder primaryKeys = new StringBuilder();
+
+        private final StringBuilder foreignKeys = new StringBuilder();
+
+        private final StringBuilder uniqueKeys = new StringBuilder();
+
+        private final String insertStatement;
+
+        private final String countStatement;
+
+        private final String selectStatement;
+
+        SQLTableExport(ImportExportFile importExportFile) throws DataSourceException {
+
+            this.importExportFile = importExportFile;
+
+            DatabaseTable table = importExportFile.getDatabaseTable();
+            tableName = table.getName();
+            header = headerForTable(table);
+
+            createTableStatement = isCreateTableStatementsIncluded() ?
+                    table.getCreateSQLText(DatabaseTable.STYLE_NO_CONSTRAINTS) : null;
+
+            if (isPrimaryKeyStatementsIncluded()) {
+
+                primaryKeys.append(table.getAlterSQLTextForPrimaryKeys());
+            }
+
+            if (isForeignKeyStatementsIncluded()) {
+
+                foreignKeys.append(table.getAlterSQLTextForForeignKeys());
+            }
+
+            if (isUniqueKeyStatementsIncluded()) {
+
+                uniqueKeys.append(table.getAlterSQLTextForUniqueKeys());
+            }
+
+            List<DatabaseColumn> columns = columnSelections(importExportFile);
+            try {
+
+                insertStatement = insertStatementForTable(importExportFile, columns);
+
+            } catch (SQLException e) {
+
+                throw new DataSourceException(e);
+            }
+
+            countStatement = countStatement(importExportFile);
+            selectStatement = selectStatement(importExportFile, columns);
+        }
+
+        public String getTableName() {
+
+            return tableName;
+        }
+
+        public int export(ParallelTableExport.ExportContext context) throws Exception {
+
+            Statement statement = context.createStatement();
+            ResultSet rs = null;
+            PrintWriter writer = null;
+            try {
+
+                rs = statement.executeQuery(countStatement);
+                int dataRowCount = rs.next() ? rs.getInt(1) : 0;
+                rs.close();
+
+                context.started(dataRowCount);
+
+                File file = importExportFile.getFile();
+                writer = new PrintWriter(new FileWriter(file, false), true);
+
+                if (dataRowCount > 0 || createTableStatement != null) {
+
+                    writer.println(header);
+                }
+
+                if (createTableStatement != null) {
+
+                    writer.println(createTableStatement);
+                    writer.println();
+                }
+
+                int recordCount = 0;
+                if (dataRowCount > 0) {
+
+                    Log.info("Executing query for export: [ " + selectStatement + " ]");
+
+                    rs = statement.executeQuery(selectStatement);
+                    ResultSetMetaData rsmd = rs.getMetaData();
+
+                    StringBuilder sb = new StringBuilder();
+                    while (rs.next()) {
+
+                        if (Thread.interrupted()) {
+
+                            throw new InterruptedException();
+                        }
+
+                        sb.append(insertStatement);
+
+                        for (int i = 1, n = rsmd.getColumnCount(); i <= n; i++) {
+
+                            sb.append(formatNextValue(rs, i, rsmd.getColumnType(i)));
+                            if (i < n) {
+
+                                sb.append(", ");
+                            }
+
+                        }
+
+                        sb.append(");\n");
+                        writer.println(sb.toString());
+                        sb.setLength(0);
+
+                        context.exported(++recordCount);
+                    }
+
+                }
+
+                writeConstraints(writer, primaryKeys, foreignKeys, uniqueKeys);
+
+                if (writer.checkError()) {
+
+                    throw new IOException("Error writing export file " + file.getName());
+                }
+
+                return recordCount;
+
+            } finally {
+
+                closeResultSet(rs);
+                flushAndClose(writer);
+                context.closeStatement(statement);
+            }
+
+        }
+
+    }
     
 }
 
@@ -20,20 +20,28 @@
 
 package org.executequery.gui.importexport;
 
+import java.io.Closeable;
 import java.io.File;
-import java.io.FileWriter;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.PrintWriter;
+import java.nio.channels.FileChannel;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.text.DateFormat;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Vector;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.executequery.Constants;
 import org.executequery.gui.browser.ColumnData;
+import org.executequery.io.ExportTextWriter;
 import org.executequery.log.Log;
 import org.underworldlabs.jdbc.DataSourceException;
 import org.underworldlabs.swing.util.SwingWorker;
+import org.underworldlabs.util.SystemProperties;
 
 /**
  *
@@ -45,6 +53,15 @@ public class ExportDelimitedWorker extends AbstractImportExportWorker {
     
     /** The thread worker object for this process */
     private SwingWorker worker;
+
+    /** the value delimiter */
+    private String delim;
+
+    /** whether to trim whitespace */
+    private boolean trimWhitespace;
+
+    /** whether to quote character values */
+    private boolean quoteCharacterValues;
     
     /** 
      * Constructs a new instance with the specified parent object 
@@ -100,28 +117,27 @@ public class ExportDelimitedWorker extends AbstractImportExportWorker {
         // record the start time
         start();
 
+        delim = getParent().getDelimiter();
+        trimWhitespace = getParent().trimWhitespace();
+        quoteCharacterValues = getParent().quoteCharacterValues();
+
+        int connectionCount = ParallelTableExport.configuredConnectionCount();
+        if (connectionCount > 1) {
+
+            return doParallelWork(connectionCount);
+        }
+
         // --------------------------------
         // --- begin the export process ---
         // --------------------------------
 
         ResultSet rset = null;
-        PrintWriter writer = null;
+        RowWriter writer = null;
         try {
 
-            // define the delimiter
-            String delim = getParent().getDelimiter();
-
-            // whether to trim whitespace
-            boolean trimWhitespace = getParent().trimWhitespace();
-
             // include the column names
             boolean includeColumnNames = getParent().includeColumnNames();
 
-            boolean quoteCharacterValues = getParent().quoteCharacterValues();
-            
-            // row data output buffer
-            StringBuilder rowData = new StringBuilder(5000);
-
             // retrieve the export to files
             Vector<DataTransferObject> files = getParent().getDataFileVector();
             int fileCount = files.size();
@@ -130,7 +146,6 @@ public class ExportDelimitedWorker extends AbstractImportExportWorker {
             // --- initialise counters ---
             // ---------------------------
 
-            int columnCount = -1;
             int recordCount = 0;
             int totalRecords = 0;
             
@@ -170,22 +185,10 @@ public class ExportDelimitedWorker extends AbstractImportExportWorker {
 
                 // retrieve the columns to be exported (or all)
                 Vector<ColumnData> columns = getColumns(dto.getTableName());
-                columnCount = columns.size();
 
-                // initialise the writer
-                writer = new PrintWriter(new FileWriter(exportFile, false), true);
-                
-                // print the column names if specified to do so
-                if (includeColumnNames) {
-                    for (int k = 0, n = columnCount - 1; k < columnCount; k++) {
-                        rowData.append(columns.get(k));
-                        if (k != n) {
-                            rowData.append(delim);
-                        }
-                    }
-                    writer.println(rowData.toString());
-                    rowData.setLength(0);
-                }
+                // initialise the writer printing the
+                // column names if specified to do so
+                writer = createWriter(exportFile, columns, dateFormat, includeColumnNames);
 
                 appendProgressText("Exporting data...");
                 
@@ -198,60 +201,13 @@ public class ExportDelimitedWorker extends AbstractImportExportWorker {
                     if (Thread.interrupted()) {
                         rset.close();
                         rset = null;
-                        writer.close();
                         setProgressStatus(totalRecords);
                         throw new InterruptedException();
                     }
                     
                     setProgressStatus(recordCount);
                     
-                    for (int j = 1; j <= columnCount; j++) {
-
-                        String value = rset.getString(j);
-
-                        if (value == null || rset.wasNull()) {
-
-                            value = Constants.EMPTY;
-
-                        } else if (trimWhitespace) {
-
-                            value = value.trim();
-                        }
-
-                        ColumnData column = (ColumnData) columns.get(j - 1);
-
-                        if (column.isDateDataType() && 
-                                (parseDateValues && dateFormat != null)) {
-
-                            value = dateFormat.format(rset.getDate(j));
-                        
-                        } else {
-                            
-                            value = formatString(value);
-                        }
-
-                        boolean isCharType = column.isCharacterType();
-                        if (isCharType && quoteCharacterValues) {
-                            
-                            rowData.append("\"");                            
-                        }
-                        
-                        rowData.append(value);
-
-                        if (isCharType && quoteCharacterValues) {
-                            
-                            rowData.append("\"");                            
-                        }
-
-                        if (j != columnCount) {
-
-                            rowData.append(delim);
-                        }
-
-                    }
-                    
-                    writer.println(rowData.toString());
-                    rowData.setLength(0);
+                    writer.writeRow(rset);
                     totalRecordCount++;
                     recordCount++;
                 }
@@ -259,6 +215,7 @@ public class ExportDelimitedWorker extends AbstractImportExportWorker {
                 rset.close();
                 stmnt.close();
                 writer.close();
+                writer = null;
                 
                 setProgressStatus(totalRecords);
                 
@@ -310,6 +267,8 @@ public class ExportDelimitedWorker extends AbstractImportExportWorker {
                 } catch (SQLException e) {}
             }
 
+            closeWriter(writer);
+
             finish();
             setTableCount(tableCount);
             setRecordCount(totalRecordCount + errorCount);
@@ -318,9 +277,325 @@ public class ExportDelimitedWorker extends AbstractImportExportWorker {
         }
     }
     
-    private String formatString(String value) {
+    /**
+     * Exports each table on its own connection with a number of
+     * tables exported concurrently. Tables that may be split into
+     * ranges are exported as a number of concurrent partitions.
+     */
+    private Object doParallelWork(int connectionCount) {
+
+        final AtomicInteger tableCount = new AtomicInteger();
+        final AtomicInteger exportCount = new AtomicInteger();
+        final AtomicInteger totalRecordCount = new AtomicInteger();
+        final AtomicInteger errorCount = new AtomicInteger();
+
+        try {
+
+            boolean includeColumnNames = getParent().includeColumnNames();
+
+            DateFormat dateFormat = null;
+            if (parseDateValues()) {
+
+                dateFormat = createDateFormatter();
+            }
+
+            int fetchSize = fetchSizeForDatabaseProduct(getConnection().getMetaData());
+
+            TablePartitioner partitioner = new TablePartitioner(getConnection(), connectionCount);
+            boolean mergePartitions = SystemProperties.getBooleanProperty("user", TablePartitioner.MERGE_KEY);
+
+            // statements and columns are resolved up front on this thread
+            Vector<DataTransferObject> files = getParent().getDataFileVector();
+            List<DelimitedTableExport> exports = new ArrayList<DelimitedTableExport>(files.size());
+            for (DataTransferObject dto : files) {
+
+                String tableName = dto.getTableName();
+                Vector<ColumnData> columns = getColumns(tableName);
+                String selectStatement = selectStatement(tableName, columns);
+                File exportFile = new File(dto.getFileName());
+
+                List<String> ranges = partitionRanges(partitioner, tableName);
+                if (ranges == null) {
+
+                    exports.add(new DelimitedTableExport(
+                            tableName, exportFile, columns,
+                            countStatement(tableName), selectStatement,
+                            fetchSize, includeColumnNames,
+                            dateFormat != null ? (DateFormat) dateFormat.clone() : null, null));
+
+                    continue;
+                }
+
+                PartitionedFile partitionedFile =
+                        new PartitionedFile(tableName, exportFile, ranges.size(), mergePartitions);
+
+                for (int i = 0, n = ranges.size(); i < n; i++) {
+
+                    String range = ranges.get(i);
+                    exports.add(new DelimitedTableExport(
+                            tableName + " [" + (i + 1) + "/" + n + "]",
+                            partitionedFile.getPart(i), columns, null,
+                            range.length() > 0 ? selectStatement + " WHERE " + range : selectStatement,
+                            fetchSize, includeColumnNames && i == 0,
+                            dateFormat != null ? (DateFormat) dateFormat.clone() : null,
+                            partitionedFile));
+                }
+
+            }
+
+            appendProgressText("Exporting " + files.size() + " tables in " + exports.size()
+                    + " parts using " + Math.min(connectionCount, exports.size()) + " connections...");
+
+            setProgressBarMaximum(exports.size());
+            setProgressStatus(0);
+
+            ParallelTableExport.Listener listener = new ParallelTableExport.Listener() {
+
+                public synchronized void tableExported(
+                        ParallelTableExport.TableExport export, int records) {
+
+                    totalRecordCount.addAndGet(records);
+                    setProgressStatus(exportCount.incrementAndGet());
+
+                    DelimitedTableExport tableExport = (DelimitedTableExport) export;
+                    PartitionedFile partitionedFile = tableExport.partitionedFile;
+                    if (partitionedFile == null) {
+
+                        tableCount.incrementAndGet();
+                        tableExported(export.getTableName(), records);
+                        appendFileInfo(tableExport.exportFile);
+                        return;
+                    }
+
+                    if (!partitionedFile.partExported(records)) {
+
+                        return;
+                    }
+
+                    tableCount.incrementAndGet();
+                    try {
+
+                        partitionedFile.complete();
+
+                    } catch (IOException e) {
+
+                        errorCount.incrementAndGet();
+                        logException(e);
+                        outputExceptionError("I/O error merging export file "
+                                + partitionedFile.exportFile.getName(), e);
+                        return;
+                    }
+
+                    tableExported(partitionedFile.tableName, partitionedFile.getRecordCount());
+                    for (File file : partitionedFile.getFiles()) {
+
+                        appendFileInfo(file);
+                    }
+
+                }
+
+                private void tableExported(String tableName, int records) {
+
+                    outputBuffer.append("Export successful for table: ");
+                    outputBuffer.append(tableName);
+                    outputBuffer.append("\nRecords exported: ");
+                    outputBuffer.append(records);
+                    appendProgressText(outputBuffer);
+                }
+
+                public synchronized void tableFailed(
+                        ParallelTableExport.TableExport export, Throwable e) {
+
+                    errorCount.incrementAndGet();
+                    logException(e);
+                    outputExceptionError("Error exporting table " + export.getTableName(), e);
+                }
+
+            };
+
+            new ParallelTableExport(getParent().getDatabaseConnection(), connectionCount,
+                    progress.showTableProgress(), listener, false).run(exports);
+
+            return errorCount.get() == 0 ? SUCCESS : FAILED;
+        }
+
+        catch (InterruptedException e) {
+            return CANCELLED;
+        }
+        catch (SQLException e) {
+            logException(e);
+            outputExceptionError("SQL error exporting table data to file", e);
+            return FAILED;
+        }
+        catch (DataSourceException e) {
+            logException(e);
+            outputExceptionError("Error exporting table data to file", e);
+            return FAILED;
+        }
+        catch (OutOfMemoryError e) {
+            outputExceptionError("Error exporting table data to file", e);
+            return FAILED;
+        }
+        finally {
+
+            finish();
+            setTableCount(tableCount.get());
+            setRecordCount(totalRecordCount.get() + errorCount.get());
+            setErrorCount(errorCount.get());
+            setRecordCountProcessed(totalRecordCount.get());
+        }
+    }
+
+    /**
+     * Returns the ranges the specified table may be read in
+     * concurrently or null if it should be read as a whole.
+     */
+    private List<String> partitionRanges(TablePartitioner partitioner, String tableName)
+        throws DataSourceException, SQLException {
+
+        List<String> ranges;
+        String splitBy;
+
+        if (partitioner.isDbKeySupported()) {
+
+            ranges = partitioner.dbKeyRanges(tableName);
+            splitBy = "RDB$DB_KEY";
+
+        } else {
+
+            String keyColumn = partitioner.integerKeyColumn(getParent().getSchemaName(), tableName);
+            if (keyColumn == null) {
+
+                return null;
+            }
+
+            splitBy = escapeColumnName(tableName, keyColumn);
+            ranges = partitioner.keyRanges(tableNameForStatement(tableName), splitBy);
+        }
+
+        if (ranges != null) {
+
+            appendProgressText("Table " + tableName + " split into "
+                    + ranges.size() + " ranges of " + splitBy);
+        }
+
+        return ranges;
+    }
+
+    /**
+     * Creates the writer of the rows of a table to the specified file - a
+     * binary table data file where named with its extension, otherwise
+     * a delimited file starting with the column names if specified.
+     */
+    private RowWriter createWriter(File exportFile, final Vector<ColumnData> columns,
+                                   final DateFormat dateFormat, boolean includeColumnNames)
+        throws IOException {
+
+        if (BinaryTableFormat.isBinary(exportFile)) {
+
+            final BinaryTableWriter writer = new BinaryTableWriter(exportFile, columns,
+                    SystemProperties.getBooleanProperty("user", BinaryTableFormat.COMPRESS_KEY));
+
+            return new RowWriter() {
+
+                public void writeRow(ResultSet rset) throws SQLException, IOException {
+                    writer.writeRow(rset);
+                }
+
+                public void close() throws IOException {
+                    writer.close();
+                }
+
+            };
+
+        }
+
+        final ExportTextWriter writer = new ExportTextWriter(exportFile).setDelimiter(delim);
+        if (includeColumnNames) {
+
+            try {
+
+                writeColumnNames(columns, writer);
+
+            } catch (IOException e) {
+
+                writer.close();
+                throw e;
+            }
+
+        }
+
+        return new RowWriter() {
+
+            public void writeRow(ResultSet rset) throws SQLException, IOException {
+                ExportDelimitedWorker.this.writeRow(rset, columns, dateFormat, writer);
+            }
+
+            public void close() throws IOException {
+                writer.close();
+            }
+
+        };
+
+    }
+
+    private void closeWriter(RowWriter writer) {
+
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                logException(e);
+            }
+        }
+    }
+
+    private void writeColumnNames(Vector<ColumnData> columns, ExportTextWriter writer)
+        throws IOException {
+
+        for (int k = 0, n = columns.size(); k < n; k++) {
+            writer.value(columns.get(k).toString());
+        }
+        writer.endRow();
+    }
+
+    /**
+     * Writes the values of the current row of the specified
+     * result set to the specified writer.
+     */
+    private void writeRow(ResultSet rset, Vector<ColumnData> columns,
+                          DateFormat dateFormat, ExportTextWriter writer)
+        throws SQLException, IOException {
+
+        int columnCount = columns.size();
+        for (int j = 1; j <= columnCount; j++) {
+
+            String value = rset.getString(j);
+
+            if (value == null || rset.wasNull()) {
+
+                value = Constants.EMPTY;
 
-        return value.replaceAll("\n", "\\\\n").replaceAll("\r", "\\\\r");
+            } else if (trimWhitespace) {
+
+                value = value.trim();
+            }
+
+            ColumnData column = (ColumnData) columns.get(j - 1);
+            boolean quoted = quoteCharacterValues && column.isCharacterType();
+
+            if (column.isDateDataType() && dateFormat != null) {
+
+                writer.value(dateFormat.format(rset.getDate(j)), quoted);
+            
+            } else {
+                
+                writer.escapedValue(value, quoted);
+            }
+
+        }
+
+        writer.endRow();
     }
 
     private void logException(Throwable e) {
@@ -356,23 +631,239 @@ public class ExportDelimitedWorker extends AbstractImportExportWorker {
      */
     public void finished() {}
     
+    /**
+     * The writer of the rows of a table to its export file.
+     */
+    private interface RowWriter extends Closeable {
+
+        /**
+         * Writes the current row of the specified result set.
+         */
+        void writeRow(ResultSet rset) throws SQLException, IOException;
+
+    }
+
+    /**
+     * The export of a single table to its file during a parallel export.
+     */
+    private class DelimitedTableExport implements ParallelTableExport.TableExport {
+
+        private final String tableName;
+
+        private final File exportFile;
+
+        private final Vector<ColumnData> columns;
+
+        private final String countStatement;
+
+        private final String selectStatement;
+
+        private final int fetchSize;
+
+        private final boolean includeColumnNames;
+
+        private final DateFormat dateFormat;
+
+        /** the file this is a part of, null if the whole table */
+        private final PartitionedFile partitionedFile;
+
+        DelimitedTableExport(String tableName, File exportFile, Vector<ColumnData> columns,
+                String countStatement, String selectStatement, int fetchSize,
+                boolean includeColumnNames, DateFormat dateFormat,
+                PartitionedFile partitionedFile) {
+
+            this.tableName = tableName;
+            this.exportFile = exportFile;
+            this.columns = columns;
+            this.countStatement = countStatement;
+            this.selectStatement = selectStatement;
+            this.fetchSize = fetchSize;
+            this.includeColumnNames = includeColumnNames;
+            this.dateFormat = dateFormat;
+            this.partitionedFile = partitionedFile;
+        }
+
+        public String getTableName() {
+
+            return tableName;
+        }
+
+        public int export(ParallelTableExport.ExportContext context) throws Exception {
+
+            Statement statement = context.createStatement();
+            ResultSet rset = null;
+            RowWriter writer = null;
+            try {
+
+                if (countStatement != null) {
+
+                    rset = statement.executeQuery(countStatement);
+                    context.started(rset.next() ? rset.getInt(1) : 0);
+                    rset.close();
+                }
+
+                writer = createWriter(exportFile, columns, dateFormat, includeColumnNames);
+
+                Log.info("Executing query for export: [ " + selectStatement + " ]");
+
+                statement.setFetchSize(fetchSize);
+                rset = statement.executeQuery(selectStatement);
+
+                int recordCount = 0;
+                while (rset.next()) {
+
+                    if (Thread.interrupted()) {
+
+                        throw new InterruptedException();
+                    }
+
+                    writer.writeRow(rset);
+
+                    context.exported(++recordCount);
+                }
+
+                writer.close();
+                writer = null;
+
+                return recordCount;
+
+            } finally {
+
+                if (rset != null) {
+                    try {
+                        rset.close();
+                    } catch (SQLException e) {}
+                }
+
+                closeWriter(writer);
+
+                context.closeStatement(statement);
+            }
+
+        }
+
+    }
+
+
     
-}
+    /**
+     * The part files of a table exported in ranges, merged in
+     * order into the export file once all parts are complete.
+     */
+    private static class PartitionedFile {
 
+        private final String tableName;
 
+        private final File exportFile;
 
+        private final File[] parts;
 
+        private final boolean merge;
 
+        private int remaining;
 
+        private int recordCount;
 
+        PartitionedFile(String tableName, File exportFile, int partCount, boolean merge) {
 
+            this.tableName = tableName;
+            this.exportFile = exportFile;
+            this.merge = merge;
 
+            String name = exportFile.getName();
+            int extension = name.lastIndexOf('.');
+            if (extension <= 0) {
 
+                extension = name.length();
+            }
 
+            parts = new File[partCount];
+            for (int i = 0; i < partCount; i++) {
 
+                // compressed parts remain gzip files and merge as gzip members
+                String partName = merge && !ExportTextWriter.isCompressed(exportFile) ?
+                        name + ".part" + (i + 1) :
+                        name.substring(0, extension) + String.format(".%03d", i + 1) + name.substring(extension);
 
+                parts[i] = new File(exportFile.getParentFile(), partName);
+            }
 
+            remaining = partCount;
+        }
+
+        File getPart(int index) {
+
+            return parts[index];
+        }
+
+        /**
+         * Records the completion of a part returning whether it was the last.
+         */
+        synchronized boolean partExported(int records) {
+
+            recordCount += records;
+            return --remaining == 0;
+        }
+
+        synchronized int getRecordCount() {
+
+            return recordCount;
+        }
+
+        /**
+         * Returns the files written for the table.
+         */
+        File[] getFiles() {
+
+            return merge ? new File[] {exportFile} : parts;
+        }
+
+        /**
+         * Merges the parts into the export file where configured.
+         */
+        void complete() throws IOException {
+
+            if (!merge) {
+
+                return;
+            }
+
+            FileOutputStream output = new FileOutputStream(exportFile, false);
+            try {
 
+                FileChannel target = output.getChannel();
+                for (File part : parts) {
 
+                    FileInputStream input = new FileInputStream(part);
+                    try {
 
+                        FileChannel source = input.getChannel();
+                        long size = source.size();
+                        long position = 0;
+                        while (position < size) {
 
+                            position += source.transferTo(position, size - position, target);
+                        }
+
+                    } finally {
+
+                        input.close();
+                    }
+
+                }
+
+            } finally {
+
+                output.close();
+            }
+
+            for (File part : parts) {
+
+                part.delete();
+            }
+
+        }
+
+    }
+
+}
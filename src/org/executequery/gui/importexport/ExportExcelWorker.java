@@ -103,6 +103,8 @@ public class ExportExcelWorker extends AbstractImportExportWorker
         int totalRecordCount = 0;
         
         FileOutputStream outputStream = null;
+
+        ExcelWorkbookBuilder builder = null;
         
         try {
 
@@ -120,8 +122,6 @@ public class ExportExcelWorker extends AbstractImportExportWorker
             int recordCount = 0;
             int totalRecords = 0;
             
-            ExcelWorkbookBuilder builder = createExcelWorkbookBuilder();
-            
             String[][] sheetNames = _parent.getSheetNameValues();
             
             // ----------------------------------------
@@ -133,7 +133,6 @@ public class ExportExcelWorker extends AbstractImportExportWorker
             for (int i = 0; i < tablesArray.length; i++) {
                 
                 values.clear();
-                builder.reset();
                 
                 recordCount = 0;
                 
@@ -182,6 +181,17 @@ public class ExportExcelWorker extends AbstractImportExportWorker
                 // initialise the output stream
                 outputStream = createOutputStream(exportFile);
 
+                // a new workbook for each file
+                if (builder == null || isSingleTable
+                        || fileFormat == ImportExportDataProcess.MULTIPLE_FILE) {
+
+                    builder = createExcelWorkbookBuilder(exportFile);
+
+                } else {
+
+                    builder.reset();
+                }
+
                 String sheetName = tablesArray[i];
                 if (!isSingleTable) {
 
@@ -298,6 +308,11 @@ public class ExportExcelWorker extends AbstractImportExportWorker
                     outputStream.close();
                 } catch (IOException e) {}
             }
+
+            if (builder != null) {
+
+                builder.discard();
+            }
             
             finish();
             setTableCount(tableCount);
@@ -313,9 +328,15 @@ public class ExportExcelWorker extends AbstractImportExportWorker
         return new FileOutputStream(path, false);
     }
     
-    private ExcelWorkbookBuilder createExcelWorkbookBuilder() {
-        
-        return new DefaultExcelWorkbookBuilder();
+    private ExcelWorkbookBuilder createExcelWorkbookBuilder(File file) {
+
+        // the streaming builder for all but the older .xls format
+        if (file.getName().toLowerCase().endsWith(".xls")) {
+
+            return new DefaultExcelWorkbookBuilder();
+        }
+
+        return new StreamingExcelWorkbookBuilder();
     }
 
     private void logException(Throwable e) {
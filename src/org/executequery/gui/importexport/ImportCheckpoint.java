@@ -0,0 +1,215 @@
+/*
+ * ImportCheckpoint.java
+ *
+ * Copyright (C) 2002-2017 Takis Diakoumis
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.executequery.gui.importexport;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+
+import org.executequery.log.Log;
+
+/**
+ * The progress of an import recorded alongside the import file so an
+ * interrupted import may be resumed from the last committed block.
+ * <p/>
+ * The checkpoint is saved after each commit as a properties file
+ * named as the import file with a <code>.checkpoint</code> extension
+ * and holds the byte offset and line number of the first record not
+ * yet committed along with the rows of the table processed. It is
+ * only used while the import file is unchanged and is deleted once
+ * the import completes.
+ */
+final class ImportCheckpoint {
+
+    /** the extension of the checkpoint file */
+    static final String EXTENSION = ".checkpoint";
+
+    private static final String FILE_LENGTH = "file.length";
+
+    private static final String FILE_MODIFIED = "file.modified";
+
+    private static final String TABLE = "table";
+
+    private static final String OFFSET = "offset";
+
+    private static final String LINE_NUMBER = "line";
+
+    private static final String ROWS = "rows";
+
+    private final File importFile;
+
+    private final File file;
+
+    private String tableName;
+
+    private long offset;
+
+    private int lineNumber;
+
+    private int rows;
+
+    /**
+     * Creates the checkpoint of the specified import file.
+     */
+    ImportCheckpoint(File importFile) {
+
+        this.importFile = importFile;
+        this.file = new File(importFile.getPath() + EXTENSION);
+    }
+
+    /**
+     * Loads the saved checkpoint returning whether one exists
+     * for the import file as it is now.
+     */
+    boolean load() {
+
+        if (!file.isFile()) {
+
+            return false;
+        }
+
+        Properties properties = new Properties();
+        try {
+
+            InputStream in = new FileInputStream(file);
+            try {
+
+                properties.load(in);
+
+            } finally {
+
+                in.close();
+            }
+
+            if (Long.parseLong(properties.getProperty(FILE_LENGTH)) != importFile.length()
+                    || Long.parseLong(properties.getProperty(FILE_MODIFIED)) != importFile.lastModified()) {
+
+                Log.info("Ignoring checkpoint " + file.getName() + " - the import file has changed");
+                return false;
+            }
+
+            tableName = properties.getProperty(TABLE);
+            offset = Long.parseLong(properties.getProperty(OFFSET));
+            lineNumber = Integer.parseInt(properties.getProperty(LINE_NUMBER));
+            rows = Integer.parseInt(properties.getProperty(ROWS));
+
+            return tableName != null;
+
+        } catch (IOException e) {
+
+            Log.warning("Error reading import checkpoint " + file.getName() + ": " + e.getMessage());
+
+        } catch (RuntimeException e) {
+
+            Log.warning("Invalid import checkpoint " + file.getName());
+        }
+
+        return false;
+    }
+
+    /**
+     * Saves the checkpoint replacing any previous checkpoint.
+     *
+     * @param tableName the table being imported
+     * @param offset the byte offset of the first record not committed
+     * @param lineNumber the line number of the first record not committed
+     * @param rows the rows of the table processed to the checkpoint
+     */
+    void save(String tableName, long offset, int lineNumber, int rows) throws IOException {
+
+        this.tableName = tableName;
+        this.offset = offset;
+        this.lineNumber = lineNumber;
+        this.rows = rows;
+
+        Properties properties = new Properties();
+        properties.setProperty(FILE_LENGTH, String.valueOf(importFile.length()));
+        properties.setProperty(FILE_MODIFIED, String.valueOf(importFile.lastModified()));
+        properties.setProperty(TABLE, tableName);
+        properties.setProperty(OFFSET, String.valueOf(offset));
+        properties.setProperty(LINE_NUMBER, String.valueOf(lineNumber));
+        properties.setProperty(ROWS, String.valueOf(rows));
+
+        // written aside and moved over the last so a failure
+        // part way through never leaves a truncated checkpoint
+        File temp = new File(file.getPath() + ".tmp");
+        FileOutputStream out = new FileOutputStream(temp);
+        try {
+
+            properties.store(out, "Import checkpoint of " + importFile.getName());
+            out.getFD().sync();
+
+        } finally {
+
+            out.close();
+        }
+
+        try {
+
+            Files.move(temp.toPath(), file.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        } catch (AtomicMoveNotSupportedException e) {
+
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+
+    }
+
+    /**
+     * Deletes the saved checkpoint.
+     */
+    void delete() {
+
+        if (file.exists() && !file.delete()) {
+
+            Log.warning("Unable to delete import checkpoint " + file.getName());
+        }
+
+    }
+
+    /** the table being imported at the checkpoint */
+    String getTableName() {
+        return tableName;
+    }
+
+    /** the byte offset of the first record not committed */
+    long getOffset() {
+        return offset;
+    }
+
+    /** the line number of the first record not committed */
+    int getLineNumber() {
+        return lineNumber;
+    }
+
+    /** the rows of the table processed to the checkpoint */
+    int getRows() {
+        return rows;
+    }
+
+}
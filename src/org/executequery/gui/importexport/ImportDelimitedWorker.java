@@ -20,21 +20,21 @@
 
 package org.executequery.gui.importexport;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
 import java.sql.BatchUpdateException;
 import java.sql.SQLException;
 import java.text.DateFormat;
-import java.text.ParseException;
+import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Vector;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import javax.swing.JOptionPane;
 
@@ -137,8 +137,8 @@ public class ImportDelimitedWorker extends AbstractImportExportWorker {
         int rollbackSize = getParent().getRollbackSize();
         int rollbackCount = 0;
 
-        FileReader fileReader = null;
-        BufferedReader reader = null;
+        Reader fileReader = null;
+        ImportRowSource rowSource = null;
         DateFormat dateFormat = null;
 
         try {
@@ -158,14 +158,10 @@ public class ImportDelimitedWorker extends AbstractImportExportWorker {
             // column names are first row
             boolean hasColumnNames = getParent().includeColumnNames();
 
-            // currently bound variables in the prepared statement
-            Map<ColumnData,String> boundVariables = null;
-
             // ignored indexes of columns from the file
             List<Integer> ignoredIndexes = null;
 
             if (hasColumnNames) {
-                boundVariables = new HashMap<ColumnData,String>();
                 ignoredIndexes = new ArrayList<Integer>();
                 appendProgressText(
                         "Using column names from input file's first row.");
@@ -180,6 +176,12 @@ public class ImportDelimitedWorker extends AbstractImportExportWorker {
             // define the delimiter
             String delim = getParent().getDelimiter();
 
+            // import files are read in the platform character set
+            Charset charset = Charset.defaultCharset();
+
+            // the checkpoints of the files imported
+            List<ImportCheckpoint> checkpoints = new ArrayList<ImportCheckpoint>(fileCount);
+
             // ---------------------------
             // --- initialise counters ---
             // ---------------------------
@@ -220,48 +222,6 @@ public class ImportDelimitedWorker extends AbstractImportExportWorker {
             // record the start time
             start();
 
-            // setup the regex matcher for delims
-
-            // ----------------------------------------------------------------
-            // below was the original pattern from oreilly book.
-            // discovered issues when parsing values with quotes
-            // in them - not only around them.
-            /*
-            String regex =
-                    "(?:^|\\" +
-                    delim +
-                    ") (?: \" ( (?> [^\"]*+ ) (?> \"\" [^\"]*+ )*+ ) \" | ( [^\"\\" +
-                    delim + "]*+ ) )";
-            Matcher matcher = Pattern.compile(regex, Pattern.COMMENTS).matcher("");
-            Matcher qMatcher = Pattern.compile("\"\"", Pattern.COMMENTS).matcher("");
-            */
-            // ----------------------------------------------------------------
-
-            // modified above to regex below
-            // added the look-ahead after the close quote
-            // and removed the quote from the last regex pattern
-
-            String escapedDelim = escapeDelim(delim);
-
-            String regex =
-                    "(?:^|" +
-                    escapedDelim +
-                    ") (?: \" ( (?> [^\"]*+ ) (?> \"\" [^\"]*+ )*+ ) \"(?=" +
-                    escapedDelim +
-                    "?) | ( [^" +
-                    escapedDelim + "]*+ ) )";
-
-            // ----------------------------------------------------------------
-            // changed above to the following - seems to work for now
-            // regex pattern in full - where <delim> is the delimiter to use
-            //      \"([^\"]+?)\"<delim>?|([^<delim>]+)<delim>?|<delim>
-            //
-            // fixed oreilly one - not running this one
-            // ----------------------------------------------------------------
-
-            Matcher matcher = Pattern.compile(regex, Pattern.COMMENTS).matcher("");
-            Matcher qMatcher = Pattern.compile("\"\"", Pattern.COMMENTS).matcher("");
-
             // ----------------------------------------
             // --- begin looping through the tables ---
             // ----------------------------------------
@@ -270,9 +230,6 @@ public class ImportDelimitedWorker extends AbstractImportExportWorker {
             conn = getConnection();
             conn.setAutoCommit(false);
 
-            int currentRowLength = 0;
-            boolean insertLine = false;
-
             // the number of columns actually available in the file
             int filesColumnCount = 0;
 
@@ -303,40 +260,85 @@ public class ImportDelimitedWorker extends AbstractImportExportWorker {
                 outputBuffer.append(inputFile.getName());
                 appendProgressText(outputBuffer);
 
-                // setup the reader objects
-                fileReader = new FileReader(inputFile);
-                reader = new BufferedReader(fileReader);
+                // check for the checkpoint of an earlier import
+                // that was interrupted and whether to resume it
+                ImportCheckpoint checkpoint = new ImportCheckpoint(inputFile);
+                boolean resume = checkpoint.load()
+                        && checkpoint.getTableName().equals(dto.getTableName())
+                        && confirmResume(inputFile, checkpoint);
+                if (!resume) {
+
+                    checkpoint.delete();
+                }
+                checkpoints.add(checkpoint);
+
+                // setup the reader objects - binary table data
+                // files are read directly as typed values
+                boolean binary = BinaryTableFormat.isBinary(inputFile);
+                BinaryTableReader binaryReader = null;
+                DelimitedRecordReader recordReader = null;
+                if (binary) {
+
+                    binaryReader = new BinaryTableReader(inputFile);
+                    rowSource = binaryReader;
+
+                } else {
+
+                    fileReader = openReader(inputFile, charset, 0);
+                    recordReader = new DelimitedRecordReader(fileReader, charset, delim, 1, 0);
+                }
 
                 // retrieve the columns to be imported (or all)
                 Vector<ColumnData> columns = getColumns(dto.getTableName());
                 columnCount = columns.size();
                 filesColumnCount = columnCount;
 
-                // the wntire row read
+                // the entire row read
                 String row = null;
 
-                // the current delimited value
-                String value = null;
-
-                // the ignored column count
-                int ignoredCount = 0;
-
                 // clear the file columns cache
                 fileImportedColumns.clear();
 
-                // if the first row in the file has the column
-                // names compare these with the columns selected
-                if (hasColumnNames) {
+                // the columns of a binary file are matched by name
+                // with those selected and imported in file order
+                if (binary) {
+
+                    columns = matchBinaryColumns(binaryReader, columns);
+                    if (columns.isEmpty()) {
+
+                        String message = "No matching column names were " +
+                                "found within the specified binary file.\n" +
+                                "The current file will be ignored.";
+
+                        outputBuffer.append(message);
+                        appendProgressWarningText(outputBuffer);
+
+                        int yesNo = GUIUtilities.displayYesNoDialog(
+                                message + "\nDo you wish to continue?",
+                                "Warning");
+
+                        if (yesNo == JOptionPane.YES_OPTION) {
+                            rowSource.close();
+                            rowSource = null;
+                            continue;
+                        } else {
+                            throw new InterruptedException();
+                        }
 
-                    // init the bound vars cache with the selected columns
-                    boundVariables.clear();
+                    }
 
-                    for (int k = 0; k < columnCount; k++) {
+                    columnCount = columns.size();
+                    for (int j = 0; j < columnCount; j++) {
 
-                        boundVariables.put(columns.get(k), VARIABLE_NOT_BOUND);
+                        fileImportedColumns.put(columns.get(j), INCLUDED_COLUMN);
                     }
 
-                    row = reader.readLine();
+                }
+                // if the first row in the file has the column
+                // names compare these with the columns selected
+                else if (hasColumnNames) {
+
+                    row = recordReader.readRecord();
                     lineNumber++;
 
                     String[] _columns = MiscUtils.splitSeparatedValues(row, delim);
@@ -381,7 +383,6 @@ public class ImportDelimitedWorker extends AbstractImportExportWorker {
                             }
 
                         }
-                        ignoredCount = ignoredIndexes.size();
 
                         // if we didn't find any columns at all, show warning
                         if (temp.isEmpty()) {
@@ -441,13 +442,6 @@ public class ImportDelimitedWorker extends AbstractImportExportWorker {
 
                 }
 
-                /*
-                Log.debug("ignored count: " + ignoredCount);
-                for (int j = 0; j < columnCount; j++) {
-                    Log.debug("column: " + columns.get(j));
-                }
-                */
-
                 fileSize = inputFile.length();
                 progressStatus = 10;
                 progressCheck = (int)(fileSize / progressStatus);
@@ -455,7 +449,7 @@ public class ImportDelimitedWorker extends AbstractImportExportWorker {
                 // prepare the statement
                 prepareStatement(dto.getTableName(), columns);
 
-                if (parsingDates && dateFormat == null) {
+                if (parsingDates && dateFormat == null && !binary) {
 
                     // check for a date data type
                     for (int j = 0; j < columnCount; j++) {
@@ -495,46 +489,61 @@ public class ImportDelimitedWorker extends AbstractImportExportWorker {
 
                 rowLength = 0;
 
-                while ((row = reader.readLine()) != null) {
+                // rows processed by the earlier import
+                int resumedRows = 0;
+                if (resume && binary) {
 
-                    insertLine = true;
-                    lineNumber++;
-                    tableRowCount++;
-                    totalRecordCount++;
+                    resumedRows = checkpoint.getRows();
+                    binaryReader.skipRows(resumedRows);
+                    lineNumber = resumedRows;
 
-                    if (Thread.interrupted()) {
+                    appendProgressText("Resuming from row " + (resumedRows + 1)
+                            + " - " + resumedRows + " rows processed previously.");
 
-                        fileReader.close();
-                        printTableResult(tableRowCount,
-                                tableCommitCount, dto.getTableName());
+                } else if (resume) {
 
-                        setProgressStatus(100);
-                        throw new InterruptedException();
-                    }
+                    fileReader.close();
+                    fileReader = openReader(inputFile, charset, checkpoint.getOffset());
+                    recordReader = new DelimitedRecordReader(fileReader, charset, delim,
+                            checkpoint.getLineNumber(), checkpoint.getOffset());
 
-                    currentRowLength = row.length();
+                    lineNumber = checkpoint.getLineNumber() - 1;
+                    resumedRows = checkpoint.getRows();
 
-                    if (currentRowLength == 0) {
+                    appendProgressText("Resuming from line " + checkpoint.getLineNumber()
+                            + " - " + resumedRows + " rows processed previously.");
+                }
 
-                        outputBuffer.append("Line ");
-                        outputBuffer.append(lineNumber);
-                        outputBuffer.append(" contains no delimited values");
-                        appendProgressWarningText(outputBuffer);
+                ColumnConverter[] converters;
+                if (binary) {
 
-                        int yesNo = GUIUtilities.displayYesNoDialog(
-                                "No values provided from line " +
-                                lineNumber + " - the row is blank.\n" +
-                                "Do you wish to continue?",
-                                "Warning");
+                    // binary values are bound with the setter of their type
+                    converters = ColumnConverter.compileTyped(columns);
 
-                        if (yesNo == JOptionPane.YES_OPTION) {
-                            continue;
-                        } else {
-                            throw new InterruptedException();
-                        }
-                    }
+                } else {
+
+                    // the converters of each column compiled once for the table
+                    converters = ColumnConverter.compile(columns, trimWhitespace,
+                            dateFormat != null ? ((SimpleDateFormat) dateFormat).toPattern() : null);
+
+                    // lines are read and converted on the pipeline
+                    // threads while rows are inserted here
+                    rowSource = new DelimitedImportPipeline(recordReader,
+                            new DelimitedRowParser(delim, filesColumnCount, ignoredIndexes, converters));
+                }
+
+                // the offset of the rows of the current chunk and, where
+                // halted on an error, the position of the failed row
+                long chunkOffset = (resume && !binary) ? checkpoint.getOffset() : 0;
+                long haltOffset = -1;
+                int haltLineNumber = 0;
+                int haltRowCount = 0;
 
-                    rowLength += currentRowLength;
+                DelimitedImportPipeline.ParsedChunk chunk;
+                rows:
+                while ((chunk = rowSource.next()) != null) {
+
+                    rowLength += chunk.getLength();
                     if (progressCheck < rowLength) {
 
                         setProgressStatus(progressStatus);
@@ -542,236 +551,169 @@ public class ImportDelimitedWorker extends AbstractImportExportWorker {
                         rowLength = 0;
                     }
 
-                    // reset matcher with current row
-                    matcher.reset(row);
+                    List<DelimitedRowParser.ParsedRow> parsedRows = chunk.getRows();
+                    for (int r = 0, n = parsedRows.size(); r < n; r++) {
 
-                    int index = 0;
-                    int lastIndex = -1;
-                    int loopIgnoredCount = 0;
+                        DelimitedRowParser.ParsedRow parsedRow = parsedRows.get(r);
+                        lineNumber = parsedRow.getLineNumber();
+                        tableRowCount++;
+                        totalRecordCount++;
 
-                    //Log.debug(row);
+                        if (Thread.interrupted()) {
 
-                    for (int j = 0; j < filesColumnCount; j++) {
+                            rowSource.close();
+                            printTableResult(tableRowCount,
+                                    tableCommitCount, dto.getTableName());
 
-                        if (matcher.find(index)) {
+                            setProgressStatus(100);
+                            throw new InterruptedException();
+                        }
 
-                            String first = matcher.group(2);
+                        int status = parsedRow.getStatus();
+                        if (status == DelimitedRowParser.ParsedRow.BLANK) {
 
-                            if (first != null) {
+                            outputBuffer.append("Line ");
+                            outputBuffer.append(lineNumber);
+                            outputBuffer.append(" contains no delimited values");
+                            appendProgressWarningText(outputBuffer);
 
-                                value = first;
+                            int yesNo = GUIUtilities.displayYesNoDialog(
+                                    "No values provided from line " +
+                                    lineNumber + " - the row is blank.\n" +
+                                    "Do you wish to continue?",
+                                    "Warning");
 
+                            if (yesNo == JOptionPane.YES_OPTION) {
+                                continue;
                             } else {
-
-                                qMatcher.reset(matcher.group(1));
-                                value = qMatcher.replaceAll("\"");
-                            }
-
-                            index = matcher.end();
-
-                            // check if its an ignored column
-                            if (ignoredCount > 0) {
-
-                                if (isIndexIgnored(ignoredIndexes, j)) {
-
-                                    loopIgnoredCount++;
-                                    continue;
-                                }
-
+                                throw new InterruptedException();
                             }
 
-                        } else {
-
-                            // not enough delims check
-                            if (j < (filesColumnCount - 1)
-                                    && index > (currentRowLength - 1)) {
-
-                                outputBuffer.append("Insufficient number of column ");
-                                outputBuffer.append("values provided at line ");
-                                outputBuffer.append(lineNumber);
-                                appendProgressErrorText(outputBuffer);
-
-                                int yesNo = GUIUtilities.displayYesNoDialog(
-                                        "Insufficient number of values provided from line " +
-                                        lineNumber + ".\n" +
-                                        "Do you wish to continue?",
-                                        "Warning");
+                        } else if (status == DelimitedRowParser.ParsedRow.INSUFFICIENT_VALUES) {
 
-                                if (yesNo == JOptionPane.YES_OPTION) {
-
-                                    insertLine = false;
-                                    break;
-
-                                } else {
+                            outputBuffer.append("Insufficient number of column ");
+                            outputBuffer.append("values provided at line ");
+                            outputBuffer.append(lineNumber);
+                            appendProgressErrorText(outputBuffer);
 
-                                    throw new InterruptedException();
-                                }
+                            int yesNo = GUIUtilities.displayYesNoDialog(
+                                    "Insufficient number of values provided from line " +
+                                    lineNumber + ".\n" +
+                                    "Do you wish to continue?",
+                                    "Warning");
 
+                            if (yesNo == JOptionPane.YES_OPTION) {
+                                continue;
                             } else {
-
-                                // check if we're on a delim the matcher didn't pick up
-
-                                int delimLength = delim.length();
-
-                                if (row.substring(index, index + delimLength).equals(delim)) {
-
-                                    // increment index
-                                    index++;
-                                    // assign as null value
-                                    value = null;
-                                }
-
-                            }
-
-                        }
-
-                        // check if we landed on the same index - likely null value
-                        if (index == lastIndex) {
-                            index++;
-                        }
-                        lastIndex = index;
-
-                        if (value != null && value.trim().length() == 0) {
-                            value = null;
-                        }
-
-                        try {
-                            ColumnData cd = columns.get(j - loopIgnoredCount);
-                            setValue(value,
-                                     getIndexOfColumn(columns, cd) + 1,
-                                     cd.getSQLType(),
-                                     trimWhitespace,
-                                     dateFormat);
-
-                            if (hasColumnNames) {
-                                boundVariables.put(cd, VARIABLE_BOUND);
+                                throw new InterruptedException();
                             }
 
-                        } catch (ParseException e) {
+                        } else if (status == DelimitedRowParser.ParsedRow.CONVERSION_ERROR) {
 
                             errorCount++;
                             failed = true;
-                            outputBuffer.append("Error parsing date value - ");
-                            outputBuffer.append(value);
-                            outputBuffer.append(" - on line ");
-                            outputBuffer.append(lineNumber);
-                            outputBuffer.append(" at position ");
-                            outputBuffer.append(j);
-                            outputExceptionError(null, e);
-                            break;
+                            outputBuffer.append(parsedRow.getMessage());
+                            appendProgressErrorText(outputBuffer);
 
-                        } catch (NumberFormatException e) {
+                            if (haltOnError) {
 
-                            errorCount++;
-                            failed = true;
-                            outputBuffer.append("Error parsing value - ");
-                            outputBuffer.append(value);
-                            outputBuffer.append(" - on line ");
-                            outputBuffer.append(lineNumber);
-                            outputBuffer.append(" at position ");
-                            outputBuffer.append(j);
-                            outputExceptionError(null, e);
-                            break;
-                        }
+                                // rows from the failed one on are not imported
+                                haltOffset = (r > 0) ? chunk.getEndOffset(r - 1) : chunkOffset;
+                                haltLineNumber = lineNumber;
+                                haltRowCount = tableRowCount - 1;
 
-                    }
-
-                    if (!insertLine) {
-
-                        prepStmnt.clearParameters();
-                        continue;
-                    }
-
-                    if (failed && haltOnError) {
-
-                        processResult = FAILED;
-                        break;
-                    }
-
-                    // execute the statement
-                    try {
+                                processResult = FAILED;
+                                break rows;
+                            }
 
-                        // check all variables are bound if we used
-                        // the column names from the first row
-                        if (hasColumnNames) {
+                            continue;
+                        }
 
-                            index = 0;
-                            // check all variables are bound - insert NULL otherwise
+                        // execute the statement
+                        try {
 
-                            for (Map.Entry<ColumnData, String> entry : boundVariables.entrySet()) {
+                            // values not provided by the file are bound as NULL
+                            Object[] values = parsedRow.getValues();
+                            for (int j = 0; j < values.length; j++) {
 
-                                ColumnData cd = entry.getKey();
+                                converters[j].bind(prepStmnt, j + 1, values[j]);
+                            }
 
-                                if (VARIABLE_NOT_BOUND.equals(entry.getValue())) {
+                            if (isBatch) {
+                                prepStmnt.addBatch();
+                            } else {
+                                int result = prepStmnt.executeUpdate();
+                                tableInsertCount += result;
+                                commitCount += result;
+                            }
 
-                                    index = getIndexOfColumn(columns, cd);
-                                    prepStmnt.setNull(index + 1, cd.getSQLType());
+                            rollbackCount++;
+                            // check the rollback segment
+                            if (rollbackCount == rollbackSize) {
+                                if (isBatch) {
+                                    int result = getBatchResult(prepStmnt.executeBatch())[0];
+                                    tableInsertCount += result;
+                                    commitCount += result;
+                                    prepStmnt.clearBatch();
                                 }
-
+                                conn.commit();
+                                totalInsertCount += commitCount;
+                                tableCommitCount = tableInsertCount;
+                                rollbackCount = 0;
+                                commitCount = 0;
+
+                                saveCheckpoint(checkpoint, dto.getTableName(),
+                                        chunk.getEndOffset(r), chunk.getNextLineNumber(r),
+                                        resumedRows + tableRowCount);
                             }
 
                         }
+                        catch (SQLException e) {
+                            logException(e);
+                            errorCount++;
 
-                        if (isBatch) {
-                            prepStmnt.addBatch();
-                        } else {
-                            int result = prepStmnt.executeUpdate();
-                            tableInsertCount += result;
-                            commitCount += result;
-                        }
-
-                        rollbackCount++;
-                        // check the rollback segment
-                        if (rollbackCount == rollbackSize) {
-                            if (isBatch) {
-                                int result = getBatchResult(prepStmnt.executeBatch())[0];
-                                tableInsertCount += result;
-                                commitCount += result;
-                                prepStmnt.clearBatch();
+                            if (!isBatch) {
+                                outputBuffer.append("Error inserting data from line ");
+                                outputBuffer.append(lineNumber);
+                                outputExceptionError(null, e);
+                            }
+                            else {
+                                outputBuffer.append("Error on last batch execution");
+                                outputExceptionError(null, e);
                             }
-                            conn.commit();
-                            totalInsertCount += commitCount;
-                            tableCommitCount = tableInsertCount;
-                            rollbackCount = 0;
-                            commitCount = 0;
-                        }
 
-                        // reset bound variables
-                        if (hasColumnNames) {
-                            for (int k = 0; k < columnCount; k++) {
-                                boundVariables.put(columns.get(k), VARIABLE_NOT_BOUND);
+                            if (haltOnError) {
+                                processResult = FAILED;
+                                conn.rollback();
+                                getParent().cancelTransfer();
+                                throw new InterruptedException();
                             }
+
                         }
 
                     }
-                    catch (SQLException e) {
-                        logException(e);
-                        errorCount++;
-
-                        if (!isBatch) {
-                            outputBuffer.append("Error inserting data from line ");
-                            outputBuffer.append(lineNumber);
-                            outputExceptionError(null, e);
-                        }
-                        else {
-                            outputBuffer.append("Error on last batch execution");
-                            outputExceptionError(null, e);
-                        }
 
-                        if (haltOnError) {
-                            processResult = FAILED;
-                            conn.rollback();
-                            getParent().cancelTransfer();
-                            throw new InterruptedException();
-                        }
+                    if (!parsedRows.isEmpty()) {
 
+                        chunkOffset = chunk.getEndOffset(parsedRows.size() - 1);
                     }
 
                 }
 
+                rowSource.close();
+                rowSource = null;
+
+                if (fileReader != null) {
+                    fileReader.close();
+                    fileReader = null;
+                }
+
                 // ----------------------------
                 // file/table has ended here
 
+                // whether the rows since the last commit were rolled back
+                boolean rolledBack = false;
+
                 if (isBatch) {
 
                     int[] batchResult = null;
@@ -814,6 +756,7 @@ public class ImportDelimitedWorker extends AbstractImportExportWorker {
 
                     if (tableRowCount != tableInsertCount) {
                         conn.rollback();
+                        rolledBack = true;
 
                         if (onError == ImportExportDataProcess.STOP_TRANSFER) {
                             getParent().cancelTransfer();
@@ -825,7 +768,7 @@ public class ImportDelimitedWorker extends AbstractImportExportWorker {
 
                 }
 
-                boolean doCommit = true;
+                boolean doCommit = !rolledBack;
                 if (failed && !isBatch &&
                         rollbackSize != ImportExportDataProcess.COMMIT_END_OF_ALL_FILES) {
 
@@ -837,14 +780,28 @@ public class ImportDelimitedWorker extends AbstractImportExportWorker {
                     doCommit = (yesNo == JOptionPane.YES_OPTION);
                 }
 
-                // do the commit if ok from above
-                // and if rollback size selected is end of file
-                if (rollbackSize == ImportExportDataProcess.COMMIT_END_OF_FILE) {
+                // do the commit if ok from above and if rollback size
+                // selected is end of file or a block size - the tail of
+                // the file is committed here so no commit covers rows of
+                // more than one file and each file's checkpoint stays
+                // at its last commit
+                if (rollbackSize != ImportExportDataProcess.COMMIT_END_OF_ALL_FILES) {
                     if (doCommit) {
                         conn.commit();
                         totalInsertCount += commitCount;
                         tableCommitCount = tableInsertCount;
                         commitCount = 0;
+                        if (haltOffset != -1) {
+
+                            // resumed from the row the import halted on
+                            saveCheckpoint(checkpoint, dto.getTableName(), haltOffset,
+                                    haltLineNumber, resumedRows + haltRowCount);
+
+                        } else {
+
+                            saveCheckpoint(checkpoint, dto.getTableName(), inputFile.length(),
+                                    lineNumber + 1, resumedRows + tableRowCount);
+                        }
                     } else {
                         conn.rollback();
                     }
@@ -861,9 +818,9 @@ public class ImportDelimitedWorker extends AbstractImportExportWorker {
 
             }
 
-            // commit the last remaining block or where
-            // set to commit at the end of all files
-            if (rollbackSize != ImportExportDataProcess.COMMIT_END_OF_FILE) {
+            // commit where set to commit at the end of all
+            // files - otherwise each file is committed as it ends
+            if (rollbackSize == ImportExportDataProcess.COMMIT_END_OF_ALL_FILES) {
                 setProgressStatus(100);
                 boolean doCommit = true;
                 if (errorCount > 0 && errorCount != totalRecordCount) {
@@ -877,10 +834,14 @@ public class ImportDelimitedWorker extends AbstractImportExportWorker {
                 if (doCommit) {
                     conn.commit();
                     totalInsertCount += commitCount;
+                    deleteCheckpoints(checkpoints);
                 } else {
                     conn.rollback();
                 }
 
+            } else {
+
+                deleteCheckpoints(checkpoints);
             }
 
             processResult = SUCCESS;
@@ -945,10 +906,8 @@ public class ImportDelimitedWorker extends AbstractImportExportWorker {
             setProgressStatus(100);
             GUIUtilities.scheduleGC();
 
-            if (reader != null) {           
-                try {
-                    reader.close();
-                } catch (IOException e) {}
+            if (rowSource != null) {
+                rowSource.close();
             }
             if (fileReader != null) {
                 try {
@@ -966,41 +925,64 @@ public class ImportDelimitedWorker extends AbstractImportExportWorker {
         return processResult;
     }
 
-    private String escapeDelim(String delim) {
-
-        String escape = "\\";
-
-        StringBuilder sb = new StringBuilder();
-        for (char i : delim.toCharArray()) {
-
-            sb.append(escape).append(i);
-        }
-
-        return sb.toString();
-    }
-
     private void logException(Throwable e) {
         if (Log.isDebugEnabled()) {
             Log.debug("Error on delimited import.", e);
         }
     }
 
-    private boolean isIndexIgnored(List<Integer> ignoredIndexes, int index) {
-        for (int i = 0, n = ignoredIndexes.size(); i < n; i++) {
-            if (index == ignoredIndexes.get(i).intValue()) {
-                return true;
+    /**
+     * Returns the selected columns found in the specified binary file in
+     * the order of the file, setting those of the file to be imported.
+     */
+    private Vector<ColumnData> matchBinaryColumns(BinaryTableReader reader,
+                                                  Vector<ColumnData> columns) {
+
+        Vector<ColumnData> matched = new Vector<ColumnData>(columns.size());
+        List<Integer> imported = new ArrayList<Integer>(columns.size());
+
+        List<BinaryTableFormat.Column> fileColumns = reader.getColumns();
+        for (int i = 0, n = fileColumns.size(); i < n; i++) {
+
+            String name = fileColumns.get(i).getName();
+            for (ColumnData cd : columns) {
+
+                if (cd.getColumnName().equalsIgnoreCase(name)) {
+
+                    matched.add(cd);
+                    imported.add(Integer.valueOf(i));
+                    break;
+                }
+
             }
+
         }
-        return false;
+
+        reader.setImportedColumns(imported);
+        return matched;
     }
 
-    private int getIndexOfColumn(Vector<ColumnData> columns, ColumnData cd) {
-        for (int i = 0, n = columns.size(); i < n; i++) {
-            if (columns.get(i) == cd) {
-                return i;
+    /**
+     * Opens a reader of the specified file positioned at the specified byte offset.
+     */
+    private Reader openReader(File file, Charset charset, long offset) throws IOException {
+
+        FileInputStream in = new FileInputStream(file);
+        if (offset > 0) {
+
+            try {
+
+                in.getChannel().position(offset);
+
+            } catch (IOException e) {
+
+                in.close();
+                throw e;
             }
+
         }
-        return -1;
+
+        return new InputStreamReader(in, charset);
     }
 
     /**
@@ -102,6 +102,12 @@ public interface ImportExportMonitor {
      */
     void setMaximum(int max);
 
+    /**
+     * Shows and returns the per-table progress display
+     * used during a parallel export.
+     */
+    TableProgressPanel showTableProgress();
+
 }
 
 
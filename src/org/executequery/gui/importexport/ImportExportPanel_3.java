@@ -354,7 +354,8 @@ public class ImportExportPanel_3 extends JPanel {
                     defaultExtension = ".xml";
                 }
                 else if (transferFormat == ImportExportDataProcess.EXCEL) {
-                    defaultExtension = ".xls";
+                    // the older .xls format is kept where specified
+                    defaultExtension = ".xls".equalsIgnoreCase(fileExtension) ? ".xls" : ".xlsx";
                 }
 
                 if (defaultExtension != null &&
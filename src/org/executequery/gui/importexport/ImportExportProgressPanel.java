@@ -41,6 +41,7 @@ import org.executequery.components.LoggingOutputPane;
 import org.executequery.gui.GUIConstants;
 import org.executequery.gui.WidgetFactory;
 import org.executequery.sql.SqlMessages;
+import org.underworldlabs.swing.GUIUtils;
 import org.underworldlabs.swing.ProgressBar;
 import org.underworldlabs.swing.ProgressBarFactory;
 
@@ -65,6 +66,9 @@ public class ImportExportProgressPanel extends JPanel
     
     /** The text area displaying process info */
     private LoggingOutputPane output;
+
+    /** the per-table progress of a parallel export */
+    private TableProgressPanel tableProgress;
     
     /** the parent process object */
     private ImportExportDataProcess parent;
@@ -99,7 +103,10 @@ public class ImportExportProgressPanel extends JPanel
         
         stopButton = WidgetFactory.createButton("Stop");
         stopButton.addActionListener(this);
-        
+
+        tableProgress = new TableProgressPanel();
+        tableProgress.setVisible(false);
+
         GridBagConstraints gbc = new GridBagConstraints();
         gbc.weightx = 1.0;
         gbc.gridy++;
@@ -125,6 +132,8 @@ public class ImportExportProgressPanel extends JPanel
         gbc.insets.top = 5;
         gbc.fill = GridBagConstraints.BOTH;
         gbc.gridwidth = GridBagConstraints.REMAINDER;
+        add(tableProgress, gbc);
+        gbc.gridy++;
         add(new JScrollPane(output), gbc);
     }
 
@@ -149,6 +158,26 @@ public class ImportExportProgressPanel extends JPanel
         progressBar.setValue(0);
         output.setText("");
         stopButton.setEnabled(true);
+        setTableProgressVisible(false);
+    }
+
+    /**
+     * Shows and returns the per-table progress display
+     * used during a parallel export.
+     */
+    public TableProgressPanel showTableProgress() {
+        setTableProgressVisible(true);
+        return tableProgress;
+    }
+
+    private void setTableProgressVisible(final boolean visible) {
+        Runnable updateVisible = new Runnable() {
+            public void run() {
+                tableProgress.setVisible(visible);
+                revalidate();
+            }
+        };
+        GUIUtils.invokeLater(updateVisible);
     }
 
     /**
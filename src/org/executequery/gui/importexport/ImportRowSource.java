@@ -0,0 +1,46 @@
+/*
+ * ImportRowSource.java
+ *
+ * Copyright (C) 2002-2017 Takis Diakoumis
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.executequery.gui.importexport;
+
+import java.io.IOException;
+
+import org.executequery.gui.importexport.DelimitedImportPipeline.ParsedChunk;
+
+/**
+ * The source of the rows of an import file, returned in
+ * blocks in the order of the file.
+ */
+interface ImportRowSource {
+
+    /**
+     * Returns the next block of rows, or null once
+     * all rows of the file have been returned.
+     *
+     * @throws IOException if the file could not be read
+     */
+    ParsedChunk next() throws IOException, InterruptedException;
+
+    /**
+     * Releases the file and any threads reading it.
+     */
+    void close();
+
+}
@@ -25,9 +25,9 @@ import java.io.File;
 import java.sql.BatchUpdateException;
 import java.sql.SQLException;
 import java.sql.Types;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Vector;
 
@@ -106,6 +106,9 @@ public class ImportXMLWorker extends AbstractImportExportWorker
 
     /** the file format - single or multiple */
     private int fileFormat;
+
+    /** the checkpoint of the current import file */
+    private ImportCheckpoint checkpoint;
     
     // ---------------------------------------
 
@@ -182,6 +185,9 @@ public class ImportXMLWorker extends AbstractImportExportWorker
             factory = SAXParserFactory.newInstance();
             factory.setNamespaceAware(true);
             handler = new ImportXMLHandler();
+
+            // the checkpoints of the files imported
+            List<ImportCheckpoint> checkpoints = new ArrayList<ImportCheckpoint>(transfers_size);
             
             for (int i = 0; i < transfers_size; i++) {
 
@@ -201,6 +207,17 @@ public class ImportXMLWorker extends AbstractImportExportWorker
                     handler.reset();
                 }
 
+                // the document is parsed from its start on resuming
+                // an interrupted import with the tables and rows
+                // processed before the checkpoint skipped
+                checkpoint = new ImportCheckpoint(importFile);
+                if (checkpoint.load() && confirmResume(importFile, checkpoint)) {
+                    handler.resumeFrom(checkpoint.getTableName(), checkpoint.getRows());
+                } else {
+                    checkpoint.delete();
+                }
+                checkpoints.add(checkpoint);
+
                 parser = factory.newSAXParser();
                 parser.parse(importFile, handler);
             }
@@ -214,12 +231,15 @@ public class ImportXMLWorker extends AbstractImportExportWorker
                         conn.commit();
                         totalInsertCount += commitCount;
                     }
+                    deleteCheckpoints(checkpoints);
                 }
                 catch (SQLException e) {
                     errorCount++;
                     processResult = FAILED;
                     outputExceptionError("Error committing last transaction block", e);
                 }
+            } else {
+                deleteCheckpoints(checkpoints);
             }
 
             if (processResult == null) {
@@ -333,11 +353,23 @@ public class ImportXMLWorker extends AbstractImportExportWorker
         // denotes the second tag pass
         private int passes;
         
-        // the date format for DATE type fields
-        private SimpleDateFormat df;
+        // the value converters of the current table's columns
+        private ColumnConverter[] converters;
         
         // whether the table name is an attribute
         private boolean hasTableAttribute;
+
+        // the table of the checkpoint resumed from
+        private String resumeTable;
+
+        // the rows of the checkpoint table processed before the checkpoint
+        private int resumeRows;
+
+        // the rows of the current table processed before the checkpoint
+        private int resumedRows;
+
+        // the rows of the current table still to be skipped
+        private int skipRows;
         
         // whether this is to be run as a batch process
         private boolean isBatch;
@@ -360,12 +392,8 @@ public class ImportXMLWorker extends AbstractImportExportWorker
             dateFormatString = getParent().getDateFormat();
             isBatch = getParent().runAsBatchProcess();
             
-            if (dateFormatString != null) {
-                if (dateFormatString.length() == 0) {
-                    dateFormatString = null;
-                } else {
-                    df = new SimpleDateFormat(dateFormatString);
-                }
+            if (dateFormatString != null && dateFormatString.length() == 0) {
+                dateFormatString = null;
             }
 
             ImportExportXMLPanel _parent = (ImportExportXMLPanel)getParent();
@@ -395,6 +423,17 @@ public class ImportXMLWorker extends AbstractImportExportWorker
             tableName = null;
             lastStartElement = null;
             columns = null;
+            resumeTable = null;
+            resumeRows = 0;
+        }
+
+        /**
+         * Skips the tables of the file before the specified table and
+         * the specified number of rows of that table.
+         */
+        protected void resumeFrom(String tableName, int rows) {
+            resumeTable = tableName;
+            resumeRows = rows;
         }
         
         private String lastStartElement;
@@ -460,9 +499,25 @@ public class ImportXMLWorker extends AbstractImportExportWorker
                 tableCommitCount = 0;
                 tableRowCount = 0;
                 rollbackCount = 0;
+                resumedRows = 0;
+                skipRows = 0;
 
                 // increment the table count
                 tableCount++;
+
+                // tables before the checkpoint are complete
+                if (resumeTable != null) {
+                    if (!resumeTable.equalsIgnoreCase(tableName)) {
+                        appendProgressText("Skipping table " + tableName +
+                                " - imported before the checkpoint.");
+                        importThisTable = false;
+                        return;
+                    }
+                    resumedRows = resumeRows;
+                    skipRows = resumeRows;
+                    resumeTable = null;
+                    resumeRows = 0;
+                }
                 
                 // retrieve the columns to be imported (or all)
                 try {
@@ -489,10 +544,17 @@ public class ImportXMLWorker extends AbstractImportExportWorker
 
                     if (hasDateField && dateFormatString == null) {
                         dateFormatString = verifyDate();
-                        df = new SimpleDateFormat(dateFormatString);
                     }
                 }
 
+                try {
+                    converters = ColumnConverter.compile(columns, false, dateFormatString);
+                } catch (IllegalArgumentException e) {
+                    processResult = FAILED;
+                    outputExceptionError("Error applying date mask", e);
+                    throw new SAXException(SAX_NO_PRINT_EXCEPTION);
+                }
+
                 if (boundVariables == null) {
                     boundVariables = new HashMap<String,String>();
                 } else {
@@ -557,6 +619,12 @@ public class ImportXMLWorker extends AbstractImportExportWorker
 
                 // check if we have reached the end of a row tag
                 if (localName.equalsIgnoreCase(rowIdentifier)) {
+
+                    // rows processed before the checkpoint
+                    if (skipRows > 0) {
+                        skipRows--;
+                        return;
+                    }
                     
                     // check all variables are bound - insert NULL otherwise
                     for (int i = 0, n = columns.size(); i < n; i++) {
@@ -593,7 +661,10 @@ public class ImportXMLWorker extends AbstractImportExportWorker
                             totalInsertCount += commitCount;
                             tableCommitCount = tableInsertCount;
                             rollbackCount = 0;
-                            commitCount = 0;                            
+                            commitCount = 0;
+
+                            saveCheckpoint(checkpoint, tableName, 0, 0,
+                                    resumedRows + tableRowCount);
                         }                        
                     }
                     catch (SQLException e) {
@@ -670,6 +741,9 @@ public class ImportXMLWorker extends AbstractImportExportWorker
                         totalInsertCount += commitCount;
                         tableCommitCount = tableInsertCount;
                         commitCount = 0;
+
+                        saveCheckpoint(checkpoint, tableName, 0, 0,
+                                resumedRows + tableRowCount);
                     }
 
                     // log some record progress figures
@@ -682,6 +756,10 @@ public class ImportXMLWorker extends AbstractImportExportWorker
                 // -----------------------------------------
                 // must be a column value
 
+                if (skipRows > 0) {
+                    return;
+                }
+
                 if (!isSelectedColumn(localName)) {
                     return;
                 }
@@ -718,32 +796,21 @@ public class ImportXMLWorker extends AbstractImportExportWorker
                 }
 
                 ColumnData cd = (ColumnData)columns.get(index);
-                try {
-                    setValue(value,
-                            (index+1), 
-                            cd.getSQLType(),
-                            false,
-                            df);
-                    // this is now a bound variable
-                    boundVariables.put(cd.getColumnName(), VARIABLE_BOUND);
-                }
-                catch (ParseException e) {
-                    errorCount++;
-                    processResult = FAILED;
-                    outputBuffer.append("Error parsing date value for column ");
-                    outputBuffer.append(cd.getColumnName());
-                    outputExceptionError(null, e);
-                    throw new SAXException(SAX_NO_PRINT_EXCEPTION);
-                }
-                catch (NumberFormatException e) {
+                ColumnConverter converter = converters[index];
+
+                Object converted = (value != null ? converter.convert(value) : null);
+                if (converted == ColumnConverter.INVALID) {
                     errorCount++;
                     processResult = FAILED;
-                    outputBuffer.append("Error parsing value for column ");
-                    outputBuffer.append(cd.getColumnName());
-                    outputExceptionError(null, e);
+                    outputBuffer.append(converter.invalidValueMessage(value));
+                    appendProgressErrorText(outputBuffer);
                     throw new SAXException(SAX_NO_PRINT_EXCEPTION);
                 }
 
+                converter.bind(prepStmnt, index + 1, converted);
+                // this is now a bound variable
+                boundVariables.put(cd.getColumnName(), VARIABLE_BOUND);
+
             }
             catch (InterruptedException e) {
 
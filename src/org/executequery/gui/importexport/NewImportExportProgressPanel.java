@@ -35,6 +35,7 @@ import javax.swing.SwingUtilities;
 import org.executequery.components.LoggingOutputPane;
 import org.executequery.gui.WidgetFactory;
 import org.executequery.sql.SqlMessages;
+import org.underworldlabs.swing.GUIUtils;
 
 /*
  * This will eventually replace ImportExportProgressPanel
@@ -58,6 +59,9 @@ public class NewImportExportProgressPanel extends AbstractImportExportPanel
     
     private LoggingOutputPane output;
 
+    /** the per-table progress of a parallel export */
+    private TableProgressPanel tableProgress;
+
     public NewImportExportProgressPanel(ImportExportWizard importExportWizard) {
 
         super(new GridBagLayout(), importExportWizard);
@@ -83,7 +87,10 @@ public class NewImportExportProgressPanel extends AbstractImportExportPanel
         progressBar = new JProgressBar(0, 100);
         stopButton = WidgetFactory.createButton("Stop");
         stopButton.addActionListener(this);
-        
+
+        tableProgress = new TableProgressPanel();
+        tableProgress.setVisible(false);
+
         GridBagConstraints gbc = new GridBagConstraints();
         gbc.gridy = 0;
         gbc.gridx = 0;
@@ -109,6 +116,8 @@ public class NewImportExportProgressPanel extends AbstractImportExportPanel
         gbc.insets.top = 5;
         gbc.fill = GridBagConstraints.BOTH;
         gbc.gridwidth = GridBagConstraints.REMAINDER;
+        add(tableProgress, gbc);
+        gbc.gridy++;
         add(new JScrollPane(output), gbc);
     }
 
@@ -133,6 +142,26 @@ public class NewImportExportProgressPanel extends AbstractImportExportPanel
         progressBar.setValue(0);
         output.setText("");
         stopButton.setEnabled(true);
+        setTableProgressVisible(false);
+    }
+
+    /**
+     * Shows and returns the per-table progress display
+     * used during a parallel export.
+     */
+    public TableProgressPanel showTableProgress() {
+        setTableProgressVisible(true);
+        return tableProgress;
+    }
+
+    private void setTableProgressVisible(final boolean visible) {
+        Runnable updateVisible = new Runnable() {
+            public void run() {
+                tableProgress.setVisible(visible);
+                revalidate();
+            }
+        };
+        GUIUtils.invokeLater(updateVisible);
     }
 
     /**
@@ -0,0 +1,483 @@
+/*
+ * ParallelTableExport.java
+ *
+ * Copyright (C) 2002-2017 Takis Diakoumis
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.executequery.gui.importexport;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.executequery.databasemediators.DatabaseConnection;
+import org.executequery.datasource.ConnectionManager;
+import org.executequery.log.Log;
+import org.underworldlabs.jdbc.DataSourceException;
+import org.underworldlabs.util.SystemProperties;
+
+/**
+ * Exports a number of tables concurrently.
+ * <p/>
+ * A fixed number of export threads take tables from a shared queue
+ * until it is empty. Each thread holds its own dedicated connection for
+ * its lifetime with a single read-only snapshot transaction, so all
+ * tables exported by a thread see the same state of the database.
+ * Where connection pooling is disabled each thread opens a physical
+ * connection of its own, closed when the thread finishes, rather
+ * than sharing the one connection of all other callers.
+ * Progress of each table is reported to a TableProgressPanel.
+ */
+final class ParallelTableExport {
+
+    /** the user property for the number of export connections */
+    static final String CONNECTIONS_KEY = "export.parallel.connections";
+
+    private static final AtomicInteger EXPORT_COUNT = new AtomicInteger();
+
+    private final DatabaseConnection databaseConnection;
+
+    private final int connectionCount;
+
+    private final TableProgressPanel progress;
+
+    private final Listener listener;
+
+    private final boolean continueOnError;
+
+    private final Set<Statement> statements =
+            Collections.newSetFromMap(new ConcurrentHashMap<Statement, Boolean>());
+
+    private final AtomicReference<RuntimeException> failure = new AtomicReference<RuntimeException>();
+
+    private volatile boolean stopped;
+
+    private ExecutorService executor;
+
+    /**
+     * Creates a new export.
+     *
+     * @param databaseConnection the connection exported from
+     * @param connectionCount the maximum number of concurrent exports
+     * @param progress the per-table progress display
+     * @param listener notified as each table completes
+     * @param continueOnError whether to continue with the remaining
+     *        tables after an export fails
+     */
+    ParallelTableExport(DatabaseConnection databaseConnection, int connectionCount,
+            TableProgressPanel progress, Listener listener, boolean continueOnError) {
+
+        this.databaseConnection = databaseConnection;
+        this.connectionCount = connectionCount;
+        this.progress = progress;
+        this.listener = listener;
+        this.continueOnError = continueOnError;
+    }
+
+    /**
+     * Returns the configured number of parallel export connections.
+     */
+    static int configuredConnectionCount() {
+
+        return Math.max(1, SystemProperties.getIntProperty("user", CONNECTIONS_KEY));
+    }
+
+    /**
+     * Exports the specified tables returning when all are complete.
+     *
+     * @param exports the table exports in the order started
+     * @throws InterruptedException if the export was cancelled
+     * @throws DataSourceException if an export connection could not be opened
+     */
+    void run(List<? extends TableExport> exports) throws InterruptedException {
+
+        List<String> tableNames = new ArrayList<String>(exports.size());
+        Queue<Task> tasks = new ConcurrentLinkedQueue<Task>();
+        for (int i = 0; i < exports.size(); i++) {
+
+            TableExport export = exports.get(i);
+            tableNames.add(export.getTableName());
+            tasks.add(new Task(i, export));
+        }
+
+        progress.start(tableNames);
+
+        int threads = Math.max(1, Math.min(connectionCount, exports.size()));
+        executor = Executors.newFixedThreadPool(threads, new ExportThreadFactory());
+
+        try {
+
+            List<Future<?>> futures = new ArrayList<Future<?>>(threads);
+            for (int i = 0; i < threads; i++) {
+
+                futures.add(executor.submit(new ExportThread(tasks)));
+            }
+            executor.shutdown();
+
+            for (Future<?> future : futures) {
+
+                try {
+
+                    future.get();
+
+                } catch (ExecutionException e) {
+
+                    failed(new DataSourceException(e.getCause()));
+                }
+
+            }
+
+        } catch (InterruptedException e) {
+
+            cancel();
+            throw e;
+
+        } finally {
+
+            progress.stop();
+        }
+
+        RuntimeException exception = failure.get();
+        if (exception != null) {
+
+            throw exception;
+        }
+
+    }
+
+    /**
+     * Stops all exports cancelling any executing statements.
+     */
+    void cancel() {
+
+        stopped = true;
+
+        if (executor != null) {
+
+            executor.shutdownNow();
+        }
+
+        for (Statement statement : statements) {
+
+            try {
+
+                statement.cancel();
+
+            } catch (SQLException e) {
+
+                debug("Error cancelling export statement", e);
+            }
+
+        }
+
+    }
+
+    private void failed(RuntimeException e) {
+
+        failure.compareAndSet(null, e);
+        stopped = true;
+    }
+
+    private void debug(String message, Throwable e) {
+
+        if (Log.isDebugEnabled()) {
+
+            Log.debug(message, e);
+        }
+
+    }
+
+    /**
+     * The export of a single table.
+     */
+    interface TableExport {
+
+        /**
+         * Returns the name of the table as displayed.
+         */
+        String getTableName();
+
+        /**
+         * Exports the table using statements created from the specified
+         * context, checking Thread.interrupted() between records.
+         *
+         * @return the number of records exported
+         */
+        int export(ExportContext context) throws Exception;
+
+    }
+
+    /**
+     * Notified from the export threads as each table completes.
+     */
+    interface Listener {
+
+        void tableExported(TableExport export, int records);
+
+        void tableFailed(TableExport export, Throwable e);
+
+    }
+
+    /**
+     * The connection and progress of a table export.
+     */
+    final class ExportContext {
+
+        private final int index;
+
+        private final Connection connection;
+
+        private ExportContext(int index, Connection connection) {
+
+            this.index = index;
+            this.connection = connection;
+        }
+
+        /**
+         * Creates a forward only statement on the export connection
+         * which is cancelled should the export be stopped.
+         */
+        Statement createStatement() throws SQLException {
+
+            Statement statement = connection.createStatement(
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statements.add(statement);
+
+            return statement;
+        }
+
+        /**
+         * Closes a statement created by this context.
+         */
+        void closeStatement(Statement statement) {
+
+            if (statement != null) {
+
+                statements.remove(statement);
+                try {
+
+                    statement.close();
+
+                } catch (SQLException e) {
+
+                    debug("Error closing export statement", e);
+                }
+
+            }
+
+        }
+
+        /**
+         * Reports the number of records to be exported.
+         */
+        void started(int records) {
+
+            progress.tableStarted(index, records);
+        }
+
+        /**
+         * Reports the number of records exported so far.
+         */
+        void exported(int records) {
+
+            progress.tableProgress(index, records);
+        }
+
+    }
+
+    private final class ExportThread implements Runnable {
+
+        private final Queue<Task> tasks;
+
+        private Connection connection;
+
+        private boolean autoCommit;
+
+        private boolean readOnly;
+
+        private int isolation;
+
+        ExportThread(Queue<Task> tasks) {
+
+            this.tasks = tasks;
+        }
+
+        public void run() {
+
+            try {
+
+                begin();
+
+                Task task;
+                while (!stopped && (task = tasks.poll()) != null) {
+
+                    export(task);
+                }
+
+            } catch (SQLException e) {
+
+                failed(new DataSourceException(e));
+
+            } catch (DataSourceException e) {
+
+                failed(e);
+
+            } finally {
+
+                end();
+            }
+
+        }
+
+        private void export(Task task) {
+
+            ExportContext context = new ExportContext(task.index, connection);
+            progress.tableStarted(task.index, 0);
+
+            try {
+
+                int records = task.export.export(context);
+
+                progress.tableFinished(task.index, TableProgressPanel.COMPLETE);
+                listener.tableExported(task.export, records);
+
+            } catch (InterruptedException e) {
+
+                progress.tableFinished(task.index, TableProgressPanel.CANCELLED);
+                stopped = true;
+
+            } catch (Exception e) {
+
+                if (stopped) {
+
+                    // statement cancelled by another thread
+                    progress.tableFinished(task.index, TableProgressPanel.CANCELLED);
+                    return;
+                }
+
+                debug("Error exporting table " + task.export.getTableName(), e);
+
+                progress.tableFinished(task.index, TableProgressPanel.FAILED);
+                listener.tableFailed(task.export, e);
+
+                if (!continueOnError) {
+
+                    stopped = true;
+                }
+
+            }
+
+        }
+
+        private void begin() throws SQLException {
+
+            connection = ConnectionManager.getDedicatedConnection(databaseConnection);
+
+            autoCommit = connection.getAutoCommit();
+            readOnly = connection.isReadOnly();
+            isolation = connection.getTransactionIsolation();
+
+            connection.setAutoCommit(false);
+            connection.setReadOnly(true);
+            if (connection.getMetaData().supportsTransactionIsolationLevel(
+                    Connection.TRANSACTION_REPEATABLE_READ)) {
+
+                connection.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+            }
+
+        }
+
+        private void end() {
+
+            if (connection == null) {
+
+                return;
+            }
+
+            try {
+
+                // nothing is written - end the snapshot and restore the connection
+                connection.rollback();
+                connection.setReadOnly(readOnly);
+                connection.setTransactionIsolation(isolation);
+                connection.setAutoCommit(autoCommit);
+
+            } catch (SQLException e) {
+
+                debug("Error restoring export connection", e);
+            }
+
+            try {
+
+                connection.close();
+
+            } catch (SQLException e) {
+
+                debug("Error closing export connection", e);
+            }
+
+        }
+
+    }
+
+    private static final class Task {
+
+        final int index;
+
+        final TableExport export;
+
+        Task(int index, TableExport export) {
+
+            this.index = index;
+            this.export = export;
+        }
+
+    }
+
+    private static final class ExportThreadFactory implements ThreadFactory {
+
+        private final int export = EXPORT_COUNT.incrementAndGet();
+
+        private final AtomicInteger threadCount = new AtomicInteger();
+
+        public Thread newThread(Runnable runnable) {
+
+            Thread thread = new Thread(runnable,
+                    "TableExport-" + export + "-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+
+            return thread;
+        }
+
+    }
+
+}
@@ -0,0 +1,538 @@
+/*
+ * StreamingExcelWorkbookBuilder.java
+ *
+ * Copyright (C) 2002-2017 Takis Diakoumis
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.executequery.gui.importexport;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.executequery.io.ExportTextWriter;
+
+/**
+ * Builds an Excel 2007 (.xlsx) workbook with bounded memory.
+ * <p/>
+ * Rows are encoded as worksheet XML as they are added and streamed
+ * through a fixed size buffer to a temporary file per sheet - no
+ * rows are held in memory. The workbook package is assembled from
+ * these files when written. Strings are written inline, so there
+ * is no shared string table to grow, and the default and header
+ * styles are the only two cell styles of the workbook.
+ * <p/>
+ * A sheet that reaches the maximum number of rows of a worksheet
+ * is continued on a new sheet, repeating any header row.
+ */
+public class StreamingExcelWorkbookBuilder implements ExcelWorkbookBuilder {
+
+    /** the maximum number of rows of a worksheet */
+    static final int MAX_ROWS = 1048576;
+
+    /** the maximum length of the text of a cell */
+    private static final int MAX_CELL_LENGTH = 32767;
+
+    /** the maximum length of a sheet name */
+    private static final int MAX_SHEET_NAME_LENGTH = 31;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final String XML_DECLARATION =
+            "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n";
+
+    private static final String MAIN_NAMESPACE =
+            "http://schemas.openxmlformats.org/spreadsheetml/2006/main";
+
+    private static final String RELATIONSHIPS_NAMESPACE =
+            "http://schemas.openxmlformats.org/officeDocument/2006/relationships";
+
+    private static final String PACKAGE_RELATIONSHIPS_NAMESPACE =
+            "http://schemas.openxmlformats.org/package/2006/relationships";
+
+    private static final String STYLES =
+            "<styleSheet xmlns=\"" + MAIN_NAMESPACE + "\">" +
+            "<fonts count=\"2\">" +
+            "<font><sz val=\"11\"/><name val=\"Calibri\"/></font>" +
+            "<font><b/><sz val=\"11\"/><name val=\"Calibri\"/></font>" +
+            "</fonts>" +
+            "<fills count=\"2\">" +
+            "<fill><patternFill patternType=\"none\"/></fill>" +
+            "<fill><patternFill patternType=\"gray125\"/></fill>" +
+            "</fills>" +
+            "<borders count=\"1\"><border><left/><right/><top/><bottom/><diagonal/></border></borders>" +
+            "<cellStyleXfs count=\"1\"><xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\"/></cellStyleXfs>" +
+            "<cellXfs count=\"2\">" +
+            "<xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\" xfId=\"0\"/>" +
+            "<xf numFmtId=\"0\" fontId=\"1\" fillId=\"0\" borderId=\"0\" xfId=\"0\" applyFont=\"1\"/>" +
+            "</cellXfs>" +
+            "<cellStyles count=\"1\"><cellStyle name=\"Normal\" xfId=\"0\" builtinId=\"0\"/></cellStyles>" +
+            "</styleSheet>";
+
+    /** the cell style index of values */
+    private static final int DEFAULT_STYLE = 0;
+
+    /** the cell style index of header values */
+    private static final int HEADER_STYLE = 1;
+
+    private final List<SheetFile> sheets = new ArrayList<SheetFile>();
+
+    private final Set<String> sheetNames = new HashSet<String>();
+
+    private SheetFile currentSheet;
+
+    private List<String> header;
+
+    public void reset() {
+
+        // the current sheet is completed on creating the next or writing
+        header = null;
+    }
+
+    public void createSheet(String sheetName) throws IOException {
+
+        finishSheet();
+        header = null;
+
+        addSheet(new SheetFile(uniqueSheetName(sheetName, ""), sheetName, 1));
+    }
+
+    public void addRowHeader(List<String> values) throws IOException {
+
+        header = new ArrayList<String>(values);
+        currentSheet.writeRow(values, HEADER_STYLE);
+    }
+
+    public void addRow(List<String> values) throws IOException {
+
+        if (currentSheet.rowCount == MAX_ROWS) {
+
+            continueSheet();
+        }
+
+        currentSheet.writeRow(values, DEFAULT_STYLE);
+    }
+
+    /**
+     * Writes the workbook of all sheets created since it was last
+     * written to the specified stream, which is left open.
+     */
+    public void writeTo(OutputStream outputStream) throws IOException {
+
+        finishSheet();
+
+        try {
+
+            ZipOutputStream zip = new ZipOutputStream(outputStream);
+
+            writeEntry(zip, "[Content_Types].xml", contentTypes());
+            writeEntry(zip, "_rels/.rels", packageRelationships());
+            writeEntry(zip, "xl/workbook.xml", workbook());
+            writeEntry(zip, "xl/_rels/workbook.xml.rels", workbookRelationships());
+            writeEntry(zip, "xl/styles.xml", XML_DECLARATION + STYLES);
+
+            byte[] buffer = new byte[64 * 1024];
+            for (int i = 0; i < sheets.size(); i++) {
+
+                zip.putNextEntry(new ZipEntry("xl/worksheets/sheet" + (i + 1) + ".xml"));
+
+                InputStream input = new FileInputStream(sheets.get(i).file);
+                try {
+
+                    int read;
+                    while ((read = input.read(buffer)) != -1) {
+
+                        zip.write(buffer, 0, read);
+                    }
+
+                } finally {
+
+                    input.close();
+                }
+
+                zip.closeEntry();
+            }
+
+            zip.finish();
+            zip.flush();
+
+        } finally {
+
+            for (SheetFile sheet : sheets) {
+
+                sheet.file.delete();
+            }
+
+            sheets.clear();
+            sheetNames.clear();
+        }
+
+    }
+
+    /**
+     * Closes and deletes the temporary files of all sheets
+     * not yet written.
+     */
+    public void discard() {
+
+        for (SheetFile sheet : sheets) {
+
+            sheet.discard();
+        }
+
+        sheets.clear();
+        sheetNames.clear();
+        currentSheet = null;
+        header = null;
+    }
+
+    private void addSheet(SheetFile sheet) {
+
+        currentSheet = sheet;
+        sheets.add(sheet);
+    }
+
+    /**
+     * Continues the current sheet on a new sheet of the same name
+     * numbered with the part, repeating any header row.
+     */
+    private void continueSheet() throws IOException {
+
+        String sheetName = currentSheet.baseName;
+        int part = currentSheet.part + 1;
+
+        finishSheet();
+
+        addSheet(new SheetFile(uniqueSheetName(sheetName, " (" + part + ")"), sheetName, part));
+        if (header != null) {
+
+            currentSheet.writeRow(header, HEADER_STYLE);
+        }
+
+    }
+
+    private void finishSheet() throws IOException {
+
+        if (currentSheet != null) {
+
+            SheetFile sheet = currentSheet;
+            currentSheet = null;
+
+            sheet.finish();
+        }
+
+    }
+
+    /**
+     * Returns a valid sheet name not yet used in the workbook
+     * ending with the specified suffix.
+     */
+    private String uniqueSheetName(String sheetName, String suffix) {
+
+        StringBuilder sb = new StringBuilder(sheetName == null ? "" : sheetName);
+        for (int i = 0; i < sb.length(); i++) {
+
+            if ("[]:*?/\\".indexOf(sb.charAt(i)) != -1) {
+
+                sb.setCharAt(i, '_');
+            }
+
+        }
+
+        String name = sb.toString().trim();
+        if (name.length() == 0) {
+
+            name = "Sheet" + (sheets.size() + 1);
+        }
+
+        String uniqueName = truncate(name, suffix);
+        for (int i = 2; !sheetNames.add(uniqueName.toUpperCase()); i++) {
+
+            uniqueName = truncate(name, suffix + "_" + i);
+        }
+
+        return uniqueName;
+    }
+
+    private String truncate(String name, String suffix) {
+
+        int length = MAX_SHEET_NAME_LENGTH - suffix.length();
+        if (name.length() > length) {
+
+            name = name.substring(0, length);
+        }
+
+        return name + suffix;
+    }
+
+    private void writeEntry(ZipOutputStream zip, String name, String content) throws IOException {
+
+        zip.putNextEntry(new ZipEntry(name));
+
+        Writer writer = new OutputStreamWriter(zip, UTF_8);
+        writer.write(content);
+        writer.flush();
+
+        zip.closeEntry();
+    }
+
+    private String contentTypes() {
+
+        StringBuilder sb = new StringBuilder(XML_DECLARATION);
+        sb.append("<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\">");
+        sb.append("<Default Extension=\"rels\" ContentType=\"application/vnd.openxmlformats-package.relationships+xml\"/>");
+        sb.append("<Default Extension=\"xml\" ContentType=\"application/xml\"/>");
+        sb.append("<Override PartName=\"/xl/workbook.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.sheet.main+xml\"/>");
+        sb.append("<Override PartName=\"/xl/styles.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.styles+xml\"/>");
+
+        for (int i = 1; i <= sheets.size(); i++) {
+
+            sb.append("<Override PartName=\"/xl/worksheets/sheet").append(i);
+            sb.append(".xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.worksheet+xml\"/>");
+        }
+
+        sb.append("</Types>");
+
+        return sb.toString();
+    }
+
+    private String packageRelationships() {
+
+        return XML_DECLARATION +
+                "<Relationships xmlns=\"" + PACKAGE_RELATIONSHIPS_NAMESPACE + "\">" +
+                "<Relationship Id=\"rId1\" Type=\"" + RELATIONSHIPS_NAMESPACE +
+                "/officeDocument\" Target=\"xl/workbook.xml\"/>" +
+                "</Relationships>";
+    }
+
+    private String workbook() {
+
+        StringBuilder sb = new StringBuilder(XML_DECLARATION);
+        sb.append("<workbook xmlns=\"").append(MAIN_NAMESPACE);
+        sb.append("\" xmlns:r=\"").append(RELATIONSHIPS_NAMESPACE).append("\"><sheets>");
+
+        for (int i = 1; i <= sheets.size(); i++) {
+
+            sb.append("<sheet name=\"");
+            appendEscaped(sb, sheets.get(i - 1).name);
+            sb.append("\" sheetId=\"").append(i).append("\" r:id=\"rId").append(i).append("\"/>");
+        }
+
+        sb.append("</sheets></workbook>");
+
+        return sb.toString();
+    }
+
+    private String workbookRelationships() {
+
+        StringBuilder sb = new StringBuilder(XML_DECLARATION);
+        sb.append("<Relationships xmlns=\"").append(PACKAGE_RELATIONSHIPS_NAMESPACE).append("\">");
+
+        int count = sheets.size();
+        for (int i = 1; i <= count; i++) {
+
+            sb.append("<Relationship Id=\"rId").append(i).append("\" Type=\"");
+            sb.append(RELATIONSHIPS_NAMESPACE).append("/worksheet\" Target=\"worksheets/sheet");
+            sb.append(i).append(".xml\"/>");
+        }
+
+        sb.append("<Relationship Id=\"rId").append(count + 1).append("\" Type=\"");
+        sb.append(RELATIONSHIPS_NAMESPACE).append("/styles\" Target=\"styles.xml\"/>");
+        sb.append("</Relationships>");
+
+        return sb.toString();
+    }
+
+    private static void appendEscaped(StringBuilder sb, String value) {
+
+        for (int i = 0, n = value.length(); i < n; i++) {
+
+            char c = value.charAt(i);
+            switch (c) {
+
+                case '&':
+                    sb.append("&amp;");
+                    break;
+
+                case '<':
+                    sb.append("&lt;");
+                    break;
+
+                case '>':
+                    sb.append("&gt;");
+                    break;
+
+                case '"':
+                    sb.append("&quot;");
+                    break;
+
+                default:
+                    sb.append(c);
+            }
+
+        }
+
+    }
+
+    /**
+     * The worksheet XML of a sheet written to a temporary file.
+     */
+    private static final class SheetFile {
+
+        private final String name;
+
+        private final File file;
+
+        private final ExportTextWriter writer;
+
+        /** the sheet name before continuation */
+        private final String baseName;
+
+        /** the number of this sheet of a continued sheet */
+        private final int part;
+
+        private int rowCount;
+
+        SheetFile(String name, String baseName, int part) throws IOException {
+
+            this.name = name;
+            this.baseName = baseName;
+            this.part = part;
+
+            file = File.createTempFile("eq-sheet", ".xml");
+            file.deleteOnExit();
+
+            writer = new ExportTextWriter(file, UTF_8);
+            writer.write(XML_DECLARATION);
+            writer.write("<worksheet xmlns=\"");
+            writer.write(MAIN_NAMESPACE);
+            writer.write("\"><sheetData>");
+        }
+
+        void writeRow(List<String> values, int style) throws IOException {
+
+            rowCount++;
+
+            writer.write("<row r=\"");
+            writer.write(Integer.toString(rowCount));
+            writer.write("\">");
+
+            for (int i = 0, n = values.size(); i < n; i++) {
+
+                String value = values.get(i);
+                if (value == null || value.length() == 0) {
+
+                    if (style != DEFAULT_STYLE) {
+
+                        writer.write("<c s=\"");
+                        writer.write(Integer.toString(style));
+                        writer.write("\"/>");
+
+                    } else {
+
+                        writer.write("<c/>");
+                    }
+                    continue;
+                }
+
+                writer.write("<c t=\"inlineStr\"");
+                if (style != DEFAULT_STYLE) {
+
+                    writer.write(" s=\"");
+                    writer.write(Integer.toString(style));
+                    writer.write('"');
+                }
+                writer.write("><is><t xml:space=\"preserve\">");
+                writeText(value);
+                writer.write("</t></is></c>");
+            }
+
+            writer.write("</row>");
+        }
+
+        void finish() throws IOException {
+
+            writer.write("</sheetData></worksheet>");
+            writer.close();
+        }
+
+        void discard() {
+
+            try {
+
+                writer.close();
+
+            } catch (IOException e) {
+
+                // the file is deleted regardless
+            }
+
+            file.delete();
+        }
+
+        private void writeText(String value) throws IOException {
+
+            for (int i = 0, n = Math.min(value.length(), MAX_CELL_LENGTH); i < n; i++) {
+
+                char c = value.charAt(i);
+                switch (c) {
+
+                    case '&':
+                        writer.write("&amp;");
+                        break;
+
+                    case '<':
+                        writer.write("&lt;");
+                        break;
+
+                    case '>':
+                        writer.write("&gt;");
+                        break;
+
+                    case '\t':
+                    case '\n':
+                    case '\r':
+                        writer.write(c);
+                        break;
+
+                    default:
+                        // control characters are not permitted in XML
+                        if (c >= 0x20 && c != 0xFFFE && c != 0xFFFF) {
+
+                            writer.write(c);
+                        }
+
+                }
+
+            }
+
+        }
+
+    }
+
+}
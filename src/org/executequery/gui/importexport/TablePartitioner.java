@@ -0,0 +1,280 @@
+/*
+ * TablePartitioner.java
+ *
+ * Copyright (C) 2002-2017 Takis Diakoumis
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.executequery.gui.importexport;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits a table into ranges of records that may be read concurrently.
+ * <p/>
+ * On Firebird 3 or later the ranges are of the physical record location
+ * with RDB$DB_KEY compared against MAKE_DBKEY() for the first record
+ * of a number of pointer pages - an efficient range scan that needs no
+ * index. Otherwise a single column integer primary key is split into
+ * equal ranges between its minimum and maximum values.
+ * <p/>
+ * Each range is returned as a predicate for the WHERE clause of the
+ * export statement, in the order the ranges are read. The last range
+ * is open ended so records added since planning are not lost.
+ */
+final class TablePartitioner {
+
+    /** the user property for merging partitions into a single file */
+    static final String MERGE_KEY = "export.partition.merge";
+
+    /** the smallest key range split into partitions */
+    private static final long MINIMUM_KEY_RANGE = 100000;
+
+    private static final String POINTER_PAGES_QUERY =
+            "SELECT R.RDB$RELATION_ID, COUNT(P.RDB$PAGE_SEQUENCE) " +
+            "FROM RDB$RELATIONS R LEFT JOIN RDB$PAGES P " +
+            "ON P.RDB$RELATION_ID = R.RDB$RELATION_ID AND P.RDB$PAGE_TYPE = 4 " +
+            "WHERE R.RDB$RELATION_NAME = ? GROUP BY R.RDB$RELATION_ID";
+
+    private final Connection connection;
+
+    private final int partitions;
+
+    /**
+     * Creates a new partitioner.
+     *
+     * @param connection the connection to plan with
+     * @param partitions the maximum number of ranges
+     */
+    TablePartitioner(Connection connection, int partitions) {
+
+        this.connection = connection;
+        this.partitions = partitions;
+    }
+
+    /**
+     * Returns whether the ranges are of RDB$DB_KEY rather than a key column.
+     */
+    boolean isDbKeySupported() throws SQLException {
+
+        DatabaseMetaData metaData = connection.getMetaData();
+
+        return metaData.getDatabaseProductName().toUpperCase().contains("FIREBIRD")
+                && metaData.getDatabaseMajorVersion() >= 3;
+    }
+
+    /**
+     * Returns the ranges of RDB$DB_KEY of the specified
+     * table or null if it is too small to split.
+     *
+     * @param table the table name as stored in RDB$RELATIONS
+     */
+    List<String> dbKeyRanges(String table) throws SQLException {
+
+        int relationId;
+        int pointerPages;
+
+        PreparedStatement statement = connection.prepareStatement(POINTER_PAGES_QUERY);
+        try {
+
+            statement.setString(1, table);
+
+            ResultSet rs = statement.executeQuery();
+            if (!rs.next()) {
+
+                return null;
+            }
+
+            relationId = rs.getInt(1);
+            pointerPages = rs.getInt(2);
+
+        } finally {
+
+            statement.close();
+        }
+
+        int ranges = Math.min(partitions, pointerPages);
+        if (ranges < 2) {
+
+            return null;
+        }
+
+        List<String> predicates = new ArrayList<String>(ranges);
+        for (int i = 0; i < ranges; i++) {
+
+            long lower = (long) pointerPages * i / ranges;
+            long upper = (long) pointerPages * (i + 1) / ranges;
+
+            StringBuilder sb = new StringBuilder();
+            if (i > 0) {
+
+                sb.append("RDB$DB_KEY >= ").append(makeDbKey(relationId, lower));
+            }
+
+            if (i < ranges - 1) {
+
+                if (sb.length() > 0) {
+
+                    sb.append(" AND ");
+                }
+                sb.append("RDB$DB_KEY < ").append(makeDbKey(relationId, upper));
+            }
+
+            predicates.add(sb.toString());
+        }
+
+        return predicates;
+    }
+
+    /**
+     * Returns the name of the single integer primary key column of the
+     * specified table, or null if there is no such key.
+     */
+    String integerKeyColumn(String schema, String table) throws SQLException {
+
+        DatabaseMetaData metaData = connection.getMetaData();
+
+        String column = null;
+        ResultSet rs = metaData.getPrimaryKeys(null, schema, table);
+        try {
+
+            while (rs.next()) {
+
+                if (column != null) {
+
+                    // compound key
+                    return null;
+                }
+                column = rs.getString("COLUMN_NAME");
+            }
+
+        } finally {
+
+            rs.close();
+        }
+
+        if (column == null) {
+
+            return null;
+        }
+
+        rs = metaData.getColumns(null, schema, table, column);
+        try {
+
+            if (rs.next()) {
+
+                switch (rs.getInt("DATA_TYPE")) {
+
+                    case Types.TINYINT:
+                    case Types.SMALLINT:
+                    case Types.INTEGER:
+                    case Types.BIGINT:
+                        return column;
+                }
+
+            }
+
+        } finally {
+
+            rs.close();
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns equal ranges of the specified key column or
+     * null if the range of values is too small to split.
+     *
+     * @param tableForStatement the qualified and quoted table name
+     * @param keyColumn the quoted key column name
+     */
+    List<String> keyRanges(String tableForStatement, String keyColumn) throws SQLException {
+
+        long minimum;
+        long maximum;
+
+        Statement statement = connection.createStatement();
+        try {
+
+            ResultSet rs = statement.executeQuery("SELECT MIN(" + keyColumn + "), MAX("
+                    + keyColumn + ") FROM " + tableForStatement);
+            if (!rs.next()) {
+
+                return null;
+            }
+
+            minimum = rs.getLong(1);
+            if (rs.wasNull()) {
+
+                return null;
+            }
+            maximum = rs.getLong(2);
+
+        } finally {
+
+            statement.close();
+        }
+
+        // compared as a double to avoid overflow across the full range of bigint
+        if ((double) maximum - minimum < MINIMUM_KEY_RANGE) {
+
+            return null;
+        }
+
+        List<String> predicates = new ArrayList<String>(partitions);
+        long step = (long) (((double) maximum - minimum) / partitions) + 1;
+
+        for (int i = 0; i < partitions; i++) {
+
+            long lower = minimum + step * i;
+            long upper = lower + step;
+
+            StringBuilder sb = new StringBuilder();
+            if (i > 0) {
+
+                sb.append(keyColumn).append(" >= ").append(lower);
+            }
+
+            if (i < partitions - 1) {
+
+                if (sb.length() > 0) {
+
+                    sb.append(" AND ");
+                }
+                sb.append(keyColumn).append(" < ").append(upper);
+            }
+
+            predicates.add(sb.toString());
+        }
+
+        return predicates;
+    }
+
+    private String makeDbKey(int relationId, long pointerPage) {
+
+        return "MAKE_DBKEY(" + relationId + ", 0, 0, " + pointerPage + ")";
+    }
+
+}
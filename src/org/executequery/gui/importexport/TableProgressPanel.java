@@ -0,0 +1,241 @@
+/*
+ * TableProgressPanel.java
+ *
+ * Copyright (C) 2002-2017 Takis Diakoumis
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.executequery.gui.importexport;
+
+import java.awt.BorderLayout;
+import java.awt.Component;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.List;
+
+import javax.swing.JPanel;
+import javax.swing.JProgressBar;
+import javax.swing.JScrollPane;
+import javax.swing.JTable;
+import javax.swing.Timer;
+import javax.swing.table.AbstractTableModel;
+import javax.swing.table.TableCellRenderer;
+
+import org.executequery.gui.DefaultTable;
+import org.executequery.localization.Bundles;
+import org.underworldlabs.swing.GUIUtils;
+
+/**
+ * Displays the progress of each table of a parallel export.
+ * <p/>
+ * The export threads update the state of their table directly and
+ * the display is refreshed from a timer on the EDT rather than for
+ * every record written.
+ */
+public final class TableProgressPanel extends JPanel implements ActionListener {
+
+    static final int WAITING = 0;
+    static final int RUNNING = 1;
+    static final int COMPLETE = 2;
+    static final int FAILED = 3;
+    static final int CANCELLED = 4;
+
+    private static final String[] STATUS_KEYS = {
+        "waiting", "running", "complete", "failed", "cancelled"
+    };
+
+    private static final int REFRESH_INTERVAL = 250;
+
+    private final TableProgressModel model = new TableProgressModel();
+
+    private final Timer timer;
+
+    private volatile TableState[] tables = new TableState[0];
+
+    TableProgressPanel() {
+
+        super(new BorderLayout());
+
+        timer = new Timer(REFRESH_INTERVAL, this);
+
+        DefaultTable table = new DefaultTable(model);
+        table.getTableHeader().setReorderingAllowed(false);
+        table.getColumnModel().getColumn(2).setCellRenderer(new ProgressRenderer());
+
+        add(new JScrollPane(table), BorderLayout.CENTER);
+    }
+
+    /**
+     * Sets the tables displayed, all initially waiting, and starts
+     * refreshing the display. May be called from any thread.
+     */
+    void start(List<String> tableNames) {
+
+        TableState[] states = new TableState[tableNames.size()];
+        for (int i = 0; i < states.length; i++) {
+
+            states[i] = new TableState(tableNames.get(i));
+        }
+        tables = states;
+
+        GUIUtils.invokeLater(new Runnable() {
+            public void run() {
+                model.fireTableDataChanged();
+                timer.start();
+            }
+        });
+    }
+
+    /**
+     * Stops refreshing the display following a final update.
+     * May be called from any thread.
+     */
+    void stop() {
+
+        GUIUtils.invokeLater(new Runnable() {
+            public void run() {
+                timer.stop();
+                model.fireTableRowsUpdated(0, Math.max(0, model.getRowCount() - 1));
+            }
+        });
+    }
+
+    void tableStarted(int index, int records) {
+
+        TableState state = tables[index];
+        state.records = records;
+        state.status = RUNNING;
+    }
+
+    void tableProgress(int index, int exported) {
+
+        tables[index].exported = exported;
+    }
+
+    void tableFinished(int index, int status) {
+
+        tables[index].status = status;
+    }
+
+    public void actionPerformed(ActionEvent e) {
+
+        if (model.getRowCount() > 0) {
+
+            model.fireTableRowsUpdated(0, model.getRowCount() - 1);
+        }
+
+    }
+
+    private static String bundleString(String key) {
+
+        return Bundles.get(TableProgressPanel.class, key);
+    }
+
+    private static final class TableState {
+
+        private final String name;
+
+        private volatile int records;
+
+        private volatile int exported;
+
+        private volatile int status;
+
+        TableState(String name) {
+
+            this.name = name;
+        }
+
+    }
+
+    private final class TableProgressModel extends AbstractTableModel {
+
+        private final String[] columnNames = {
+            bundleString("table"), bundleString("records"),
+            bundleString("exported"), bundleString("status")
+        };
+
+        public int getRowCount() {
+
+            return tables.length;
+        }
+
+        public int getColumnCount() {
+
+            return columnNames.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+
+            return columnNames[column];
+        }
+
+        public Object getValueAt(int row, int column) {
+
+            TableState state = tables[row];
+            switch (column) {
+
+                case 0:
+                    return state.name;
+
+                case 1:
+                    return state.status == WAITING ? null : Integer.valueOf(state.records);
+
+                case 2:
+                    return state;
+
+                default:
+                    return bundleString(STATUS_KEYS[state.status]);
+            }
+
+        }
+
+    }
+
+    private static final class ProgressRenderer extends JProgressBar
+                                                implements TableCellRenderer {
+
+        ProgressRenderer() {
+
+            super(0, 100);
+            setStringPainted(true);
+            setBorderPainted(false);
+        }
+
+        public Component getTableCellRendererComponent(JTable table, Object value,
+                boolean isSelected, boolean hasFocus, int row, int column) {
+
+            TableState state = (TableState) value;
+
+            int exported = state.exported;
+            int records = Math.max(state.records, 1);
+            if (state.status == COMPLETE) {
+
+                // the count read at the start may since have changed
+                records = Math.max(exported, 1);
+            }
+
+            setMaximum(records);
+            setValue(state.status == COMPLETE ? records : Math.min(exported, records));
+            setString(String.valueOf(exported));
+
+            return this;
+        }
+
+    }
+
+}
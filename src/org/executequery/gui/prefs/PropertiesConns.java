@@ -21,9 +21,11 @@
 package org.executequery.gui.prefs;
 
 
+import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.apache.commons.lang.StringUtils;
 import org.executequery.databasemediators.DatabaseConnection;
 import org.executequery.repository.DatabaseConnectionRepository;
 import org.executequery.repository.RepositoryCache;
@@ -73,6 +75,30 @@ public class PropertiesConns extends AbstractPropertiesBasePanel {
                 "Initial open connections",
                 SystemProperties.getProperty("user", key)));
 
+        key = "connection.pool.wait.timeout";
+        list.add(new UserPreference(
+                UserPreference.INTEGER_TYPE,
+                4,
+                key,
+                "Pool connection wait timeout (sec)",
+                SystemProperties.getProperty("user", key)));
+
+        key = "connection.pool.idle.timeout";
+        list.add(new UserPreference(
+                UserPreference.INTEGER_TYPE,
+                5,
+                key,
+                "Pool idle connection timeout (sec)",
+                SystemProperties.getProperty("user", key)));
+
+        key = "connection.pool.validation.interval";
+        list.add(new UserPreference(
+                UserPreference.INTEGER_TYPE,
+                4,
+                key,
+                "Pool validation interval (sec)",
+                SystemProperties.getProperty("user", key)));
+
         key = "connection.scheme";
         list.add(new UserPreference(
                 UserPreference.STRING_TYPE,
@@ -96,6 +122,36 @@ public class PropertiesConns extends AbstractPropertiesBasePanel {
                 "Connection reuse count",
                 SystemProperties.getProperty("user", key)));
 
+        key = "export.parallel.connections";
+        list.add(new UserPreference(
+                UserPreference.INTEGER_TYPE,
+                2,
+                key,
+                "Parallel export connections (each opened separately)",
+                SystemProperties.getProperty("user", key)));
+
+        key = "export.partition.merge";
+        list.add(new UserPreference(
+                UserPreference.BOOLEAN_TYPE,
+                key,
+                "Merge partitioned exports into one file",
+                Boolean.valueOf(SystemProperties.getProperty("user", key))));
+
+        key = "export.file.encoding";
+        list.add(new UserPreference(
+                UserPreference.STRING_TYPE,
+                key,
+                "Export file encoding",
+                exportEncodingValue(),
+                availableCharsets()));
+
+        key = "export.binary.compress";
+        list.add(new UserPreference(
+                UserPreference.BOOLEAN_TYPE,
+                key,
+                "Compress binary table exports",
+                Boolean.valueOf(SystemProperties.getProperty("user", key))));
+
         key = "startup.connection.connect";
         list.add(new UserPreference(
                 UserPreference.BOOLEAN_TYPE,
@@ -138,6 +194,21 @@ public class PropertiesConns extends AbstractPropertiesBasePanel {
         return connectionNames;
     }
 
+    private String[] availableCharsets() {
+
+        return Charset.availableCharsets().keySet().toArray(new String[0]);
+    }
+
+    private String exportEncodingValue() {
+
+        String encoding = SystemProperties.getProperty("user", "export.file.encoding");
+        if (StringUtils.isBlank(encoding)) {
+
+            return Charset.defaultCharset().name();
+        }
+        return encoding;
+    }
+
     private List<DatabaseConnection> connections() {
         
         return ((DatabaseConnectionRepository)RepositoryCache.load(
@@ -85,6 +85,13 @@ public class PropertiesEditorGeneral extends AbstractPropertiesBasePanel {
                 "Auto-complete database objects on",
                 Boolean.valueOf(SystemProperties.getBooleanProperty("user", key))));
 
+        key = "editor.autocomplete.camelhump.on";
+        list.add(new UserPreference(
+                UserPreference.BOOLEAN_TYPE,
+                key,
+                "Auto-complete by word initials",
+                Boolean.valueOf(SystemProperties.getBooleanProperty("user", key))));
+
         key = "editor.undo.count";
         list.add(new UserPreference(
                     UserPreference.INTEGER_TYPE,
@@ -137,6 +144,21 @@ public class PropertiesEditorGeneral extends AbstractPropertiesBasePanel {
                     "Default maximum rows returned",
                     stringUserProperty(key)));
 
+        key = "editor.results.paged";
+        list.add(new UserPreference(
+                    UserPreference.BOOLEAN_TYPE,
+                    key,
+                    "Fetch result set rows while scrolling",
+                    Boolean.valueOf(stringUserProperty(key))));
+
+        key = "editor.results.fetch.size";
+        list.add(new UserPreference(
+                    UserPreference.INTEGER_TYPE,
+                    -1,
+                    key,
+                    "Result set fetch size",
+                    stringUserProperty(key)));
+
         key = "editor.logging.verbose";
         list.add(new UserPreference(
                     UserPreference.BOOLEAN_TYPE,
@@ -130,6 +130,21 @@ public class PropertiesResultSetTableGeneral extends AbstractPropertiesBasePanel
                     "Max CLOB character length shown",
                     SystemProperties.getProperty("user", key)));
 
+        key = "results.table.lob.lazy";
+        list.add(new UserPreference(
+                    UserPreference.BOOLEAN_TYPE,
+                    key,
+                    "Load LOB data only when viewed",
+                    Boolean.valueOf(SystemProperties.getProperty("user", key))));
+
+        key = "results.table.lob.cache.size";
+        list.add(new UserPreference(
+                    UserPreference.INTEGER_TYPE,
+                    5,
+                    key,
+                    "LOB data cache size (MB)",
+                    SystemProperties.getProperty("user", key)));
+
         key = "results.table.double-click.record.dialog";
         list.add(new UserPreference(
                     UserPreference.BOOLEAN_TYPE,
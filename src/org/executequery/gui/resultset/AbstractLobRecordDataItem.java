@@ -20,31 +20,87 @@
 
 package org.executequery.gui.resultset;
 
+import org.executequery.UserPreferencesManager;
+
 public abstract class AbstractLobRecordDataItem extends AbstractRecordDataItem
 												implements LobRecordDataItem {
 
 	private byte[] data;
 
+	/** whether content is held only in the shared lob cache */
+	private final boolean lazy;
+
 	public AbstractLobRecordDataItem(String name, int dataType, String dataTypeName) {
 
 		super(name, dataType, dataTypeName);
+		lazy = UserPreferencesManager.isResultSetLobLazy();
 	}
 
 	@Override
     public int length() {
 
-		return (data == null ? 0 : data.length);
+		byte[] loaded = loadedData();
+		if (loaded != null) {
+
+			return loaded.length;
+		}
+
+		return (lazy ? lengthHint() : 0);
 	}
 
 	@Override
     public byte[] getData() {
 
-		if (data == null) {
+		if (!lazy) {
+
+			if (data == null) {
+
+				data = readLob();
+			}
 
-			data = readLob();
+			return data;
 		}
 
-		return data;
+		byte[] cached = LobDataCache.get(getValue());
+		if (cached == null) {
+
+			cached = readLob();
+			LobDataCache.put(getValue(), cached);
+		}
+
+		return cached;
+	}
+
+	@Override
+    public void setValue(Object value) {
+
+		data = null;
+		LobDataCache.remove(getValue());
+
+		super.setValue(value);
+	}
+
+	/**
+	 * Returns the content if already read from the server
+	 * without reading it, or null otherwise.
+	 */
+	protected byte[] loadedData() {
+
+		return (lazy ? LobDataCache.get(getValue()) : data);
+	}
+
+	protected boolean isLazy() {
+
+		return lazy;
+	}
+
+	/**
+	 * Returns the content size known without reading the content
+	 * itself, or 0 where not available.
+	 */
+	protected int lengthHint() {
+
+		return 0;
 	}
 
 	abstract byte[] readLob();
@@ -55,6 +111,8 @@ public abstract class AbstractLobRecordDataItem extends AbstractRecordDataItem
         char space = ' ';
         String stripPrefix = "ffffff";
 
+        byte[] data = getData();
+
         int defaultBytesToProcess = 496;
         int bytesToProcess = Math.min(data.length, defaultBytesToProcess);
 
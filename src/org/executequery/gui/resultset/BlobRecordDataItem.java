@@ -49,7 +49,7 @@ public class BlobRecordDataItem extends AbstractLobRecordDataItem {
     @Override
     public String getLobRecordItemName() {
 
-        MimeType mimeType = mimeTypeFromByteArray(getData());
+        MimeType mimeType = mimeTypeFromByteArray(isLazy() ? readLobHeader() : getData());
         if (mimeType != null) {
 
             return mimeType.getName();
@@ -104,6 +104,77 @@ public class BlobRecordDataItem extends AbstractLobRecordDataItem {
         return blobBytes;
     }
 
+    @Override
+    protected int lengthHint() {
+
+        Object value = getValue();
+        try {
+
+            if (value instanceof IFBBlob) {
+
+                return (int) ((IFBBlob) value).lenght();
+
+            } else if (value instanceof Blob) {
+
+                return (int) ((Blob) value).length();
+
+            } else if (value instanceof byte[]) {
+
+                return ((byte[]) value).length;
+            }
+
+        } catch (SQLException e) {
+
+            if (Log.isDebugEnabled()) {
+
+                Log.debug("Error reading BLOB length", e);
+            }
+
+        }
+
+        return 0;
+    }
+
+    /**
+     * Reads only as many leading bytes as required to
+     * determine the mime type of the content.
+     */
+    private byte[] readLobHeader() {
+
+        byte[] loaded = loadedData();
+        if (loaded != null) {
+
+            return loaded;
+        }
+
+        Object value = getValue();
+        int length = Math.min(lengthHint(), MimeTypes.get().getMinLength());
+        if (length <= 0 || !(value instanceof IFBBlob || value instanceof Blob)) {
+
+            return getData();
+        }
+
+        try {
+
+            if (value instanceof IFBBlob) {
+
+                return ((IFBBlob) value).getBytes(1, length);
+            }
+
+            return ((Blob) value).getBytes(1, length);
+
+        } catch (SQLException e) {
+
+            if (Log.isDebugEnabled()) {
+
+                Log.debug("Error reading BLOB data", e);
+            }
+
+            return new byte[0];
+        }
+
+    }
+
     private MimeType mimeTypeFromByteArray(byte[] data) {
 
         return MimeTypes.get().getMimeType(data);
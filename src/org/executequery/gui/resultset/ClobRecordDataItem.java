@@ -130,6 +130,38 @@ public class ClobRecordDataItem extends AbstractLobRecordDataItem {
 		}
     }
 
+    @Override
+    protected int lengthHint() {
+
+        Object value = getValue();
+        if (value instanceof String) {
+
+            return ((String) value).length();
+
+        } else if (value instanceof IFBClob) {
+
+            return (int) ((IFBClob) value).length();
+
+        } else if (value instanceof Clob) {
+
+            try {
+
+                return (int) ((Clob) value).length();
+
+            } catch (SQLException e) {
+
+                if (Log.isDebugEnabled()) {
+
+                    Log.debug("Error reading CLOB length", e);
+                }
+
+            }
+
+        }
+
+        return 0;
+    }
+
     @Override
     public String toString() {
 
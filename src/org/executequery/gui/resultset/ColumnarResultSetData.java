@@ -0,0 +1,535 @@
+/*
+ * ColumnarResultSetData.java
+ *
+ * Copyright (C) 2002-2017 Takis Diakoumis
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.executequery.gui.resultset;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Column oriented value store backing the result set table model.
+ * <p/>
+ * Each column starts untyped and specialises itself on the first
+ * non-null value it receives - Integer, Long, Double and Boolean values
+ * are held in primitive arrays and strings are dictionary encoded.
+ * Should a later value not fit the chosen representation the column
+ * is widened to a plain object array, so values always come back
+ * exactly as they were stored.
+ */
+class ColumnarResultSetData {
+
+    private static final int DEFAULT_CAPACITY = 64;
+
+    private Column[] columns;
+
+    private int rowCount;
+
+    private int capacity;
+
+    ColumnarResultSetData(int columnCount) {
+
+        reset(columnCount);
+    }
+
+    void reset(int columnCount) {
+
+        rowCount = 0;
+        capacity = DEFAULT_CAPACITY;
+        columns = new Column[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+
+            columns[i] = new UntypedColumn();
+        }
+    }
+
+    int getRowCount() {
+
+        return rowCount;
+    }
+
+    int getColumnCount() {
+
+        return columns.length;
+    }
+
+    /**
+     * Appends an empty (all null) row and returns its index.
+     */
+    int addRow() {
+
+        if (rowCount == capacity) {
+
+            capacity = Math.max(capacity + (capacity >> 1), DEFAULT_CAPACITY);
+            for (Column column : columns) {
+
+                column.ensureCapacity(capacity);
+            }
+        }
+
+        return rowCount++;
+    }
+
+    void setValue(int row, int column, Object value) {
+
+        Column current = columns[column];
+        if (value == null) {
+
+            current.setNull(row);
+            return;
+        }
+
+        if (!current.set(row, value)) {
+
+            Column widened = current.widen(value, rowCount, capacity);
+            widened.set(row, value);
+            columns[column] = widened;
+        }
+
+    }
+
+    Object getValue(int row, int column) {
+
+        if (row >= rowCount) {
+
+            return null;
+        }
+        return columns[column].get(row);
+    }
+
+    boolean isNull(int row, int column) {
+
+        return columns[column].isNull(row);
+    }
+
+    /**
+     * Releases any unused array capacity once the result set is loaded.
+     */
+    void trimToSize() {
+
+        capacity = Math.max(rowCount, 1);
+        for (Column column : columns) {
+
+            column.ensureCapacity(capacity);
+            column.trim();
+        }
+    }
+
+    private static abstract class Column {
+
+        protected final BitSet nulls = new BitSet();
+
+        boolean isNull(int row) {
+
+            return nulls.get(row);
+        }
+
+        void setNull(int row) {
+
+            nulls.set(row);
+        }
+
+        /**
+         * Stores the value returning false where this column
+         * representation cannot hold it.
+         */
+        abstract boolean set(int row, Object value);
+
+        abstract Object get(int row);
+
+        abstract void ensureCapacity(int capacity);
+
+        void trim() {}
+
+        /**
+         * Creates the column to replace this one when the specified
+         * value may not be stored here.
+         */
+        Column widen(Object value, int rowCount, int capacity) {
+
+            ObjectColumn column = new ObjectColumn(capacity);
+            copyInto(column, rowCount);
+            return column;
+        }
+
+        protected void copyInto(Column column, int rowCount) {
+
+            for (int i = 0; i < rowCount; i++) {
+
+                if (isNull(i)) {
+
+                    column.setNull(i);
+
+                } else {
+
+                    column.set(i, get(i));
+                }
+
+            }
+
+        }
+
+    }
+
+    /** column holding nothing but nulls so far */
+    private static final class UntypedColumn extends Column {
+
+        @Override
+        boolean set(int row, Object value) {
+
+            return false;
+        }
+
+        @Override
+        Object get(int row) {
+
+            return null;
+        }
+
+        @Override
+        boolean isNull(int row) {
+
+            return true;
+        }
+
+        @Override
+        void ensureCapacity(int capacity) {}
+
+        @Override
+        Column widen(Object value, int rowCount, int capacity) {
+
+            Column column;
+            Class<?> type = value.getClass();
+            if (type == Integer.class) {
+
+                column = new IntColumn(capacity);
+
+            } else if (type == Long.class) {
+
+                column = new LongColumn(capacity);
+
+            } else if (type == Double.class) {
+
+                column = new DoubleColumn(capacity);
+
+            } else if (type == Boolean.class) {
+
+                column = new BooleanColumn();
+
+            } else if (type == String.class) {
+
+                column = new StringColumn(capacity);
+
+            } else {
+
+                column = new ObjectColumn(capacity);
+            }
+
+            column.nulls.set(0, rowCount);
+            return column;
+        }
+
+    }
+
+    private static final class IntColumn extends Column {
+
+        private int[] values;
+
+        IntColumn(int capacity) {
+
+            values = new int[capacity];
+        }
+
+        @Override
+        boolean set(int row, Object value) {
+
+            if (value.getClass() != Integer.class) {
+
+                return false;
+            }
+
+            values[row] = (Integer) value;
+            nulls.clear(row);
+            return true;
+        }
+
+        @Override
+        Object get(int row) {
+
+            return isNull(row) ? null : Integer.valueOf(values[row]);
+        }
+
+        @Override
+        void ensureCapacity(int capacity) {
+
+            if (values.length != capacity) {
+
+                values = Arrays.copyOf(values, capacity);
+            }
+        }
+
+    }
+
+    private static final class LongColumn extends Column {
+
+        private long[] values;
+
+        LongColumn(int capacity) {
+
+            values = new long[capacity];
+        }
+
+        @Override
+        boolean set(int row, Object value) {
+
+            if (value.getClass() != Long.class) {
+
+                return false;
+            }
+
+            values[row] = (Long) value;
+            nulls.clear(row);
+            return true;
+        }
+
+        @Override
+        Object get(int row) {
+
+            return isNull(row) ? null : Long.valueOf(values[row]);
+        }
+
+        @Override
+        void ensureCapacity(int capacity) {
+
+            if (values.length != capacity) {
+
+                values = Arrays.copyOf(values, capacity);
+            }
+        }
+
+    }
+
+    private static final class DoubleColumn extends Column {
+
+        private double[] values;
+
+        DoubleColumn(int capacity) {
+
+            values = new double[capacity];
+        }
+
+        @Override
+        boolean set(int row, Object value) {
+
+            if (value.getClass() != Double.class) {
+
+                return false;
+            }
+
+            values[row] = (Double) value;
+            nulls.clear(row);
+            return true;
+        }
+
+        @Override
+        Object get(int row) {
+
+            return isNull(row) ? null : Double.valueOf(values[row]);
+        }
+
+        @Override
+        void ensureCapacity(int capacity) {
+
+            if (values.length != capacity) {
+
+                values = Arrays.copyOf(values, capacity);
+            }
+        }
+
+    }
+
+    private static final class BooleanColumn extends Column {
+
+        private final BitSet values = new BitSet();
+
+        @Override
+        boolean set(int row, Object value) {
+
+            if (value.getClass() != Boolean.class) {
+
+                return false;
+            }
+
+            values.set(row, (Boolean) value);
+            nulls.clear(row);
+            return true;
+        }
+
+        @Override
+        Object get(int row) {
+
+            return isNull(row) ? null : Boolean.valueOf(values.get(row));
+        }
+
+        @Override
+        void ensureCapacity(int capacity) {}
+
+    }
+
+    /**
+     * Dictionary encoded string column. Once the dictionary grows
+     * beyond the point where it saves anything the column is widened
+     * to a plain object column on the next new value.
+     */
+    private static final class StringColumn extends Column {
+
+        private static final int MAX_DICTIONARY_SIZE = 1 << 16;
+
+        private int[] codes;
+
+        private List<String> dictionary;
+
+        private Map<String, Integer> index;
+
+        private int maxRow;
+
+        StringColumn(int capacity) {
+
+            codes = new int[capacity];
+            dictionary = new ArrayList<String>();
+            index = new HashMap<String, Integer>();
+        }
+
+        @Override
+        boolean set(int row, Object value) {
+
+            if (value.getClass() != String.class) {
+
+                return false;
+            }
+
+            if (index == null) {
+
+                rebuildIndex();
+            }
+
+            Integer code = index.get(value);
+            if (code == null) {
+
+                if (dictionaryExhausted()) {
+
+                    return false;
+                }
+
+                code = dictionary.size();
+                dictionary.add((String) value);
+                index.put((String) value, code);
+            }
+
+            codes[row] = code;
+            nulls.clear(row);
+            maxRow = Math.max(maxRow, row);
+            return true;
+        }
+
+        private boolean dictionaryExhausted() {
+
+            int size = dictionary.size();
+            return size >= MAX_DICTIONARY_SIZE && size > (maxRow >> 1);
+        }
+
+        @Override
+        Object get(int row) {
+
+            return isNull(row) ? null : dictionary.get(codes[row]);
+        }
+
+        @Override
+        void ensureCapacity(int capacity) {
+
+            if (codes.length != capacity) {
+
+                codes = Arrays.copyOf(codes, capacity);
+            }
+        }
+
+        @Override
+        void trim() {
+
+            // the lookup index is only needed while values are added
+            index = null;
+        }
+
+        private void rebuildIndex() {
+
+            index = new HashMap<String, Integer>();
+            for (int i = 0, n = dictionary.size(); i < n; i++) {
+
+                index.put(dictionary.get(i), i);
+            }
+        }
+
+    }
+
+    private static final class ObjectColumn extends Column {
+
+        private Object[] values;
+
+        ObjectColumn(int capacity) {
+
+            values = new Object[capacity];
+        }
+
+        @Override
+        boolean set(int row, Object value) {
+
+            values[row] = value;
+            nulls.clear(row);
+            return true;
+        }
+
+        @Override
+        void setNull(int row) {
+
+            values[row] = null;
+            super.setNull(row);
+        }
+
+        @Override
+        Object get(int row) {
+
+            return values[row];
+        }
+
+        @Override
+        void ensureCapacity(int capacity) {
+
+            if (values.length != capacity) {
+
+                values = Arrays.copyOf(values, capacity);
+            }
+        }
+
+    }
+
+}
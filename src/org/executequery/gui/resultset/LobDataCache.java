@@ -0,0 +1,171 @@
+/*
+ * LobDataCache.java
+ *
+ * Copyright (C) 2002-2017 Takis Diakoumis
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.executequery.gui.resultset;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.executequery.UserPreferencesManager;
+
+/**
+ * Least recently used cache of LOB content read for result set cells.
+ * <p/>
+ * Shared by all open result sets and bounded by the user defined
+ * memory budget - once the total cached bytes exceed the budget the
+ * least recently viewed entries are dropped and will be read again
+ * from the server when next requested.
+ * <p/>
+ * Entries are keyed on the identity of the LOB value held by the
+ * result set rather than on the cell item, as cell items are created
+ * afresh each time a cell is read. Keys are weak so the content of a
+ * result set no longer open is dropped with it.
+ */
+final class LobDataCache {
+
+    private static final long BYTES_PER_MB = 1024L * 1024L;
+
+    private static final Map<Key, byte[]> CACHE =
+            new LinkedHashMap<Key, byte[]>(16, 0.75f, true);
+
+    private static final ReferenceQueue<Object> CLEARED = new ReferenceQueue<Object>();
+
+    private static long cachedBytes;
+
+    private LobDataCache() {}
+
+    static synchronized byte[] get(Object value) {
+
+        if (value == null) {
+
+            return null;
+        }
+
+        purge();
+        return CACHE.get(new Key(value, null));
+    }
+
+    static synchronized void put(Object value, byte[] data) {
+
+        long budget = budget();
+        if (value == null || data == null || data.length > budget) {
+
+            // larger than the whole budget - not worth evicting everything else
+            return;
+        }
+
+        purge();
+
+        byte[] previous = CACHE.put(new Key(value, CLEARED), data);
+        if (previous != null) {
+
+            cachedBytes -= previous.length;
+        }
+        cachedBytes += data.length;
+
+        Iterator<byte[]> values = CACHE.values().iterator();
+        while (cachedBytes > budget && values.hasNext()) {
+
+            cachedBytes -= values.next().length;
+            values.remove();
+        }
+
+    }
+
+    static synchronized void remove(Object value) {
+
+        if (value == null) {
+
+            return;
+        }
+
+        byte[] previous = CACHE.remove(new Key(value, null));
+        if (previous != null) {
+
+            cachedBytes -= previous.length;
+        }
+    }
+
+    /**
+     * Drops the entries of values no longer referenced.
+     */
+    private static void purge() {
+
+        Reference<?> reference;
+        while ((reference = CLEARED.poll()) != null) {
+
+            byte[] previous = CACHE.remove(reference);
+            if (previous != null) {
+
+                cachedBytes -= previous.length;
+            }
+        }
+
+    }
+
+    private static long budget() {
+
+        return Math.max(UserPreferencesManager.getResultSetLobCacheSize(), 0) * BYTES_PER_MB;
+    }
+
+    /**
+     * A weak reference to a LOB value matching another only
+     * while both refer to the same value.
+     */
+    private static final class Key extends WeakReference<Object> {
+
+        private final int hash;
+
+        Key(Object value, ReferenceQueue<Object> queue) {
+
+            super(value, queue);
+            hash = System.identityHashCode(value);
+        }
+
+        @Override
+        public int hashCode() {
+
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+
+            if (obj == this) {
+
+                return true;
+            }
+
+            if (!(obj instanceof Key)) {
+
+                return false;
+            }
+
+            Object value = get();
+            return value != null && value == ((Key) obj).get();
+        }
+
+    }
+
+}
@@ -36,6 +36,8 @@ public interface RecordDataItem extends TableCellValue {
 
 	int getDataType();
 
+	String getDataTypeName();
+
     String getName();
 
 	Object getDisplayValue();
@@ -23,25 +23,26 @@ package org.executequery.gui.resultset;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.math.BigDecimal;
-import java.net.MalformedURLException;
-import java.net.URL;
-import java.net.URLClassLoader;
 import java.sql.*;
 import java.text.ParseException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import biz.redsoft.IFBBlob;
 import biz.redsoft.IFBClob;
-import biz.redsoft.IFBDatabasePerformance;
 import org.apache.commons.lang.StringUtils;
 import org.executequery.databasemediators.DatabaseConnection;
 import org.executequery.databasemediators.QueryTypes;
 import org.executequery.databasemediators.spi.DefaultStatementExecutor;
 import org.executequery.databasemediators.spi.StatementExecutor;
+import org.executequery.datasource.FBPluginRegistry;
 import org.executequery.gui.ErrorMessagePublisher;
 import org.executequery.log.Log;
 import org.executequery.sql.SqlStatementResult;
+import org.executequery.util.ThreadUtils;
 import org.executequery.util.UserProperties;
 import org.underworldlabs.jdbc.DataSourceException;
 import org.underworldlabs.swing.table.AbstractSortableTableModel;
@@ -72,8 +73,14 @@ public class ResultSetTableModel extends AbstractSortableTableModel {
 
     private List<ResultSetColumnHeader> visibleColumnHeaders;
 
-    /** The table values */
-    private List<List<RecordDataItem>> tableData;
+    /** The table values held by column */
+    private ColumnarResultSetData tableData;
+
+    /**
+     * Row views handed out for editing or row level access - retained
+     * so that changes and row identity survive repaints
+     */
+    private Map<Integer, List<RecordDataItem>> materializedRows;
 
     /** result set meta data model */
     private ResultSetMetaDataTableModel metaDataTableModel;
@@ -82,6 +89,21 @@ public class ResultSetTableModel extends AbstractSortableTableModel {
 
     private String query;
 
+    /** rows fetched per page when paging the result set - zero to fetch all */
+    private int pageSize;
+
+    /** the result set being paged where more rows remain to be fetched */
+    private volatile ResultSet pagedResultSet;
+
+    /** the number of records fetched so far */
+    private int fetchedRecordCount;
+
+    /** indicates a page is currently being fetched */
+    private volatile boolean fetching;
+
+    /** advanced as the paged result set is closed, so a page read from it is dropped */
+    private final AtomicInteger pagedGeneration = new AtomicInteger();
+
     public ResultSetTableModel() {
 
         this(null, -1);
@@ -99,13 +121,31 @@ public class ResultSetTableModel extends AbstractSortableTableModel {
 
     public ResultSetTableModel(ResultSet resultSet, int maxRecords, String query) {
 
+        this(resultSet, maxRecords, query, 0);
+    }
+
+    /**
+     * Creates a new model over the specified result set. Where a page
+     * size is provided only the first page of rows is read initially,
+     * with the remaining rows retrieved on request using
+     * <code>fetchMoreRows()</code>.
+     *
+     * @param resultSet the result set
+     * @param maxRecords the maximum records to retrieve
+     * @param query the executed query
+     * @param pageSize the rows to retrieve per page - zero to retrieve all rows
+     */
+    public ResultSetTableModel(ResultSet resultSet, int maxRecords, String query, int pageSize) {
+
         this.maxRecords = maxRecords;
         this.query = query;
+        this.pageSize = pageSize;
 
         columnHeaders = new ArrayList<ResultSetColumnHeader>();
         visibleColumnHeaders = new ArrayList<ResultSetColumnHeader>();
 
-        tableData = new ArrayList<List<RecordDataItem>>();
+        tableData = new ColumnarResultSetData(0);
+        materializedRows = new HashMap<Integer, List<RecordDataItem>>();
         recordDataItemFactory = new RecordDataItemFactory();
 
         holdMetaData = UserProperties.getInstance().getBooleanProperty("editor.results.metadata");
@@ -119,9 +159,16 @@ public class ResultSetTableModel extends AbstractSortableTableModel {
 
     public ResultSetTableModel(List<String> columnHeaders, List<List<RecordDataItem>> tableData) {
 
-        this.tableData = tableData;
-        this.columnHeaders = createHeaders(columnHeaders);
+        this.columnHeaders = createHeaders(columnHeaders, tableData.isEmpty() ? null : tableData.get(0));
+        this.tableData = new ColumnarResultSetData(columnHeaders.size());
+        materializedRows = new HashMap<Integer, List<RecordDataItem>>();
+        recordDataItemFactory = new RecordDataItemFactory();
         visibleColumnHeaders = new ArrayList<ResultSetColumnHeader>();
+
+        for (List<RecordDataItem> row : tableData) {
+
+            AddRow(row);
+        }
         resetVisibleColumnHeaders();
     }
 
@@ -130,13 +177,23 @@ public class ResultSetTableModel extends AbstractSortableTableModel {
         return columnHeaders;
     }
 
-    private List<ResultSetColumnHeader> createHeaders(List<String> columnHeaders) {
+    private List<ResultSetColumnHeader> createHeaders(List<String> columnHeaders, List<RecordDataItem> typedRow) {
 
         int index = 0;
         List<ResultSetColumnHeader> list = new ArrayList<ResultSetColumnHeader>();
         for (String columnHeader : columnHeaders) {
 
-            list.add(new ResultSetColumnHeader(index++, columnHeader));
+            if (typedRow != null && index < typedRow.size()) {
+
+                RecordDataItem item = typedRow.get(index);
+                list.add(new ResultSetColumnHeader(index++, columnHeader, columnHeader,
+                        item.getDataType(), item.getDataTypeName()));
+
+            } else {
+
+                list.add(new ResultSetColumnHeader(index++, columnHeader));
+            }
+
         }
 
         return list;
@@ -148,6 +205,8 @@ public class ResultSetTableModel extends AbstractSortableTableModel {
 
     public synchronized void createTable(ResultSet resultSet) {
 
+        closeResultSet();
+
         if (!isOpenAndValid(resultSet)) {
 
             clearData();
@@ -161,10 +220,10 @@ public class ResultSetTableModel extends AbstractSortableTableModel {
 
             columnHeaders.clear();
             visibleColumnHeaders.clear();
-            tableData.clear();
 
             int zeroBaseIndex = 0;
             int count = rsmd.getColumnCount();
+            resetTableData(count);
             for (int i = 1; i <= count; i++) {
 
                 zeroBaseIndex = i - 1;
@@ -185,7 +244,6 @@ public class ResultSetTableModel extends AbstractSortableTableModel {
                 setMetaDataVectors(rsmd);
             }
 
-            List<RecordDataItem> rowData;
             long time = System.currentTimeMillis();
             while (resultSet.next()) {
 
@@ -195,174 +253,34 @@ public class ResultSetTableModel extends AbstractSortableTableModel {
                 }
 
                 recordCount++;
-                rowData = new ArrayList<RecordDataItem>(count);
+                int row = tableData.addRow();
 
                 for (int i = 1; i <= count; i++) {
 
                     zeroBaseIndex = i - 1;
+                    int dataType = columnHeaders.get(zeroBaseIndex).getDataType();
+                    tableData.setValue(row, zeroBaseIndex, readValue(resultSet, dataType, i));
+                }
 
-                    ResultSetColumnHeader header = columnHeaders.get(zeroBaseIndex);
-                	RecordDataItem value = recordDataItemFactory.create(header);
-
-                    try {
-
-                        int dataType = header.getDataType();
-                        switch (dataType) {
-
-                            // some drivers (informix for example)
-                            // was noticed to return the hashcode from
-                            // getObject for -1 data types (eg. longvarchar).
-                            // force string for these - others stick with
-                            // getObject() for default value formatting
-
-                            case Types.CHAR:
-                            case Types.VARCHAR:
-                                value.setValue(resultSet.getString(i));
-                                break;
-                            case Types.DATE:
-                                value.setValue(resultSet.getDate(i));
-                                break;
-                            case Types.TIME:
-                                value.setValue(resultSet.getTime(i));
-                                break;
-                            case Types.TIMESTAMP:
-                                value.setValue(resultSet.getTimestamp(i));
-                                break;
-                            case Types.LONGVARCHAR:
-                            case Types.CLOB:
-                                Clob clob = resultSet.getClob(i);
-                                if (clob.getClass().getName().contains("org.firebirdsql.jdbc")) {
-                                    URL[] urls = new URL[0];
-                                    Class clazzdb = null;
-                                    Object odb = null;
-                                    try {
-                                        urls = MiscUtils.loadURLs("./lib/fbplugin-impl.jar");
-                                        ClassLoader cl = new URLClassLoader(urls, resultSet.getStatement().getConnection().getClass().getClassLoader());
-                                        clazzdb = cl.loadClass("biz.redsoft.FBClobImpl");
-                                        odb = clazzdb.newInstance();
-                                    } catch (ClassNotFoundException e) {
-                                        e.printStackTrace();
-                                    } catch (IllegalAccessException e) {
-                                        e.printStackTrace();
-                                    } catch (InstantiationException e) {
-                                        e.printStackTrace();
-                                    } catch (MalformedURLException e) {
-                                        e.printStackTrace();
-                                    }
-
-                                    IFBClob ifbClob = (IFBClob)odb;
-                                    ifbClob.detach(clob);
-                                    value.setValue(ifbClob);
-                                } else {
-                                    value.setValue(clob);
-                                }
-                                break;
-                            case Types.LONGVARBINARY:
-                            case Types.VARBINARY:
-                            case Types.BINARY:
-                                value.setValue(resultSet.getBytes(i));
-                                break;
-                            case Types.BLOB:
-                                Blob blob = resultSet.getBlob(i);
-                                if (blob.getClass().getName().contains("org.firebirdsql.jdbc")) {
-                                    URL[] urls = new URL[0];
-                                    Class clazzdb = null;
-                                    Object odb = null;
-                                    try {
-                                        urls = MiscUtils.loadURLs("./lib/fbplugin-impl.jar");
-                                        ClassLoader cl = new URLClassLoader(urls, resultSet.getStatement().getConnection().getClass().getClassLoader());
-                                        clazzdb = cl.loadClass("biz.redsoft.FBBlobImpl");
-                                        odb = clazzdb.newInstance();
-                                    } catch (ClassNotFoundException e) {
-                                        e.printStackTrace();
-                                    } catch (IllegalAccessException e) {
-                                        e.printStackTrace();
-                                    } catch (InstantiationException e) {
-                                        e.printStackTrace();
-                                    } catch (MalformedURLException e) {
-                                        e.printStackTrace();
-                                    }
-
-                                    IFBBlob ifbBlob = (IFBBlob)odb;
-                                    ifbBlob.detach(blob);
-                                    value.setValue(ifbBlob);
-                                } else {
-                                    value.setValue(blob);
-                                }
-                                break;
-                            case Types.BIT:
-                            case Types.TINYINT:
-                            case Types.SMALLINT:
-                            case Types.INTEGER:
-                            case Types.BIGINT:
-                            case Types.FLOAT:
-                            case Types.REAL:
-                            case Types.DOUBLE:
-                            case Types.NUMERIC:
-                            case Types.DECIMAL:
-                            case Types.NULL:
-                            case Types.OTHER:
-                            case Types.JAVA_OBJECT:
-                            case Types.DISTINCT:
-                            case Types.STRUCT:
-                            case Types.ARRAY:
-                            case Types.REF:
-                            case Types.DATALINK:
-                            case Types.BOOLEAN:
-                            case Types.ROWID:
-                            case Types.NCHAR:
-                            case Types.NVARCHAR:
-                            case Types.LONGNVARCHAR:
-                            case Types.NCLOB:
-                            case Types.SQLXML:
-
-                                // use getObject for all other known types
-
-                                value.setValue(resultSet.getObject(i));
-                                break;
-
-                            default:
-
-                                // otherwise try as string
-
-                                asStringOrObject(value, resultSet, i);
-                                break;
-                        }
-
-                    } catch (Exception e) {
-
-                        try {
-
-                            // ... and on dump, resort to string
-                            value.setValue(resultSet.getString(i));
-
-                        } catch (SQLException sqlException) {
-
-                            // catch-all SQLException - yes, this is hideous
-
-                            // noticed with invalid date formatted values in mysql
-
-                            value.setValue("<Error - " + sqlException.getMessage() + ">");
-                        }
-                    }
-
-                    if (resultSet.wasNull()) {
-
-                        value.setNull();
-                    }
+                if (recordCount == maxRecords) {
 
-                    rowData.add(value);
+                    break;
                 }
 
-                tableData.add(rowData);
-
-                if (recordCount == maxRecords) {
+                if (recordCount == pageSize) {
 
+                    pagedResultSet = resultSet;
                     break;
                 }
 
             }
 
+            fetchedRecordCount = recordCount;
+            if (pagedResultSet == null) {
+
+                tableData.trimToSize();
+            }
+
             if (Log.isTraceEnabled()) {
 
                 Log.trace("Finished populating table model - " + recordCount + " rows - [ "
@@ -373,11 +291,13 @@ public class ResultSetTableModel extends AbstractSortableTableModel {
 
         } catch (SQLException e) {
 
+            pagedResultSet = null;
             System.err.println("SQL error populating table model at: " + e.getMessage());
             Log.debug("Table model error - " + e.getMessage(), e);
 
         } catch (Exception e) {
 
+            pagedResultSet = null;
             if (e instanceof InterruptedException) {
 
                 Log.debug("ResultSet generation interrupted.", e);
@@ -399,23 +319,333 @@ public class ResultSetTableModel extends AbstractSortableTableModel {
 
         } finally {
 
-            if (resultSet != null) {
+            if (pagedResultSet != resultSet) {
+
+                close(resultSet);
+            }
+        }
+
+    }
+
+    /**
+     * Returns whether the result set is being paged and
+     * further rows remain to be fetched.
+     */
+    public boolean hasMoreRows() {
+
+        return pagedResultSet != null;
+    }
+
+    /**
+     * Fetches the next page of rows from the paged result set using a
+     * worker thread. The rows are added to the model from the EDT once
+     * the page has been read.
+     */
+    public void fetchMoreRows() {
+
+        if (fetching || !hasMoreRows()) {
+
+            return;
+        }
+
+        fetching = true;
+        final ResultSet resultSet = pagedResultSet;
+        final int generation = pagedGeneration.get();
+
+        final int count = tableData.getColumnCount();
+        final int[] dataTypes = new int[count];
+        for (int i = 0; i < count; i++) {
+
+            dataTypes[i] = columnHeaders.get(i).getDataType();
+        }
+
+        int rowsToFetch = pageSize;
+        if (maxRecords > 0) {
+
+            rowsToFetch = Math.min(pageSize, maxRecords - fetchedRecordCount);
+        }
+        final int pageRows = rowsToFetch;
+
+        ThreadUtils.startWorker(new Runnable() {
 
+            public void run() {
+
+                final List<Object[]> rows = new ArrayList<Object[]>();
+                SQLException error = null;
                 try {
 
-                    Statement statement = resultSet.getStatement();
-                    resultSet.close();
+                    readPage(resultSet, dataTypes, pageRows, rows);
+
+                } catch (SQLException e) {
+
+                    if (generation == pagedGeneration.get()) {
 
-                    if (statement != null) {
+                        Log.error("Error fetching result set page - " + e.getMessage(), e);
+                        closeResultSet(resultSet);
+                        error = e;
 
-                        statement.close();
+                    } else {
+
+                        // closed with the model reset while the page was read
+                        Log.debug("Result set page fetch ended by close - " + e.getMessage());
                     }
 
-                } catch (SQLException e) {}
+                }
 
+                final SQLException fetchError = error;
+                ThreadUtils.invokeLater(new Runnable() {
+
+                    public void run() {
+
+                        if (generation != pagedGeneration.get()) {
+
+                            // the model holds other results now
+                            return;
+                        }
+
+                        appendRows(rows);
+                        fetching = false;
+
+                        if (fetchError != null) {
+
+                            // rows read before the error are kept - the result is truncated
+                            ErrorMessagePublisher.publish("Error fetching further rows - the result set "
+                                    + "shown is incomplete after " + getRowCount() + " rows.\n"
+                                    + fetchError.getMessage(), fetchError);
+                        }
+
+                    }
+
+                });
+            }
+
+        });
+
+    }
+
+    /**
+     * Reads the next page of the specified result set into the
+     * specified rows, closing it once no further rows remain.
+     */
+    private void readPage(ResultSet resultSet, int[] dataTypes,
+            int rowsToFetch, List<Object[]> rows) throws SQLException {
+
+        int count = dataTypes.length;
+
+        long time = System.currentTimeMillis();
+        while (rows.size() < rowsToFetch && !interrupted && resultSet.next()) {
+
+            Object[] row = new Object[count];
+            for (int i = 0; i < count; i++) {
+
+                row[i] = readValue(resultSet, dataTypes[i], i + 1);
+            }
+            rows.add(row);
+        }
+
+        if (Log.isTraceEnabled()) {
+
+            Log.trace("Fetched result set page - " + rows.size() + " rows - [ "
+                    + MiscUtils.formatDuration(System.currentTimeMillis() - time) + "]");
+        }
+
+        if (rows.size() < pageSize || interrupted) {
+
+            closeResultSet(resultSet);
+        }
+
+    }
+
+    private void appendRows(List<Object[]> rows) {
+
+        if (rows.isEmpty()) {
+
+            return;
+        }
+
+        int firstRow = tableData.getRowCount();
+        for (Object[] values : rows) {
+
+            int row = tableData.addRow();
+            for (int i = 0; i < values.length; i++) {
+
+                tableData.setValue(row, i, values[i]);
+            }
+        }
+
+        fetchedRecordCount += rows.size();
+        if (!hasMoreRows()) {
+
+            tableData.trimToSize();
+        }
+
+        fireTableRowsInserted(firstRow, tableData.getRowCount() - 1);
+    }
+
+    /**
+     * Closes the paged result set and its statement where
+     * rows remain that have not been fetched.
+     */
+    public void closeResultSet() {
+
+        // pages being read are dropped
+        pagedGeneration.incrementAndGet();
+        fetching = false;
+
+        ResultSet resultSet = pagedResultSet;
+        if (resultSet != null) {
+
+            closeResultSet(resultSet);
+        }
+    }
+
+    private void closeResultSet(ResultSet resultSet) {
+
+        if (pagedResultSet == resultSet) {
+
+            pagedResultSet = null;
+        }
+        close(resultSet);
+    }
+
+    private void close(ResultSet resultSet) {
+
+        if (resultSet != null) {
+
+            try {
+
+                Statement statement = resultSet.getStatement();
+                resultSet.close();
+
+                if (statement != null) {
+
+                    statement.close();
+                }
+
+            } catch (SQLException e) {}
+
+        }
+    }
+
+    /**
+     * Reads the value at the specified column of the current
+     * result set row. SQL NULL is returned as null.
+     */
+    private Object readValue(ResultSet resultSet, int dataType, int i) throws SQLException {
+
+        Object value = null;
+
+        try {
+
+            switch (dataType) {
+
+                // some drivers (informix for example)
+                // was noticed to return the hashcode from
+                // getObject for -1 data types (eg. longvarchar).
+                // force string for these - others stick with
+                // getObject() for default value formatting
+
+                case Types.CHAR:
+                case Types.VARCHAR:
+                    value = resultSet.getString(i);
+                    break;
+                case Types.DATE:
+                    value = resultSet.getDate(i);
+                    break;
+                case Types.TIME:
+                    value = resultSet.getTime(i);
+                    break;
+                case Types.TIMESTAMP:
+                    value = resultSet.getTimestamp(i);
+                    break;
+                case Types.LONGVARCHAR:
+                case Types.CLOB:
+                    Clob clob = resultSet.getClob(i);
+                    if (clob.getClass().getName().contains("org.firebirdsql.jdbc")) {
+                        IFBClob ifbClob = FBPluginRegistry.createClob(clob);
+                        ifbClob.detach(clob);
+                        value = ifbClob;
+                    } else {
+                        value = clob;
+                    }
+                    break;
+                case Types.LONGVARBINARY:
+                case Types.VARBINARY:
+                case Types.BINARY:
+                    value = resultSet.getBytes(i);
+                    break;
+                case Types.BLOB:
+                    Blob blob = resultSet.getBlob(i);
+                    if (blob.getClass().getName().contains("org.firebirdsql.jdbc")) {
+                        IFBBlob ifbBlob = FBPluginRegistry.createBlob(blob);
+                        ifbBlob.detach(blob);
+                        value = ifbBlob;
+                    } else {
+                        value = blob;
+                    }
+                    break;
+                case Types.BIT:
+                case Types.TINYINT:
+                case Types.SMALLINT:
+                case Types.INTEGER:
+                case Types.BIGINT:
+                case Types.FLOAT:
+                case Types.REAL:
+                case Types.DOUBLE:
+                case Types.NUMERIC:
+                case Types.DECIMAL:
+                case Types.NULL:
+                case Types.OTHER:
+                case Types.JAVA_OBJECT:
+                case Types.DISTINCT:
+                case Types.STRUCT:
+                case Types.ARRAY:
+                case Types.REF:
+                case Types.DATALINK:
+                case Types.BOOLEAN:
+                case Types.ROWID:
+                case Types.NCHAR:
+                case Types.NVARCHAR:
+                case Types.LONGNVARCHAR:
+                case Types.NCLOB:
+                case Types.SQLXML:
+
+                    // use getObject for all other known types
+
+                    value = resultSet.getObject(i);
+                    break;
+
+                default:
+
+                    // otherwise try as string
+
+                    value = asStringOrObject(resultSet, i);
+                    break;
             }
+
+        } catch (Exception e) {
+
+            try {
+
+                // ... and on dump, resort to string
+                value = resultSet.getString(i);
+
+            } catch (SQLException sqlException) {
+
+                // catch-all SQLException - yes, this is hideous
+
+                // noticed with invalid date formatted values in mysql
+
+                value = "<Error - " + sqlException.getMessage() + ">";
+            }
+        }
+
+        if (resultSet.wasNull()) {
+
+            value = null;
         }
 
+        return value;
     }
 
     public synchronized void createTableFromMetaData(ResultSet resultSet, DatabaseConnection dc) {
@@ -432,7 +662,6 @@ public class ResultSetTableModel extends AbstractSortableTableModel {
 
             columnHeaders.clear();
             visibleColumnHeaders.clear();
-            tableData.clear();
             String tableName = "";
             int zeroBaseIndex = 0;
             int g = 1;
@@ -460,6 +689,7 @@ public class ResultSetTableModel extends AbstractSortableTableModel {
                     st.close();
                 }
             int count = g - 1;
+            resetTableData(count);
 
             int recordCount = 0;
             interrupted = false;
@@ -493,7 +723,6 @@ public class ResultSetTableModel extends AbstractSortableTableModel {
             }
             sql += " FROM " + tableName;
             resultSet = executor.execute(QueryTypes.SELECT, sql).getResultSet();
-            List<RecordDataItem> rowData;
             long time = System.currentTimeMillis();
 
             while (resultSet.next()) {
@@ -504,14 +733,14 @@ public class ResultSetTableModel extends AbstractSortableTableModel {
                 }
 
                 recordCount++;
-                rowData = new ArrayList<RecordDataItem>(count);
+                int row = tableData.addRow();
 
                 for (int i = 1; i <= count; i++) {
 
                     zeroBaseIndex = i - 1;
 
                     ResultSetColumnHeader header = columnHeaders.get(zeroBaseIndex);
-                    RecordDataItem value = recordDataItemFactory.create(header);
+                    Object value = null;
 
                     try {
 
@@ -526,28 +755,28 @@ public class ResultSetTableModel extends AbstractSortableTableModel {
 
                             case Types.CHAR:
                             case Types.VARCHAR:
-                                value.setValue(resultSet.getString(i));
+                                value = resultSet.getString(i);
                                 break;
                             case Types.DATE:
-                                value.setValue(resultSet.getDate(i));
+                                value = resultSet.getDate(i);
                                 break;
                             case Types.TIME:
-                                value.setValue(resultSet.getTime(i));
+                                value = resultSet.getTime(i);
                                 break;
                             case Types.TIMESTAMP:
-                                value.setValue(resultSet.getTimestamp(i));
+                                value = resultSet.getTimestamp(i);
                                 break;
                             case Types.LONGVARCHAR:
                             case Types.CLOB:
-                                value.setValue(resultSet.getClob(i));
+                                value = resultSet.getClob(i);
                                 break;
                             case Types.LONGVARBINARY:
                             case Types.VARBINARY:
                             case Types.BINARY:
-                                value.setValue(resultSet.getBytes(i));
+                                value = resultSet.getBytes(i);
                                 break;
                             case Types.BLOB:
-                                value.setValue(resultSet.getBlob(i));
+                                value = resultSet.getBlob(i);
                                 break;
                             case Types.BIT:
                             case Types.TINYINT:
@@ -577,14 +806,14 @@ public class ResultSetTableModel extends AbstractSortableTableModel {
 
                                 // use getObject for all other known types
 
-                                value.setValue(resultSet.getObject(i));
+                                value = resultSet.getObject(i);
                                 break;
 
                             default:
 
                                 // otherwise try as string
 
-                                asStringOrObject(value, resultSet, i);
+                                value = asStringOrObject(resultSet, i);
                                 break;
                         }
 
@@ -593,7 +822,7 @@ public class ResultSetTableModel extends AbstractSortableTableModel {
                         try {
 
                             // ... and on dump, resort to string
-                            value.setValue(resultSet.getString(i));
+                            value = resultSet.getString(i);
 
                         } catch (SQLException sqlException) {
 
@@ -601,20 +830,18 @@ public class ResultSetTableModel extends AbstractSortableTableModel {
 
                             // noticed with invalid date formatted values in mysql
 
-                            value.setValue("<Error - " + sqlException.getMessage() + ">");
+                            value = "<Error - " + sqlException.getMessage() + ">";
                         }
                     }
 
                     if (resultSet.wasNull()) {
 
-                        value.setNull();
+                        value = null;
                     }
 
-                    rowData.add(value);
+                    tableData.setValue(row, zeroBaseIndex, value);
                 }
 
-                tableData.add(rowData);
-
                 if (recordCount == maxRecords) {
 
                     break;
@@ -622,6 +849,8 @@ public class ResultSetTableModel extends AbstractSortableTableModel {
 
             }
 
+            tableData.trimToSize();
+
             if (Log.isTraceEnabled()) {
 
                 Log.trace("Finished populating table model - " + recordCount + " rows - [ "
@@ -663,7 +892,7 @@ public class ResultSetTableModel extends AbstractSortableTableModel {
 
     }
 
-    private void asStringOrObject(RecordDataItem value, ResultSet resultSet, int column) throws SQLException {
+    private Object asStringOrObject(ResultSet resultSet, int column) throws SQLException {
 
         // often getString returns a more useful representation
         // return using getString where object.toString is the default impl
@@ -681,7 +910,7 @@ public class ResultSetTableModel extends AbstractSortableTableModel {
             }
         }
 
-        value.setValue(valueAsString);
+        return valueAsString;
     }
 
     private boolean isOpenAndValid(ResultSet resultSet) {
@@ -721,16 +950,22 @@ public class ResultSetTableModel extends AbstractSortableTableModel {
 
     private void clearData() {
 
+        resetTableData(0);
+        fireTableStructureChanged();
+    }
+
+    private void resetTableData(int columnCount) {
+
         if (tableData != null) {
 
-            tableData.clear();
+            tableData.reset(columnCount);
 
         } else {
 
-            tableData = new ArrayList<List<RecordDataItem>>(0);
+            tableData = new ColumnarResultSetData(columnCount);
         }
 
-        fireTableStructureChanged();
+        materializedRows.clear();
     }
 
     public void interrupt() {
@@ -906,7 +1141,7 @@ public class ResultSetTableModel extends AbstractSortableTableModel {
 
             return 0;
         }
-        return tableData.size();
+        return tableData.getRowCount();
     }
 
     public List<String> getColumnNames() {
@@ -922,13 +1157,88 @@ public class ResultSetTableModel extends AbstractSortableTableModel {
 
     public List<RecordDataItem> getRowDataForRow(int row) {
 
-        return tableData.get(row);
+        List<RecordDataItem> rowData = materializedRows.get(row);
+        if (rowData == null) {
+
+            rowData = createRowView(row);
+            materializedRows.put(row, rowData);
+        }
+
+        return rowData;
+    }
+
+    /**
+     * Returns a transient view of the specified row without retaining
+     * it in the model. Use getRowDataForRow for rows to be edited.
+     */
+    public List<RecordDataItem> getRowViewForRow(int row) {
+
+        List<RecordDataItem> rowData = materializedRows.get(row);
+        if (rowData != null) {
+
+            return rowData;
+        }
+
+        return createRowView(row);
+    }
+
+    private List<RecordDataItem> createRowView(int row) {
+
+        int count = tableData.getColumnCount();
+        List<RecordDataItem> rowData = new ArrayList<RecordDataItem>(count);
+        for (int i = 0; i < count; i++) {
+
+            rowData.add(createCellView(row, i));
+        }
+
+        return rowData;
+    }
+
+    private RecordDataItem createCellView(int row, int column) {
+
+        RecordDataItem value = recordDataItemFactory.create(columnHeaders.get(column));
+        value.setValue(tableData.getValue(row, column));
+
+        return value;
+    }
+
+    /**
+     * Returns the record data item at the specified row and model
+     * column index. Rows not yet handed out for editing are served
+     * from a transient view over the column store.
+     */
+    private RecordDataItem cellAt(int row, int column) {
+
+        List<RecordDataItem> rowData = materializedRows.get(row);
+        if (rowData != null) {
+
+            return rowData.get(column);
+        }
+
+        return createCellView(row, column);
+    }
+
+    /**
+     * Returns whether any value in the specified row contains the
+     * pattern without retaining a view of the row.
+     */
+    public boolean rowContains(int row, String pattern) {
+
+        for (int i = 0, n = tableData.getColumnCount(); i < n; i++) {
+
+            if (cellAt(row, i).valueContains(pattern)) {
+
+                return true;
+            }
+        }
+
+        return false;
     }
 
     @Override
     public void setValueAt(Object value, int row, int column) {
 
-        List<RecordDataItem> rowData = tableData.get(row);
+        List<RecordDataItem> rowData = getRowDataForRow(row);
         if (column < rowData.size()) {
 
             try {
@@ -967,12 +1277,11 @@ public class ResultSetTableModel extends AbstractSortableTableModel {
     @Override
     public Object getValueAt(int row, int column) {
 
-        if (row < tableData.size()) {
+        if (row < tableData.getRowCount()) {
 
-            List<RecordDataItem> rowData = tableData.get(row);
-            if (column < rowData.size()) {
+            if (column < tableData.getColumnCount()) {
 
-                return rowData.get(asVisibleColumnIndex(column));
+                return cellAt(row, asVisibleColumnIndex(column));
             }
         }
 
@@ -981,7 +1290,7 @@ public class ResultSetTableModel extends AbstractSortableTableModel {
 
     public Object getRowValueAt(int row) {
 
-        return tableData.get(row);
+        return getRowDataForRow(row);
     }
 
     private boolean cellsEditable;
@@ -999,7 +1308,7 @@ public class ResultSetTableModel extends AbstractSortableTableModel {
             return false;
         }
 
-        RecordDataItem recordDataItem = tableData.get(row).get(asVisibleColumnIndex(column));
+        RecordDataItem recordDataItem = cellAt(row, asVisibleColumnIndex(column));
         if (recordDataItem.isBlob()) {
 
             return false;
@@ -1044,7 +1353,11 @@ public class ResultSetTableModel extends AbstractSortableTableModel {
 
     public void AddRow(List<RecordDataItem> row)
     {
-        tableData.add(row);
+        int index = tableData.addRow();
+        for (int i = 0, n = Math.min(row.size(), tableData.getColumnCount()); i < n; i++) {
+
+            tableData.setValue(index, i, row.get(i).getValue());
+        }
     }
 
 
@@ -1062,12 +1375,12 @@ public class ResultSetTableModel extends AbstractSortableTableModel {
     @Override
     public Class<?> getColumnClass(int column) {
 
-        if (tableData.isEmpty()) {
+        if (tableData.getRowCount() == 0) {
 
             return String.class;
         }
 
-        RecordDataItem recordDataItem = tableData.get(0).get(column);
+        RecordDataItem recordDataItem = cellAt(0, column);
         if (recordDataItem.isValueNull()) {
 
             return String.class;
@@ -0,0 +1,365 @@
+/*
+ * SQLLexer.java
+ *
+ * Copyright (C) 2002-2017 Takis Diakoumis
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.executequery.gui.text.syntax;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.executequery.Constants;
+
+/**
+ * Scans SQL text a line at a time into tokens of the types of
+ * <code>TokenTypes</code> for syntax highlighting.
+ * <p/>
+ * The only construct spanning lines is the multi-line comment, so
+ * the state of the scan at the start of a line is either normal or
+ * within a comment. A line scanned from the same start state always
+ * yields the same tokens and end state - the document rescans from
+ * an edited line only until a line's start state is unchanged.
+ * <p/>
+ * Adjacent tokens of the same type are joined into one token so the
+ * tokens of a line map directly to the runs of a style applied.
+ */
+public class SQLLexer implements TokenTypes {
+
+    /** the start state of a line outside a comment */
+    public static final int NORMAL_STATE = 0;
+
+    /** the start state of a line within a multi-line comment */
+    public static final int COMMENT_STATE = 1;
+
+    private static final String[] LITERALS = {Constants.TRUE_LITERAL,
+                                              Constants.FALSE_LITERAL,
+                                              Constants.NULL_LITERAL};
+
+    private Set<String> keywords = new HashSet<String>();
+
+    private final Set<String> literals = new HashSet<String>();
+
+    public SQLLexer() {
+
+        for (String literal : LITERALS) {
+
+            literals.add(literal.toUpperCase());
+        }
+
+    }
+
+    /**
+     * Sets the keywords highlighted, matched regardless of case.
+     *
+     * @param keywords - the keywords list
+     */
+    public void setKeywords(List<String> keywords) {
+
+        Set<String> words = new HashSet<String>(keywords.size());
+        for (String keyword : keywords) {
+
+            words.add(keyword.trim().toUpperCase());
+        }
+
+        this.keywords = words;
+    }
+
+    /**
+     * Scans the line of the specified text from start to end adding its
+     * tokens to those specified. The line's new line character, where
+     * included, is part of the last token of the line. The token offsets
+     * are the text indices plus the specified offset.
+     *
+     * @param text - the text
+     * @param start - the start index of the line within the text
+     * @param end - the end index of the line within the text
+     * @param offset - the document offset of the text
+     * @param state - the start state of the line
+     * @param tokens - the tokens to add to
+     * @return the start state of the next line
+     */
+    public int scanLine(char[] text, int start, int end, int offset, int state, List<Token> tokens) {
+
+        int index = start;
+        if (state == COMMENT_STATE) {
+
+            index = scanComment(text, index, end);
+            addToken(tokens, COMMENT, start, index == -1 ? end : index, offset);
+            if (index == -1) {
+
+                return COMMENT_STATE;
+            }
+
+        }
+
+        while (index < end) {
+
+            char c = text[index];
+            int tokenStart = index;
+            int type;
+
+            if (c == '-' && isNext(text, index, end, '-')) {
+
+                type = SINGLE_LINE_COMMENT;
+                index = end;
+
+            } else if (c == '/' && isNext(text, index, end, '*')) {
+
+                index = scanComment(text, index + 2, end);
+                addToken(tokens, COMMENT, tokenStart, index == -1 ? end : index, offset);
+                if (index == -1) {
+
+                    return COMMENT_STATE;
+                }
+
+                continue;
+
+            } else if (c == '\'') {
+
+                type = STRING;
+                index = scanString(text, index + 1, end);
+
+            } else if (isIdentifierStart(c)) {
+
+                index = scanIdentifier(text, index + 1, end);
+                type = wordType(text, tokenStart, index);
+
+            } else if (isDigit(c)) {
+
+                type = NUMBER;
+                index = scanDigits(text, index + 1, end);
+                if (index + 1 < end && text[index] == '.' && isDigit(text[index + 1])) {
+
+                    index = scanDigits(text, index + 1, end);
+                }
+
+                // digits leading a word are part of the word
+                if (index < end && isIdentifierPart(text[index])) {
+
+                    type = WORD;
+                    index = scanIdentifier(text, index, end);
+                }
+
+            } else if (isBrace(c)) {
+
+                type = BRACKET;
+                index++;
+
+            } else if (isOperator(c)) {
+
+                type = OPERATOR;
+                index = scanOperator(text, index + 1, end);
+
+            } else {
+
+                type = WORD;
+                index++;
+            }
+
+            addToken(tokens, type, tokenStart, index, offset);
+        }
+
+        return NORMAL_STATE;
+    }
+
+    private void addToken(List<Token> tokens, int type, int start, int end, int offset) {
+
+        if (start == end) {
+
+            return;
+        }
+
+        int startIndex = start + offset;
+        int endIndex = end + offset;
+
+        int size = tokens.size();
+        if (size > 0) {
+
+            Token last = tokens.get(size - 1);
+            if (last.getStyle() == type && last.getEndIndex() == startIndex) {
+
+                last.setEndIndex(endIndex);
+                return;
+            }
+
+        }
+
+        tokens.add(new Token(type, startIndex, endIndex));
+    }
+
+    private int wordType(char[] text, int start, int end) {
+
+        String word = new String(text, start, end - start).toUpperCase();
+        if (literals.contains(word)) {
+
+            return LITERAL;
+        }
+
+        if (keywords.contains(word)) {
+
+            return KEYWORD;
+        }
+
+        return WORD;
+    }
+
+    /**
+     * Returns the index following the close of the comment or -1
+     * where it is not closed on the line.
+     */
+    private int scanComment(char[] text, int index, int end) {
+
+        for (int i = index; i < end - 1; i++) {
+
+            if (text[i] == '*' && text[i + 1] == '/') {
+
+                return i + 2;
+            }
+
+        }
+
+        return -1;
+    }
+
+    /**
+     * Returns the index following the close quote of the string
+     * or the line end where it is not closed - a quote within the
+     * string being doubled.
+     */
+    private int scanString(char[] text, int index, int end) {
+
+        while (index < end) {
+
+            if (text[index++] == '\'') {
+
+                if (index < end && text[index] == '\'') {
+
+                    index++;
+                    continue;
+                }
+
+                return index;
+            }
+
+        }
+
+        return end;
+    }
+
+    private int scanIdentifier(char[] text, int index, int end) {
+
+        while (index < end && isIdentifierPart(text[index])) {
+
+            index++;
+        }
+
+        return index;
+    }
+
+    private int scanDigits(char[] text, int index, int end) {
+
+        while (index < end && isDigit(text[index])) {
+
+            index++;
+        }
+
+        return index;
+    }
+
+    private int scanOperator(char[] text, int index, int end) {
+
+        while (index < end && isOperator(text[index])) {
+
+            // stop short of a following comment
+            char c = text[index];
+            if ((c == '-' && isNext(text, index, end, '-')) || (c == '/' && isNext(text, index, end, '*'))) {
+
+                break;
+            }
+
+            index++;
+        }
+
+        return index;
+    }
+
+    private boolean isNext(char[] text, int index, int end, char c) {
+
+        return index + 1 < end && text[index + 1] == c;
+    }
+
+    private boolean isIdentifierStart(char c) {
+
+        return Character.isLetter(c) || c == '_';
+    }
+
+    private boolean isIdentifierPart(char c) {
+
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$';
+    }
+
+    private boolean isDigit(char c) {
+
+        return c >= '0' && c <= '9';
+    }
+
+    private boolean isBrace(char c) {
+
+        switch (c) {
+            case '(':
+            case ')':
+            case '[':
+            case ']':
+            case '{':
+            case '}':
+                return true;
+        }
+        return false;
+    }
+
+    private boolean isOperator(char c) {
+
+        switch (c) {
+            case ';':
+            case '.':
+            case ',':
+            case '~':
+            case '?':
+            case ':':
+            case '+':
+            case '-':
+            case '&':
+            case '|':
+            case '\\':
+            case '!':
+            case '=':
+            case '*':
+            case '^':
+            case '%':
+            case '$':
+            case '/':
+            case '<':
+            case '>':
+                return true;
+        }
+        return false;
+    }
+
+}
+
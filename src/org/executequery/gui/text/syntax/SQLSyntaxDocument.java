@@ -23,17 +23,19 @@ package org.executequery.gui.text.syntax;
 import java.awt.Color;
 import java.awt.Font;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Vector;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.UndoableEditEvent;
 import javax.swing.text.AttributeSet;
 import javax.swing.text.BadLocationException;
 import javax.swing.text.DefaultEditorKit;
 import javax.swing.text.DefaultStyledDocument;
 import javax.swing.text.Element;
 import javax.swing.text.JTextComponent;
+import javax.swing.text.Segment;
 import javax.swing.text.Style;
 import javax.swing.text.StyleConstants;
 
@@ -65,12 +67,9 @@ public class SQLSyntaxDocument extends DefaultStyledDocument
 
     /** the current text insert mode */
     private int insertMode;
-    
-    /** tracks string literal entries (quotes) */
-    private List<Token> stringTokens;
 
-    /* syntax matchers */
-    private TokenMatcher[] matchers;
+    /** scans the text for the syntax styles */
+    private SQLLexer lexer;
 
     public SQLSyntaxDocument() {
         this(null, null);
@@ -87,85 +86,22 @@ public class SQLSyntaxDocument extends DefaultStyledDocument
         initStyles(false);
 
         braceTokens = new Vector<Token>();
-        stringTokens = new ArrayList<Token>();
 
         this.textComponent = textComponent;
 
-        initMatchers();
+        lexer = new SQLLexer();
         if (keys != null) {
             setSQLKeywords(keys, false);
         }
 
     }
 
-    protected void initMatchers() {
-        matchers = new TokenMatcher[MATCHERS.length];
-
-        matchers[NUMBER_MATCH] = 
-            new TokenMatcher(NUMBER,
-                             styles[NUMBER], 
-                             Pattern.compile(NUMBER_REGEX).
-                                                matcher(Constants.EMPTY));
-
-        matchers[BRACES_MATCH] = 
-            new TokenMatcher(BRACKET,
-                             styles[BRACKET], 
-                             Pattern.compile(BRACES_REGEX).
-                                                matcher(Constants.EMPTY));
-
-        matchers[OPERATOR_MATCH] = 
-            new TokenMatcher(OPERATOR,
-                             styles[OPERATOR], 
-                             Pattern.compile(OPERATOR_REGEX).
-                                                matcher(Constants.EMPTY));
-
-        matchers[STRING_MATCH] = 
-            new TokenMatcher(STRING,
-                             styles[STRING], 
-                             Pattern.compile(QUOTE_REGEX).
-                                                matcher(Constants.EMPTY));
-
-        matchers[SINGLE_LINE_COMMENT_MATCH] = 
-            new TokenMatcher(SINGLE_LINE_COMMENT,
-                             styles[SINGLE_LINE_COMMENT], 
-                             Pattern.compile(SINGLE_LINE_COMMENT_REGEX).
-                                                matcher(Constants.EMPTY));
-
-        char PIPE = '|';
-        StringBuilder sb = new StringBuilder("\\b(");
-        String[] literals = {Constants.TRUE_LITERAL,
-                             Constants.FALSE_LITERAL,
-                             Constants.NULL_LITERAL};
-        
-        for (int i = 0, n = literals.length - 1; i < literals.length; i++) {
-            sb.append(literals[i]);
-            if (i < n) {
-                sb.append(PIPE);
-            }
-        }
-
-        sb.append(")\\b");
-        matchers[LITERALS_MATCH] = 
-            new TokenMatcher(LITERAL,
-                             styles[LITERAL], 
-                             Pattern.compile(
-                                sb.toString(), Pattern.CASE_INSENSITIVE).
-                                            matcher(Constants.EMPTY));
-
-    }
-    
     public void setTextComponent(JTextComponent textComponent) {
         this.textComponent = textComponent;
     }
 
     public void resetAttributeSets() {
         initStyles(true);        
-        // update the stored tokens
-        for (int i = 0; i < matchers.length; i++) {
-            TokenMatcher matcher = matchers[i];
-            int type = matcher.getType();
-            matcher.setStyle(styles[type]);
-        }
     }
 
     public void setTabsToSpaces(boolean tabsToSpaces) {
@@ -430,7 +366,12 @@ public class SQLSyntaxDocument extends DefaultStyledDocument
         resetBracePosition();
         
         /* call super method and default to normal style */
-        super.insertString(offset, text, styles[WORD]);
+        changingText = true;
+        try {
+            super.insertString(offset, text, styles[WORD]);
+        } finally {
+            changingText = false;
+        }
 
         processChangedLines(offset, length);
         updateBraces(offset + 1);
@@ -455,7 +396,12 @@ public class SQLSyntaxDocument extends DefaultStyledDocument
         //Log.debug("remove");
 
         resetBracePosition();
-        super.remove(offset, length);
+        changingText = true;
+        try {
+            super.remove(offset, length);
+        } finally {
+            changingText = false;
+        }
         processChangedLines(offset, 0);
         
         if (offset > 0) {
@@ -465,314 +411,278 @@ public class SQLSyntaxDocument extends DefaultStyledDocument
 
     }
     
-    /** Mulit-line comment tokens from the last scan */
-    private List<Token> multiLineComments = new ArrayList<Token>();
-    
-    private void processChangedLines(int offset, int length)
-        throws BadLocationException {
+    /** the line start state of a line not yet scanned */
+    private static final int UNKNOWN_STATE = -1;
+
+    /** the number of restyled lines applied as one change */
+    private static final int RESTYLE_BATCH_SIZE = 1000;
+
+    /** the scan state at the start of each line */
+    private int[] lineStates = {SQLLexer.NORMAL_STATE};
+
+    /** the number of lines of the line states */
+    private int lineCount = 1;
+
+    /** whether the text is being changed by this document */
+    private boolean changingText;
+
+    /*
+     *  Keep the line start states in line with the lines - the line
+     *  at the change index starts where the first line replaced
+     *  started and so in the same state.
+     */
+    private void updateLineStates(DocumentEvent e) {
+
+        DocumentEvent.ElementChange change = e.getChange(rootElement);
+        if (change == null) {
 
-        int documentLength = getLength();
-        if (documentLength == 0) {
             return;
         }
-        
-        int tokenStart = -1;
-        int tokenEnd = 0;
-        int endOffset = offset + length;
-        String content = getText(0, documentLength);
 
-        // scan for multi-line comments
-        List<Token> tokens = new ArrayList<Token>();
-        while ((tokenStart = content.indexOf(OPEN_COMMENT, tokenEnd)) != -1) {
+        int index = change.getIndex();
+        int removed = change.getChildrenRemoved().length;
+        int added = change.getChildrenAdded().length;
 
-            tokenEnd = content.indexOf(CLOSE_COMMENT, tokenStart);
+        int state = (index < lineCount) ? lineStates[index] : UNKNOWN_STATE;
+        int count = lineCount - removed + added;
+        if (count > lineStates.length) {
 
-            if (tokenEnd != -1) {
-            
-                tokenEnd += 2;
-            }
+            int[] states = new int[Math.max(count, lineStates.length * 2)];
+            System.arraycopy(lineStates, 0, states, 0, index);
+            System.arraycopy(lineStates, index + removed, states, index + added, lineCount - index - removed);
+            lineStates = states;
 
-            tokens.add(new Token(tokenStart, tokenEnd));
-            
-            if (tokenEnd == -1) {
-                
-                break;
-            }
+        } else {
 
+            System.arraycopy(lineStates, index + removed, lineStates, index + added, lineCount - index - removed);
         }
 
-        // scan the lines for highlighting
-        scanLines(offset, length, content, documentLength, tokens);
+        Arrays.fill(lineStates, index, index + added, UNKNOWN_STATE);
+        if (added > 0) {
 
-        // scan multi comment tokens for apply/reapply
-        boolean applyStyle = true;
-        int tokenCount = tokens.size();
-        int lastTokenCount = multiLineComments.size();
+            lineStates[index] = state;
+        }
 
-        // check for multi-line comments that do not exist anymore
-        for (int j = 0; j < lastTokenCount; j++) {
-            Token lastToken = multiLineComments.get(j);
-            tokenStart = lastToken.getStartIndex();
-            tokenEnd = lastToken.getEndIndex();
+        lineCount = count;
+    }
 
-            applyStyle = true;
-            
-            for (int i = 0; i < tokenCount; i++) {
-                Token token = tokens.get(i);
-                if (token.equals(lastToken)) {
-                    applyStyle = false;
-                    break;
-                }
-            }
+    @Override
+    protected void fireInsertUpdate(DocumentEvent e) {
 
-            // reapply the styles to the portion from the last
-            // scan that no longer exists
-            if (applyStyle) {
-                
-                // if end was -1 set to the end of the document
-                if (tokenEnd == -1) {
-                    tokenEnd = documentLength - 1;
-                }
-                
-                scanLines(tokenStart, tokenEnd - tokenStart, 
-                          content, documentLength, tokens);
-            }
+        updateLineStates(e);
+        if (!changingText) {
+
+            // text changed by an undo or redo with its styles
+            // restored by the same - only the states are rescanned
+            rescanLineStates(e.getOffset(), e.getLength());
         }
 
-        // apply multi-line comment style where it did not exist before
-        for (int i = 0; i < tokenCount; i++) {
-            Token token = tokens.get(i);
-            tokenStart = token.getStartIndex();
-            tokenEnd = token.getEndIndex();
-
-            // if we have a dangling open comment
-            // apply to the rest of the document
-            if (token.getEndIndex() == -1) {
-                setCharacterAttributes(tokenStart,
-                                       content.length() - tokenStart,
-                                       styles[COMMENT], 
-                                       false);
-                break;
-            }
-            
-            applyStyle = true;
-            
-            // check the last multiline comments
-            for (int j = 0; j < lastTokenCount; j++) {
-                Token lastToken = multiLineComments.get(j);
-                
-                // check if the current token existed in the last scan
-                if (lastToken.equals(token)) {
-                    // style not applied if it did
-                    applyStyle = false;
-                    break;
-                }
-                // where previously there was no close comment tag
-                // reapply to the rest of the text from the current end
-                else if (lastToken.getEndIndex() == -1) {
-                    applyStyle = false;
-                    // rescan that section that was previously still open
-                    scanLines(tokenEnd, documentLength - tokenEnd,
-                              content, documentLength, tokens);
-                    break;
-                }
+        super.fireInsertUpdate(e);
+    }
 
-            }
+    @Override
+    protected void fireRemoveUpdate(DocumentEvent e) {
 
-            // check for the tokens intersecting the current offset
-            // and reapply to cover the comment correctly regardless 
-            // of the current state of the apply flag
-            if (token.intersects(offset, endOffset)) {
-                setCharacterAttributes(tokenStart,
-                                       token.getLength(),
-                                       styles[COMMENT], 
-                                       false);
-            }
-            else {
-                if (applyStyle) {
-
-                    // if we have a close tag
-                    if (tokenEnd > 0) {
-                        setCharacterAttributes(tokenStart,
-                                               token.getLength(),
-                                               styles[COMMENT], 
-                                               false);
-                    }
-                    // otherwise set style to the 
-                    // remainder of the document
-                    else {
-                        setCharacterAttributes(tokenStart,
-                                               content.length() - tokenStart,
-                                               styles[COMMENT], 
-                                               false);
-                    }
+        updateLineStates(e);
+        if (!changingText) {
 
-                }
-            }
+            rescanLineStates(e.getOffset(), 0);
+        }
 
+        super.fireRemoveUpdate(e);
+    }
+
+    private void rescanLineStates(int offset, int length) {
+
+        try {
+
+            scanLines(offset, length, false);
+
+        } catch (BadLocationException e) {
+
+            Log.debug("Error scanning line states", e);
         }
 
-        // reassign the multi-line comments list
-        multiLineComments = tokens;
     }
 
-    private void scanLines(int offset, int length, 
-                           String content, int documentLength, List<Token> tokens) {
+    private void processChangedLines(int offset, int length)
+        throws BadLocationException {
+
+        if (getLength() == 0) {
+            return;
+        }
+
+        try {
+            writeLock();
+            scanLines(offset, length, true);
+        } finally {
+            writeUnlock();
+        }
+
+    }
+
+    /**
+     * Scans the lines changed from the specified offset and length on
+     * until the start state of a following line is unchanged, restyling
+     * the lines scanned where specified.
+     */
+    private void scanLines(int offset, int length, boolean restyle)
+        throws BadLocationException {
 
-        // The lines affected by the latest document update
-        int startLine = rootElement.getElementIndex(offset);
+        int line = rootElement.getElementIndex(offset);
         int endLine = rootElement.getElementIndex(offset + length);
 
-        boolean applyStyle = true;
-        int tokenCount = tokens.size();
+        // step back to a line scanned where this one is not
+        while (line > 0 && lineStates[line] == UNKNOWN_STATE) {
+            line--;
+        }
+
+        int state = lineStates[line];
+        if (state == UNKNOWN_STATE) {
+            state = SQLLexer.NORMAL_STATE;
+            lineStates[line] = state;
+        }
+
+        int documentLength = getLength();
+        Segment segment = new Segment();
+        segment.setPartialReturn(false);
+
+        List<Token> tokens = new ArrayList<Token>();
+        List<Element> restyledLines = new ArrayList<Element>();
+        List<Element[]> restyledRuns = new ArrayList<Element[]>();
+
+        for (int count = rootElement.getElementCount(); line < count; ) {
 
-        for (int i = startLine; i <= endLine; i++) {
-            Element element = rootElement.getElement(i);
+            Element element = rootElement.getElement(line);
             int startOffset = element.getStartOffset();
-            int endOffset = element.getEndOffset() - 1;            
-            
-            if (endOffset < 0) {
-                endOffset = 0;
+            int endOffset = Math.min(element.getEndOffset(), documentLength);
+
+            getText(startOffset, endOffset - startOffset, segment);
+
+            tokens.clear();
+            state = lexer.scanLine(segment.array,
+                                   segment.offset,
+                                   segment.offset + segment.count,
+                                   startOffset - segment.offset,
+                                   state,
+                                   tokens);
+
+            if (restyle && !isStyled(element, tokens)) {
+
+                restyledLines.add(element);
+                restyledRuns.add(createRuns(element, tokens));
+
+                if (restyledLines.size() == RESTYLE_BATCH_SIZE) {
+
+                    applyRuns(restyledLines, restyledRuns);
+                }
+
             }
 
-            applyStyle = true;
-            for (int j = 0; j < tokenCount; j++) {
-                Token token = tokens.get(j);
-                if (token.contains(startOffset, endOffset)) {
-                    applyStyle = false;
+            line++;
+            if (line < count) {
+
+                if (line > endLine && lineStates[line] == state) {
                     break;
                 }
-            }
 
-            if (applyStyle) {
-                String textSnippet = content.substring(startOffset, endOffset);
-                applySyntaxColours(textSnippet, 
-                                   startOffset, 
-                                   endOffset, 
-                                   documentLength);
+                lineStates[line] = state;
             }
+
         }
+
+        applyRuns(restyledLines, restyledRuns);
     }
-    
-    private void applySyntaxColours(String text,  
-                                    int startOffset, 
-                                    int endOffset,
-                                    int contentLength) {
-
-        int lineLength = endOffset - startOffset;
-//        if (endOffset >= contentLength) {
-//            endOffset = contentLength - 1;
-//        }
-
-        // set the plain style
-        setCharacterAttributes(startOffset, lineLength, styles[WORD], false);
-
-        for (int i = 0; i < matchers.length; i++) {
-            if (matchers[i] != null) { // check case keywords not initialised
-                applyHighlights(i,
-                                text, 
-                                startOffset,
-                                matchers[i].getMatcher(),
-                                matchers[i].getStyle(),
-                                (i == SINGLE_LINE_COMMENT_MATCH));
+
+    /**
+     * Returns whether the runs of the specified line are those
+     * of the specified tokens.
+     */
+    private boolean isStyled(Element line, List<Token> tokens) {
+
+        int count = line.getElementCount();
+        if (count != tokens.size() || count == 0) {
+            return false;
+        }
+
+        for (int i = 0; i < count; i++) {
+
+            Element run = line.getElement(i);
+            Token token = tokens.get(i);
+
+            int endIndex = (i == count - 1) ? line.getEndOffset() : token.getEndIndex();
+            if (run.getStartOffset() != token.getStartIndex()
+                    || run.getEndOffset() != endIndex
+                    || !run.getAttributes().isEqual(styles[token.getStyle()])) {
+                return false;
             }
+
         }
 
+        return true;
     }
 
-    private void applyHighlights(int matcherType,
-                                 String text, 
-                                 int startOffset, 
-                                 Matcher matcher, 
-                                 Style style,
-                                 boolean replace) {
-        
-        if (matcherType == STRING_MATCH ) {
-            stringTokens.clear();
+    /**
+     * Creates the runs of the specified line for the specified tokens,
+     * the last run extending to the line end.
+     */
+    private Element[] createRuns(Element line, List<Token> tokens) {
+
+        int count = tokens.size();
+        if (count == 0) {
+
+            return new Element[] {createLeafElement(line, styles[WORD],
+                    line.getStartOffset(), line.getEndOffset())};
         }
-        
-        int start = 0;
-        int end = 0;
-        int realStart = 0;
-        int realEnd = 0;
 
-        boolean applyStyle = true;
-        matcher.reset(text);
+        Element[] runs = new Element[count];
+        for (int i = 0; i < count; i++) {
 
-        // the string token count for when we are not
-        // processing string tokens
-        int stringTokenCount = stringTokens.size();        
-        
-        int length = text.length();
-        int matcherStart = 0;
-        while (matcher.find(matcherStart)) {
-            start = matcher.start();
-            end = matcher.end();
-
-            realStart = start + startOffset;
-            realEnd = end + startOffset;
-           
-            applyStyle = true;
-            
-            // if this is a string mather add to the cache
-            if (matcherType == STRING_MATCH) {
-                stringTokens.add(new Token(realStart, realEnd));
-            }
-            // compare against string cache to apply
-            else if (matcherType == SINGLE_LINE_COMMENT_MATCH) {
-                if (stringTokenCount > 0) {
-                    /*
-                    Log.debug("text: " +text);
-                    Log.debug("length: " +text.length());
-                    Log.debug("string tokens: "+stringTokenCount);
-                    Log.debug("start: " +startOffset);
-                    Log.debug("realStart: " + realStart + 
-                            " realEnd: "+realEnd);
-                    */
-
-                    // check we are not within a string literal
-                    for (int i = 0; i < stringTokenCount; i++) {
-                        Token token = stringTokens.get(i);
-                        int tokenStart = token.getStartIndex();
-                        int tokenEnd = token.getEndIndex();
-
-                        if (realStart > tokenEnd) {
-                            continue;
-                        }
-
-                        //Log.debug(token);
-
-                        if (realStart < tokenStart) {
-                            applyStyle = true;
-                            break;
-                        }
-
-                        if (realStart > tokenStart && realStart < tokenEnd) {
-                            // set the end to the end of the string
-                            // token for the matcher reset
-                            end = token.getEndIndex() - startOffset;
-                            applyStyle = false;
-                            break;
-                        }
-                        
-                    }
-                }
-            }
-            
-            if (applyStyle) {
-                setCharacterAttributes(realStart, 
-                                       end - start, 
-                                       style,
-                                       replace);
-            }
+            Token token = tokens.get(i);
+            int endIndex = (i == count - 1) ? line.getEndOffset() : token.getEndIndex();
+            runs[i] = createLeafElement(line, styles[token.getStyle()], token.getStartIndex(), endIndex);
+        }
 
-            matcherStart = end + 1;
-            if (matcherStart > length) {
-                break;
+        return runs;
+    }
+
+    /**
+     * Replaces the runs of the specified lines as one change - as
+     * setCharacterAttributes would for each run.
+     */
+    private void applyRuns(List<Element> lines, List<Element[]> runs) {
+
+        int count = lines.size();
+        if (count == 0) {
+            return;
+        }
+
+        int startOffset = lines.get(0).getStartOffset();
+        int endOffset = Math.min(lines.get(count - 1).getEndOffset(), getLength());
+
+        DefaultDocumentEvent changes = new DefaultDocumentEvent(
+                startOffset, endOffset - startOffset, DocumentEvent.EventType.CHANGE);
+
+        for (int i = 0; i < count; i++) {
+
+            BranchElement line = (BranchElement) lines.get(i);
+            Element[] added = runs.get(i);
+
+            Element[] removed = new Element[line.getElementCount()];
+            for (int j = 0; j < removed.length; j++) {
+                removed[j] = line.getElement(j);
             }
 
+            line.replace(0, removed.length, added);
+            changes.addEdit(new ElementEdit(line, 0, removed, added));
         }
-        matcher.reset(Constants.EMPTY);
+
+        changes.end();
+        fireChangedUpdate(changes);
+        fireUndoableEditUpdate(new UndoableEditEvent(this, changes));
+
+        lines.clear();
+        runs.clear();
     }
 
     public void replace(int offset, int length, 
@@ -1013,42 +923,24 @@ public class SQLSyntaxDocument extends DefaultStyledDocument
      * Sets the SQL keywords to be applied to this document.
      *
      * @param keywords - the keywords list
-     * @param reset
+     * @param reset - whether to restyle the current text
      */
     public void setSQLKeywords(List<String> keywords, boolean reset) {
-        StringBuffer sb = new StringBuffer("\\b(?:");
-        // the last start char
-        char lastFirstChar = 0;
 
-        // we are trying to achieve the following regex
-        // where the first char of each group is the same char 
-        // as in: t(?:his|hat) as opposed to (?:this|that)
-        
-        for (int i = 0, k = keywords.size(); i < k; i++) {
-            String _keyword = keywords.get(i).trim();
-            
-            char firstChar = _keyword.charAt(0);
-            if (firstChar == lastFirstChar) {
-                sb.append("|");
-                sb.append(_keyword.substring(1));
-            }
-            else {
-                if (i > 0) {
-                    sb.append(")|");
-                }
-                sb.append(firstChar);
-                sb.append("(?:");
-                sb.append(_keyword.substring(1));
-                lastFirstChar = firstChar;
+        lexer.setKeywords(keywords);
+        if (reset && getLength() > 0) {
+
+            try {
+
+                processChangedLines(0, getLength());
+
+            } catch (BadLocationException e) {
+
+                Log.debug("Error applying SQL keywords", e);
             }
 
         }
-        sb.append("))\\b");
-        
-        Matcher matcher = Pattern.compile(
-                            sb.toString(), 
-                            Pattern.CASE_INSENSITIVE).matcher(Constants.EMPTY);
-        matchers[KEYWORD_MATCH] = new TokenMatcher(KEYWORD, styles[KEYWORD], matcher);
+
     }
 
     public int getInsertMode() {
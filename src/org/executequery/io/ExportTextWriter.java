@@ -0,0 +1,382 @@
+/*
+ * ExportTextWriter.java
+ *
+ * Copyright (C) 2002-2017 Takis Diakoumis
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.executequery.io;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.lang.StringUtils;
+import org.executequery.log.Log;
+import org.underworldlabs.util.SystemProperties;
+
+/**
+ * A buffered text sink for exported data.
+ * <p/>
+ * Values are copied straight into a large char buffer which is
+ * encoded to the file only when full - there is no flush per line
+ * and no intermediate string built per row. Values of a row are
+ * written with {@link #value(CharSequence)} which inserts the
+ * delimiter between them, and the row is ended with {@link #endRow()}.
+ * <p/>
+ * Files named with a <code>.gz</code> extension are gzip compressed
+ * as they are written.
+ * <p/>
+ * Unlike a PrintWriter, errors writing the file are thrown rather
+ * than held for a later check.
+ */
+public final class ExportTextWriter implements Closeable, Flushable {
+
+    /** the user property for the export file character set */
+    public static final String ENCODING_KEY = "export.file.encoding";
+
+    /** the extension of files compressed on export */
+    public static final String GZIP_EXTENSION = ".gz";
+
+    private static final int CHAR_BUFFER_SIZE = 64 * 1024;
+
+    private static final int STREAM_BUFFER_SIZE = 256 * 1024;
+
+    private static final String LINE_SEPARATOR = System.getProperty("line.separator");
+
+    private final OutputStream out;
+
+    private final CharsetEncoder encoder;
+
+    private final char[] chars = new char[CHAR_BUFFER_SIZE];
+
+    private final CharBuffer charBuffer = CharBuffer.wrap(chars);
+
+    private final ByteBuffer byteBuffer;
+
+    private int position;
+
+    private String delimiter = ",";
+
+    private boolean rowStarted;
+
+    private boolean closed;
+
+    /**
+     * Creates a new writer to the specified file
+     * in the configured export character set.
+     */
+    public ExportTextWriter(File file) throws IOException {
+
+        this(file, configuredCharset());
+    }
+
+    /**
+     * Creates a new writer to the specified file in the
+     * specified character set, replacing any existing file.
+     */
+    public ExportTextWriter(File file, Charset charset) throws IOException {
+
+        OutputStream stream = new FileOutputStream(file, false);
+        if (isCompressed(file)) {
+
+            stream = new GZIPOutputStream(stream, STREAM_BUFFER_SIZE);
+        }
+        out = stream;
+
+        encoder = charset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+        byteBuffer = ByteBuffer.allocate(
+                (int) Math.ceil(CHAR_BUFFER_SIZE * (double) encoder.maxBytesPerChar()));
+    }
+
+    /**
+     * Returns the configured export character set,
+     * the platform default if none is set.
+     */
+    public static Charset configuredCharset() {
+
+        String encoding = SystemProperties.getProperty("user", ENCODING_KEY);
+        if (StringUtils.isNotBlank(encoding)) {
+
+            try {
+
+                return Charset.forName(encoding.trim());
+
+            } catch (IllegalArgumentException e) {
+
+                Log.warning("Unsupported export file encoding " + encoding
+                        + " - using " + Charset.defaultCharset().name());
+            }
+
+        }
+
+        return Charset.defaultCharset();
+    }
+
+    /**
+     * Returns whether the specified file is compressed on export.
+     */
+    public static boolean isCompressed(File file) {
+
+        return file.getName().toLowerCase().endsWith(GZIP_EXTENSION);
+    }
+
+    /**
+     * Sets the delimiter written between the values of a row.
+     */
+    public ExportTextWriter setDelimiter(String delimiter) {
+
+        this.delimiter = delimiter;
+        return this;
+    }
+
+    /**
+     * Writes the next value of the current row.
+     */
+    public void value(CharSequence value) throws IOException {
+
+        value(value, false);
+    }
+
+    /**
+     * Writes the next value of the current row, enclosed in
+     * double quotes if specified.
+     */
+    public void value(CharSequence value, boolean quoted) throws IOException {
+
+        startValue(quoted);
+        write(value);
+        endValue(quoted);
+    }
+
+    /**
+     * Writes the next value of the current row with line feed and
+     * carriage return characters escaped as \n and \r so that the
+     * row remains on a single line.
+     */
+    public void escapedValue(CharSequence value, boolean quoted) throws IOException {
+
+        startValue(quoted);
+
+        for (int i = 0, n = value.length(); i < n; i++) {
+
+            char c = value.charAt(i);
+            if (c == '\n') {
+
+                write('\\');
+                write('n');
+
+            } else if (c == '\r') {
+
+                write('\\');
+                write('r');
+
+            } else {
+
+                write(c);
+            }
+
+        }
+
+        endValue(quoted);
+    }
+
+    /**
+     * Ends the current row.
+     */
+    public void endRow() throws IOException {
+
+        write(LINE_SEPARATOR);
+        rowStarted = false;
+    }
+
+    /**
+     * Writes the specified text followed by a line separator.
+     */
+    public void println(CharSequence text) throws IOException {
+
+        write(text);
+        endRow();
+    }
+
+    /**
+     * Writes the specified text.
+     */
+    public void write(CharSequence text) throws IOException {
+
+        int length = text.length();
+        if (text instanceof String) {
+
+            int offset = 0;
+            while (offset < length) {
+
+                if (position == chars.length) {
+
+                    drain();
+                }
+
+                int count = Math.min(length - offset, chars.length - position);
+                ((String) text).getChars(offset, offset + count, chars, position);
+                position += count;
+                offset += count;
+            }
+
+        } else {
+
+            for (int i = 0; i < length; i++) {
+
+                write(text.charAt(i));
+            }
+
+        }
+
+    }
+
+    /**
+     * Writes the specified character.
+     */
+    public void write(char c) throws IOException {
+
+        if (position == chars.length) {
+
+            drain();
+        }
+        chars[position++] = c;
+    }
+
+    /**
+     * Writes all buffered text to the file.
+     */
+    public void flush() throws IOException {
+
+        drain();
+        out.flush();
+    }
+
+    /**
+     * Writes all buffered text and closes the file.
+     */
+    public void close() throws IOException {
+
+        if (closed) {
+
+            return;
+        }
+        closed = true;
+
+        try {
+
+            drain();
+            encode(CharBuffer.allocate(0), true);
+            flushBytes();
+
+        } finally {
+
+            out.close();
+        }
+
+    }
+
+    private void startValue(boolean quoted) throws IOException {
+
+        if (rowStarted) {
+
+            write(delimiter);
+        }
+        rowStarted = true;
+
+        if (quoted) {
+
+            write('"');
+        }
+
+    }
+
+    private void endValue(boolean quoted) throws IOException {
+
+        if (quoted) {
+
+            write('"');
+        }
+
+    }
+
+    private void drain() throws IOException {
+
+        charBuffer.limit(position);
+        charBuffer.position(0);
+
+        encode(charBuffer, false);
+
+        // keep a surrogate split across the end of the buffer
+        int remaining = charBuffer.remaining();
+        if (remaining > 0) {
+
+            System.arraycopy(chars, charBuffer.position(), chars, 0, remaining);
+        }
+        position = remaining;
+        charBuffer.clear();
+    }
+
+    private void encode(CharBuffer input, boolean endOfInput) throws IOException {
+
+        while (true) {
+
+            CoderResult result = encoder.encode(input, byteBuffer, endOfInput);
+            if (result.isOverflow()) {
+
+                flushBytes();
+                continue;
+            }
+
+            if (endOfInput) {
+
+                while (encoder.flush(byteBuffer).isOverflow()) {
+
+                    flushBytes();
+                }
+
+            }
+
+            break;
+        }
+
+    }
+
+    private void flushBytes() throws IOException {
+
+        if (byteBuffer.position() > 0) {
+
+            out.write(byteBuffer.array(), 0, byteBuffer.position());
+            byteBuffer.clear();
+        }
+
+    }
+
+}
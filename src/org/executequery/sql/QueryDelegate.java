@@ -92,6 +92,17 @@ public interface QueryDelegate {
      */
     void setResultSet(ResultSet rs, String query) throws SQLException;
 
+    /** Sets the table results to the specified
+     *  <code>ResultSet</code> object for display reading only
+     *  its first page of rows, the remainder fetched on request.
+     *
+     *  @param the table results to display
+     *  @param the executed query of the result set
+     *  @return whether rows remain to be fetched - the results
+     *          then own the result set and its statement
+     */
+    boolean setPagedResultSet(ResultSet rs, String query) throws SQLException;
+
     /** Adds the specified SQL statement to the statement
      *  history list if available.
      *
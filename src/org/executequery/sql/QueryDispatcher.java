@@ -20,26 +20,20 @@
 
 package org.executequery.sql;
 
-import java.net.MalformedURLException;
-import java.net.URL;
-import java.net.URLClassLoader;
 import java.sql.*;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
-import biz.redsoft.IFBDatabasePerformance;
 import biz.redsoft.IFBPerformanceInfo;
 import org.executequery.Constants;
+import org.executequery.UserPreferencesManager;
 import org.executequery.databasemediators.DatabaseConnection;
-import org.executequery.databasemediators.DatabaseDriver;
 import org.executequery.databasemediators.QueryTypes;
 import org.executequery.databasemediators.spi.DefaultStatementExecutor;
 import org.executequery.databasemediators.spi.StatementExecutor;
 import org.executequery.datasource.ConnectionManager;
-import org.executequery.datasource.DefaultDriverLoader;
+import org.executequery.datasource.ConnectionStatisticsCollector;
 import org.executequery.log.Log;
 import org.executequery.util.ThreadUtils;
 import org.executequery.util.ThreadWorker;
@@ -81,6 +75,9 @@ public class QueryDispatcher {
 
     private QueryTokenizer queryTokenizer;
 
+    /** output queued for delivery on the EDT */
+    private QueryOutputQueue outputQueue;
+
     private boolean waiting;
 
     // ------------------------------------------------
@@ -100,6 +97,7 @@ public class QueryDispatcher {
     public QueryDispatcher(QueryDelegate runner) {
         try {
         this.delegate = runner;
+        this.outputQueue = new QueryOutputQueue(runner);
 
         querySender = new DefaultStatementExecutor(null, true);
 
@@ -126,8 +124,6 @@ public class QueryDispatcher {
     private void initialiseLogging() {
 
         verboseLogging = userProperties().getBooleanProperty("editor.logging.verbose");
-
-        newLineMatcher = Pattern.compile("\n").matcher("");
     }
 
     /**
@@ -232,13 +228,15 @@ public class QueryDispatcher {
 
             public void finished() {
 
+                outputQueue.flush();
                 delegate.finished(duration);
 
                 if (statementCancelled) {
 
                     setOutputMessage(SqlMessages.PLAIN_MESSAGE,
                                      "Statement cancelled");
-                    delegate.setStatusMessage(" Statement cancelled");
+                    setStatusMessage(" Statement cancelled");
+                    outputQueue.flush();
                 }
 
                 querySender.releaseResources();
@@ -341,9 +339,7 @@ public class QueryDispatcher {
      */
     private Object executeSQL(String sql, boolean executeAsBlock) {
 
-        IFBPerformanceInfo before, after;
-        before = null;
-        after = null;
+        IFBPerformanceInfo before = null;
 
         waiting = false;
         long totalDuration = 0l;
@@ -382,7 +378,7 @@ public class QueryDispatcher {
 
                     } else {
 
-                        setResultSet(rset, sql);
+                        setResultSet(rset, sql, true);
                     }
 
                 } else {
@@ -425,7 +421,10 @@ public class QueryDispatcher {
             }
 
             List<DerivedQuery> queries = queryTokenizer.tokenize(sql);
+            ConnectionStatisticsCollector statistics =
+                    ConnectionManager.getStatisticsCollector(querySender.getDatabaseConnection());
             boolean removeQueryComments = userProperties().getBooleanProperty("editor.execute.remove.comments");
+            int fetchSize = resultSetFetchSize();
 
             for (DerivedQuery query : queries) {
 
@@ -465,57 +464,10 @@ public class QueryDispatcher {
 
                 }
 
-                try {
-                    DatabaseConnection databaseConnection = this.querySender.getDatabaseConnection();
-                    DefaultDriverLoader driverLoader = new DefaultDriverLoader();
-                    Map<String, Driver> loadedDrivers = driverLoader.getLoadedDrivers();
-                    DatabaseDriver jdbcDriver = databaseConnection.getJDBCDriver();
-                    Driver driver = loadedDrivers.get(jdbcDriver.getId() + "-" + jdbcDriver.getClassName());
-
-                    if (driver.getClass().getName().contains("FBDriver")) {
-
-                        Connection connection = null;
-                        try {
-                            connection = querySender.getConnection().unwrap(Connection.class);
-                        } catch (SQLException e) {
-                            e.printStackTrace();
-                        }
-
-                        URL[] urls = new URL[0];
-                        Class clazzdb = null;
-                        Object odb = null;
-                        try {
-                            urls = MiscUtils.loadURLs("./lib/fbplugin-impl.jar");
-                            ClassLoader cl = new URLClassLoader(urls, connection.getClass().getClassLoader());
-                            clazzdb = cl.loadClass("biz.redsoft.FBDatabasePerformanceImpl");
-                            odb = clazzdb.newInstance();
-                        } catch (ClassNotFoundException e) {
-                            e.printStackTrace();
-                        } catch (IllegalAccessException e) {
-                            e.printStackTrace();
-                        } catch (InstantiationException e) {
-                            e.printStackTrace();
-                        } catch (MalformedURLException e) {
-                            e.printStackTrace();
-                        }
-
-                        IFBDatabasePerformance db = (IFBDatabasePerformance)odb;
-                        try {
-
-                            db.setConnection(connection);
-                            before = db.getPerformanceInfo();
-
-                        } catch (SQLException e) {
-                            e.printStackTrace();
-                        }
-                    }
-
-                } catch (Exception e) {
-                    // nothing to do
-                }
+                before = statistics != null ? statistics.begin(querySender.getConnection()) : null;
 
                 start = System.currentTimeMillis();
-                SqlStatementResult result = querySender.execute(type, queryToExecute);
+                SqlStatementResult result = querySender.execute(type, queryToExecute, fetchSize);
 
                 if (statementCancelled || Thread.interrupted()) {
 
@@ -540,7 +492,7 @@ public class QueryDispatcher {
 
                         }
 
-                        printExecutionPlan(before, after);
+                        printExecutionPlan(statistics, before, queryToExecute, start);
 
                         setOutputMessage(SqlMessages.ERROR_MESSAGE,
                                          message);
@@ -549,11 +501,14 @@ public class QueryDispatcher {
                     } else {
 
                         // Trying to get execution plan of firebird statement
-                        printPlan(rset);
+                        printPlan(statistics, rset);
 
-                        setResultSet(rset, query.getOriginalQuery());
+                        // only the last result may be paged - the cursors of
+                        // the others are closed by the statements that follow
+                        setResultSet(rset, query.getOriginalQuery(),
+                                query == queries.get(queries.size() - 1));
 
-                        printExecutionPlan(before, after);
+                        printExecutionPlan(statistics, before, queryToExecute, start);
                     }
 
                     end = System.currentTimeMillis();
@@ -568,7 +523,7 @@ public class QueryDispatcher {
                         int updateCount = result.getUpdateCount();
                         if (updateCount == -1) {
 
-                            printExecutionPlan(before, after);
+                            printExecutionPlan(statistics, before, queryToExecute, start);
                             
                             setOutputMessage(SqlMessages.ERROR_MESSAGE,
                                     result.getErrorMessage());
@@ -578,7 +533,7 @@ public class QueryDispatcher {
 
                             if (result.isException()) {
 
-                                printExecutionPlan(before, after);
+                                printExecutionPlan(statistics, before, queryToExecute, start);
 
                                 setOutputMessage(SqlMessages.ERROR_MESSAGE, result.getErrorMessage());
                             } else {
@@ -592,7 +547,7 @@ public class QueryDispatcher {
                                     setStatusMessage(" " + result.getMessage());
                                 }
 
-                                printExecutionPlan(before, after);
+                                printExecutionPlan(statistics, before, queryToExecute, start);
 
                             }
                         }
@@ -604,14 +559,14 @@ public class QueryDispatcher {
 
                         if (results == null) {
 
-                            printExecutionPlan(before, after);
+                            printExecutionPlan(statistics, before, queryToExecute, start);
 
                             setOutputMessage(SqlMessages.ERROR_MESSAGE,result.getErrorMessage());
                             setStatusMessage(ERROR_EXECUTING);
 
                         } else {
 
-                            printExecutionPlan(before, after);
+                            printExecutionPlan(statistics, before, queryToExecute, start);
 
                             setOutputMessage(SqlMessages.PLAIN_MESSAGE, "Call executed successfully.");
                             int updateCount = result.getUpdateCount();
@@ -698,108 +653,36 @@ public class QueryDispatcher {
         return DONE;
     }
 
-    private void printExecutionPlan(IFBPerformanceInfo before, IFBPerformanceInfo after) {
-        // Trying to get execution plan of firebird statement
-        DatabaseConnection databaseConnection = this.querySender.getDatabaseConnection();
-        DefaultDriverLoader driverLoader = new DefaultDriverLoader();
-        Map<String, Driver> loadedDrivers = driverLoader.getLoadedDrivers();
-        DatabaseDriver jdbcDriver = databaseConnection.getJDBCDriver();
-        Driver driver = loadedDrivers.get(jdbcDriver.getId() + "-" + jdbcDriver.getClassName());
+    private void printExecutionPlan(ConnectionStatisticsCollector statistics,
+            IFBPerformanceInfo before, String query, long start) {
 
-        if (driver.getClass().getName().contains("FBDriver")) {
-
-            Connection connection = null;
-            try {
-                connection = querySender.getConnection().unwrap(Connection.class);
-            } catch (SQLException e) {
-                e.printStackTrace();
-            }
+        if (statistics == null || before == null) {
 
-            URL[] urls = new URL[0];
-            Class clazzdb = null;
-            Object odb = null;
-            try {
-                urls = MiscUtils.loadURLs("./lib/fbplugin-impl.jar");
-                ClassLoader cl = new URLClassLoader(urls, connection.getClass().getClassLoader());
-                clazzdb = cl.loadClass("biz.redsoft.FBDatabasePerformanceImpl");
-                odb = clazzdb.newInstance();
-            } catch (ClassNotFoundException e) {
-                e.printStackTrace();
-            } catch (IllegalAccessException e) {
-                e.printStackTrace();
-            } catch (InstantiationException e) {
-                e.printStackTrace();
-            } catch (MalformedURLException e) {
-                e.printStackTrace();
-            }
-
-            IFBDatabasePerformance db = (IFBDatabasePerformance)odb;
-            try {
-
-                db.setConnection(connection);
-                after = db.getPerformanceInfo();
-
-            } catch (SQLException e) {
-                e.printStackTrace();
-            }
+            return;
+        }
 
-                if (before != null && after != null) {
-                    IFBPerformanceInfo resultPerfomanceInfo = after.processInfo(before, after);
+        IFBPerformanceInfo delta = statistics.end(before,
+                querySender.getConnection(), query, System.currentTimeMillis() - start);
+        if (delta != null) {
 
-                    setOutputMessage(SqlMessages.PLAIN_MESSAGE, resultPerfomanceInfo.getPerformanceInfo());
-                }
+            setOutputMessage(SqlMessages.PLAIN_MESSAGE, delta.getPerformanceInfo());
         }
 
     }
 
-    private void printPlan(ResultSet rs) {
-        try {
-            DatabaseConnection databaseConnection = this.querySender.getDatabaseConnection();
-            DefaultDriverLoader driverLoader = new DefaultDriverLoader();
-            Map<String, Driver> loadedDrivers = driverLoader.getLoadedDrivers();
-            DatabaseDriver jdbcDriver = databaseConnection.getJDBCDriver();
-            Driver driver = loadedDrivers.get(jdbcDriver.getId() + "-" + jdbcDriver.getClassName());
-
-            if (driver.getClass().getName().contains("FBDriver")) {
-
-                ResultSet resultSet = null;
-                try {
-                    resultSet = rs.unwrap(ResultSet.class);
-                } catch (SQLException e) {
-                    e.printStackTrace();
-                }
+    private void printPlan(ConnectionStatisticsCollector statistics, ResultSet rs) {
 
-                URL[] urls = new URL[0];
-                Class clazzdb = null;
-                Object odb = null;
-                try {
-                    urls = MiscUtils.loadURLs("./lib/fbplugin-impl.jar");
-                    ClassLoader cl = new URLClassLoader(urls, resultSet.getClass().getClassLoader());
-                    clazzdb = cl.loadClass("biz.redsoft.FBDatabasePerformanceImpl");
-                    odb = clazzdb.newInstance();
-                } catch (ClassNotFoundException e) {
-                    e.printStackTrace();
-                } catch (IllegalAccessException e) {
-                    e.printStackTrace();
-                } catch (InstantiationException e) {
-                    e.printStackTrace();
-                } catch (MalformedURLException e) {
-                    e.printStackTrace();
-                }
+        if (statistics == null) {
 
-                IFBDatabasePerformance db = (IFBDatabasePerformance)odb;
-                try {
-
-                    setOutputMessage(SqlMessages.PLAIN_MESSAGE, db.getLastExecutedPlan(resultSet));
+            return;
+        }
 
-                } catch (SQLException e) {
-                    e.printStackTrace();
-                }
-            }
+        String plan = statistics.executionPlan(rs);
+        if (plan != null) {
 
-        } catch (Exception e) {
-            e.printStackTrace();
+            setOutputMessage(SqlMessages.PLAIN_MESSAGE, plan);
         }
+
     }
 
     private String formatDuration(long totalDuration) {
@@ -809,7 +692,7 @@ public class QueryDispatcher {
 
     private void setResult(int updateCount, int type) {
 
-        delegate.setResult(updateCount, type);
+        outputQueue.result(updateCount, type);
     }
 
     private void statementExecuted(String sql) {
@@ -931,20 +814,14 @@ public class QueryDispatcher {
 
     }
 
-    private void setResultText(final int result, final int type) {
-        ThreadUtils.invokeAndWait(new Runnable() {
-            public void run() {
-                delegate.setResult(result, type);
-            }
-        });
+    private void setResultText(int result, int type) {
+
+        outputQueue.result(result, type);
     }
 
-    private void setStatusMessage(final String text) {
-        ThreadUtils.invokeAndWait(new Runnable() {
-            public void run() {
-                delegate.setStatusMessage(text);
-            }
-        });
+    private void setStatusMessage(String text) {
+
+        outputQueue.statusMessage(text);
     }
 
     private void setOutputMessage(final int type, final String text) {
@@ -952,53 +829,47 @@ public class QueryDispatcher {
         setOutputMessage(type, text, true);
     }
 
-    private void setOutputMessage(final int type, final String text, final boolean selectTab) {
-        ThreadUtils.invokeAndWait(new Runnable() {
-            public void run() {
-                delegate.setOutputMessage(type, text, selectTab);
-                if (text != null) {
-                    logOutput(text);
-                }
-            }
-        });
+    private void setOutputMessage(int type, String text, boolean selectTab) {
+
+        outputQueue.outputMessage(type, text, selectTab);
     }
 
-    private void setResultSet(final ResultSet rs, final String query) {
-/*
-        ThreadUtils.invokeAndWait(new Runnable() {
-            public void run() {
-                try {
-                    delegate.setResultSet(rs, query);
-                } catch (SQLException e) {
-                    processException(e);
+    private void setResultSet(ResultSet rs, String query, boolean pageable) {
+
+        // the results are read here and displayed on the
+        // EDT so any preceding output is delivered first
+        outputQueue.flushLater();
+
+        try {
+
+            if (pageable && UserPreferencesManager.isResultSetPaged()) {
+
+                if (delegate.setPagedResultSet(rs, query)) {
+
+                    // the results model now owns the statement
+                    // and closes it once all rows are fetched
+                    querySender.detachCurrentStatement();
                 }
+
+            } else {
+
+                delegate.setResultSet(rs, query);
             }
-        });
-*/
-        try {
-            delegate.setResultSet(rs, query);
+
         } catch (SQLException e) {
             processException(e);
         }
 
     }
 
-    /** matcher to remove new lines from log messages */
-    private Matcher newLineMatcher;
-
-    /**
-     * Logs the specified text to the logger.
-     *
-     * @param text - the text to log
-     */
-    private void logOutput(String text) {
+    private int resultSetFetchSize() {
 
-        if (delegate.isLogEnabled()) {
+        if (UserPreferencesManager.isResultSetPaged()) {
 
-            newLineMatcher.reset(text);
-            delegate.log(newLineMatcher.replaceAll(" "));
+            return Math.max(UserPreferencesManager.getResultSetFetchSize(), 1);
         }
 
+        return -1;
     }
 
     /**
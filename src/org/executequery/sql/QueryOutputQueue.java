@@ -0,0 +1,237 @@
+/*
+ * QueryOutputQueue.java
+ *
+ * Copyright (C) 2002-2017 Takis Diakoumis
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.executequery.sql;
+
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.swing.Timer;
+
+import org.executequery.Constants;
+import org.executequery.util.ThreadUtils;
+
+/**
+ * Queues the output of an executing query for the query delegate.
+ * <p/>
+ * Messages may be added from any thread without waiting on the EDT.
+ * Queued messages are delivered on the EDT at most once per flush
+ * interval with consecutive output messages of the same type appended
+ * to the output pane in one call and only the last status message of
+ * each flush displayed.
+ */
+final class QueryOutputQueue implements ActionListener {
+
+    /** the minimum interval between deliveries in millis */
+    private static final int FLUSH_INTERVAL = 40;
+
+    private static final String MESSAGE_SEPARATOR =
+            Constants.NEW_LINE_STRING + Constants.NEW_LINE_STRING;
+
+    private final QueryDelegate delegate;
+
+    private final Queue<Output> queue = new ConcurrentLinkedQueue<Output>();
+
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+    private final Timer timer;
+
+    /** matcher to remove new lines from log messages */
+    private final Matcher newLineMatcher = Pattern.compile("\n").matcher("");
+
+    private final Runnable flush = new Runnable() {
+        public void run() {
+            flush();
+        }
+    };
+
+    QueryOutputQueue(QueryDelegate delegate) {
+
+        this.delegate = delegate;
+
+        timer = new Timer(FLUSH_INTERVAL, this);
+        timer.setRepeats(false);
+    }
+
+    void outputMessage(int type, String text, boolean selectTab) {
+
+        add(new Output(Output.MESSAGE, type, text, selectTab));
+    }
+
+    void statusMessage(String text) {
+
+        add(new Output(Output.STATUS, 0, text, false));
+    }
+
+    void result(int updateCount, int type) {
+
+        add(new Output(Output.RESULT, type, null, false, updateCount));
+    }
+
+    /**
+     * Delivers the queued output ahead of any work the calling thread
+     * subsequently passes to the EDT. Output is delivered immediately
+     * where called from the EDT.
+     */
+    void flushLater() {
+
+        if (!queue.isEmpty()) {
+
+            ThreadUtils.invokeLater(flush);
+        }
+
+    }
+
+    public void actionPerformed(ActionEvent e) {
+
+        flush();
+    }
+
+    /**
+     * Delivers all queued output to the delegate. To be called on the EDT.
+     */
+    void flush() {
+
+        flushScheduled.set(false);
+
+        String status = null;
+        Output pending = null;
+        StringBuilder text = new StringBuilder();
+
+        Output output;
+        while ((output = queue.poll()) != null) {
+
+            if (output.kind == Output.STATUS) {
+
+                status = output.text;
+                continue;
+            }
+
+            if (pending != null && output.kind == Output.MESSAGE
+                    && pending.type == output.type && output.text != null) {
+
+                text.append(MESSAGE_SEPARATOR).append(output.text);
+                pending.selectTab |= output.selectTab;
+                log(output.text);
+                continue;
+            }
+
+            deliver(pending, text);
+            pending = null;
+
+            if (output.kind == Output.MESSAGE && output.text != null) {
+
+                pending = output;
+                text.append(output.text);
+                log(output.text);
+
+            } else {
+
+                deliver(output, null);
+            }
+
+        }
+
+        deliver(pending, text);
+
+        if (status != null) {
+
+            delegate.setStatusMessage(status);
+        }
+
+    }
+
+    private void deliver(Output output, StringBuilder text) {
+
+        if (output == null) {
+
+            return;
+        }
+
+        if (output.kind == Output.RESULT) {
+
+            delegate.setResult(output.updateCount, output.type);
+
+        } else if (text != null) {
+
+            delegate.setOutputMessage(output.type, text.toString(), output.selectTab);
+            text.setLength(0);
+
+        } else {
+
+            delegate.setOutputMessage(output.type, output.text, output.selectTab);
+        }
+
+    }
+
+    private void add(Output output) {
+
+        queue.add(output);
+        if (flushScheduled.compareAndSet(false, true)) {
+
+            timer.restart();
+        }
+
+    }
+
+    private void log(String text) {
+
+        if (delegate.isLogEnabled()) {
+
+            newLineMatcher.reset(text);
+            delegate.log(newLineMatcher.replaceAll(" "));
+        }
+
+    }
+
+    static final class Output {
+
+        static final int MESSAGE = 0;
+        static final int STATUS = 1;
+        static final int RESULT = 2;
+
+        final int kind;
+        final int type;
+        final String text;
+        final int updateCount;
+        boolean selectTab;
+
+        Output(int kind, int type, String text, boolean selectTab) {
+
+            this(kind, type, text, selectTab, 0);
+        }
+
+        Output(int kind, int type, String text, boolean selectTab, int updateCount) {
+
+            this.kind = kind;
+            this.type = type;
+            this.text = text;
+            this.selectTab = selectTab;
+            this.updateCount = updateCount;
+        }
+
+    }
+
+}
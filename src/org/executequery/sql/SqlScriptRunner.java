@@ -20,7 +20,14 @@
 
 package org.executequery.sql;
 
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.sql.BatchUpdateException;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.sql.Statement;
@@ -28,8 +35,10 @@ import java.util.ArrayList;
 import java.util.List;
 
 import org.executequery.databasemediators.DatabaseConnection;
+import org.executequery.databasemediators.QueryTypes;
 import org.executequery.datasource.ConnectionManager;
-import org.underworldlabs.util.FileUtils;
+import org.apache.commons.lang.StringUtils;
+import org.underworldlabs.util.EncodingDetector;
 import org.underworldlabs.util.MiscUtils;
 
 public class SqlScriptRunner {
@@ -40,12 +49,35 @@ public class SqlScriptRunner {
 
     private boolean cancel;
 
+    private int batchSize = 1;
+
+    private int commitInterval;
+
     public SqlScriptRunner(ExecutionController executionController) {
 
         super();
         this.executionController = executionController;
     }
 
+    /**
+     * Sets the number of consecutive INSERT, UPDATE and DELETE statements
+     * sent to the server as a single JDBC batch. Other statements are
+     * always executed individually. A size of 1 or less disables batching.
+     */
+    public void setBatchSize(int batchSize) {
+
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Sets the number of executed statements after which the work is
+     * committed. A value of 0 or less leaves the commit to the caller.
+     */
+    public void setCommitInterval(int commitInterval) {
+
+        this.commitInterval = commitInterval;
+    }
+
     public void stop() {
         
         cancel = true;
@@ -58,57 +90,74 @@ public class SqlScriptRunner {
         int result = 0;
 
         Statement statement = null;
+        StreamingQueryTokenizer queryTokenizer = null;
         SqlStatementResult sqlStatementResult = new SqlStatementResult();
         
         try {
 
             cancel = false;
             executionController.message("Reading input file " + fileName);
-            String script = FileUtils.loadFile(fileName);
-            
-            executionController.message("Scanning and tokenizing queries...");
-            QueryTokenizer queryTokenizer = new QueryTokenizer();
-            List<DerivedQuery> queries = queryTokenizer.tokenize(script);
+            queryTokenizer = new StreamingQueryTokenizer(openScript(fileName));
             
             close();
             connection = ConnectionManager.getConnection(databaseConnection);
             connection.setAutoCommit(false);
 
-            List<DerivedQuery> executableQueries = new ArrayList<DerivedQuery>();
-            
-            for (DerivedQuery query : queries) {
-
-                if (shouldNotContinue()) {
-
-                    throw new InterruptedException();
-                }
-
-                if (query.isExecutable()) {
-
-                    executableQueries.add(query);
-                }
-                
-            }
-            queries.clear();
-            
-            executionController.message("Found " + executableQueries.size() + " executable queries");            
             executionController.message("Executing...");
 
             long start = 0L;
             long end = 0L;
             int thisResult = 0;
+            int uncommitted = 0;
 
             boolean logOutput = executionController.logOutput();
+            boolean batched = batchSize > 1;
+            List<DerivedQuery> batch = new ArrayList<DerivedQuery>();
             
             statement = connection.createStatement();
-            for (DerivedQuery query : executableQueries) {
+
+            DerivedQuery query = null;
+            while ((query = queryTokenizer.next()) != null) {
 
                 if (shouldNotContinue()) {
 
                     throw new InterruptedException();
                 }
 
+                if (!query.isExecutable()) {
+
+                    continue;
+                }
+
                 String derivedQuery = query.getDerivedQuery();
+                if (batched && isBatchable(query)) {
+
+                    count++;
+                    if (logOutput) {
+
+                        executionController.message("Adding query " + count + " to batch:");
+                        executionController.queryMessage(derivedQuery);
+                    }
+
+                    statement.addBatch(derivedQuery);
+                    batch.add(query);
+                    if (batch.size() >= batchSize) {
+
+                        uncommitted += batch.size();
+                        result += executeBatch(statement, batch, actionOnError);
+                        uncommitted = commitIfRequired(uncommitted);
+                    }
+
+                    continue;
+                }
+
+                if (!batch.isEmpty()) {
+
+                    uncommitted += batch.size();
+                    result += executeBatch(statement, batch, actionOnError);
+                    uncommitted = commitIfRequired(uncommitted);
+                }
+
                 try {
 
                     count++;
@@ -146,6 +195,14 @@ public class SqlScriptRunner {
                     executionController.message("Records affected: " + thisResult + "\nDuration: " + MiscUtils.formatDuration(end - start));
                 }
 
+                uncommitted = commitIfRequired(uncommitted + 1);
+            }
+
+            if (!batch.isEmpty()) {
+
+                uncommitted += batch.size();
+                result += executeBatch(statement, batch, actionOnError);
+                commitIfRequired(uncommitted);
             }
             
         } catch (IOException e) {
@@ -175,6 +232,15 @@ public class SqlScriptRunner {
                     e.printStackTrace();
                 }
             }
+
+            if (queryTokenizer != null) {
+
+                try {
+                    queryTokenizer.close();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
             
         }
         
@@ -184,6 +250,159 @@ public class SqlScriptRunner {
         return sqlStatementResult;
     }
 
+    private Reader openScript(String fileName) throws IOException {
+
+        File file = new File(fileName);
+        String charset = new EncodingDetector().detectCharset(file);
+
+        InputStream inputStream = new FileInputStream(file);
+        if (StringUtils.isNotBlank(charset)) {
+
+            return new BufferedReader(new InputStreamReader(inputStream, charset));
+        }
+
+        return new BufferedReader(new InputStreamReader(inputStream));
+    }
+
+    private boolean isBatchable(DerivedQuery query) {
+
+        int queryType = query.getQueryType();
+        return queryType == QueryTypes.INSERT
+                || queryType == QueryTypes.UPDATE
+                || queryType == QueryTypes.DELETE;
+    }
+
+    private int executeBatch(Statement statement, List<DerivedQuery> batch,
+            ActionOnError actionOnError) throws SQLException {
+
+        int result = 0;
+        long start = System.currentTimeMillis();
+        List<DerivedQuery> notExecuted = null;
+
+        try {
+
+            result = sumOfUpdateCounts(statement.executeBatch());
+
+        } catch (BatchUpdateException e) {
+
+            int[] updateCounts = e.getUpdateCounts();
+
+            executionController.errorMessage("Error executing batch of " + batch.size() + " statements:");
+            int failedIndex = failedStatementIndex(updateCounts);
+            if (failedIndex < batch.size()) {
+
+                executionController.actionMessage(batch.get(failedIndex).getDerivedQuery());
+            }
+
+            if (actionOnError != ActionOnError.CONTINUE) {
+
+                throw e;
+            }
+
+            executionController.errorMessage(e.getMessage());
+            result = sumOfUpdateCounts(updateCounts);
+
+            // a driver stopping at the failed statement leaves those following it
+            int executed = (updateCounts != null) ? updateCounts.length : 0;
+            if (executed + 1 < batch.size()) {
+
+                notExecuted = new ArrayList<DerivedQuery>(batch.subList(executed + 1, batch.size()));
+            }
+
+        } finally {
+
+            statement.clearBatch();
+        }
+
+        if (notExecuted != null) {
+
+            result += executeEach(statement, notExecuted);
+        }
+
+        long end = System.currentTimeMillis();
+        executionController.message("Executed batch of " + batch.size() + " statements\nRecords affected: "
+                + result + "\nDuration: " + MiscUtils.formatDuration(end - start));
+
+        batch.clear();
+        return result;
+    }
+
+    /**
+     * Executes the specified statements one at a time reporting
+     * and passing over any that fail.
+     */
+    private int executeEach(Statement statement, List<DerivedQuery> queries) {
+
+        int result = 0;
+        for (DerivedQuery query : queries) {
+
+            try {
+
+                result += Math.max(statement.executeUpdate(query.getDerivedQuery()), 0);
+
+            } catch (SQLException e) {
+
+                executionController.errorMessage("Error executing statement:");
+                executionController.actionMessage(query.getDerivedQuery());
+                executionController.errorMessage(e.getMessage());
+            }
+
+        }
+
+        return result;
+    }
+
+    private int failedStatementIndex(int[] updateCounts) {
+
+        if (updateCounts == null) {
+
+            return 0;
+        }
+
+        // drivers either stop at the failed statement or continue and mark it
+        for (int i = 0; i < updateCounts.length; i++) {
+
+            if (updateCounts[i] == Statement.EXECUTE_FAILED) {
+
+                return i;
+            }
+
+        }
+
+        return updateCounts.length;
+    }
+
+    private int sumOfUpdateCounts(int[] updateCounts) {
+
+        int result = 0;
+        if (updateCounts != null) {
+
+            for (int updateCount : updateCounts) {
+
+                if (updateCount > 0) {
+
+                    result += updateCount;
+                }
+
+            }
+
+        }
+
+        return result;
+    }
+
+    private int commitIfRequired(int uncommitted) throws SQLException {
+
+        if (commitInterval > 0 && uncommitted >= commitInterval) {
+
+            connection.commit();
+            executionController.message("Committed " + uncommitted + " statements");
+            return 0;
+        }
+
+        return uncommitted;
+    }
+
     private boolean shouldNotContinue() {
 
         return Thread.interrupted() || cancel;
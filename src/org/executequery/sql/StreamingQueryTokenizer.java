@@ -0,0 +1,270 @@
+/*
+ * StreamingQueryTokenizer.java
+ *
+ * Copyright (C) 2002-2017 Takis Diakoumis
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.executequery.sql;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.underworldlabs.util.InterruptedException;
+
+/**
+ * Single pass query tokenizer reading statements from a character
+ * stream as they are requested.
+ * <p/>
+ * Unlike the {@link QueryTokenizer} the script is never held in memory
+ * as a whole - only the statement currently being read is buffered, so
+ * scripts of any size may be executed with statements returned as soon
+ * as their delimiter is read. Quoted strings, quoted identifiers and
+ * comments are tracked as the text is read and <code>SET TERM</code>
+ * statements change the delimiter for the statements that follow.
+ */
+public class StreamingQueryTokenizer implements Closeable {
+
+    private static final String DEFAULT_DELIMITER = ";";
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private static final int NO_CHAR = -2;
+
+    private static final Pattern SET_TERM = Pattern.compile(
+            "SET\\s+TERM\\s+(\\S+)", Pattern.CASE_INSENSITIVE);
+
+    private enum State {
+        CODE, STRING, IDENTIFIER, LINE_COMMENT, BLOCK_COMMENT
+    }
+
+    private final Reader reader;
+
+    private final char[] buffer = new char[BUFFER_SIZE];
+
+    private int position;
+
+    private int limit;
+
+    private int pushedBack = NO_CHAR;
+
+    private String delimiter = DEFAULT_DELIMITER;
+
+    /** the statement text as read including comments */
+    private final StringBuilder original = new StringBuilder();
+
+    /** the statement text with all comments removed */
+    private final StringBuilder derived = new StringBuilder();
+
+    private State state = State.CODE;
+
+    public StreamingQueryTokenizer(Reader reader) {
+
+        super();
+        this.reader = reader;
+    }
+
+    /**
+     * Reads and returns the next statement from the stream, or null
+     * once the end of the stream is reached. Statements consisting only
+     * of white space and comments are skipped.
+     */
+    public DerivedQuery next() throws IOException {
+
+        if (Thread.interrupted()) {
+
+            throw new InterruptedException();
+        }
+
+        int c;
+        char previous = 0;
+        while ((c = read()) != -1) {
+
+            char ch = (char) c;
+            switch (state) {
+
+                case CODE:
+
+                    if (ch == '-' || ch == '/') {
+
+                        int following = read();
+                        if ((ch == '-' && following == '-') || (ch == '/' && following == '*')) {
+
+                            state = (ch == '-') ? State.LINE_COMMENT : State.BLOCK_COMMENT;
+                            original.append(ch).append((char) following);
+                            previous = 0;
+                            continue;
+                        }
+
+                        unread(following);
+                    }
+
+                    if (ch == '\'') {
+
+                        state = State.STRING;
+
+                    } else if (ch == '"') {
+
+                        state = State.IDENTIFIER;
+                    }
+
+                    original.append(ch);
+                    derived.append(ch);
+
+                    if (state == State.CODE && endsWithDelimiter()) {
+
+                        DerivedQuery query = completeStatement(delimiter.length());
+                        if (query != null) {
+
+                            return query;
+                        }
+
+                    }
+                    break;
+
+                case STRING:
+                case IDENTIFIER:
+
+                    original.append(ch);
+                    derived.append(ch);
+
+                    // a doubled quote closes and immediately reopens
+                    if ((state == State.STRING && ch == '\'') || (state == State.IDENTIFIER && ch == '"')) {
+
+                        state = State.CODE;
+                    }
+                    break;
+
+                case LINE_COMMENT:
+
+                    original.append(ch);
+                    if (ch == '\n') {
+
+                        derived.append(ch);
+                        state = State.CODE;
+                    }
+                    break;
+
+                case BLOCK_COMMENT:
+
+                    original.append(ch);
+                    if (ch == '/' && previous == '*') {
+
+                        state = State.CODE;
+                    }
+                    break;
+            }
+
+            previous = ch;
+        }
+
+        return completeStatement(0);
+    }
+
+    /**
+     * Returns the delimiter currently in effect.
+     */
+    public String getDelimiter() {
+
+        return delimiter;
+    }
+
+    public void close() throws IOException {
+
+        reader.close();
+    }
+
+    private DerivedQuery completeStatement(int delimiterLength) {
+
+        String derivedQuery = derived.substring(0, derived.length() - delimiterLength).trim();
+        String originalQuery = original.substring(0, original.length() - delimiterLength);
+
+        original.setLength(0);
+        derived.setLength(0);
+        state = State.CODE;
+
+        if (derivedQuery.length() == 0) {
+
+            return null;
+        }
+
+        Matcher matcher = SET_TERM.matcher(derivedQuery);
+        if (matcher.matches()) {
+
+            delimiter = matcher.group(1);
+            return null;
+        }
+
+        DerivedQuery query = new DerivedQuery(originalQuery);
+        query.setDerivedQuery(derivedQuery);
+
+        return query;
+    }
+
+    private boolean endsWithDelimiter() {
+
+        int length = delimiter.length();
+        int offset = derived.length() - length;
+        if (offset < 0) {
+
+            return false;
+        }
+
+        for (int i = 0; i < length; i++) {
+
+            if (Character.toUpperCase(derived.charAt(offset + i)) != Character.toUpperCase(delimiter.charAt(i))) {
+
+                return false;
+            }
+
+        }
+
+        return true;
+    }
+
+    private int read() throws IOException {
+
+        if (pushedBack != NO_CHAR) {
+
+            int c = pushedBack;
+            pushedBack = NO_CHAR;
+            return c;
+        }
+
+        if (position == limit) {
+
+            limit = reader.read(buffer, 0, BUFFER_SIZE);
+            position = 0;
+            if (limit <= 0) {
+
+                limit = 0;
+                return -1;
+            }
+
+        }
+
+        return buffer[position++];
+    }
+
+    private void unread(int c) {
+
+        pushedBack = c;
+    }
+
+}